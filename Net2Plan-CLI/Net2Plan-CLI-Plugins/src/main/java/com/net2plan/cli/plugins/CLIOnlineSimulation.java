@@ -12,6 +12,7 @@
 
 package com.net2plan.cli.plugins;
 
+import static com.net2plan.internal.sim.SimKernel.runReplications;
 import static com.net2plan.internal.sim.SimKernel.runSimulation;
 
 import java.io.File;
@@ -40,6 +41,7 @@ import com.net2plan.internal.plugins.ICLIModule;
 import com.net2plan.internal.sim.SimKernel;
 import com.net2plan.utils.ClassLoaderUtils;
 import com.net2plan.utils.HTMLUtils;
+import com.net2plan.utils.Pair;
 import com.net2plan.utils.StringUtils;
 import com.net2plan.utils.Triple;
 
@@ -63,7 +65,7 @@ public class CLIOnlineSimulation extends ICLIModule {
         inputFile.setArgName("file");
         OPTIONS.addOption(inputFile);
 
-        Option outputFile = new Option(null, "output-file", true, "Output HTML file with the simulation report");
+        Option outputFile = new Option(null, "output-file", true, "Output HTML file with the simulation report (with multiple replications, the report of each one will be saved as a sequence of '-repX.html', where X is the replication index)");
         outputFile.setType(PatternOptionBuilder.FILE_VALUE);
         outputFile.setArgName("file");
         outputFile.setRequired(true);
@@ -87,6 +89,16 @@ public class CLIOnlineSimulation extends ICLIModule {
         processorParameters.setValueSeparator('=');
         OPTIONS.addOption(processorParameters);
 
+        Option replications = new Option(null, "replications", true, "(Optional) number of independent replications of the simulation, with consecutive random seeds, to compute the confidence interval of the results. Default: 1");
+        replications.setType(PatternOptionBuilder.NUMBER_VALUE);
+        replications.setArgName("replications");
+        OPTIONS.addOption(replications);
+
+        Option replicationThreads = new Option(null, "replication-threads", true, "(Optional) maximum number of replications run in parallel. Default: number of available processors");
+        replicationThreads.setType(PatternOptionBuilder.NUMBER_VALUE);
+        replicationThreads.setArgName("threads");
+        OPTIONS.addOption(replicationThreads);
+
         Option eventGeneratorClassFile = new Option(null, "generator-class-file", true, ".class/.jar file containing the event generator");
         eventGeneratorClassFile.setType(PatternOptionBuilder.FILE_VALUE);
         eventGeneratorClassFile.setArgName("file");
@@ -158,10 +170,27 @@ public class CLIOnlineSimulation extends ICLIModule {
         File inputFile = (File) cli.getParsedOptionValue("input-file");
         File outputFile = (File) cli.getParsedOptionValue("output-file");
 
+        int numReplications = cli.hasOption("replications") ? ((Number) cli.getParsedOptionValue("replications")).intValue() : 1;
+        if (numReplications < 1) throw new Net2PlanException("The number of replications must be at least one");
+        int numThreads = cli.hasOption("replication-threads") ? ((Number) cli.getParsedOptionValue("replication-threads")).intValue() : Runtime.getRuntime().availableProcessors();
+
 		/* Initialize and run simulation */
         NetPlan aux_netPlan = new NetPlan(inputFile);
-        String html = runSimulation(new SimKernel(), aux_netPlan, aux_eventGenerator, customEventGeneratorParameters, aux_eventProcessor, customEventProcessorParameters, customSimulationParameters, net2planParameters).getSecond();
-        HTMLUtils.saveToFile(outputFile, html);
+        if (numReplications == 1)
+        {
+            String html = runSimulation(new SimKernel(), aux_netPlan, aux_eventGenerator, customEventGeneratorParameters, aux_eventProcessor, customEventProcessorParameters, customSimulationParameters, net2planParameters).getSecond();
+            HTMLUtils.saveToFile(outputFile, html);
+        }
+        else
+        {
+            Pair<String, List<String>> reports = runReplications(aux_netPlan, aux_eventGenerator, customEventGeneratorParameters, aux_eventProcessor, customEventProcessorParameters, customSimulationParameters, net2planParameters, numReplications, numThreads, 0.95);
+            HTMLUtils.saveToFile(outputFile, reports.getFirst());
+
+            String outputFileNameWithoutExtension = outputFile.getPath();
+            if (outputFileNameWithoutExtension.toLowerCase(Locale.getDefault()).endsWith(".html")) outputFileNameWithoutExtension = outputFileNameWithoutExtension.substring(0, outputFileNameWithoutExtension.length() - 5);
+            for (int r = 0; r < numReplications; r++)
+                HTMLUtils.saveToFile(new File(outputFileNameWithoutExtension + "-rep" + r + ".html"), reports.getSecond().get(r));
+        }
     }
 
     @Override
@@ -159,23 +159,20 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 		this.carriedTraffic = origin.carriedTraffic;
 		this.routingType = origin.routingType;
 		this.routingCycleType = origin.routingCycleType;
-		this.coupledUpperOrSameLayerLink = origin.coupledUpperOrSameLayerLink == null? null : this.netPlan.getLinkFromId (origin.coupledUpperOrSameLayerLink.id);
-		this.cache_routes = new TreeSet<Route> ();
-		for (Route r : origin.cache_routes) this.cache_routes.add(this.netPlan.getRouteFromId(r.id));
+		this.coupledUpperOrSameLayerLink = origin.coupledUpperOrSameLayerLink == null? null : this.netPlan.getPeerElementInThisNetPlan(origin.coupledUpperOrSameLayerLink);
+		this.cache_routes = new TreeSet<Route> (this.netPlan.getPeerElementsInThisNetPlan(origin.cache_routes));
 		this.mandatorySequenceOfTraversedResourceTypes = new ArrayList<String> (origin.mandatorySequenceOfTraversedResourceTypes);
 		this.recoveryType = origin.recoveryType;
 		this.cache_worstCasePropagationTimeMs = origin.cache_worstCasePropagationTimeMs;
 		this.cache_worstCaseLengthInKm = origin.cache_worstCaseLengthInKm;
 		this.cacheHbH_frs.clear();
-		for (Link originLink : origin.cacheHbH_frs.keySet())
-			this.cacheHbH_frs.put(netPlan.getLinkFromId(originLink.id), origin.cacheHbH_frs.get(originLink));
+		this.cacheHbH_frs.putAll(netPlan.getPeerElementsInThisNetPlan(origin.cacheHbH_frs));
 		this.cacheHbH_normCarriedOccupiedPerLinkCurrentState.clear();
-		for (Link originLink : origin.cacheHbH_normCarriedOccupiedPerLinkCurrentState.keySet())
-			this.cacheHbH_normCarriedOccupiedPerLinkCurrentState.put(netPlan.getLinkFromId(originLink.id), origin.cacheHbH_normCarriedOccupiedPerLinkCurrentState.get(originLink));
+		this.cacheHbH_normCarriedOccupiedPerLinkCurrentState.putAll(netPlan.getPeerElementsInThisNetPlan(origin.cacheHbH_normCarriedOccupiedPerLinkCurrentState));
 		this.cacheHbH_linksPerNodeWithNonZeroFr.clear();
 		for (Entry<Node,SortedSet<Link>> entry : origin.cacheHbH_linksPerNodeWithNonZeroFr.entrySet())
-			this.cacheHbH_linksPerNodeWithNonZeroFr.put(netPlan.getNodeFromId(entry.getKey().id), (SortedSet<Link>) (SortedSet<?>) netPlan.translateCollectionToThisNetPlan(entry.getValue()));
-		this.bidirectionalPair = origin.bidirectionalPair == null? null : netPlan.getDemandFromId(origin.bidirectionalPair.getId());
+			this.cacheHbH_linksPerNodeWithNonZeroFr.put(netPlan.getPeerElementInThisNetPlan(entry.getKey()), new TreeSet<Link> (netPlan.getPeerElementsInThisNetPlan(entry.getValue())));
+		this.bidirectionalPair = origin.bidirectionalPair == null? null : netPlan.getPeerElementInThisNetPlan(origin.bidirectionalPair);
 		this.maximumAcceptableE2EWorstCaseLatencyInMs = origin.maximumAcceptableE2EWorstCaseLatencyInMs;
 		this.offeredTrafficGrowthFactorPerPeriodZeroIsNoGrowth = origin.offeredTrafficGrowthFactorPerPeriodZeroIsNoGrowth;
 		this.qosType = origin.qosType;
@@ -254,7 +251,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 		if (demandsNewType == null) { demandsNewType = Pair.of(new TreeSet<> (),new TreeSet<> ()); layer.cache_qosTypes2DemandMap.put(newQosType, demandsNewType); }
 		demandsNewType.getFirst().add(this);
 		this.qosType = newQosType;
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/** Return the QoS type of the demand 
@@ -381,7 +378,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
             default:
                 throw new RuntimeException("Bad - Unknown routing type " + newRoutingType);
         }
-        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
     }
 
 
@@ -823,10 +820,11 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 		link.coupledLowerOrThisLayerDemand = this;
 		this.coupledUpperOrSameLayerLink = link;
 		link.layer.cache_coupledLinks.add (link);
+		netPlan.cache_structureVersion ++;
 		this.layer.cache_coupledDemands.add (this);
 		if (!sameLayerCoupling) coupling_thisLayerPair.put(this, link);
 		link.updateWorstCasePropagationTraversingUnicastDemandsAndMaybeRoutes();
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
@@ -847,7 +845,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 			newLink = netPlan.addLink(ingressNode , egressNode , carriedTraffic , netPlan.getNodePairEuclideanDistance(ingressNode , egressNode) , 200000 , null , newLinkLayer);
 			coupleToUpperOrSameLayerLink(newLink);
 		} catch (Exception e) { if (newLink != null) newLink.remove (); throw e; }
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 		return newLink;
 	}
 	
@@ -869,6 +867,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 		link.coupledLowerOrThisLayerDemand = null;
 		this.coupledUpperOrSameLayerLink = null;
 		link.layer.cache_coupledLinks.remove (link);
+		netPlan.cache_structureVersion ++;
 		this.layer.cache_coupledDemands.remove(this);
 		if (upperLayer != lowerLayer)
 		{
@@ -876,7 +875,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 			coupling_thisLayerPair.remove(this);
 			if (coupling_thisLayerPair.isEmpty()) netPlan.interLayerCoupling.removeEdge(lowerLayer , upperLayer);
 		}
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 
 	}
 	
@@ -890,7 +889,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 		netPlan.checkIsModifiable();
 		checkRoutingType(RoutingType.HOP_BY_HOP_ROUTING);
 		this.updateHopByHopRoutingToGivenFrs(new TreeMap<> ());
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
     /**
@@ -904,7 +903,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
         checkRoutingType(RoutingType.SOURCE_ROUTING);
         for (Route r : new ArrayList<> (cache_routes))
             r.remove();
-        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
     }
 
 
@@ -978,6 +977,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
                 e.cacheHbH_normCarriedOccupiedPerTraversingDemandCurrentState.remove(this);
                 e.cache_totalCarriedTraffic -= x_deOccup; 
                 e.cache_totalOccupiedCapacity -= x_deOccup; 
+                e.markModified();
 //
 //				e.cacheHbH_normCarriedOccupiedPerTraversingDemandCurrentState.remove(this);
 //				e.updateLinkTrafficAndOccupation();
@@ -1003,7 +1003,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 		final NetPlan npOld = this.netPlan;
         removeId();
         
-		if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistencyIfNotInBulkChanges();
 	}
 	
 	/**
@@ -1018,8 +1018,9 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 		netPlan.checkIsModifiable();
 		if (offeredTraffic < 0) throw new Net2PlanException("Offered traffic must be greater or equal than zero");
 		this.offeredTraffic = offeredTraffic;
+		markModified();
 		if (!isSourceRouting()) updateHopByHopRoutingToGivenFrs(this.cacheHbH_frs);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	
@@ -1244,6 +1245,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 		/* update different caches */
 		this.cacheHbH_linksPerNodeWithNonZeroFr = tentativeCacheHbH_linksPerNodeWithNonZeroFr;
 		carriedTraffic = offeredTraffic * M.get(egressNode.index) * s_egressNode;
+		markModified();
 		if (coupledUpperOrSameLayerLink != null)
 			coupledUpperOrSameLayerLink.updateCapacityAndZeroCapacityLinksAndRoutesCaches(carriedTraffic);
 
@@ -1275,6 +1277,7 @@ public class Demand extends NetworkElement implements IMonitorizableElement
 			}
 			link.cache_totalCarriedTraffic += newXdeOccup - oldXdeOccup; // in hop-by-hop carried traffic is the same as occupied capacity
 			link.cache_totalOccupiedCapacity += newXdeOccup - oldXdeOccup;
+			link.markModified();
 			assert !((newXdeNormalized > 1e-3) && (!link.isUp));
 		}
 		
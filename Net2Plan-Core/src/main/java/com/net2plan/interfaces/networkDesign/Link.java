@@ -169,24 +169,20 @@ public class Link extends NetworkElement implements IMonitorizableElement
 		this.propagationSpeedInKmPerSecond = origin.propagationSpeedInKmPerSecond;
 		this.isUp = origin.isUp;
 		this.nominalColor = origin.nominalColor;
-		this.cache_nonDynamicSrgs = new TreeSet<SharedRiskGroup> ();
-		this.cache_traversingRoutes = new TreeMap<Route,Integer> ();
-		this.cache_traversingTrees = new TreeSet<MulticastTree> ();
+		this.cache_nonDynamicSrgs = new TreeSet<SharedRiskGroup> (this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nonDynamicSrgs));
+		this.cache_traversingRoutes = new TreeMap<Route,Integer> (this.netPlan.getPeerElementsInThisNetPlan(origin.cache_traversingRoutes));
+		this.cache_traversingTrees = new TreeSet<MulticastTree> (this.netPlan.getPeerElementsInThisNetPlan(origin.cache_traversingTrees));
 		this.qos2PriorityMaxLinkCapPercentage = new TreeMap<> ();
 		for (Entry<String,Pair<Integer,Double>> ee : origin.qos2PriorityMaxLinkCapPercentage.entrySet())
 			this.qos2PriorityMaxLinkCapPercentage.put(ee.getKey(), Pair.of (ee.getValue().getFirst() , ee.getValue().getSecond()));
-		for (SharedRiskGroup s : origin.cache_nonDynamicSrgs) this.cache_nonDynamicSrgs.add(this.netPlan.getSRGFromId(s.id));
-		for (Entry<Route,Integer> r : origin.cache_traversingRoutes.entrySet()) this.cache_traversingRoutes.put(this.netPlan.getRouteFromId(r.getKey ().id) , r.getValue());
-		for (MulticastTree t : origin.cache_traversingTrees) this.cache_traversingTrees.add(this.netPlan.getMulticastTreeFromId(t.id));
-		this.coupledLowerOrThisLayerDemand = origin.coupledLowerOrThisLayerDemand == null? null : this.netPlan.getDemandFromId(origin.coupledLowerOrThisLayerDemand.id);
-		this.coupledLowerLayerMulticastDemand = origin.coupledLowerLayerMulticastDemand == null? null : this.netPlan.getMulticastDemandFromId(origin.coupledLowerLayerMulticastDemand.id);
+		this.coupledLowerOrThisLayerDemand = origin.coupledLowerOrThisLayerDemand == null? null : this.netPlan.getPeerElementInThisNetPlan(origin.coupledLowerOrThisLayerDemand);
+		this.coupledLowerLayerMulticastDemand = origin.coupledLowerLayerMulticastDemand == null? null : this.netPlan.getPeerElementInThisNetPlan(origin.coupledLowerLayerMulticastDemand);
 		this.cacheHbH_frs.clear(); 
-		for (Entry<Demand,Double> fr : origin.cacheHbH_frs.entrySet()) 
-			this.cacheHbH_frs.put(netPlan.getDemandFromId(fr.getKey().id), fr.getValue());
+		this.cacheHbH_frs.putAll(netPlan.getPeerElementsInThisNetPlan(origin.cacheHbH_frs));
 		this.cacheHbH_normCarriedOccupiedPerTraversingDemandCurrentState.clear();
 		for (Entry<Demand,Pair<Double,Double>> fr : origin.cacheHbH_normCarriedOccupiedPerTraversingDemandCurrentState.entrySet()) 
-			this.cacheHbH_normCarriedOccupiedPerTraversingDemandCurrentState.put(netPlan.getDemandFromId(fr.getKey().id), Pair.of(fr.getValue().getFirst(), fr.getValue().getSecond()));
-		this.bidirectionalPair = origin.bidirectionalPair == null? null : netPlan.getLinkFromId(origin.bidirectionalPair.getId());
+			this.cacheHbH_normCarriedOccupiedPerTraversingDemandCurrentState.put(netPlan.getPeerElementInThisNetPlan(fr.getKey()), Pair.of(fr.getValue().getFirst(), fr.getValue().getSecond()));
+		this.bidirectionalPair = origin.bidirectionalPair == null? null : netPlan.getPeerElementInThisNetPlan(origin.bidirectionalPair);
 		this.monitoredOrForecastedTraffics = origin.monitoredOrForecastedTraffics;
 		this.trafficPredictor = origin.trafficPredictor;
 	}
@@ -273,7 +269,7 @@ public class Link extends NetworkElement implements IMonitorizableElement
 	{
 		if (maxLinkUtilization <0  || maxLinkUtilization > 1) throw new Net2PlanException ("Maximum link utilizations must be between zero and one");
 		this.qos2PriorityMaxLinkCapPercentage.put (qosType , Pair.of(priority, maxLinkUtilization));
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/** Removes any information on the priority (lower better) and link percentage maximum utilization, assigned to the 
@@ -283,7 +279,7 @@ public class Link extends NetworkElement implements IMonitorizableElement
 	public void removeQosTypePriorityAndMaxLinkUtilization (String qosType)
 	{
 		this.qos2PriorityMaxLinkCapPercentage.remove (qosType);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	
@@ -454,7 +450,7 @@ public class Link extends NetworkElement implements IMonitorizableElement
 		if (newLinkCapacity < 0) throw new Net2PlanException ("Negative link capacities are not possible");
 		if ((coupledLowerOrThisLayerDemand != null) || (coupledLowerLayerMulticastDemand != null)) throw new Net2PlanException ("Coupled links cannot change its capacity");
 		updateCapacityAndZeroCapacityLinksAndRoutesCaches (newLinkCapacity);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	void updateCapacityAndZeroCapacityLinksAndRoutesCaches (double newCapacity) 
@@ -462,6 +458,7 @@ public class Link extends NetworkElement implements IMonitorizableElement
 		final boolean fromZeroToMore = (this.capacity < Configuration.precisionFactor) && (newCapacity >= Configuration.precisionFactor); 
 		final boolean fromMoreToZero = (this.capacity >= Configuration.precisionFactor) && (newCapacity < Configuration.precisionFactor); 
 		this.capacity = newCapacity;
+		markModified();
 		if (fromMoreToZero)
 		{
 			layer.cache_linksZeroCap.add(this);
@@ -756,7 +753,7 @@ public class Link extends NetworkElement implements IMonitorizableElement
 		checkAttachedToNetPlanObject();
 		netPlan.checkIsModifiable();
 		demand.coupleToUpperOrSameLayerLink(this);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 	
 	/**
@@ -772,7 +769,7 @@ public class Link extends NetworkElement implements IMonitorizableElement
 		newDemandLayer.checkAttachedToNetPlanObject(this.netPlan);
 		Demand newDemand = netPlan.addDemand(originNode ,  destinationNode , capacity , routingTypeDemand , null , newDemandLayer);
 		try { newDemand.coupleToUpperOrSameLayerLink(this); } catch (RuntimeException e) { newDemand.remove (); throw e; }
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 		return newDemand;
 	}
 	
@@ -792,7 +789,7 @@ public class Link extends NetworkElement implements IMonitorizableElement
 		}
 		this.cacheHbH_frs.clear();
 		this.cacheHbH_normCarriedOccupiedPerTraversingDemandCurrentState.clear();
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
@@ -892,7 +889,7 @@ public class Link extends NetworkElement implements IMonitorizableElement
 		ErrorHandling.DEBUG = previousErrorHandling;
 		final NetPlan npOld = this.netPlan;
 	    removeId();
-	    if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistency();
+	    if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistencyIfNotInBulkChanges();
 	}
 	
 	/**
@@ -907,7 +904,7 @@ public class Link extends NetworkElement implements IMonitorizableElement
 		if (this.isUp == setAsUp) return this.isUp;
 		List<Link> aux = new LinkedList<Link> (); aux.add(this);
 		if (setAsUp) netPlan.setLinksAndNodesFailureState (aux , null , null , null); else netPlan.setLinksAndNodesFailureState (null, aux , null , null); 
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 		return !setAsUp; // the previous state
 	}
 
@@ -1094,6 +1091,8 @@ public class Link extends NetworkElement implements IMonitorizableElement
 	
 	void updateLinkTrafficAndOccupation ()
 	{
+		markModified();
+
 		/* Add the info of the demands with traversing routes */
 		this.cache_totalCarriedTraffic = 0;
 		this.cache_totalOccupiedCapacity = 0;
@@ -1318,6 +1317,8 @@ public class Link extends NetworkElement implements IMonitorizableElement
 
 	void updateWorstCasePropagationTraversingUnicastDemandsAndMaybeRoutes ()
 	{
+		markModified();
+
 		/* updates route and associated demand times */
 		for (Route r : cache_traversingRoutes.keySet())
 			r.updatePropagationAndProcessingDelayInMiliseconds();
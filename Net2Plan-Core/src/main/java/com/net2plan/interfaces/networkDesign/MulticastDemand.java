@@ -88,14 +88,14 @@ public class MulticastDemand extends NetworkElement implements IMonitorizableEle
 		this.offeredTrafficGrowthFactorPerPeriodZeroIsNoGrowth = origin.offeredTrafficGrowthFactorPerPeriodZeroIsNoGrowth;
 		this.qosType = origin.qosType;
 		this.cache_multicastTrees = new TreeSet<MulticastTree> ();
-		for (MulticastTree t : origin.cache_multicastTrees) this.addMulticastTree((MulticastTree) this.netPlan.getPeerElementInThisNetPlan (t));
+		for (MulticastTree t : origin.cache_multicastTrees) this.addMulticastTree(this.netPlan.getPeerElementInThisNetPlan (t));
 		if (origin.coupledUpperLayerLinks == null)
 			this.coupledUpperLayerLinks = null;
 		else
 		{
 			this.coupledUpperLayerLinks = new TreeMap<> ();
 			for (Node nOrigin : origin.coupledUpperLayerLinks.keySet()) 
-				this.coupledUpperLayerLinks.put(this.netPlan.getNodeFromId (nOrigin.id) , this.netPlan.getLinkFromId (origin.coupledUpperLayerLinks.get(nOrigin).id));
+				this.coupledUpperLayerLinks.put(this.netPlan.getPeerElementInThisNetPlan (nOrigin) , this.netPlan.getPeerElementInThisNetPlan (origin.coupledUpperLayerLinks.get(nOrigin)));
 		}
 		this.monitoredOrForecastedTraffics = origin.monitoredOrForecastedTraffics;
 		this.trafficPredictor = origin.trafficPredictor;
@@ -420,7 +420,7 @@ public class MulticastDemand extends NetworkElement implements IMonitorizableEle
 			link.updateWorstCasePropagationTraversingUnicastDemandsAndMaybeRoutes();
 		}
 		coupling_thisLayerPair.put(this, new TreeSet<Link> (links));
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
@@ -445,7 +445,7 @@ public class MulticastDemand extends NetworkElement implements IMonitorizableEle
 			}
 			couple (newLinks);
 		} catch (Exception e) { for (Link link : newLinks) link.remove (); throw e; }
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 		return newLinks;
 	}
 	
@@ -488,7 +488,7 @@ public class MulticastDemand extends NetworkElement implements IMonitorizableEle
 		coupling_thisLayerPair.remove(this);
 		if (coupling_thisLayerPair.isEmpty()) netPlan.interLayerCoupling.removeEdge(lowerLayer , upperLayer);
 		coupledUpperLayerLinks = null;
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 	
 	/**
@@ -515,7 +515,7 @@ public class MulticastDemand extends NetworkElement implements IMonitorizableEle
 
         final NetPlan npOld = this.netPlan;
         removeId();
-        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	
@@ -530,7 +530,7 @@ public class MulticastDemand extends NetworkElement implements IMonitorizableEle
 		netPlan.checkIsModifiable();
 		if (offeredTraffic < 0) throw new Net2PlanException("Offered traffic must be greater or equal than zero");
 		this.offeredTraffic = offeredTraffic;
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
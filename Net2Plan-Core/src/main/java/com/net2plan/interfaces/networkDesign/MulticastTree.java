@@ -152,29 +152,29 @@ public class MulticastTree extends NetworkElement
 		if ((this.id != origin.id) || (this.index != origin.index)) throw new RuntimeException ("Bad");
 		if ((this.netPlan == null) || (origin.netPlan == null) || (this.netPlan == origin.netPlan)) throw new RuntimeException ("Bad");
 
-		this.linkSet.clear (); for (Link e : origin.linkSet) this.linkSet.add((Link) this.netPlan.getPeerElementInThisNetPlan (e));
-		this.initialSetLinksWhenWasCreated.clear (); for (Link originLink : origin.initialSetLinksWhenWasCreated) this.initialSetLinksWhenWasCreated.add (this.netPlan.getLinkFromId (originLink.getId ()));  
-		this.cache_traversedNodes.clear (); for (Node n : origin.cache_traversedNodes) this.cache_traversedNodes.add((Node) this.netPlan.getPeerElementInThisNetPlan (n));
+		this.linkSet.clear (); this.linkSet.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.linkSet));
+		this.initialSetLinksWhenWasCreated.clear (); this.initialSetLinksWhenWasCreated.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.initialSetLinksWhenWasCreated));
+		this.cache_traversedNodes.clear (); this.cache_traversedNodes.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_traversedNodes));
 		this.cache_ingressLinkOfNode.clear (); 
 		for (Entry<Node,Link> neOrigin : origin.cache_ingressLinkOfNode.entrySet()) 
 		{
-			final Node nOrigin = neOrigin.getKey (); final Node nThis = (Node) this.netPlan.getPeerElementInThisNetPlan (nOrigin);
-			final Link eOrigin = neOrigin.getValue (); final Link eThis = (eOrigin == null)? (Link) null : (Link) this.netPlan.getPeerElementInThisNetPlan (eOrigin);
+			final Node nOrigin = neOrigin.getKey (); final Node nThis = this.netPlan.getPeerElementInThisNetPlan (nOrigin);
+			final Link eOrigin = neOrigin.getValue (); final Link eThis = (eOrigin == null)? (Link) null : this.netPlan.getPeerElementInThisNetPlan (eOrigin);
 			this.cache_ingressLinkOfNode.put(nThis , eThis);
 		}
 		this.pathToReachableEgressNode.clear ();
 		for (Node nOrigin : origin.pathToReachableEgressNode.keySet()) 
 		{
 			List<Link> originPath = origin.pathToReachableEgressNode.get(nOrigin);
-			List<Link> newPath = new LinkedList<Link> (); for (Link originLink : originPath) newPath.add((Link) this.netPlan.getPeerElementInThisNetPlan (originLink));
-			this.pathToReachableEgressNode.put((Node) this.netPlan.getPeerElementInThisNetPlan (nOrigin) , newPath);
+			List<Link> newPath = new LinkedList<Link> (this.netPlan.getPeerElementsInThisNetPlan(originPath));
+			this.pathToReachableEgressNode.put(this.netPlan.getPeerElementInThisNetPlan (nOrigin) , newPath);
 		}
 		this.cache_egressLinksOfNode.clear ();
 		for (Node nOrigin : origin.cache_egressLinksOfNode.keySet()) 
 		{
 			SortedSet<Link> originEgressLinks = origin.cache_egressLinksOfNode.get(nOrigin);
-			SortedSet<Link> newEgressLinks = new TreeSet<> (); for (Link originLink : originEgressLinks) newEgressLinks.add((Link) this.netPlan.getPeerElementInThisNetPlan (originLink));
-			this.cache_egressLinksOfNode.put((Node) this.netPlan.getPeerElementInThisNetPlan (nOrigin) , newEgressLinks);
+			SortedSet<Link> newEgressLinks = new TreeSet<> (this.netPlan.getPeerElementsInThisNetPlan(originEgressLinks));
+			this.cache_egressLinksOfNode.put(this.netPlan.getPeerElementInThisNetPlan (nOrigin) , newEgressLinks);
 		}
 	}
 
@@ -309,7 +309,7 @@ public class MulticastTree extends NetworkElement
 		if (!treeIsUp) layer.cache_multicastTreesDown.add (this);
 		if (treeIsTravZeroCapLink) layer.cache_multicastTreesTravLinkZeroCap.add(this);
 		setCarriedTraffic(currentCarriedTrafficIfAllOk, currentOccupiedCapacityIfAllOk);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 
@@ -549,7 +549,7 @@ public class MulticastTree extends NetworkElement
 		if (demand.coupledUpperLayerLinks != null) 
 			for (Link e : demand.coupledUpperLayerLinks.values())
 				e.updateCapacityAndZeroCapacityLinksAndRoutesCaches(demand.carriedTraffic);  
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
@@ -572,7 +572,7 @@ public class MulticastTree extends NetworkElement
         for (String tag : tags) netPlan.cache_taggedElements.get(tag).remove(this);
         final NetPlan npOld = this.netPlan;
         removeId();
-        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	
@@ -40,7 +40,11 @@ import java.io.*;
 import java.net.URL;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 //import org.jgrapht.experimental.dag.DirectedAcyclicGraph;
 
@@ -131,15 +135,15 @@ public class NetPlan extends NetworkElement
     SortedSet<Node> cache_nodesDown;
     SortedSet<SharedRiskGroup> cache_dynamicSrgs;
     SortedMap<String, SortedSet<Resource>> cache_type2Resources;
-    SortedMap<Long, Node> cache_id2NodeMap;
-    SortedMap<Long, Resource> cache_id2ResourceMap;
-    SortedMap<Long, NetworkLayer> cache_id2LayerMap;
-    SortedMap<Long, Link> cache_id2LinkMap;
-    SortedMap<Long, Demand> cache_id2DemandMap;
-    SortedMap<Long, MulticastDemand> cache_id2MulticastDemandMap;
-    SortedMap<Long, Route> cache_id2RouteMap;
-    SortedMap<Long, MulticastTree> cache_id2MulticastTreeMap;
-    SortedMap<Long, SharedRiskGroup> cache_id2srgMap;
+    LongObjectHashMap<Node> cache_id2NodeMap;
+    LongObjectHashMap<Resource> cache_id2ResourceMap;
+    LongObjectHashMap<NetworkLayer> cache_id2LayerMap;
+    LongObjectHashMap<Link> cache_id2LinkMap;
+    LongObjectHashMap<Demand> cache_id2DemandMap;
+    LongObjectHashMap<MulticastDemand> cache_id2MulticastDemandMap;
+    LongObjectHashMap<Route> cache_id2RouteMap;
+    LongObjectHashMap<MulticastTree> cache_id2MulticastTreeMap;
+    LongObjectHashMap<SharedRiskGroup> cache_id2srgMap;
 
     SortedMap<String,SortedSet<NetworkElement>> cache_taggedElements;
     SortedMap<String,SortedSet<Node>> cache_nodesPerSiteName;
@@ -148,6 +152,24 @@ public class NetPlan extends NetworkElement
     DirectedAcyclicGraph<NetworkLayer, DemandLinkMapping> interLayerCoupling;
     
     boolean defaultNodePairDistanceMetricIsHaversine = false;
+
+    /* not copied with the design */
+    NetPlanChangeTracker changeTracker;
+    final ConcurrentHashMap<Class<?>, Object> cache_derivedViews = new ConcurrentHashMap<>();
+
+    /* incremented when an element is added or removed, a tag is set or unset, a demand is coupled or decoupled, or a layer renamed */
+    long cache_structureVersion;
+
+    /* incremented each time a method that may modify the design is called (see checkIsModifiable), or an element is renamed or described */
+    long cache_modificationStamp;
+
+    private static final int FILE_BUFFER_SIZE = 1 << 16;
+
+    /* during a bulk change, the routes changing their traffic do not update the traffic of their demands and traversed links, which are
+     * stored here and updated at once when the bulk change is committed (see beginBulkChanges) */
+    Set<Demand> cache_demandsWithDeferredTrafficUpdate;
+    Set<Link> cache_linksWithDeferredTrafficUpdate;
+    int bulkChangesNestingLevel;
     
     
     /**
@@ -180,15 +202,15 @@ public class NetPlan extends NetworkElement
         cache_nodesDown = new TreeSet<Node>();
         this.cache_dynamicSrgs = new TreeSet<> ();
         this.cache_type2Resources = new TreeMap<String, SortedSet<Resource>>();
-        this.cache_id2NodeMap = new TreeMap<Long, Node>();
-        this.cache_id2ResourceMap = new TreeMap<Long, Resource>();
-        this.cache_id2LayerMap = new TreeMap<Long, NetworkLayer>();
-        this.cache_id2srgMap = new TreeMap<Long, SharedRiskGroup>();
-        this.cache_id2LinkMap = new TreeMap<Long, Link>();
-        this.cache_id2DemandMap = new TreeMap<Long, Demand>();
-        this.cache_id2MulticastDemandMap = new TreeMap<Long, MulticastDemand>();
-        this.cache_id2RouteMap = new TreeMap<Long, Route>();
-        this.cache_id2MulticastTreeMap = new TreeMap<Long, MulticastTree>();
+        this.cache_id2NodeMap = new LongObjectHashMap<Node>();
+        this.cache_id2ResourceMap = new LongObjectHashMap<Resource>();
+        this.cache_id2LayerMap = new LongObjectHashMap<NetworkLayer>();
+        this.cache_id2srgMap = new LongObjectHashMap<SharedRiskGroup>();
+        this.cache_id2LinkMap = new LongObjectHashMap<Link>();
+        this.cache_id2DemandMap = new LongObjectHashMap<Demand>();
+        this.cache_id2MulticastDemandMap = new LongObjectHashMap<MulticastDemand>();
+        this.cache_id2RouteMap = new LongObjectHashMap<Route>();
+        this.cache_id2MulticastTreeMap = new LongObjectHashMap<MulticastTree>();
         
         this.cache_taggedElements = new TreeMap<> ();
         this.cache_nodesPerSiteName = new TreeMap<> ();
@@ -217,9 +239,9 @@ public class NetPlan extends NetworkElement
     {
         this();
         NetPlan np = loadFromFile(file);
-        if (ErrorHandling.isDebugEnabled()) np.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) np.checkCachesConsistencyIfNotInBulkChanges();
         assignFrom(np);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
 //		System.out.println ("End NetPlan(File file): " + netPlan + " ----------- ");
     }
 
@@ -290,7 +312,7 @@ public class NetPlan extends NetworkElement
                         }
 
                         netPlanFormat.create(this, xmlStreamReader);
-                        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+                        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
                         return;
 
                     default:
@@ -341,17 +363,18 @@ public class NetPlan extends NetworkElement
     }
 
     /**
-     * <p>Static factory method to get a {@link com.net2plan.interfaces.networkDesign.NetPlan NetPlan} object from a {@code .n2p} file.</p>
+     * <p>Static factory method to get a {@link com.net2plan.interfaces.networkDesign.NetPlan NetPlan} object from a {@code .n2p} file.
+     * The file can also be gzip-compressed (e.g. a {@code .n2p.gz} file).</p>
      *
      * @param file Input file
      * @return A network design
      */
     public static NetPlan loadFromFile(File file)
     {
-        try (InputStream inputStream = new FileInputStream(file))
+        try (InputStream inputStream = openBufferedAndUncompressedInputStream(file))
         {
             NetPlan np = new NetPlan(inputStream);
-            if (ErrorHandling.isDebugEnabled()) np.checkCachesConsistency();
+            if (ErrorHandling.isDebugEnabled()) np.checkCachesConsistencyIfNotInBulkChanges();
             return np;
         } catch (FileNotFoundException e)
         {
@@ -363,6 +386,25 @@ public class NetPlan extends NetworkElement
         }
     }
 
+    /* Opens a buffered stream of the file, uncompressing it if it starts with the gzip magic number */
+    private static InputStream openBufferedAndUncompressedInputStream(File file) throws IOException
+    {
+        final BufferedInputStream is = new BufferedInputStream(new FileInputStream(file), FILE_BUFFER_SIZE);
+        try
+        {
+            is.mark(2);
+            final int firstByte = is.read();
+            final int secondByte = is.read();
+            is.reset();
+            final boolean isGzip = firstByte == (GZIPInputStream.GZIP_MAGIC & 0xFF) && secondByte == (GZIPInputStream.GZIP_MAGIC >> 8);
+            return isGzip ? new BufferedInputStream(new GZIPInputStream(is, FILE_BUFFER_SIZE), FILE_BUFFER_SIZE) : is;
+        } catch (IOException e)
+        {
+            is.close();
+            throw e;
+        }
+    }
+
 
     /**
      * <p>Returns true if the given NetPlan object contains the same network than this, meaning that all the network elements
@@ -383,6 +425,8 @@ public class NetPlan extends NetworkElement
         if (this.defaultLayer.id != np2.defaultLayer.id) return false;
         if (this.nextElementId.longValue() != np2.nextElementId.longValue()) return false;
         if (!this.tags.equals(np2.tags)) return false;
+        if (this.nodes.size() != np2.nodes.size() || this.resources.size() != np2.resources.size()) return false;
+        if (this.srgs.size() != np2.srgs.size() || this.layers.size() != np2.layers.size()) return false;
         if (!this.cache_taggedElements.keySet().equals(np2.cache_taggedElements.keySet())) return false;
         if (!this.cache_nodesPerSiteName.keySet().equals(np2.cache_nodesPerSiteName.keySet())) return false;
         if (!this.cache_planningDomain2nodes.keySet().equals(np2.cache_planningDomain2nodes.keySet())) return false;
@@ -445,7 +489,7 @@ public class NetPlan extends NetworkElement
             for (int n2 = 0; n2 < nodes.size(); n2++)
                 if (n1 != n2)
                     demands.add(addDemand(nodes.get(n1), nodes.get(n2), trafficMatrix.get(n1, n2), routingType, null, layer));
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return demands;
     }
 
@@ -492,7 +536,7 @@ public class NetPlan extends NetworkElement
         if (setDemandsNodePair == null) { setDemandsNodePair = new TreeSet<> (); layer.cache_nodePairDemandsThisLayer.put(Pair.of(ingressNode, egressNode) , setDemandsNodePair); }  
         setDemandsNodePair.add(demand);
 
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return demand;
     }
 
@@ -524,7 +568,7 @@ public class NetPlan extends NetworkElement
         Demand d2 = addDemand(egressNode, ingressNode, offeredTraffic, routingType , attributes, layer);
         d1.bidirectionalPair = d2;
         d2.bidirectionalPair = d1;
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return Pair.of(d1, d2);
     }
 
@@ -565,7 +609,7 @@ public class NetPlan extends NetworkElement
         layers.add(layer);
         if (layers.size() == 1) defaultLayer = layer;
 
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return layer;
     }
 
@@ -625,7 +669,7 @@ public class NetPlan extends NetworkElement
             this.addMulticastTree(newLayer.multicastDemands.get(originTree.demand.index), originTree.carriedTrafficIfNotFailing, originTree.occupiedLinkCapacityIfNotFailing, newSetLinks, originTree.attributes);
         }
 
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return newLayer;
     }
 
@@ -677,7 +721,7 @@ public class NetPlan extends NetworkElement
         SortedSet<Link> setLinksNodePair = layer.cache_nodePairLinksThisLayer.get(Pair.of(originNode, destinationNode));
         if (setLinksNodePair == null) { setLinksNodePair = new TreeSet<> (); layer.cache_nodePairLinksThisLayer.put(Pair.of(originNode, destinationNode) , setLinksNodePair); }  
         setLinksNodePair.add(link);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return link;
     }
 
@@ -716,7 +760,7 @@ public class NetPlan extends NetworkElement
         link1.bidirectionalPair = link2;
         link2.bidirectionalPair = link1;
 
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
 
         return Pair.of(link1, link2);
     }
@@ -768,7 +812,7 @@ public class NetPlan extends NetworkElement
         layer.multicastDemands.add(demand);
         for (Node n : egressNodes) n.cache_nodeIncomingMulticastDemands.add(demand);
         ingressNode.cache_nodeOutgoingMulticastDemands.add(demand);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return demand;
     }
 
@@ -829,7 +873,7 @@ public class NetPlan extends NetworkElement
         if (treeTravZeroCapLinks) layer.cache_multicastTreesTravLinkZeroCap.add(tree);
         demand.addMulticastTree(tree);
         tree.setCarriedTraffic(carriedTraffic, occupiedLinkCapacity);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return tree;
     }
 
@@ -861,7 +905,7 @@ public class NetPlan extends NetworkElement
         nodes.add(node);
         cache_id2NodeMap.put(nodeId, node);
 
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return node;
     }
 
@@ -917,7 +961,7 @@ public class NetPlan extends NetworkElement
         }
         resOfThisType.add(resource);
         if (hostNode.isPresent()) hostNode.get().cache_nodeResources.add(resource);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return resource;
     }
 
@@ -1015,7 +1059,7 @@ public class NetPlan extends NetworkElement
         if (!isUpThisRoute) layer.cache_routesDown.add(route);
         if (isTraversingZeroCapLinks) layer.cache_routesTravLinkZeroCap.add(route);
         route.setCarriedTraffic(carriedTraffic, occupiedLinkAndResourceCapacities);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return route;
     }
 
@@ -1264,12 +1308,36 @@ public class NetPlan extends NetworkElement
     public SortedMap<Pair<Node, Node>, List<List<Link>>> computeUnicastCandidatePathList(DoubleMatrix1D linkCosts,
                                                                                    int K, double maxLengthInKm, int maxNumHops, double maxPropDelayInMs, double maxRouteCost,
                                                                                    double maxRouteCostFactorRespectToShortestPath, double maxRouteCostRespectToShortestPath, SortedSet<Pair<Node, Node>> nodePairs, NetworkLayer... optionalLayerParameter)
+    {
+        return computeUnicastCandidatePathList(linkCosts, K, maxLengthInKm, maxNumHops, maxPropDelayInMs, maxRouteCost, maxRouteCostFactorRespectToShortestPath, maxRouteCostRespectToShortestPath, nodePairs, 1, optionalLayerParameter);
+    }
+
+    /**
+     * <p>Computes for all the node pairs, a candidate path list in the given layer, composed of the k shortest paths according with the options indicated below.
+     * The graph of the layer is built once, and the paths of the different node pairs are computed using the given number of threads.
+     * The result is the same regardless of the number of threads used.</p>
+     *
+     * @param linkCosts                               the cost of each link (if null, all links have cost one), all numbers must be strictly positive
+     * @param K                                       Desired nummber of paths (a lower number of paths may be returned if there are less than {@code K} loop-less paths admissible)
+     * @param maxLengthInKm                           Maximum length of the path. If non-positive, no maximum limit is assumed
+     * @param maxNumHops                              Maximum number of hops. If non-positive, no maximum limit is assumed
+     * @param maxPropDelayInMs                        Maximum propagation delay of the path. If non-positive, no maximum limit is assumed
+     * @param maxRouteCost                            Maximum route cost. If non-positive, no maximum limit is assumed
+     * @param maxRouteCostFactorRespectToShortestPath Maximum route cost factor respect to the shortest path. If non-positive, no maximum limit is assumed
+     * @param maxRouteCostRespectToShortestPath       Maximum route cost respect to the shortest path. If non-positive, no maximum limit is assumed
+     * @param nodePairs                               if this parameter is not null, the paths are computed only for this node pairs
+     * @param numThreads                              the number of threads to use. If one or less, the paths are computed sequentially in the calling thread
+     * @param optionalLayerParameter                  the layer (optional)
+     * @return SortedMap with all the computed paths (values) per node pairs (keys)
+     */
+    public SortedMap<Pair<Node, Node>, List<List<Link>>> computeUnicastCandidatePathList(DoubleMatrix1D linkCosts,
+                                                                                   int K, double maxLengthInKm, int maxNumHops, double maxPropDelayInMs, double maxRouteCost,
+                                                                                   double maxRouteCostFactorRespectToShortestPath, double maxRouteCostRespectToShortestPath, SortedSet<Pair<Node, Node>> nodePairs, int numThreads, NetworkLayer... optionalLayerParameter)
     {
         checkIsModifiable();
         final NetworkLayer layer = checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
         if (linkCosts != null) if (linkCosts.size() != layer.links.size())
             throw new Net2PlanException("The array of costs must have the same length as the number of links in the layer");
-        SortedMap<Pair<Node, Node>, List<List<Link>>> cpl = new TreeMap<>();
         SortedMap<Link, Double> linkCostMap = new TreeMap<Link, Double>();
         for (Link e : layer.links) linkCostMap.put(e, linkCosts == null ? 1.0 : linkCosts.get(e.index));
         if (nodePairs == null)
@@ -1279,9 +1347,7 @@ public class NetPlan extends NetworkElement
                 for (Node n2 : nodes)
                     if (n1 != n2) nodePairs.add(Pair.of(n1, n2));
         }
-        for (Pair<Node, Node> pair : nodePairs)
-            cpl.put(pair, GraphUtils.getKLooplessShortestPaths(nodes, layer.links, pair.getFirst(), pair.getSecond(), linkCostMap, K, maxLengthInKm, maxNumHops, maxPropDelayInMs, maxRouteCost, maxRouteCostFactorRespectToShortestPath, maxRouteCostRespectToShortestPath));
-        return cpl;
+        return GraphUtils.getKLooplessShortestPaths(nodes, layer.links, nodePairs, linkCostMap, K, maxLengthInKm, maxNumHops, maxPropDelayInMs, maxRouteCost, maxRouteCostFactorRespectToShortestPath, maxRouteCostRespectToShortestPath, numThreads);
     }
 
     /**
@@ -1296,6 +1362,7 @@ public class NetPlan extends NetworkElement
         checkIsModifiable();
         NetworkLayer layer = checkInThisNetPlanOptionalLayerParameter(optionalLayer);
         List<Route> routes = new LinkedList<Route>();
+        beginBulkChanges();
         try
         {
             for (Demand d : getDemands(layer))
@@ -1305,8 +1372,11 @@ public class NetPlan extends NetworkElement
         {
             for (Route r : routes) r.remove();
             throw e;
+        } finally
+        {
+            commitBulkChanges();
         }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -1321,6 +1391,7 @@ public class NetPlan extends NetworkElement
         checkIsModifiable();
         NetworkLayer layer = checkInThisNetPlanOptionalLayerParameter(optionalLayer);
         List<Route> routes = new LinkedList<Route>();
+        beginBulkChanges();
         try
         {
             for (Demand d : getDemands(layer))
@@ -1336,8 +1407,11 @@ public class NetPlan extends NetworkElement
         {
             for (Route r : routes) r.remove();
             throw e;
+        } finally
+        {
+            commitBulkChanges();
         }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -1469,7 +1543,7 @@ public class NetPlan extends NetworkElement
             for (MulticastTree t : trees) t.remove();
             throw e;
         }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -1499,7 +1573,7 @@ public class NetPlan extends NetworkElement
         SharedRiskGroup srg = new SharedRiskGroup(this, srgId, srgs.size(), new TreeSet<Node>(), new TreeSet<Link>(), mttfInHours, mttrInHours, new AttributeMap(attributes));
         srgs.add(srg);
         cache_id2srgMap.put(srgId, srg);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return srg;
     }
     /**
@@ -1530,7 +1604,7 @@ public class NetPlan extends NetworkElement
         srgs.add(srg);
         cache_dynamicSrgs.add(srg);
         cache_id2srgMap.put(srgId, srg);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return srg;
     }
 
@@ -1576,6 +1650,8 @@ public class NetPlan extends NetworkElement
         this.cache_taggedElements = netPlan.cache_taggedElements;
         this.cache_nodesPerSiteName = netPlan.cache_nodesPerSiteName;
         this.cache_planningDomain2nodes = netPlan.cache_planningDomain2nodes;
+        if (this.changeTracker != null) this.changeTracker.markStructureModified();
+        this.cache_structureVersion++;
         this.interLayerCoupling = netPlan.interLayerCoupling;
         this.tags.clear(); this.tags.addAll(netPlan.tags);
         for (String tag : this.tags) // remove reference to origin netPlan in tags (the other network elements do not change, but NetPlan does) 
@@ -1597,7 +1673,7 @@ public class NetPlan extends NetworkElement
             for (Route e : layer.routes) e.netPlan = this;
             for (MulticastTree e : layer.multicastTrees) e.netPlan = this;
         }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -1845,13 +1921,15 @@ public class NetPlan extends NetworkElement
     }
 
     /**
-     * <p>Checks if the {@code NetPlan} object is modifiable. When negative, an exception will be thrown.</p>
+     * <p>Checks if the {@code NetPlan} object is modifiable. When negative, an exception will be thrown. Since it is called by the
+     * methods that modify the design, it also updates the modification stamp (see {@link #getModificationStamp()}).</p>
      *
      * @since 0.4.0
      */
     void checkIsModifiable()
     {
         if (!isModifiable) throw new UnsupportedOperationException(UNMODIFIABLE_EXCEPTION_STRING);
+        cache_modificationStamp ++;
     }
 
     /**
@@ -1944,12 +2022,12 @@ public class NetPlan extends NetworkElement
      */
     public NetPlan copy()
     {
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         NetPlan netPlan = new NetPlan();
-        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
         netPlan.copyFrom(this);
 //		System.out.println ("************** En el copy () *********************************************************");
-        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
         return netPlan;
     }
 
@@ -2217,7 +2295,7 @@ public class NetPlan extends NetworkElement
      */
     public NetPlan restrictDesign (SortedSet<Node> selectedNodes)
     {
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     	if (selectedNodes.equals(new TreeSet<> (this.getNodes ()))) return this;
     	SortedSet<Node> nodesToKeep = new TreeSet<>(selectedNodes);
     	
@@ -2270,6 +2348,7 @@ public class NetPlan extends NetworkElement
         this.attributes.clear();
         this.attributes.putAll(originNetPlan.attributes);
         this.netPlan = this;
+        this.cache_structureVersion++;
         this.layers = new ArrayList<NetworkLayer>();
         this.nodes = new ArrayList<Node>();
         this.srgs = new ArrayList<SharedRiskGroup>();
@@ -2277,15 +2356,16 @@ public class NetPlan extends NetworkElement
         this.cache_nodesDown = new TreeSet<Node>();
         this.cache_dynamicSrgs = new TreeSet<> ();
         this.cache_type2Resources = new TreeMap<>();
-        this.cache_id2NodeMap = new TreeMap<Long, Node>();
-        this.cache_id2ResourceMap = new TreeMap<Long, Resource>();
-        this.cache_id2LayerMap = new TreeMap<Long, NetworkLayer>();
-        this.cache_id2srgMap = new TreeMap<Long, SharedRiskGroup>();
-        this.cache_id2LinkMap = new TreeMap<Long, Link>();
-        this.cache_id2DemandMap = new TreeMap<Long, Demand>();
-        this.cache_id2MulticastDemandMap = new TreeMap<Long, MulticastDemand>();
-        this.cache_id2RouteMap = new TreeMap<Long, Route>();
-        this.cache_id2MulticastTreeMap = new TreeMap<Long, MulticastTree>();
+        /* the caches are sized for the origin design, so they are not resized while copying */
+        this.cache_id2NodeMap = new LongObjectHashMap<Node>(originNetPlan.cache_id2NodeMap.size());
+        this.cache_id2ResourceMap = new LongObjectHashMap<Resource>(originNetPlan.cache_id2ResourceMap.size());
+        this.cache_id2LayerMap = new LongObjectHashMap<NetworkLayer>(originNetPlan.cache_id2LayerMap.size());
+        this.cache_id2srgMap = new LongObjectHashMap<SharedRiskGroup>(originNetPlan.cache_id2srgMap.size());
+        this.cache_id2LinkMap = new LongObjectHashMap<Link>(originNetPlan.cache_id2LinkMap.size());
+        this.cache_id2DemandMap = new LongObjectHashMap<Demand>(originNetPlan.cache_id2DemandMap.size());
+        this.cache_id2MulticastDemandMap = new LongObjectHashMap<MulticastDemand>(originNetPlan.cache_id2MulticastDemandMap.size());
+        this.cache_id2RouteMap = new LongObjectHashMap<Route>(originNetPlan.cache_id2RouteMap.size());
+        this.cache_id2MulticastTreeMap = new LongObjectHashMap<MulticastTree>(originNetPlan.cache_id2MulticastTreeMap.size());
         this.cache_taggedElements = new TreeMap<> ();
         this.cache_nodesPerSiteName = new TreeMap<> ();
         this.cache_planningDomain2nodes = new TreeMap<> (); 
@@ -2318,7 +2398,7 @@ public class NetPlan extends NetworkElement
         }
         for (Resource originResource : originNetPlan.resources)
         {
-        	final Optional<Node> hostNode = originResource.iAttachedToANode()? Optional.of(this.cache_id2NodeMap.get(originResource.hostNode.get().id)) : Optional.empty();
+        	final Optional<Node> hostNode = originResource.iAttachedToANode()? Optional.of(this.nodes.get(originResource.hostNode.get().index)) : Optional.empty();
             Resource newElement = new Resource(this, originResource.id, originResource.index, originResource.type,
                     originResource.name, hostNode,
                     originResource.capacity, originResource.capacityMeasurementUnits, null, 
@@ -2345,7 +2425,7 @@ public class NetPlan extends NetworkElement
 
             for (Demand originDemand : originLayer.demands)
             {
-                Demand newElement = new Demand(this, originDemand.id, originDemand.index, newLayer, this.cache_id2NodeMap.get(originDemand.ingressNode.id), this.cache_id2NodeMap.get(originDemand.egressNode.id), originDemand.offeredTraffic, originDemand.getRoutingType() , originDemand.attributes);
+                Demand newElement = new Demand(this, originDemand.id, originDemand.index, newLayer, this.nodes.get(originDemand.ingressNode.index), this.nodes.get(originDemand.egressNode.index), originDemand.offeredTraffic, originDemand.getRoutingType() , originDemand.attributes);
                 for (String tag : originDemand.getTags ()) newElement.addTag (tag);
                 newElement.mandatorySequenceOfTraversedResourceTypes = new LinkedList<String>(originDemand.mandatorySequenceOfTraversedResourceTypes);
                 cache_id2DemandMap.put(originDemand.id, newElement);
@@ -2353,25 +2433,23 @@ public class NetPlan extends NetworkElement
             }
             for (MulticastDemand originDemand : originLayer.multicastDemands)
             {
-            	SortedSet<Node> newEgressNodes = new TreeSet<Node>();
-                for (Node oldEgressNode : originDemand.egressNodes)
-                    newEgressNodes.add(this.cache_id2NodeMap.get(oldEgressNode.id));
-                MulticastDemand newElement = new MulticastDemand(this, originDemand.id, originDemand.index, newLayer, this.cache_id2NodeMap.get(originDemand.ingressNode.id), newEgressNodes, originDemand.offeredTraffic, originDemand.attributes);
+            	SortedSet<Node> newEgressNodes = new TreeSet<Node>(getPeerElementsInThisNetPlan(originDemand.egressNodes));
+                MulticastDemand newElement = new MulticastDemand(this, originDemand.id, originDemand.index, newLayer, this.nodes.get(originDemand.ingressNode.index), newEgressNodes, originDemand.offeredTraffic, originDemand.attributes);
                 for (String tag : originDemand.getTags ()) newElement.addTag (tag);
                 cache_id2MulticastDemandMap.put(originDemand.id, newElement);
                 newLayer.multicastDemands.add(newElement);
             }
             for (Link originLink : originLayer.links)
             {
-                Link newElement = new Link(this, originLink.id, originLink.index, newLayer, this.cache_id2NodeMap.get(originLink.originNode.id), this.cache_id2NodeMap.get(originLink.destinationNode.id), originLink.lengthInKm, originLink.propagationSpeedInKmPerSecond, originLink.capacity, originLink.attributes);
+                Link newElement = new Link(this, originLink.id, originLink.index, newLayer, this.nodes.get(originLink.originNode.index), this.nodes.get(originLink.destinationNode.index), originLink.lengthInKm, originLink.propagationSpeedInKmPerSecond, originLink.capacity, originLink.attributes);
                 for (String tag : originLink.getTags ()) newElement.addTag (tag);
                 cache_id2LinkMap.put(originLink.id, newElement);
                 newLayer.links.add(newElement);
             }
             for (Route originRoute : originLayer.routes)
             {
-                Route newElement = new Route(this, originRoute.id, originRoute.index, cache_id2DemandMap.get(originRoute.demand.id),
-                        (List<NetworkElement>) translateCollectionToThisNetPlan(originRoute.currentPath),
+                Route newElement = new Route(this, originRoute.id, originRoute.index, newLayer.demands.get(originRoute.demand.index),
+                        getPeerElementsInThisNetPlan(originRoute.currentPath),
                         originRoute.attributes);
                 for (String tag : originRoute.getTags ()) newElement.addTag (tag);
                 newElement.currentCarriedTrafficIfNotFailing = originRoute.currentCarriedTrafficIfNotFailing;
@@ -2381,9 +2459,8 @@ public class NetPlan extends NetworkElement
             }
             for (MulticastTree originTree : originLayer.multicastTrees)
             {
-            	SortedSet<Link> newSetLinks = new TreeSet<Link>();
-                for (Link oldLink : originTree.linkSet) newSetLinks.add(this.cache_id2LinkMap.get(oldLink.id));
-                MulticastTree newElement = new MulticastTree(this, originTree.id, originTree.index, cache_id2MulticastDemandMap.get(originTree.demand.id), newSetLinks, originTree.attributes);
+            	SortedSet<Link> newSetLinks = new TreeSet<Link>(getPeerElementsInThisNetPlan(originTree.linkSet));
+                MulticastTree newElement = new MulticastTree(this, originTree.id, originTree.index, newLayer.multicastDemands.get(originTree.demand.index), newSetLinks, originTree.attributes);
                 for (String tag : originTree.getTags ()) newElement.addTag (tag);
                 cache_id2MulticastTreeMap.put(originTree.id, newElement);
                 newLayer.multicastTrees.add(newElement);
@@ -2422,19 +2499,17 @@ public class NetPlan extends NetworkElement
 
         this.interLayerCoupling = new DirectedAcyclicGraph<NetworkLayer, DemandLinkMapping>(DemandLinkMapping.class);
         for (NetworkLayer layer : originNetPlan.interLayerCoupling.vertexSet())
-            this.interLayerCoupling.addVertex(this.netPlan.getNetworkLayerFromId(layer.id));
+            this.interLayerCoupling.addVertex(getPeerElementInThisNetPlan(layer));
         for (DemandLinkMapping mapping : originNetPlan.interLayerCoupling.edgeSet())
         {
             if (mapping.isEmpty()) throw new RuntimeException("Bad");
             DemandLinkMapping newMapping = new DemandLinkMapping();
             for (Entry<Demand, Link> originEntry : mapping.getDemandMap().entrySet())
-                newMapping.put(this.netPlan.getDemandFromId(originEntry.getKey().id), this.netPlan.getLinkFromId(originEntry.getValue().id));
+                newMapping.put(getPeerElementInThisNetPlan(originEntry.getKey()), getPeerElementInThisNetPlan(originEntry.getValue()));
             for (Entry<MulticastDemand, SortedSet<Link>> originEntry : mapping.getMulticastDemandMap().entrySet())
             {
-            	SortedSet<Link> newSetLink = new TreeSet<Link>();
-                for (Link originLink : originEntry.getValue())
-                    newSetLink.add(this.netPlan.getLinkFromId(originLink.id));
-                newMapping.put(this.netPlan.getMulticastDemandFromId(originEntry.getKey().id), newSetLink);
+            	SortedSet<Link> newSetLink = new TreeSet<Link>(getPeerElementsInThisNetPlan(originEntry.getValue()));
+                newMapping.put(getPeerElementInThisNetPlan(originEntry.getKey()), newSetLink);
             }
 
             try
@@ -2445,7 +2520,7 @@ public class NetPlan extends NetworkElement
                 throw new RuntimeException("Bad: " + e);
             }
         }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5711,7 +5786,7 @@ public class NetPlan extends NetworkElement
         NetPlan.removeNetworkElementAndShiftIndexes(netPlan.layers, layer.index);
         if (netPlan.defaultLayer.equals(layer)) netPlan.defaultLayer = netPlan.layers.get(0);
         layer.removeId();
-        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5724,7 +5799,7 @@ public class NetPlan extends NetworkElement
         checkIsModifiable();
         NetworkLayer layer = checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
         for (Demand d : new ArrayList<Demand>(layer.demands)) d.remove();
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5747,6 +5822,7 @@ public class NetPlan extends NetworkElement
         	d.cache_worstCasePropagationTimeMs = Double.MAX_VALUE;
             d.routingCycleType = RoutingCycleType.LOOPLESS;
             d.carriedTraffic = 0;
+            d.markModified();
             if (d.coupledUpperOrSameLayerLink != null)
             	d.coupledUpperOrSameLayerLink.updateCapacityAndZeroCapacityLinksAndRoutesCaches(d.carriedTraffic);
         }
@@ -5756,7 +5832,7 @@ public class NetPlan extends NetworkElement
         	e.cacheHbH_normCarriedOccupiedPerTraversingDemandCurrentState.clear();
             e.updateLinkTrafficAndOccupation();
         }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /** For each link in the given layer, returns a map, with key the QoS types traversing it, and two 
@@ -5786,7 +5862,7 @@ public class NetPlan extends NetworkElement
         NetworkLayer layer = checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
         for (Link e : new ArrayList<Link>(layer.links)) e.remove();
 		ErrorHandling.DEBUG = previousErrorHandling;
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5799,7 +5875,7 @@ public class NetPlan extends NetworkElement
         checkIsModifiable();
         NetworkLayer layer = checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
         for (MulticastDemand d : new ArrayList<MulticastDemand>(layer.multicastDemands)) d.remove();
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5812,7 +5888,7 @@ public class NetPlan extends NetworkElement
         checkIsModifiable();
         NetworkLayer layer = checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
         for (MulticastTree t : new ArrayList<MulticastTree>(layer.multicastTrees)) t.remove();
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5828,7 +5904,7 @@ public class NetPlan extends NetworkElement
         for (MulticastTree t : new ArrayList<MulticastTree>(layer.multicastTrees))
             if ((t.carriedTrafficIfNotFailing < toleranceTrafficAndCapacityValueToConsiderUnusedTree) && (t.occupiedLinkCapacityIfNotFailing < toleranceTrafficAndCapacityValueToConsiderUnusedTree))
                 t.remove();
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5851,7 +5927,7 @@ public class NetPlan extends NetworkElement
             removeAllMulticastDemands(layer);
         }
 		ErrorHandling.DEBUG = previousErrorHandling;
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5869,7 +5945,7 @@ public class NetPlan extends NetworkElement
         }
         for (Node n : new ArrayList<Node>(nodes)) n.remove();
 		ErrorHandling.DEBUG = previousErrorHandling;
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5898,6 +5974,7 @@ public class NetPlan extends NetworkElement
         {
         	d.carriedTraffic = 0;
         	d.routingCycleType = RoutingCycleType.LOOPLESS;
+        	d.markModified();
         	if (d.coupledUpperOrSameLayerLink != null)
         		d.coupledUpperOrSameLayerLink.updateCapacityAndZeroCapacityLinksAndRoutesCaches(0);
     		d.cache_routes.clear ();
@@ -5911,7 +5988,7 @@ public class NetPlan extends NetworkElement
         }
         layer.routes.clear();
 		
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5937,7 +6014,7 @@ public class NetPlan extends NetworkElement
                 }
             if (emptyRoute) r.remove();
         }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5952,7 +6029,7 @@ public class NetPlan extends NetworkElement
         NetworkLayer layer = checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
         for (Link e : new ArrayList<Link>(layer.links))
             if (e.capacity < toleranceCapacityValueToConsiderUnusedLink) e.remove();
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5968,7 +6045,7 @@ public class NetPlan extends NetworkElement
         NetworkLayer layer = checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
         removeAllRoutes(layer);
         removeAllForwardingRules(layer);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5978,7 +6055,7 @@ public class NetPlan extends NetworkElement
     {
         checkIsModifiable();
         for (SharedRiskGroup s : new ArrayList<SharedRiskGroup>(srgs)) s.remove();
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5988,7 +6065,7 @@ public class NetPlan extends NetworkElement
     {
         checkIsModifiable();
         for (Resource r : new ArrayList<Resource>(resources)) r.remove();
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -5998,40 +6075,28 @@ public class NetPlan extends NetworkElement
     {
         checkIsModifiable();
         assignFrom(new NetPlan());
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
      * <p>Saves the current network plan to a given file. If extension {@code .n2p}
-     * is not in the file name, it will be added automatically.</p>
+     * is not in the file name, it will be added automatically. If the file name ends with {@code .n2p.gz},
+     * the file is gzip-compressed.</p>
      *
      * @param file Output file
      */
     public void saveToFile(File file)
     {
         String filePath = file.getPath();
-        if (!filePath.toLowerCase(Locale.getDefault()).endsWith(".n2p")) file = new File(filePath + ".n2p");
+        final boolean compress = filePath.toLowerCase(Locale.getDefault()).endsWith(".n2p.gz");
+        if (!compress && !filePath.toLowerCase(Locale.getDefault()).endsWith(".n2p")) file = new File(filePath + ".n2p");
 
-        FileOutputStream fos = null;
-        try
+        try (OutputStream os = compress ? new GZIPOutputStream(new FileOutputStream(file), FILE_BUFFER_SIZE) : new BufferedOutputStream(new FileOutputStream(file), FILE_BUFFER_SIZE))
         {
-            fos = new FileOutputStream(file);
-            saveToOutputStream(fos);
-        } catch (FileNotFoundException e)
+            saveToOutputStream(os);
+        } catch (IOException e)
         {
             throw new Net2PlanException(e.getMessage());
-        } finally
-        {
-            try
-            {
-                if (fos != null)
-                {
-                    fos.close();
-                }
-            } catch (IOException e)
-            {
-                e.printStackTrace();
-            }
         }
     }
 
@@ -6575,6 +6640,7 @@ public class NetPlan extends NetworkElement
             {
                 e.isUp = true;
                 e.layer.cache_linksDown.remove(e);
+                e.markModified();
                 affectedLinks.add(e);
             }
         if (linksToSetAsDown != null) for (Link e : linksToSetAsDown)
@@ -6582,6 +6648,7 @@ public class NetPlan extends NetworkElement
             {
                 e.isUp = false;
                 e.layer.cache_linksDown.add(e);
+                e.markModified();
                 affectedLinks.add(e);
             }
         if (nodesToSetAsUp != null)
@@ -6590,6 +6657,7 @@ public class NetPlan extends NetworkElement
                 {
                     node.isUp = true;
                     cache_nodesDown.remove(node);
+                    node.markModified();
                     affectedLinks.addAll(node.cache_nodeOutgoingLinks);
                     affectedLinks.addAll(node.cache_nodeIncomingLinks);
                     affectedNodes.add(node);
@@ -6600,6 +6668,7 @@ public class NetPlan extends NetworkElement
                 {
                     node.isUp = false;
                     cache_nodesDown.add(node);
+                    node.markModified();
                     affectedLinks.addAll(node.cache_nodeOutgoingLinks);
                     affectedLinks.addAll(node.cache_nodeIncomingLinks);
                     affectedNodes.add(node);
@@ -6624,7 +6693,102 @@ public class NetPlan extends NetworkElement
         netPlan.updateFailureStateRoutesAndTrees(affectedRoutesSourceRouting);
         netPlan.updateFailureStateRoutesAndTrees(affectedTrees);
 
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
+    }
+
+    /**
+     * <p>Evaluates a failure state without copying the design. The given links and nodes (the ones that are up) are set as down, updating the affected
+     * routes, multicast trees and hop-by-hop routings as in {@link #setLinksAndNodesFailureState(Collection, Collection, Collection, Collection)}. Then, the
+     * evaluator is called with this design, which is unmodifiable during the call, and is expected to read the information needed (e.g. carried traffic or
+     * link occupations). Finally, the previous failure state is restored, updating again only the affected elements, and the link carried traffic and
+     * occupied capacity are set back to their previous values. This is much faster than applying the failure state to a copy of the design,
+     * when many failure states are evaluated.</p>
+     *
+     * @param linksToSetAsDown Links to set as down (if null, none)
+     * @param nodesToSetAsDown Nodes to set as down (if null, none)
+     * @param evaluator the function called in the failure state, receiving this design
+     * @param <T> the type of the result of the evaluator
+     * @return the value returned by the evaluator
+     */
+    public <T> T evaluateFailureState(Collection<Link> linksToSetAsDown, Collection<Node> nodesToSetAsDown, Function<NetPlan, T> evaluator)
+    {
+        checkIsModifiable();
+        if (linksToSetAsDown != null) checkInThisNetPlan(linksToSetAsDown);
+        if (nodesToSetAsDown != null) checkInThisNetPlan(nodesToSetAsDown);
+        final List<Link> linksChanged = linksToSetAsDown == null ? Collections.emptyList() : linksToSetAsDown.stream().filter(e -> e.isUp).distinct().collect(Collectors.toList());
+        final List<Node> nodesChanged = nodesToSetAsDown == null ? Collections.emptyList() : nodesToSetAsDown.stream().filter(n -> n.isUp).distinct().collect(Collectors.toList());
+        if (linksChanged.isEmpty() && nodesChanged.isEmpty()) return evaluateAsUnmodifiable(evaluator);
+
+        final double[][] linkCarriedTraffic = new double[layers.size()][];
+        final double[][] linkOccupiedCapacity = new double[layers.size()][];
+        for (NetworkLayer layer : layers)
+        {
+            linkCarriedTraffic[layer.index] = new double[layer.links.size()];
+            linkOccupiedCapacity[layer.index] = new double[layer.links.size()];
+            for (Link e : layer.links)
+            {
+                linkCarriedTraffic[layer.index][e.index] = e.cache_totalCarriedTraffic;
+                linkOccupiedCapacity[layer.index][e.index] = e.cache_totalOccupiedCapacity;
+            }
+        }
+
+        setLinksAndNodesFailureState(null, linksChanged, null, nodesChanged);
+        try
+        {
+            return evaluateAsUnmodifiable(evaluator);
+        } finally
+        {
+            setLinksAndNodesFailureState(linksChanged, null, nodesChanged, null);
+            /* the traffic in the links is updated incrementally: restore the exact previous values */
+            for (NetworkLayer layer : layers)
+                for (Link e : layer.links)
+                {
+                    e.cache_totalCarriedTraffic = linkCarriedTraffic[layer.index][e.index];
+                    e.cache_totalOccupiedCapacity = linkOccupiedCapacity[layer.index][e.index];
+                    e.markModified();
+                }
+        }
+    }
+
+    /**
+     * <p>Evaluates a sequence of failure states without copying the design, as in {@link #evaluateFailureState(Collection, Collection, Function)}.
+     * Each failure state is given by the set of SRGs that are failed in it. The links and nodes of those SRGs are set as down, the evaluator is called, and
+     * the design is taken back to its original failure state before the next one is evaluated.</p>
+     *
+     * @param failureStates the failure states, each one given as the set of failing SRGs
+     * @param evaluator the function called in each failure state, receiving this design
+     * @param <T> the type of the result of the evaluator
+     * @return the values returned by the evaluator, in the same order as the failure states
+     */
+    public <T> List<T> evaluateFailureStates(List<? extends Collection<SharedRiskGroup>> failureStates, Function<NetPlan, T> evaluator)
+    {
+        checkIsModifiable();
+        final List<T> res = new ArrayList<>(failureStates.size());
+        for (Collection<SharedRiskGroup> srgs : failureStates)
+        {
+            checkInThisNetPlan(srgs);
+            final Set<Link> linksToSetAsDown = new HashSet<>();
+            final Set<Node> nodesToSetAsDown = new HashSet<>();
+            for (SharedRiskGroup srg : srgs)
+            {
+                linksToSetAsDown.addAll(srg.getLinksAllLayers());
+                nodesToSetAsDown.addAll(srg.getNodes());
+            }
+            res.add(evaluateFailureState(linksToSetAsDown, nodesToSetAsDown, evaluator));
+        }
+        return res;
+    }
+
+    private <T> T evaluateAsUnmodifiable(Function<NetPlan, T> evaluator)
+    {
+        final boolean previousModifiableState = setModifiableState(false);
+        try
+        {
+            return evaluator.apply(this);
+        } finally
+        {
+            setModifiableState(previousModifiableState);
+        }
     }
 
     /**
@@ -6686,7 +6850,7 @@ public class NetPlan extends NetworkElement
         else
         	newFrs.put(link ,  splittingRatio);
         demand.updateHopByHopRoutingToGivenFrs(newFrs);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
         return previousValueFr;
     }
 
@@ -6773,7 +6937,7 @@ public class NetPlan extends NetworkElement
         for (Demand d : newForwardingRules.keySet())
         	d.updateHopByHopRoutingToGivenFrs(newForwardingRules.get(d));
 
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -6840,7 +7004,7 @@ public class NetPlan extends NetworkElement
         for (Demand d : demandsToUpdate)
         	if (!d.isSourceRouting()) 
         		d.updateHopByHopRoutingToGivenFrs(newFrs.containsKey(d)? newFrs.get(d) : new TreeMap<> ());
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7017,12 +7181,19 @@ public class NetPlan extends NetworkElement
             Iterator<Demand> demands_it = demands.iterator();
             Iterator<List<Link>> seqLinks_it = seqLinks.iterator();
             Iterator<Double> x_p_it = x_p.iterator();
-            while (x_p_it.hasNext())
+            beginBulkChanges();
+            try
             {
-                Demand demand = demands_it.next();
-                List<Link> seqLinks_thisPath = seqLinks_it.next();
-                double x_p_thisPath = x_p_it.next();
-                addRoute(demand, x_p_thisPath, x_p_thisPath, seqLinks_thisPath, null);
+                while (x_p_it.hasNext())
+                {
+                    Demand demand = demands_it.next();
+                    List<Link> seqLinks_thisPath = seqLinks_it.next();
+                    double x_p_thisPath = x_p_it.next();
+                    addRoute(demand, x_p_thisPath, x_p_thisPath, seqLinks_thisPath, null);
+                }
+            } finally
+            {
+                commitBulkChanges();
             }
         } 
         /* HBH part */
@@ -7032,7 +7203,7 @@ public class NetPlan extends NetworkElement
             setForwardingRules(f_de, hbhDemandsToConsider , layer); // aplies only the ones
         } 
 
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7062,7 +7233,7 @@ public class NetPlan extends NetworkElement
         final Quadruple<DoubleMatrix2D, DoubleMatrix1D, DoubleMatrix1D, List<RoutingCycleType>> xdeInfo = GraphUtils.convert_fte2xde(nodes.size(), layer.demands.size() , layer.links, new TreeSet<> (layer.demands) , f_te);
         final DoubleMatrix2D x_de = xdeInfo.getFirst();
         setRoutingFromDemandLinkCarriedTraffic(x_de, false , false , new TreeSet<> (layer.demands) , layer);        
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7145,7 +7316,7 @@ public class NetPlan extends NetworkElement
             default:
                 throw new RuntimeException("Bad - Unknown routing type " + newRoutingType);
         }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7175,7 +7346,7 @@ public class NetPlan extends NetworkElement
                 if (n1 == n2) continue;
                 addDemand(nodes.get(n1), nodes.get(n2), trafficMatrix.getQuick(n1, n2), routingTypeDemands , null, layer);
             }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7196,9 +7367,10 @@ public class NetPlan extends NetworkElement
         for (Demand d : layer.demands)
         {
             d.offeredTraffic = offeredTrafficVector.get(d.index);
+            d.markModified();
             if (d.routingType == RoutingType.HOP_BY_HOP_ROUTING) d.updateHopByHopRoutingToGivenFrs(d.cacheHbH_frs);
         }
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7220,7 +7392,7 @@ public class NetPlan extends NetworkElement
                 throw new Net2PlanException("Coupled links cannot change its capacity");
         for (Link e : layer.links)
             e.updateCapacityAndZeroCapacityLinksAndRoutesCaches(linkCapacities.get(e.index));
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7241,7 +7413,7 @@ public class NetPlan extends NetworkElement
             throw new Net2PlanException("Offered traffic must be greater or equal than zero");
         for (MulticastDemand d : layer.multicastDemands)
             d.offeredTraffic = offeredTrafficVector.get(d.index);
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7267,7 +7439,7 @@ public class NetPlan extends NetworkElement
             throw new Net2PlanException("Occupied link capacities must be greater or equal than zero");
         for (MulticastTree t : layer.multicastTrees)
             t.setCarriedTraffic(carriedTraffic.get(t.index), occupiedLinkCapacity.get(t.index));
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7291,9 +7463,16 @@ public class NetPlan extends NetworkElement
             throw new Net2PlanException("Carried traffics must be greater or equal than zero");
         if (occupiedLinkCapacity.size() > 0) if (occupiedLinkCapacity.getMinLocation()[0] < 0)
             throw new Net2PlanException("Occupied link capacities must be greater or equal than zero");
-        for (Route r : layer.routes)
-            r.setCarriedTraffic(carriedTraffic.get(r.index), occupiedLinkCapacity.get(r.index));
-        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistency();
+        beginBulkChanges();
+        try
+        {
+            for (Route r : layer.routes)
+                r.setCarriedTraffic(carriedTraffic.get(r.index), occupiedLinkCapacity.get(r.index));
+        } finally
+        {
+            commitBulkChanges();
+        }
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
     }
 
     /**
@@ -7570,6 +7749,146 @@ public class NetPlan extends NetworkElement
         return isModifiable;
     }
 
+    /**
+     * <p>Attaches a tracker of the elements that change in this design (or detaches the current one, if {@code null}). At most one tracker
+     * can be attached at a time. The tracker is not copied when the design is copied.</p>
+     *
+     * @param changeTracker the tracker (or {@code null})
+     * @since 0.6.6
+     */
+    public void setChangeTracker(NetPlanChangeTracker changeTracker)
+    {
+        this.changeTracker = changeTracker;
+        if (changeTracker != null) changeTracker.markStructureModified();
+    }
+
+    /**
+     * <p>Returns the tracker of the elements that change in this design, or {@code null} if none is attached.</p>
+     *
+     * @return see above
+     * @since 0.6.6
+     */
+    public NetPlanChangeTracker getChangeTracker()
+    {
+        return changeTracker;
+    }
+
+    /**
+     * <p>Returns a counter that is incremented each time an element is added or removed, a tag is added to or removed from an element,
+     * a demand is coupled or decoupled, or a layer is renamed. Views derived from the structure of the design can be reused while this
+     * value does not change.</p>
+     *
+     * @return see above
+     * @since 0.6.6
+     */
+    public long getStructureVersion()
+    {
+        return cache_structureVersion;
+    }
+
+    /**
+     * <p>Returns a value that changes each time the design may have been modified (any method that can modify the design or its elements
+     * was called, even if it left them unchanged). Then, if two calls return the same value, the design was not modified in between.
+     * Unlike {@link #getStructureVersion()}, it also changes with changes in the state of the elements, attributes, names or positions.</p>
+     *
+     * @return see above
+     * @since 0.6.6
+     */
+    public long getModificationStamp()
+    {
+        return cache_modificationStamp + cache_structureVersion;
+    }
+
+    /**
+     * <p>Returns the view of the given type attached to this design, creating it with the given function if there was none. Views are
+     * auxiliary objects derived from the design (e.g. caches of wrapper objects), that are responsible of checking {@link #getStructureVersion()}
+     * to stay up to date. They are not copied, saved, or compared with the design.</p>
+     *
+     * @param <T> the view type
+     * @param type the view class, used as key
+     * @param creator the function creating the view from this design, if not attached yet
+     * @return see above
+     * @since 0.6.6
+     */
+    public <T> T getDerivedView(Class<T> type, Function<NetPlan, T> creator)
+    {
+        return type.cast(cache_derivedViews.computeIfAbsent(type, t -> creator.apply(this)));
+    }
+
+    /**
+     * <p>Starts a bulk change in the design, to be ended calling {@link #commitBulkChanges()}. This is intended for making many changes in a row
+     * (e.g. adding the routes of an algorithm solution, or of a design read from a file), in less time. During the bulk change, the routes
+     * added, removed or changed do not update the carried traffic of their demands, nor the carried traffic and occupied capacity of
+     * the traversed links: these are updated at once on commit, in one pass over the affected demands and links. Then, until the change is
+     * committed, the carried traffic and occupied capacity of the links, and the carried traffic of the demands, may be outdated, and the
+     * debug consistency checks are postponed. Bulk changes can be nested: the caches are updated when the outermost change is committed.</p>
+     *
+     * @since 0.6.6
+     */
+    public void beginBulkChanges()
+    {
+        checkIsModifiable();
+        if (bulkChangesNestingLevel == 0)
+        {
+            this.cache_demandsWithDeferredTrafficUpdate = new HashSet<>();
+            this.cache_linksWithDeferredTrafficUpdate = new HashSet<>();
+        }
+        bulkChangesNestingLevel++;
+    }
+
+    /**
+     * <p>Ends a bulk change started with {@link #beginBulkChanges()}. If this is the outermost bulk change, the carried traffic of the
+     * demands, and the carried traffic and occupied capacity of the links, affected by the changes are updated. The method should be
+     * called even if the changes failed (e.g. in a {@code finally} block), so the design is left consistent.</p>
+     *
+     * @since 0.6.6
+     */
+    public void commitBulkChanges()
+    {
+        if (bulkChangesNestingLevel == 0) throw new Net2PlanException("No bulk change was started");
+        bulkChangesNestingLevel--;
+        if (bulkChangesNestingLevel > 0) return;
+
+        /* update in one pass the demands and links affected by the route changes */
+        final Set<Demand> demands = cache_demandsWithDeferredTrafficUpdate;
+        final Set<Link> links = cache_linksWithDeferredTrafficUpdate;
+        this.cache_demandsWithDeferredTrafficUpdate = null;
+        this.cache_linksWithDeferredTrafficUpdate = null;
+        for (Demand demand : demands)
+        {
+            if (demand.netPlan == null) continue;
+            demand.carriedTraffic = 0; for (Route r : demand.cache_routes) demand.carriedTraffic += r.getCarriedTraffic();
+            demand.markModified();
+            if (demand.coupledUpperOrSameLayerLink != null)
+                demand.coupledUpperOrSameLayerLink.updateCapacityAndZeroCapacityLinksAndRoutesCaches(demand.carriedTraffic);
+        }
+        for (Link link : links)
+            if (link.netPlan != null) link.updateLinkTrafficAndOccupation();
+        if (ErrorHandling.isDebugEnabled()) this.checkCachesConsistencyIfNotInBulkChanges();
+    }
+
+    /**
+     * <p>Returns true if a bulk change is in progress (see {@link #beginBulkChanges()}).</p>
+     *
+     * @return see above
+     * @since 0.6.6
+     */
+    public boolean isInBulkChanges()
+    {
+        return bulkChangesNestingLevel > 0;
+    }
+
+    boolean isDeferringTrafficUpdates()
+    {
+        return cache_demandsWithDeferredTrafficUpdate != null;
+    }
+
+    /* The debug checks made after each change are postponed to the commit during a bulk change */
+    void checkCachesConsistencyIfNotInBulkChanges()
+    {
+        if (!isInBulkChanges()) checkCachesConsistency();
+    }
+
     /**
      * <p>Checks if the given layer is valid and belongs to this {@code NetPlan} design. Throws and exception if the input is invalid.</p>
      *
@@ -7587,26 +7906,221 @@ public class NetPlan extends NetworkElement
         return defaultLayer;
     }
 
-    NetworkElement getPeerElementInThisNetPlan(NetworkElement e)
+    /* Returns the element of this design with the same type, layer and index as the given element of other design. It is used while
+     * copying a design, when both designs have the same elements in the same positions, so no identifier lookup is needed */
+    @SuppressWarnings("unchecked")
+    <T extends NetworkElement> T getPeerElementInThisNetPlan(T e)
     {
-        NetworkElement res;
         if (e instanceof NetPlan) throw new RuntimeException("Bad");
         if (e.netPlan == null) throw new RuntimeException("Bad");
         if (e.netPlan == this) throw new RuntimeException("Bad");
-        if (e instanceof Node) res = this.cache_id2NodeMap.get(e.id);
-        else if (e instanceof Demand) res = this.cache_id2DemandMap.get(e.id);
-        else if (e instanceof Link) res = this.cache_id2LinkMap.get(e.id);
-        else if (e instanceof MulticastDemand) res = this.cache_id2MulticastDemandMap.get(e.id);
-        else if (e instanceof MulticastTree) res = this.cache_id2MulticastTreeMap.get(e.id);
-        else if (e instanceof Node) res = this.cache_id2NodeMap.get(e.id);
-        else if (e instanceof Route) res = this.cache_id2RouteMap.get(e.id);
-        else if (e instanceof SharedRiskGroup) res = this.cache_id2srgMap.get(e.id);
-        else if (e instanceof Resource) res = this.cache_id2ResourceMap.get(e.id);
+        final List<? extends NetworkElement> peers;
+        if (e instanceof Node) peers = nodes;
+        else if (e instanceof Link) peers = layers.get(((Link) e).layer.index).links;
+        else if (e instanceof Demand) peers = layers.get(((Demand) e).layer.index).demands;
+        else if (e instanceof Route) peers = layers.get(((Route) e).layer.index).routes;
+        else if (e instanceof MulticastDemand) peers = layers.get(((MulticastDemand) e).layer.index).multicastDemands;
+        else if (e instanceof MulticastTree) peers = layers.get(((MulticastTree) e).layer.index).multicastTrees;
+        else if (e instanceof SharedRiskGroup) peers = srgs;
+        else if (e instanceof Resource) peers = resources;
+        else if (e instanceof NetworkLayer) peers = layers;
         else throw new RuntimeException("Bad");
-        if (res.index != e.index) throw new RuntimeException("Bad");
+        if (e.index >= peers.size()) throw new RuntimeException("Bad");
+        final NetworkElement res = peers.get(e.index);
+        if (res.id != e.id) throw new RuntimeException("Bad");
+        return (T) res;
+    }
+
+    /* Returns a new list with the peer elements in this design of the given elements of other design */
+    <T extends NetworkElement> List<T> getPeerElementsInThisNetPlan(List<T> elements)
+    {
+        final List<T> res = new ArrayList<T>(elements.size());
+        for (T e : elements) res.add(getPeerElementInThisNetPlan(e));
+        return res;
+    }
+
+    /* Returns the peer elements in this design of the given sorted set of elements of other design. Elements are ordered by their
+     * identifiers, and peer elements have the same identifiers, so the peers of a naturally ordered set are returned as a sorted view,
+     * from which TreeSet.addAll or the TreeSet constructor build the tree in linear time, with no comparisons or intermediate copies */
+    <T extends NetworkElement> SortedSet<T> getPeerElementsInThisNetPlan(SortedSet<T> elements)
+    {
+        if (elements.comparator() == null) return new PeerSortedSetView<T>(elements);
+        final SortedSet<T> res = new TreeSet<T>(elements.comparator());
+        for (T e : elements) res.add(getPeerElementInThisNetPlan(e));
+        return res;
+    }
+
+    /* Same as above for the keys of a sorted map, the values are not changed. TreeMap.putAll builds the tree in linear time from the view */
+    <K extends NetworkElement, V> SortedMap<K, V> getPeerElementsInThisNetPlan(SortedMap<K, V> map)
+    {
+        if (map.comparator() == null) return new PeerSortedMapView<K, V>(map);
+        final SortedMap<K, V> res = new TreeMap<K, V>(map.comparator());
+        for (Entry<K, V> entry : map.entrySet()) res.put(getPeerElementInThisNetPlan(entry.getKey()), entry.getValue());
         return res;
     }
 
+    /* Read-only view of a naturally ordered set of elements of other design, translated to their peers in this design */
+    private class PeerSortedSetView<T extends NetworkElement> extends AbstractSet<T> implements SortedSet<T>
+    {
+        private final SortedSet<T> elements;
+
+        private PeerSortedSetView(SortedSet<T> elements)
+        {
+            this.elements = elements;
+        }
+
+        @Override
+        public Iterator<T> iterator()
+        {
+            final Iterator<T> it = elements.iterator();
+            return new Iterator<T>()
+            {
+                @Override
+                public boolean hasNext()
+                {
+                    return it.hasNext();
+                }
+
+                @Override
+                public T next()
+                {
+                    return getPeerElementInThisNetPlan(it.next());
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return elements.size();
+        }
+
+        @Override
+        public Comparator<? super T> comparator()
+        {
+            return null;
+        }
+
+        @Override
+        public T first()
+        {
+            return getPeerElementInThisNetPlan(elements.first());
+        }
+
+        @Override
+        public T last()
+        {
+            return getPeerElementInThisNetPlan(elements.last());
+        }
+
+        /* Elements of different designs are compared by their identifiers, so the bounds (elements of this design) delimit the range of their peers */
+        @Override
+        public SortedSet<T> subSet(T fromElement, T toElement)
+        {
+            return new PeerSortedSetView<T>(elements.subSet(fromElement, toElement));
+        }
+
+        @Override
+        public SortedSet<T> headSet(T toElement)
+        {
+            return new PeerSortedSetView<T>(elements.headSet(toElement));
+        }
+
+        @Override
+        public SortedSet<T> tailSet(T fromElement)
+        {
+            return new PeerSortedSetView<T>(elements.tailSet(fromElement));
+        }
+    }
+
+    /* Read-only view of a naturally ordered map with elements of other design as keys, translated to their peers in this design */
+    private class PeerSortedMapView<K extends NetworkElement, V> extends AbstractMap<K, V> implements SortedMap<K, V>
+    {
+        private final SortedMap<K, V> map;
+
+        private PeerSortedMapView(SortedMap<K, V> map)
+        {
+            this.map = map;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet()
+        {
+            return new AbstractSet<Entry<K, V>>()
+            {
+                @Override
+                public Iterator<Entry<K, V>> iterator()
+                {
+                    final Iterator<Entry<K, V>> it = map.entrySet().iterator();
+                    return new Iterator<Entry<K, V>>()
+                    {
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return it.hasNext();
+                        }
+
+                        @Override
+                        public Entry<K, V> next()
+                        {
+                            final Entry<K, V> entry = it.next();
+                            return new AbstractMap.SimpleImmutableEntry<K, V>(getPeerElementInThisNetPlan(entry.getKey()), entry.getValue());
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return map.size();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return map.size();
+        }
+
+        @Override
+        public Comparator<? super K> comparator()
+        {
+            return null;
+        }
+
+        @Override
+        public K firstKey()
+        {
+            return getPeerElementInThisNetPlan(map.firstKey());
+        }
+
+        @Override
+        public K lastKey()
+        {
+            return getPeerElementInThisNetPlan(map.lastKey());
+        }
+
+        /* As in the set view, the bounds are compared with the keys by their identifiers */
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey)
+        {
+            return new PeerSortedMapView<K, V>(map.subMap(fromKey, toKey));
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey)
+        {
+            return new PeerSortedMapView<K, V>(map.headMap(toKey));
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey)
+        {
+            return new PeerSortedMapView<K, V>(map.tailMap(fromKey));
+        }
+    }
+
     /* Receives a collection of routes, or multicast trees, and updates its failure state according to the traversing links and nodes */
     void updateFailureStateRoutesAndTrees(Collection<? extends NetworkElement> set)
     {
@@ -7697,7 +8211,7 @@ public class NetPlan extends NetworkElement
 //		return m;
 //	}
 
-    void checkCachesConsistency(List<? extends NetworkElement> list, SortedMap<Long, ? extends NetworkElement> cache, boolean mustBeSameSize)
+    void checkCachesConsistency(List<? extends NetworkElement> list, LongObjectHashMap<? extends NetworkElement> cache, boolean mustBeSameSize)
     {
         if (mustBeSameSize)
             if (cache.size() != list.size()) throw new RuntimeException("Bad: cache: " + cache + ", list: " + list);
@@ -7714,11 +8228,13 @@ public class NetPlan extends NetworkElement
 
     /**
      * <p>For debug purposes: Checks the consistency of the internal cache (nodes, srgs, resources, layers, links, demands, multicast demands, multicast trees, routes). If any
-     * inconsistency is found an exception is thrown.</p>
+     * inconsistency is found an exception is thrown. The check cannot be made during a bulk change (see {@link #beginBulkChanges()}), since the
+     * carried traffic and occupied capacity are updated on commit: an exception is thrown then.</p>
      */
     @Override
     public void checkCachesConsistency()
     {
+        if (isInBulkChanges()) throw new Net2PlanException("The caches consistency cannot be checked during a bulk change");
 		super.checkCachesConsistency ();
 
 //		System.out.println ("Check caches consistency of object: " + hashCode());
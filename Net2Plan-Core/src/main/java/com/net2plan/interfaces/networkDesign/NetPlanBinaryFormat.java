@@ -0,0 +1,1061 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.interfaces.networkDesign;
+
+import java.awt.Color;
+import java.awt.geom.Point2D;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+import com.net2plan.internal.ErrorHandling;
+import com.net2plan.internal.UnmodifiablePoint2D;
+import com.net2plan.libraries.TrafficPredictor;
+import com.net2plan.libraries.TrafficPredictor.TRAFFICPREDICTORTYPE;
+import com.net2plan.libraries.TrafficSeries;
+import com.net2plan.utils.Constants.RoutingType;
+
+import cern.colt.matrix.tdouble.DoubleFactory2D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+
+/**
+ * <p>Reads and writes network designs in the binary {@code .n2pb} format, a compact alternative to the XML {@code .n2p} format
+ * for large designs. The file holds the same information as a {@code .n2p} file, and a design loaded from it is a deep copy
+ * (see {@link NetPlan#isDeepCopy(NetPlan)}) of the design loaded from the equivalent {@code .n2p} file.</p>
+ *
+ * <p>The file starts with a magic number and the format version, and ends with the offset of a table with all the strings
+ * (names, attribute keys and values, tags...), each appearing once. Elements refer to strings by their index in the table.
+ * The elements are stored in one section per type (nodes, resources, layers with their links, demands, multicast demands, multicast
+ * trees, routes and forwarding rules, SRGs, couplings), where each property is stored as a column of primitive values for all the elements
+ * of the section, and the sequences (e.g. route paths) are stored as an array of lengths followed by the concatenation of the sequences.
+ * Files are read through a memory-mapped buffer, so they are not copied into the heap before being parsed.</p>
+ *
+ * @since 0.6.6
+ */
+public final class NetPlanBinaryFormat
+{
+	/**
+	 * Version of the binary format written by this class.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Extension of the binary files.
+	 */
+	public static final String FILE_EXTENSION = "n2pb";
+
+	private static final int MAGIC_NUMBER = 0x4E325042; // "N2PB"
+	private static final int NULLSTRING = -1;
+	private static final long MAXFILESIZEREADINTOMEMORY = 1L << 28; // larger files are memory-mapped
+
+	private NetPlanBinaryFormat () { }
+
+	/**
+	 * <p>Saves the design to the given file, in the binary format. If extension {@code .n2pb} is not in the file name, it will be added automatically.</p>
+	 *
+	 * @param netPlan the design
+	 * @param file the output file
+	 */
+	public static void saveToFile (NetPlan netPlan , File file)
+	{
+		final String filePath = file.getPath();
+		if (!filePath.toLowerCase().endsWith("." + FILE_EXTENSION)) file = new File(filePath + "." + FILE_EXTENSION);
+		try (OutputStream os = new FileOutputStream(file))
+		{
+			saveToOutputStream(netPlan , os);
+		} catch (IOException e)
+		{
+			throw new Net2PlanException(e.getMessage());
+		}
+	}
+
+	/**
+	 * <p>Writes the design to the given output stream, in the binary format. The stream is not closed.</p>
+	 *
+	 * @param netPlan the design
+	 * @param outputStream the output stream
+	 */
+	public static void saveToOutputStream (NetPlan netPlan , OutputStream outputStream)
+	{
+		try
+		{
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream , 1 << 16));
+			new Writer(out).write(netPlan);
+			out.flush();
+		} catch (IOException e)
+		{
+			throw new Net2PlanException(e.getMessage());
+		}
+	}
+
+	/**
+	 * <p>Loads a design from the given binary file, that must be smaller than 2 GB. Files up to 256 MB are read into memory. Larger files
+	 * are memory-mapped: the mapping is released only when the buffer is garbage collected, so in some systems (e.g. Windows) the file
+	 * cannot be overwritten or deleted until then.</p>
+	 *
+	 * @param file the input file
+	 * @return the design
+	 */
+	public static NetPlan loadFromFile (File file)
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file , "r"); FileChannel channel = raf.getChannel())
+		{
+			final long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new Net2PlanException("The file " + file + " is too large to be memory-mapped");
+			if (size > MAXFILESIZEREADINTOMEMORY) return loadFromByteBuffer(channel.map(FileChannel.MapMode.READ_ONLY , 0 , size));
+			final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()) if (channel.read(buffer) < 0) break;
+			buffer.flip();
+			return loadFromByteBuffer(buffer);
+		} catch (IOException e)
+		{
+			throw new Net2PlanException(e.getMessage());
+		}
+	}
+
+	/**
+	 * <p>Loads a design from the given buffer, with the content of a binary file. The buffer position is not modified.</p>
+	 *
+	 * @param buffer the buffer
+	 * @return the design
+	 */
+	public static NetPlan loadFromByteBuffer (ByteBuffer buffer)
+	{
+		final NetPlan netPlan = new NetPlan();
+		try
+		{
+			new Reader(buffer.duplicate().order(ByteOrder.BIG_ENDIAN)).read(netPlan);
+		} catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException | NullPointerException e)
+		{
+			throw new Net2PlanException("Wrong or truncated n2pb file");
+		}
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
+		return netPlan;
+	}
+
+	/**
+	 * <p>Indicates if the given file starts as a binary design file.</p>
+	 *
+	 * @param file the file
+	 * @return see above
+	 */
+	public static boolean isBinaryFormatFile (File file)
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file , "r"))
+		{
+			return raf.length() >= 8 && raf.readInt() == MAGIC_NUMBER;
+		} catch (IOException e)
+		{
+			return false;
+		}
+	}
+
+	private static List<String> getTrafficPredictorInitStrings (Optional<TrafficPredictor> tp)
+	{
+		if (!tp.isPresent()) return Arrays.asList();
+		return Arrays.asList(tp.get().getTpType().toString() , tp.get().computeInitializationString() ,
+				tp.get().getTpType().isManual() || tp.get().getStatistics() == null? "" : tp.get().getStatistics().getInitializationString());
+	}
+
+	private static TrafficPredictor createTrafficPredictor (List<String> initStrings)
+	{
+		if (initStrings.size() < 2) return null;
+		try
+		{
+			return TrafficPredictor.createFromInitStrings(TRAFFICPREDICTORTYPE.valueOf(initStrings.get(0)), initStrings.get(1), initStrings.size() >= 3? Optional.of(initStrings.get(2)) : Optional.empty()).orElse(null);
+		} catch (Exception e) { return null; }
+	}
+
+	private static List<Long> getIds (Collection<? extends NetworkElement> elements)
+	{
+		final List<Long> res = new ArrayList<> (elements.size());
+		for (NetworkElement e : elements) res.add(e.id);
+		return res;
+	}
+
+	/* Writes the sections of a design. All the string are written at the end, in a table */
+	private static final class Writer
+	{
+		private final DataOutputStream out;
+		private final Map<String,Integer> stringIndexes = new HashMap<> ();
+		private final List<String> strings = new ArrayList<> ();
+
+		private Writer (DataOutputStream out)
+		{
+			this.out = out;
+		}
+
+		private void write (NetPlan np) throws IOException
+		{
+			out.writeInt(MAGIC_NUMBER);
+			out.writeInt(FORMAT_VERSION);
+
+			/* network header */
+			writeString(np.getName());
+			writeString(np.getDescription());
+			out.writeLong(np.getCurrentDate().getTime());
+			writeString(np.currentPlotNodeLayout);
+			writeStrings(np.cache_definedPlotNodeLayouts);
+			out.writeLong(np.nextElementId.toLong());
+			writeStrings(np.cache_planningDomain2nodes.keySet());
+
+			/* nodes */
+			final List<Node> nodes = np.nodes;
+			out.writeInt(nodes.size());
+			writeLongColumn(nodes , n -> n.id);
+			writeStringColumn(nodes , n -> n.getName());
+			writeStringColumn(nodes , n -> n.getDescription());
+			writeDoubleColumn(nodes , n -> n.getXYPositionMap().getX());
+			writeDoubleColumn(nodes , n -> n.getXYPositionMap().getY());
+			writeDoubleColumn(nodes , n -> n.population);
+			writeStringColumn(nodes , n -> n.siteName);
+			writeBooleanColumn(nodes , n -> n.isUp);
+			writeStringListColumn(nodes , n -> new ArrayList<> (n.mapLayout2NodeXYPositionMap.keySet()));
+			writeDoubleListColumn(nodes , n -> { final List<Double> res = new ArrayList<> (); for (Point2D p : n.mapLayout2NodeXYPositionMap.values()) { res.add(p.getX()); res.add(p.getY()); } return res; });
+			writeStringListColumn(nodes , n -> new ArrayList<> (n.getPlanningDomains()));
+			writeTagsAndAttributes(nodes);
+
+			/* resources */
+			final List<Resource> resources = np.resources;
+			out.writeInt(resources.size());
+			writeLongColumn(resources , r -> r.id);
+			writeStringColumn(resources , r -> r.getName());
+			writeStringColumn(resources , r -> r.getDescription());
+			writeLongColumn(resources , r -> r.iAttachedToANode()? r.hostNode.get().id : -1);
+			writeStringColumn(resources , r -> r.type);
+			writeStringColumn(resources , r -> r.capacityMeasurementUnits);
+			writeDoubleColumn(resources , r -> r.processingTimeToTraversingTrafficInMs);
+			writeDoubleColumn(resources , r -> r.capacity);
+			writeStringColumn(resources , r -> r.urlIcon == null? null : r.urlIcon.toString());
+			writeLongListColumn(resources , r -> getIds(r.capacityIOccupyInBaseResource.keySet()));
+			writeDoubleListColumn(resources , r -> new ArrayList<> (r.capacityIOccupyInBaseResource.values()));
+			writeTagsAndAttributes(resources);
+
+			/* layers */
+			out.writeInt(np.layers.size());
+			for (NetworkLayer layer : np.layers) writeLayer(np , layer);
+
+			/* SRGs */
+			final List<SharedRiskGroup> srgs = np.srgs;
+			out.writeInt(srgs.size());
+			writeLongColumn(srgs , s -> s.id);
+			writeStringColumn(srgs , s -> s.getName());
+			writeStringColumn(srgs , s -> s.getDescription());
+			writeDoubleColumn(srgs , s -> s.meanTimeToFailInHours);
+			writeDoubleColumn(srgs , s -> s.meanTimeToRepairInHours);
+			writeBooleanColumn(srgs , s -> s.isDynamicSrg());
+			writeStringColumn(srgs , s -> s.isDynamicSrg()? s.getDynamicSrgImplementation().getClass().getName() : null);
+			writeStringColumn(srgs , s -> s.isDynamicSrg()? s.getDynamicSrgImplementation().getInitializationString() : null);
+			writeLongListColumn(srgs , s -> s.isDynamicSrg()? Arrays.asList() : getIds(s.getNodes()));
+			writeLongListColumn(srgs , s -> s.isDynamicSrg()? Arrays.asList() : getIds(s.getLinksAllLayers()));
+			writeTagsAndAttributes(srgs);
+
+			/* couplings: unicast demands (to upper or same layer links), and multicast demands */
+			final List<Demand> coupledDemands = new ArrayList<> ();
+			final List<Entry<MulticastDemand,SortedSet<Link>>> coupledMulticastDemands = new ArrayList<> ();
+			for (DemandLinkMapping d_e : np.interLayerCoupling.edgeSet())
+			{
+				coupledDemands.addAll(d_e.demandLinkMapping.keySet());
+				coupledMulticastDemands.addAll(d_e.multicastDemandLinkMapping.entrySet());
+			}
+			for (NetworkLayer layer : np.layers)
+				for (Demand d : np.getDemandsCoupled(layer))
+					if (d.isCoupledInSameLayer()) coupledDemands.add(d);
+			out.writeInt(coupledDemands.size());
+			writeLongColumn(coupledDemands , d -> d.id);
+			writeLongColumn(coupledDemands , d -> d.coupledUpperOrSameLayerLink.id);
+			out.writeInt(coupledMulticastDemands.size());
+			writeLongColumn(coupledMulticastDemands , d -> d.getKey().id);
+			writeLongListColumn(coupledMulticastDemands , d -> getIds(d.getValue()));
+
+			/* network tags and attributes */
+			writeTagsAndAttributes(Arrays.asList(np));
+
+			/* the string table, and its offset as the last field */
+			final int stringTableOffset = out.size();
+			out.writeInt(strings.size());
+			final List<byte []> bytes = new ArrayList<> (strings.size());
+			for (String s : strings) bytes.add(s.getBytes(StandardCharsets.UTF_8));
+			for (byte [] b : bytes) out.writeInt(b.length);
+			for (byte [] b : bytes) out.write(b);
+			if (out.size() == Integer.MAX_VALUE) throw new Net2PlanException("The design is too large to be saved in the binary format");
+			out.writeLong(stringTableOffset);
+		}
+
+		private void writeLayer (NetPlan np , NetworkLayer layer) throws IOException
+		{
+			out.writeLong(layer.id);
+			writeString(layer.getName());
+			writeString(layer.getDescription());
+			out.writeBoolean(np.defaultLayer == layer);
+			writeString(layer.linkCapacityUnitsName);
+			writeString(layer.demandTrafficUnitsName);
+			writeString(layer.defaultNodeIconURL == null? null : layer.defaultNodeIconURL.toString());
+
+			/* node icons in this layer */
+			final List<Node> nodesWithIcon = new ArrayList<> ();
+			for (Node n : np.nodes) if (n.getUrlNodeIcon(layer) != null) nodesWithIcon.add(n);
+			out.writeInt(nodesWithIcon.size());
+			writeLongColumn(nodesWithIcon , n -> n.id);
+			writeStringColumn(nodesWithIcon , n -> n.getUrlNodeIcon(layer).toString());
+			writeDoubleColumn(nodesWithIcon , n -> n.getNodeIconRelativeSize(layer));
+
+			/* links */
+			final List<Link> links = layer.links;
+			out.writeInt(links.size());
+			writeLongColumn(links , e -> e.id);
+			writeStringColumn(links , e -> e.getName());
+			writeStringColumn(links , e -> e.getDescription());
+			writeLongColumn(links , e -> e.originNode.id);
+			writeLongColumn(links , e -> e.destinationNode.id);
+			writeDoubleColumn(links , e -> e.capacity);
+			writeDoubleColumn(links , e -> e.lengthInKm);
+			writeDoubleColumn(links , e -> e.propagationSpeedInKmPerSecond);
+			writeLongColumn(links , e -> e.bidirectionalPair == null? -1 : e.bidirectionalPair.id);
+			writeLongColumn(links , e -> e.getNominalColor().getRGB());
+			writeBooleanColumn(links , e -> e.isUp);
+			writeStringListColumn(links , e -> e.getMonitoredOrForecastedCarriedTraffic().toStringList());
+			writeStringListColumn(links , e -> getTrafficPredictorInitStrings(e.getTrafficPredictor()));
+			writeTagsAndAttributes(links);
+
+			/* unicast demands */
+			final List<Demand> demands = layer.demands;
+			out.writeInt(demands.size());
+			writeLongColumn(demands , d -> d.id);
+			writeStringColumn(demands , d -> d.getName());
+			writeStringColumn(demands , d -> d.getDescription());
+			writeLongColumn(demands , d -> d.ingressNode.id);
+			writeLongColumn(demands , d -> d.egressNode.id);
+			writeDoubleColumn(demands , d -> d.offeredTraffic);
+			writeStringColumn(demands , d -> d.recoveryType.name());
+			writeStringColumn(demands , d -> d.routingType.name());
+			writeLongColumn(demands , d -> d.bidirectionalPair == null? -1 : d.bidirectionalPair.id);
+			writeDoubleColumn(demands , d -> d.maximumAcceptableE2EWorstCaseLatencyInMs);
+			writeDoubleColumn(demands , d -> d.offeredTrafficGrowthFactorPerPeriodZeroIsNoGrowth);
+			writeStringColumn(demands , d -> d.qosType);
+			writeStringListColumn(demands , d -> d.getMonitoredOrForecastedOfferedTraffic().toStringList());
+			writeStringListColumn(demands , d -> getTrafficPredictorInitStrings(d.getTrafficPredictor()));
+			writeStringListColumn(demands , d -> d.mandatorySequenceOfTraversedResourceTypes);
+			writeTagsAndAttributes(demands);
+
+			/* multicast demands */
+			final List<MulticastDemand> multicastDemands = layer.multicastDemands;
+			out.writeInt(multicastDemands.size());
+			writeLongColumn(multicastDemands , d -> d.id);
+			writeStringColumn(multicastDemands , d -> d.getName());
+			writeStringColumn(multicastDemands , d -> d.getDescription());
+			writeLongColumn(multicastDemands , d -> d.ingressNode.id);
+			writeLongListColumn(multicastDemands , d -> getIds(d.egressNodes));
+			writeDoubleColumn(multicastDemands , d -> d.offeredTraffic);
+			writeDoubleColumn(multicastDemands , d -> d.maximumAcceptableE2EWorstCaseLatencyInMs);
+			writeDoubleColumn(multicastDemands , d -> d.offeredTrafficGrowthFactorPerPeriodZeroIsNoGrowth);
+			writeStringColumn(multicastDemands , d -> d.qosType);
+			writeStringListColumn(multicastDemands , d -> d.getMonitoredOrForecastedOfferedTraffic().toStringList());
+			writeStringListColumn(multicastDemands , d -> getTrafficPredictorInitStrings(d.getTrafficPredictor()));
+			writeTagsAndAttributes(multicastDemands);
+
+			/* multicast trees. If the original link set was removed, it is replaced by the current link set */
+			final List<MulticastTree> trees = layer.multicastTrees;
+			out.writeInt(trees.size());
+			writeLongColumn(trees , t -> t.id);
+			writeStringColumn(trees , t -> t.getName());
+			writeStringColumn(trees , t -> t.getDescription());
+			writeLongColumn(trees , t -> t.demand.id);
+			writeDoubleColumn(trees , t -> t.carriedTrafficIfNotFailing);
+			writeDoubleColumn(trees , t -> t.occupiedLinkCapacityIfNotFailing);
+			writeLongListColumn(trees , t -> getIds(t.linkSet));
+			writeLongListColumn(trees , t -> getIds(t.initialSetLinksWhenWasCreated.stream().anyMatch(e -> e.netPlan == null)? t.linkSet : t.initialSetLinksWhenWasCreated));
+			writeTagsAndAttributes(trees);
+
+			/* routes */
+			final List<Route> routes = layer.routes;
+			out.writeInt(routes.size());
+			writeLongColumn(routes , r -> r.id);
+			writeStringColumn(routes , r -> r.getName());
+			writeStringColumn(routes , r -> r.getDescription());
+			writeLongColumn(routes , r -> r.demand.id);
+			writeDoubleColumn(routes , r -> r.currentCarriedTrafficIfNotFailing);
+			writeDoubleListColumn(routes , r -> r.currentLinksAndResourcesOccupationIfNotFailing);
+			writeLongListColumn(routes , r -> getIds(r.currentPath));
+			writeLongColumn(routes , r -> r.bidirectionalPair == null? -1 : r.bidirectionalPair.id);
+			writeDoubleColumn(routes , r -> r.initialStateCarriedTrafficIfNotFailing);
+			writeDoubleListColumn(routes , r -> r.initialStateOccupationIfNotFailing);
+			writeLongListColumn(routes , r -> getIds(r.initialStatePath));
+			writeLongListColumn(routes , r -> getIds(r.backupRoutes));
+			writeTagsAndAttributes(routes);
+
+			/* forwarding rules */
+			final List<Demand> frDemands = new ArrayList<> ();
+			final List<Link> frLinks = new ArrayList<> ();
+			final List<Double> frSplittingRatios = new ArrayList<> ();
+			for (Demand d : demands)
+				for (Entry<Link,Double> fr : d.cacheHbH_frs.entrySet())
+				{
+					frDemands.add(d);
+					frLinks.add(fr.getKey());
+					frSplittingRatios.add(fr.getValue());
+				}
+			out.writeInt(frDemands.size());
+			writeLongColumn(frDemands , d -> d.id);
+			writeLongColumn(frLinks , e -> e.id);
+			writeDoubleColumn(frSplittingRatios , v -> v);
+
+			writeTagsAndAttributes(Arrays.asList(layer));
+		}
+
+		private int getStringIndex (String s)
+		{
+			if (s == null) return NULLSTRING;
+			Integer index = stringIndexes.get(s);
+			if (index == null)
+			{
+				index = strings.size();
+				strings.add(s);
+				stringIndexes.put(s , index);
+			}
+			return index;
+		}
+
+		private void writeString (String s) throws IOException
+		{
+			out.writeInt(getStringIndex(s));
+		}
+
+		private void writeStrings (Collection<String> list) throws IOException
+		{
+			out.writeInt(list.size());
+			for (String s : list) writeString(s);
+		}
+
+		private <T> void writeLongColumn (List<T> elements , ToLongFunction<T> f) throws IOException
+		{
+			for (T e : elements) out.writeLong(f.applyAsLong(e));
+		}
+
+		private <T> void writeDoubleColumn (List<T> elements , ToDoubleFunction<T> f) throws IOException
+		{
+			for (T e : elements) out.writeDouble(f.applyAsDouble(e));
+		}
+
+		private <T> void writeStringColumn (List<T> elements , Function<T,String> f) throws IOException
+		{
+			for (T e : elements) writeString(f.apply(e));
+		}
+
+		private <T> void writeBooleanColumn (List<T> elements , Predicate<T> f) throws IOException
+		{
+			for (T e : elements) out.writeBoolean(f.test(e));
+		}
+
+		private <T> void writeLongListColumn (List<T> elements , Function<T,List<Long>> f) throws IOException
+		{
+			final List<List<Long>> lists = new ArrayList<> (elements.size());
+			for (T e : elements) lists.add(f.apply(e));
+			for (List<Long> list : lists) out.writeInt(list.size());
+			for (List<Long> list : lists) for (long val : list) out.writeLong(val);
+		}
+
+		private <T> void writeDoubleListColumn (List<T> elements , Function<T,List<Double>> f) throws IOException
+		{
+			final List<List<Double>> lists = new ArrayList<> (elements.size());
+			for (T e : elements) lists.add(f.apply(e));
+			for (List<Double> list : lists) out.writeInt(list.size());
+			for (List<Double> list : lists) for (double val : list) out.writeDouble(val);
+		}
+
+		private <T> void writeStringListColumn (List<T> elements , Function<T,List<String>> f) throws IOException
+		{
+			final List<List<String>> lists = new ArrayList<> (elements.size());
+			for (T e : elements) lists.add(f.apply(e));
+			for (List<String> list : lists) out.writeInt(list.size());
+			for (List<String> list : lists) for (String val : list) writeString(val);
+		}
+
+		/* tags, and then attributes as a list key1, value1, key2, value2... */
+		private void writeTagsAndAttributes (List<? extends NetworkElement> elements) throws IOException
+		{
+			writeStringListColumn(elements , e -> new ArrayList<> (e.tags));
+			writeStringListColumn(elements , e ->
+			{
+				final List<String> res = new ArrayList<> (2 * e.attributes.size());
+				for (Entry<String,String> entry : e.attributes.entrySet()) { res.add(entry.getKey()); res.add(entry.getValue()); }
+				return res;
+			});
+		}
+	}
+
+	/* Reads the sections of a design, replicating what the XML reader does with the same information */
+	private static final class Reader
+	{
+		private final ByteBuffer in;
+		private String [] strings;
+
+		private Reader (ByteBuffer in)
+		{
+			this.in = in;
+		}
+
+		private void read (NetPlan np)
+		{
+			in.position(0);
+			if (in.getInt() != MAGIC_NUMBER) throw new Net2PlanException("Not a n2pb file");
+			final int version = in.getInt();
+			if (version != FORMAT_VERSION) throw new Net2PlanException("Wrong n2pb version number: " + version);
+			final int bodyPosition = in.position();
+			readStringTable();
+			in.position(bodyPosition);
+
+			/* network header */
+			np.setName(readStringOrDefault(""));
+			np.setDescription(readStringOrDefault(""));
+			np.setCurrentDate(new Date(in.getLong()));
+			np.currentPlotNodeLayout = readStringOrDefault(NetPlan.PLOTLAYTOUT_DEFAULTNODELAYOUTNAME);
+			np.cache_definedPlotNodeLayouts = new TreeSet<> ();
+			np.cache_definedPlotNodeLayouts.add(NetPlan.PLOTLAYTOUT_DEFAULTNODELAYOUTNAME);
+			np.cache_definedPlotNodeLayouts.addAll(readStrings());
+			np.nextElementId.setValue(in.getLong());
+			if (np.nextElementId.toLong() <= 0) throw new Net2PlanException("A network element has an id higher than the nextElementId");
+			for (String pd : readStrings()) np.addGlobalPlanningDomain(pd);
+
+			/* nodes */
+			final int N = in.getInt();
+			final long [] nodeIds = readLongColumn(N);
+			final String [] nodeNames = readStringColumn(N);
+			final String [] nodeDescriptions = readStringColumn(N);
+			final double [] nodeXs = readDoubleColumn(N);
+			final double [] nodeYs = readDoubleColumn(N);
+			final double [] nodePopulations = readDoubleColumn(N);
+			final String [] nodeSiteNames = readStringColumn(N);
+			final boolean [] nodeIsUp = readBooleanColumn(N);
+			final String [][] nodeLayoutNames = readStringListColumn(N);
+			final double [][] nodeLayoutPositions = readDoubleListColumn(N);
+			final String [][] nodePlanningDomains = readStringListColumn(N);
+			final List<Node> nodes = new ArrayList<> (N);
+			for (int n = 0; n < N ; n ++)
+			{
+				checkId(np , nodeIds [n]);
+				final Node node = np.addNode(nodeIds [n] , nodeXs [n] , nodeYs [n] , nodeNames [n] == null? "" : nodeNames [n] , null);
+				node.setDescription(nodeDescriptions [n] == null? "" : nodeDescriptions [n]);
+				for (int cont = 0; cont < nodeLayoutNames [n].length ; cont ++)
+					node.setXYPositionMap(new UnmodifiablePoint2D(nodeLayoutPositions [n][2*cont] , nodeLayoutPositions [n][2*cont+1]) , nodeLayoutNames [n][cont]);
+				for (String pd : nodePlanningDomains [n]) node.addToPlanningDomain(pd);
+				node.setFailureState(nodeIsUp [n]);
+				node.setPopulation(nodePopulations [n]);
+				if (nodeSiteNames [n] != null) node.setSiteName(nodeSiteNames [n]);
+				nodes.add(node);
+			}
+			readTagsAndAttributes(nodes);
+
+			/* resources */
+			final int R = in.getInt();
+			final long [] resIds = readLongColumn(R);
+			final String [] resNames = readStringColumn(R);
+			final String [] resDescriptions = readStringColumn(R);
+			final long [] resHostNodeIds = readLongColumn(R);
+			final String [] resTypes = readStringColumn(R);
+			final String [] resCapacityUnits = readStringColumn(R);
+			final double [] resProcessingTimes = readDoubleColumn(R);
+			final double [] resCapacities = readDoubleColumn(R);
+			final String [] resUrlIcons = readStringColumn(R);
+			final long [][] resBaseResourceIds = readLongListColumn(R);
+			final double [][] resBaseResourceOccupations = readDoubleListColumn(R);
+			final List<Resource> resources = new ArrayList<> (R);
+			for (int r = 0; r < R ; r ++)
+			{
+				checkId(np , resIds [r]);
+				final boolean isAttachedToANode = resHostNodeIds [r] != -1;
+				if (isAttachedToANode && np.getNodeFromId(resHostNodeIds [r]) == null) throw new Net2PlanException("Could not find the hot node of a resource when reading");
+				final SortedMap<Resource,Double> occupiedCapacitiesInBaseResources = new TreeMap<> ();
+				for (int cont = 0; cont < resBaseResourceIds [r].length ; cont ++)
+				{
+					final Resource baseResource = np.getResourceFromId(resBaseResourceIds [r][cont]);
+					if (baseResource == null) throw new Net2PlanException("Unknown resource id");
+					occupiedCapacitiesInBaseResources.put(baseResource , resBaseResourceOccupations [r][cont]);
+				}
+				final Optional<Node> hostNode = isAttachedToANode? Optional.of(np.getNodeFromId(resHostNodeIds [r])) : Optional.empty();
+				final Resource resource = np.addResource(resIds [r] , resTypes [r] , resNames [r] , hostNode , resCapacities [r] , resCapacityUnits [r] ,
+						occupiedCapacitiesInBaseResources , resProcessingTimes [r] , null);
+				resource.setUrlIcon(toUrl(resUrlIcons [r]));
+				resource.setName(resNames [r] == null? "" : resNames [r]);
+				resource.setDescription(resDescriptions [r] == null? "" : resDescriptions [r]);
+				resources.add(resource);
+			}
+			readTagsAndAttributes(resources);
+
+			/* layers */
+			final int L = in.getInt();
+			for (int l = 0; l < L ; l ++) readLayer(np , l == 0);
+
+			/* SRGs */
+			final int S = in.getInt();
+			final long [] srgIds = readLongColumn(S);
+			final String [] srgNames = readStringColumn(S);
+			final String [] srgDescriptions = readStringColumn(S);
+			final double [] srgMttfs = readDoubleColumn(S);
+			final double [] srgMttrs = readDoubleColumn(S);
+			final boolean [] srgIsDynamic = readBooleanColumn(S);
+			final String [] srgClassNames = readStringColumn(S);
+			final String [] srgConfigStrings = readStringColumn(S);
+			final long [][] srgNodeIds = readLongListColumn(S);
+			final long [][] srgLinkIds = readLongListColumn(S);
+			final List<SharedRiskGroup> srgs = new ArrayList<> (S);
+			for (int s = 0; s < S ; s ++)
+			{
+				checkId(np , srgIds [s]);
+				final SharedRiskGroup srg;
+				if (srgIsDynamic [s])
+					srg = np.addSRGDynamic(srgIds [s] , srgMttfs [s] , srgMttrs [s] , srgClassNames [s] , srgConfigStrings [s] , null);
+				else
+				{
+					srg = np.addSRG(srgIds [s] , srgMttfs [s] , srgMttrs [s] , null);
+					for (Node n : getNodes(np , srgNodeIds [s])) srg.addNode(n);
+					for (Link e : getLinks(np , srgLinkIds [s])) srg.addLink(e);
+				}
+				srg.setName(srgNames [s] == null? "" : srgNames [s]);
+				srg.setDescription(srgDescriptions [s] == null? "" : srgDescriptions [s]);
+				srgs.add(srg);
+			}
+			readTagsAndAttributes(srgs);
+
+			/* couplings */
+			final int numCoupledDemands = in.getInt();
+			final long [] coupledDemandIds = readLongColumn(numCoupledDemands);
+			final long [] coupledLinkIds = readLongColumn(numCoupledDemands);
+			for (int cont = 0; cont < numCoupledDemands ; cont ++)
+				np.getDemandFromId(coupledDemandIds [cont]).coupleToUpperOrSameLayerLink(np.getLinkFromId(coupledLinkIds [cont]));
+			final int numCoupledMulticastDemands = in.getInt();
+			final long [] coupledMulticastDemandIds = readLongColumn(numCoupledMulticastDemands);
+			final long [][] coupledMulticastLinkIds = readLongListColumn(numCoupledMulticastDemands);
+			for (int cont = 0; cont < numCoupledMulticastDemands ; cont ++)
+				np.getMulticastDemandFromId(coupledMulticastDemandIds [cont]).couple(new TreeSet<> (getLinks(np , coupledMulticastLinkIds [cont])));
+
+			readTagsAndAttributes(Arrays.asList(np));
+		}
+
+		private void readLayer (NetPlan np , boolean isFirstLayer)
+		{
+			final long layerId = in.getLong();
+			checkId(np , layerId);
+			final String layerName = readStringOrDefault("");
+			final String layerDescription = readStringOrDefault("");
+			final boolean isDefaultLayer = in.get() != 0;
+			final String linkCapacityUnitsName = readString();
+			final String demandTrafficUnitsName = readString();
+			final URL defaultNodeIconURL = toUrl(readString());
+
+			/* the design is created with one layer, that is reused if it has the right id */
+			final NetworkLayer layer;
+			if (isFirstLayer && np.layers.size() != 1) throw new RuntimeException("Bad");
+			if (isFirstLayer && np.layers.get(0).id == layerId)
+			{
+				layer = np.layers.get(0);
+				layer.demandTrafficUnitsName = demandTrafficUnitsName;
+				layer.description = layerDescription;
+				layer.name = layerName;
+				layer.linkCapacityUnitsName = linkCapacityUnitsName;
+				layer.defaultNodeIconURL = defaultNodeIconURL;
+			}
+			else
+			{
+				layer = np.addLayer(layerId , layerName , layerDescription , linkCapacityUnitsName , demandTrafficUnitsName , defaultNodeIconURL , null);
+				if (isFirstLayer) np.removeNetworkLayer(np.layers.get(0));
+			}
+			if (isDefaultLayer) np.setNetworkLayerDefault(layer);
+
+			/* node icons in this layer */
+			final int numNodesWithIcon = in.getInt();
+			final long [] iconNodeIds = readLongColumn(numNodesWithIcon);
+			final String [] iconUrls = readStringColumn(numNodesWithIcon);
+			final double [] iconRelativeSizes = readDoubleColumn(numNodesWithIcon);
+			for (int cont = 0; cont < numNodesWithIcon ; cont ++)
+				np.getNodeFromId(iconNodeIds [cont]).setUrlNodeIcon(layer , toUrl(iconUrls [cont]) , iconRelativeSizes [cont]);
+
+			/* links */
+			final int E = in.getInt();
+			final long [] linkIds = readLongColumn(E);
+			final String [] linkNames = readStringColumn(E);
+			final String [] linkDescriptions = readStringColumn(E);
+			final long [] linkOriginNodeIds = readLongColumn(E);
+			final long [] linkDestinationNodeIds = readLongColumn(E);
+			final double [] linkCapacities = readDoubleColumn(E);
+			final double [] linkLengths = readDoubleColumn(E);
+			final double [] linkPropagationSpeeds = readDoubleColumn(E);
+			final long [] linkBidirectionalPairIds = readLongColumn(E);
+			final long [] linkColors = readLongColumn(E);
+			final boolean [] linkIsUp = readBooleanColumn(E);
+			final String [][] linkMonitoredTraffics = readStringListColumn(E);
+			final String [][] linkTrafficPredictors = readStringListColumn(E);
+			final List<Link> links = new ArrayList<> (E);
+			for (int e = 0; e < E ; e ++)
+			{
+				checkId(np , linkIds [e]);
+				final Link link = np.addLink(linkIds [e] , np.getNodeFromId(linkOriginNodeIds [e]) , np.getNodeFromId(linkDestinationNodeIds [e]) , linkCapacities [e] , linkLengths [e] , linkPropagationSpeeds [e] , null , layer);
+				link.setNominalColor(new Color((int) linkColors [e]));
+				link.setFailureState(linkIsUp [e]);
+				link.setName(linkNames [e] == null? "" : linkNames [e]);
+				link.setDescription(linkDescriptions [e] == null? "" : linkDescriptions [e]);
+				try { link.setMonitoredOrForecastedCarriedTraffic(TrafficSeries.createFromStringList(Arrays.asList(linkMonitoredTraffics [e]))); } catch (Exception ex) {}
+				final TrafficPredictor tp = createTrafficPredictor(Arrays.asList(linkTrafficPredictors [e]));
+				if (tp != null) link.setTrafficPredictor(tp);
+				final Link bidirPairLink = linkBidirectionalPairIds [e] == -1? null : np.getLinkFromId(linkBidirectionalPairIds [e]);
+				if (bidirPairLink != null)
+				{
+					if (bidirPairLink.isBidirectional()) throw new RuntimeException();
+					bidirPairLink.setBidirectionalPair(link);
+				}
+				links.add(link);
+			}
+			readTagsAndAttributes(links);
+
+			/* unicast demands */
+			final int D = in.getInt();
+			final long [] demandIds = readLongColumn(D);
+			final String [] demandNames = readStringColumn(D);
+			final String [] demandDescriptions = readStringColumn(D);
+			final long [] demandIngressNodeIds = readLongColumn(D);
+			final long [] demandEgressNodeIds = readLongColumn(D);
+			final double [] demandOfferedTraffics = readDoubleColumn(D);
+			final String [] demandRecoveryTypes = readStringColumn(D);
+			final String [] demandRoutingTypes = readStringColumn(D);
+			final long [] demandBidirectionalPairIds = readLongColumn(D);
+			final double [] demandMaxLatencies = readDoubleColumn(D);
+			final double [] demandGrowthFactors = readDoubleColumn(D);
+			final String [] demandQosTypes = readStringColumn(D);
+			final String [][] demandMonitoredTraffics = readStringListColumn(D);
+			final String [][] demandTrafficPredictors = readStringListColumn(D);
+			final String [][] demandServiceChainSequences = readStringListColumn(D);
+			final List<Demand> demands = new ArrayList<> (D);
+			for (int d = 0; d < D ; d ++)
+			{
+				checkId(np , demandIds [d]);
+				final Demand demand = np.addDemand(demandIds [d] , np.getNodeFromId(demandIngressNodeIds [d]) , np.getNodeFromId(demandEgressNodeIds [d]) , demandOfferedTraffics [d] , RoutingType.valueOf(demandRoutingTypes [d]) , null , layer);
+				demand.setIntendedRecoveryType(Demand.IntendedRecoveryType.valueOf(demandRecoveryTypes [d]));
+				demand.setOfferedTrafficPerPeriodGrowthFactor(demandGrowthFactors [d]);
+				demand.setMaximumAcceptableE2EWorstCaseLatencyInMs(demandMaxLatencies [d]);
+				demand.setQoSType(demandQosTypes [d] == null? "" : demandQosTypes [d]);
+				demand.setName(demandNames [d] == null? "" : demandNames [d]);
+				demand.setDescription(demandDescriptions [d] == null? "" : demandDescriptions [d]);
+				try { demand.setMonitoredOrForecastedOfferedTraffic(TrafficSeries.createFromStringList(Arrays.asList(demandMonitoredTraffics [d]))); } catch (Exception ex) {}
+				final TrafficPredictor tp = createTrafficPredictor(Arrays.asList(demandTrafficPredictors [d]));
+				if (tp != null) demand.setTrafficPredictor(tp);
+				final Demand bidirPairDemand = demandBidirectionalPairIds [d] == -1? null : np.getDemandFromId(demandBidirectionalPairIds [d]);
+				if (bidirPairDemand != null)
+				{
+					if (bidirPairDemand.isBidirectional()) throw new RuntimeException();
+					bidirPairDemand.setBidirectionalPair(demand);
+				}
+				if (demandServiceChainSequences [d].length > 0)
+					demand.setServiceChainSequenceOfTraversedResourceTypes(Arrays.asList(demandServiceChainSequences [d]));
+				demands.add(demand);
+			}
+			readTagsAndAttributes(demands);
+
+			/* multicast demands */
+			final int MD = in.getInt();
+			final long [] mDemandIds = readLongColumn(MD);
+			final String [] mDemandNames = readStringColumn(MD);
+			final String [] mDemandDescriptions = readStringColumn(MD);
+			final long [] mDemandIngressNodeIds = readLongColumn(MD);
+			final long [][] mDemandEgressNodeIds = readLongListColumn(MD);
+			final double [] mDemandOfferedTraffics = readDoubleColumn(MD);
+			final double [] mDemandMaxLatencies = readDoubleColumn(MD);
+			final double [] mDemandGrowthFactors = readDoubleColumn(MD);
+			final String [] mDemandQosTypes = readStringColumn(MD);
+			final String [][] mDemandMonitoredTraffics = readStringListColumn(MD);
+			final String [][] mDemandTrafficPredictors = readStringListColumn(MD);
+			final List<MulticastDemand> multicastDemands = new ArrayList<> (MD);
+			for (int d = 0; d < MD ; d ++)
+			{
+				checkId(np , mDemandIds [d]);
+				final MulticastDemand demand = np.addMulticastDemand(mDemandIds [d] , np.getNodeFromId(mDemandIngressNodeIds [d]) , getNodes(np , mDemandEgressNodeIds [d]) , mDemandOfferedTraffics [d] , null , layer);
+				demand.setMaximumAcceptableE2EWorstCaseLatencyInMs(mDemandMaxLatencies [d]);
+				demand.setOfferedTrafficPerPeriodGrowthFactor(mDemandGrowthFactors [d]);
+				demand.setQoSType(mDemandQosTypes [d] == null? "" : mDemandQosTypes [d]);
+				demand.setName(mDemandNames [d] == null? "" : mDemandNames [d]);
+				demand.setDescription(mDemandDescriptions [d] == null? "" : mDemandDescriptions [d]);
+				try { demand.setMonitoredOrForecastedOfferedTraffic(TrafficSeries.createFromStringList(Arrays.asList(mDemandMonitoredTraffics [d]))); } catch (Exception ex) {}
+				final TrafficPredictor tp = createTrafficPredictor(Arrays.asList(mDemandTrafficPredictors [d]));
+				if (tp != null) demand.setTrafficPredictor(tp);
+				multicastDemands.add(demand);
+			}
+			readTagsAndAttributes(multicastDemands);
+
+			/* multicast trees */
+			final int T = in.getInt();
+			final long [] treeIds = readLongColumn(T);
+			final String [] treeNames = readStringColumn(T);
+			final String [] treeDescriptions = readStringColumn(T);
+			final long [] treeDemandIds = readLongColumn(T);
+			final double [] treeCarriedTraffics = readDoubleColumn(T);
+			final double [] treeOccupiedCapacities = readDoubleColumn(T);
+			final long [][] treeCurrentLinkIds = readLongListColumn(T);
+			final long [][] treeInitialLinkIds = readLongListColumn(T);
+			final List<MulticastTree> trees = new ArrayList<> (T);
+			for (int t = 0; t < T ; t ++)
+			{
+				checkId(np , treeIds [t]);
+				final MulticastTree tree = np.addMulticastTree(treeIds [t] , np.getMulticastDemandFromId(treeDemandIds [t]) , treeCarriedTraffics [t] , treeOccupiedCapacities [t] , new TreeSet<> (getLinks(np , treeInitialLinkIds [t])) , null);
+				tree.setLinks(new TreeSet<> (getLinks(np , treeCurrentLinkIds [t])));
+				tree.setName(treeNames [t] == null? "" : treeNames [t]);
+				tree.setDescription(treeDescriptions [t] == null? "" : treeDescriptions [t]);
+				trees.add(tree);
+			}
+			readTagsAndAttributes(trees);
+
+			/* routes. The backup routes are added at the end, since they may not exist yet */
+			final int numRoutes = in.getInt();
+			final long [] routeIds = readLongColumn(numRoutes);
+			final String [] routeNames = readStringColumn(numRoutes);
+			final String [] routeDescriptions = readStringColumn(numRoutes);
+			final long [] routeDemandIds = readLongColumn(numRoutes);
+			final double [] routeCurrentCarriedTraffics = readDoubleColumn(numRoutes);
+			final double [][] routeCurrentOccupations = readDoubleListColumn(numRoutes);
+			final long [][] routeCurrentPathIds = readLongListColumn(numRoutes);
+			final long [] routeBidirectionalPairIds = readLongColumn(numRoutes);
+			final double [] routeInitialCarriedTraffics = readDoubleColumn(numRoutes);
+			final double [][] routeInitialOccupations = readDoubleListColumn(numRoutes);
+			final long [][] routeInitialPathIds = readLongListColumn(numRoutes);
+			final long [][] routeBackupRouteIds = readLongListColumn(numRoutes);
+			final List<Route> routes = new ArrayList<> (numRoutes);
+			np.beginBulkChanges();
+			for (int r = 0; r < numRoutes ; r ++)
+			{
+				checkId(np , routeIds [r]);
+				final Route route = np.addServiceChain(routeIds [r] , np.getDemandFromId(routeDemandIds [r]) , routeInitialCarriedTraffics [r] ,
+						toList(routeInitialOccupations [r]) , getLinksAndResources(np , routeInitialPathIds [r]) , null);
+				if (!Arrays.equals(routeCurrentPathIds [r] , routeInitialPathIds [r]) || routeCurrentCarriedTraffics [r] != routeInitialCarriedTraffics [r] || !Arrays.equals(routeCurrentOccupations [r] , routeInitialOccupations [r]))
+					route.setPath(routeCurrentCarriedTraffics [r] , getLinksAndResources(np , routeCurrentPathIds [r]) , toList(routeCurrentOccupations [r]));
+				route.setName(routeNames [r] == null? "" : routeNames [r]);
+				route.setDescription(routeDescriptions [r] == null? "" : routeDescriptions [r]);
+				final Route bidirPairRoute = routeBidirectionalPairIds [r] == -1? null : np.getRouteFromId(routeBidirectionalPairIds [r]);
+				if (bidirPairRoute != null)
+				{
+					if (bidirPairRoute.isBidirectional()) throw new RuntimeException();
+					bidirPairRoute.setBidirectionalPair(route);
+				}
+				routes.add(route);
+			}
+			np.commitBulkChanges();
+			for (int r = 0; r < numRoutes ; r ++)
+				for (long backupId : routeBackupRouteIds [r]) routes.get(r).addBackupRoute(np.getRouteFromId(backupId));
+			readTagsAndAttributes(routes);
+
+			/* forwarding rules */
+			final int F = in.getInt();
+			final long [] frDemandIds = readLongColumn(F);
+			final long [] frLinkIds = readLongColumn(F);
+			final double [] frSplittingRatios = readDoubleColumn(F);
+			final DoubleMatrix2D f_de = DoubleFactory2D.sparse.make(D , E);
+			for (int cont = 0; cont < F ; cont ++)
+				f_de.set(np.getDemandFromId(frDemandIds [cont]).index , np.getLinkFromId(frLinkIds [cont]).index , frSplittingRatios [cont]);
+			np.setForwardingRules(f_de , new TreeSet<> (np.getDemandsHopByHopRouted(layer)) , layer);
+
+			readTagsAndAttributes(Arrays.asList(layer));
+		}
+
+		private void readStringTable ()
+		{
+			in.position(in.limit() - 8);
+			final long stringTableOffset = in.getLong();
+			if (stringTableOffset < in.position() - 8 && stringTableOffset >= 8) in.position((int) stringTableOffset);
+			else throw new Net2PlanException("Wrong or truncated n2pb file");
+			final int numStrings = in.getInt();
+			final int [] lengths = readIntColumn(numStrings);
+			this.strings = new String [numStrings];
+			byte [] bytes = new byte [0];
+			for (int cont = 0; cont < numStrings ; cont ++)
+			{
+				if (bytes.length < lengths [cont]) bytes = new byte [Math.max(lengths [cont] , 2 * bytes.length)];
+				in.get(bytes , 0 , lengths [cont]);
+				strings [cont] = new String(bytes , 0 , lengths [cont] , StandardCharsets.UTF_8);
+			}
+		}
+
+		private static void checkId (NetPlan np , long id)
+		{
+			if (id >= np.nextElementId.toLong()) throw new Net2PlanException("A network element has an id higher than the nextElementId");
+		}
+
+		/* to fail before allocating the arrays, if a wrong file has a too large size */
+		private void checkRemaining (int numElements , int bytesPerElement)
+		{
+			if (numElements < 0 || numElements > in.remaining() / bytesPerElement) throw new BufferUnderflowException();
+		}
+
+		private String readString ()
+		{
+			final int index = in.getInt();
+			return index == NULLSTRING? null : strings [index];
+		}
+
+		private String readStringOrDefault (String defaultValue)
+		{
+			final String res = readString();
+			return res == null? defaultValue : res;
+		}
+
+		private List<String> readStrings ()
+		{
+			final int size = in.getInt();
+			final List<String> res = new ArrayList<> (size);
+			for (int cont = 0; cont < size ; cont ++) res.add(readString());
+			return res;
+		}
+
+		private int [] readIntColumn (int size)
+		{
+			checkRemaining(size , 4);
+			final int [] res = new int [size];
+			in.asIntBuffer().get(res);
+			in.position(in.position() + 4 * size);
+			return res;
+		}
+
+		private long [] readLongColumn (int size)
+		{
+			checkRemaining(size , 8);
+			final long [] res = new long [size];
+			in.asLongBuffer().get(res);
+			in.position(in.position() + 8 * size);
+			return res;
+		}
+
+		private double [] readDoubleColumn (int size)
+		{
+			checkRemaining(size , 8);
+			final double [] res = new double [size];
+			in.asDoubleBuffer().get(res);
+			in.position(in.position() + 8 * size);
+			return res;
+		}
+
+		private boolean [] readBooleanColumn (int size)
+		{
+			checkRemaining(size , 1);
+			final boolean [] res = new boolean [size];
+			for (int cont = 0; cont < size ; cont ++) res [cont] = in.get() != 0;
+			return res;
+		}
+
+		private String [] readStringColumn (int size)
+		{
+			checkRemaining(size , 4);
+			final String [] res = new String [size];
+			for (int cont = 0; cont < size ; cont ++) res [cont] = readString();
+			return res;
+		}
+
+		private long [][] readLongListColumn (int size)
+		{
+			final int [] lengths = readIntColumn(size);
+			final long [][] res = new long [size][];
+			for (int cont = 0; cont < size ; cont ++) res [cont] = readLongColumn(lengths [cont]);
+			return res;
+		}
+
+		private double [][] readDoubleListColumn (int size)
+		{
+			final int [] lengths = readIntColumn(size);
+			final double [][] res = new double [size][];
+			for (int cont = 0; cont < size ; cont ++) res [cont] = readDoubleColumn(lengths [cont]);
+			return res;
+		}
+
+		private String [][] readStringListColumn (int size)
+		{
+			final int [] lengths = readIntColumn(size);
+			final String [][] res = new String [size][];
+			for (int cont = 0; cont < size ; cont ++) res [cont] = readStringColumn(lengths [cont]);
+			return res;
+		}
+
+		private void readTagsAndAttributes (List<? extends NetworkElement> elements)
+		{
+			final String [][] tags = readStringListColumn(elements.size());
+			final String [][] attributes = readStringListColumn(elements.size());
+			for (int cont = 0; cont < elements.size() ; cont ++)
+			{
+				final NetworkElement e = elements.get(cont);
+				for (String tag : tags [cont]) e.addTag(tag);
+				for (int a = 0; a < attributes [cont].length / 2 ; a ++) e.setAttribute(attributes [cont][2*a] , attributes [cont][2*a+1]);
+			}
+		}
+
+		private static List<Double> toList (double [] vals)
+		{
+			final List<Double> res = new ArrayList<> (vals.length);
+			for (double v : vals) res.add(v);
+			return res;
+		}
+
+		private static URL toUrl (String s)
+		{
+			if (s == null) return null;
+			try { return new URL(s); } catch (MalformedURLException e) { return null; }
+		}
+
+		private static SortedSet<Node> getNodes (NetPlan np , long [] ids)
+		{
+			final SortedSet<Node> res = new TreeSet<> ();
+			for (long id : ids) res.add(np.getNodeFromId(id));
+			return res;
+		}
+
+		private static List<Link> getLinks (NetPlan np , long [] ids)
+		{
+			final List<Link> res = new ArrayList<> (ids.length);
+			for (long id : ids) res.add(np.getLinkFromId(id));
+			return res;
+		}
+
+		private static List<NetworkElement> getLinksAndResources (NetPlan np , long [] ids)
+		{
+			final List<NetworkElement> res = new ArrayList<> (ids.length);
+			for (long id : ids)
+			{
+				NetworkElement e = np.getLinkFromId(id);
+				if (e == null) e = np.getResourceFromId(id);
+				if (e == null) throw new Net2PlanException("Unknown id in the list");
+				res.add(e);
+			}
+			return res;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.interfaces.networkDesign;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+/**
+ * <p>Keeps track of the nodes, links and unicast demands whose state changed since the last call to {@link #clear()}, so that
+ * modules that follow the evolution of a design (e.g. the statistics of an online simulation) only need to revisit those elements.
+ * A tracker is attached to a design with {@link NetPlan#setChangeTracker(NetPlanChangeTracker)}.</p>
+ *
+ * <p>A node is marked when its failure state changes. A link is marked when its capacity, occupied capacity, length or failure state may
+ * have changed. A demand is marked when its offered traffic, carried traffic or worst case length may have changed (the link coupled
+ * to the demand, if any, is also marked). Marked elements are identified by their index (links and demands, by their index in its layer).</p>
+ *
+ * <p>When a node, link, demand or layer is added or removed, the indexes of the elements may change, and the tracker is just flagged
+ * as structurally modified: then, all the elements should be considered as changed.</p>
+ */
+public final class NetPlanChangeTracker
+{
+	private boolean structureModified;
+	private final BitSet modifiedNodes;
+	private final ArrayList<BitSet> modifiedLinksPerLayer;
+	private final ArrayList<BitSet> modifiedDemandsPerLayer;
+
+	/**
+	 * Default constructor. The tracker is initially flagged as structurally modified.
+	 */
+	public NetPlanChangeTracker()
+	{
+		this.structureModified = true;
+		this.modifiedNodes = new BitSet();
+		this.modifiedLinksPerLayer = new ArrayList<BitSet>();
+		this.modifiedDemandsPerLayer = new ArrayList<BitSet>();
+	}
+
+	/**
+	 * Unmarks all the elements, and clears the structural modification flag.
+	 */
+	public void clear()
+	{
+		structureModified = false;
+		modifiedNodes.clear();
+		for (BitSet b : modifiedLinksPerLayer) b.clear();
+		for (BitSet b : modifiedDemandsPerLayer) b.clear();
+	}
+
+	/**
+	 * Indicates whether a node, link, demand or layer was added or removed. In that case, the marked indexes are not reliable, and all the
+	 * elements should be considered as changed.
+	 *
+	 * @return see above
+	 */
+	public boolean isStructureModified()
+	{
+		return structureModified;
+	}
+
+	/**
+	 * Returns the indexes of the nodes marked as changed. The returned set is the internal one, and should not be modified.
+	 *
+	 * @return see above
+	 */
+	public BitSet getModifiedNodes()
+	{
+		return modifiedNodes;
+	}
+
+	/**
+	 * Returns the indexes of the links of the given layer (by its index) marked as changed. The returned set is the internal one, and should not be modified.
+	 *
+	 * @param layerIndex the layer index
+	 * @return see above
+	 */
+	public BitSet getModifiedLinks(int layerIndex)
+	{
+		return get(modifiedLinksPerLayer, layerIndex);
+	}
+
+	/**
+	 * Returns the indexes of the unicast demands of the given layer (by its index) marked as changed. The returned set is the internal one, and should not be modified.
+	 *
+	 * @param layerIndex the layer index
+	 * @return see above
+	 */
+	public BitSet getModifiedDemands(int layerIndex)
+	{
+		return get(modifiedDemandsPerLayer, layerIndex);
+	}
+
+	void markModified(NetworkElement e)
+	{
+		if (e instanceof Link)
+		{
+			final Link link = (Link) e;
+			get(modifiedLinksPerLayer, link.layer.index).set(link.index);
+		} else if (e instanceof Demand)
+		{
+			final Demand demand = (Demand) e;
+			get(modifiedDemandsPerLayer, demand.layer.index).set(demand.index);
+			if (demand.coupledUpperOrSameLayerLink != null) markModified(demand.coupledUpperOrSameLayerLink);
+		} else if (e instanceof Node)
+			modifiedNodes.set(e.index);
+	}
+
+	void markStructureModified(NetworkElement e)
+	{
+		if ((e instanceof Node) || (e instanceof Link) || (e instanceof Demand) || (e instanceof NetworkLayer)) structureModified = true;
+	}
+
+	void markStructureModified()
+	{
+		structureModified = true;
+	}
+
+	private static BitSet get(ArrayList<BitSet> perLayer, int layerIndex)
+	{
+		while (perLayer.size() <= layerIndex) perLayer.add(new BitSet());
+		return perLayer.get(layerIndex);
+	}
+}
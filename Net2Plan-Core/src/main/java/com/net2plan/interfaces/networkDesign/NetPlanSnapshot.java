@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.interfaces.networkDesign;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Immutable snapshot of a network design, intended for undo histories and what-if branches, where many versions of a design that
+ * differ in a few elements are kept at the same time.</p>
+ *
+ * <p>The snapshot stores the design in its {@code .n2p} format, split into chunks of lines. The chunk boundaries depend only on the
+ * contents of the lines, so a change in some elements only changes the chunks where these elements are written. When a snapshot is
+ * created from a previous one (e.g. the previous step in an undo history, or the root of a what-if branch), the chunks that did not change
+ * are shared with it, and the memory of the new snapshot is proportional to the change, not to the design size.</p>
+ *
+ * <p>Snapshots do not keep any reference to the design they were taken from. Each call to {@link #getNetPlan()} returns a new design,
+ * that can be freely modified.</p>
+ */
+public final class NetPlanSnapshot
+{
+	/* a chunk ends at a line whose hash has these bits to zero (one every 32 lines on average), or when it reaches the maximum size */
+	private static final int CHUNK_BOUNDARY_MASK = 31;
+	private static final int MAX_LINES_PER_CHUNK = 256;
+
+	private final Chunk [] chunks;
+	private final int numBytes;
+
+	private NetPlanSnapshot(Chunk [] chunks)
+	{
+		this.chunks = chunks;
+		int numBytes = 0;
+		for (Chunk c : chunks) numBytes += c.bytes.length;
+		this.numBytes = numBytes;
+	}
+
+	/**
+	 * Creates a snapshot of the given design, not sharing any information with other snapshots.
+	 *
+	 * @param netPlan the design
+	 * @return the snapshot
+	 */
+	public static NetPlanSnapshot of(NetPlan netPlan)
+	{
+		return of(netPlan, null);
+	}
+
+	/**
+	 * Creates a snapshot of the given design, sharing with the previous snapshot the parts of the design that did not change.
+	 *
+	 * @param netPlan the design
+	 * @param previous the snapshot to share information with (if {@code null}, no information is shared)
+	 * @return the snapshot
+	 */
+	public static NetPlanSnapshot of(NetPlan netPlan, NetPlanSnapshot previous)
+	{
+		final ByteArrayOutputStream os = new ByteArrayOutputStream(previous == null ? 1 << 16 : previous.numBytes + 1024);
+		netPlan.saveToOutputStream(os);
+		final byte [] contents = os.toByteArray();
+
+		final Map<Chunk, Chunk> previousChunks = new HashMap<Chunk, Chunk>();
+		if (previous != null) for (Chunk c : previous.chunks) previousChunks.put(c, c);
+
+		final List<Chunk> chunks = new ArrayList<Chunk>();
+		int chunkStart = 0;
+		int lineStart = 0;
+		int lineHash = 0;
+		int numLinesInChunk = 0;
+		for (int pos = 0; pos < contents.length; pos++)
+		{
+			final byte b = contents [pos];
+			lineHash = 31 * lineHash + b;
+			if (b != '\n' && pos != contents.length - 1) continue;
+			numLinesInChunk++;
+			final boolean endOfChunk = ((mix(lineHash) & CHUNK_BOUNDARY_MASK) == 0) || (numLinesInChunk == MAX_LINES_PER_CHUNK) || (pos == contents.length - 1);
+			lineStart = pos + 1;
+			lineHash = 0;
+			if (!endOfChunk) continue;
+			final Chunk chunk = new Chunk(Arrays.copyOfRange(contents, chunkStart, lineStart));
+			final Chunk previousChunk = previousChunks.get(chunk);
+			chunks.add(previousChunk == null ? chunk : previousChunk);
+			chunkStart = lineStart;
+			numLinesInChunk = 0;
+		}
+		return new NetPlanSnapshot(chunks.toArray(new Chunk [chunks.size()]));
+	}
+
+	/**
+	 * Returns a new design, equal to the one stored in the snapshot.
+	 *
+	 * @return see above
+	 */
+	public NetPlan getNetPlan()
+	{
+		final byte [] contents = new byte [numBytes];
+		int pos = 0;
+		for (Chunk c : chunks)
+		{
+			System.arraycopy(c.bytes, 0, contents, pos, c.bytes.length);
+			pos += c.bytes.length;
+		}
+		return new NetPlan(new ByteArrayInputStream(contents));
+	}
+
+	/**
+	 * Returns the size in bytes of the design stored in the snapshot, counting the parts shared with other snapshots.
+	 *
+	 * @return see above
+	 */
+	public int getSizeInBytes()
+	{
+		return numBytes;
+	}
+
+	/**
+	 * Returns the size in bytes of the parts of the design that this snapshot does not share with the given one. This is the extra memory
+	 * needed to keep this snapshot, when the other is also kept.
+	 *
+	 * @param other the other snapshot
+	 * @return see above
+	 */
+	public int getSizeInBytesNotSharedWith(NetPlanSnapshot other)
+	{
+		final Map<Chunk, Chunk> otherChunks = new IdentityHashMap<Chunk, Chunk>();
+		for (Chunk c : other.chunks) otherChunks.put(c, c);
+		int res = 0;
+		for (Chunk c : chunks) if (!otherChunks.containsKey(c)) res += c.bytes.length;
+		return res;
+	}
+
+	private static int mix(int h)
+	{
+		h ^= (h >>> 16);
+		h *= 0x85ebca6b;
+		h ^= (h >>> 13);
+		return h;
+	}
+
+	/* Immutable piece of the serialized design, compared by contents so unchanged pieces can be shared between snapshots */
+	private static final class Chunk
+	{
+		private final byte [] bytes;
+		private final int hash;
+
+		private Chunk(byte [] bytes)
+		{
+			this.bytes = bytes;
+			this.hash = Arrays.hashCode(bytes);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this == o) return true;
+			if (!(o instanceof Chunk)) return false;
+			final Chunk c = (Chunk) o;
+			return hash == c.hash && Arrays.equals(bytes, c.bytes);
+		}
+	}
+}
@@ -38,6 +38,29 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
 {
 	private final static String MATRIX_COLSEPARATOR = " ";
 	private final static String MATRIX_ROWSEPARATOR = ";";
+	private final static AttributeMap.ParsedColumn<Double> PARSEDCOLUMN_DOUBLE = new AttributeMap.ParsedColumn<> (val -> 
+	{
+		try { return Double.parseDouble(val); } catch (Exception ee) { return null; }
+	});
+	private final static AttributeMap.ParsedColumn<List<Double>> PARSEDCOLUMN_DOUBLELIST = new AttributeMap.ParsedColumn<> (val -> 
+	{
+		try 
+		{
+			final String [] parts = val.split(MATRIX_COLSEPARATOR,-1);
+			final List<Double> res = new ArrayList<> (parts.length);
+			for (String part : parts)
+			{
+				if (part.equals("")) continue;
+				res.add(Double.parseDouble(part));
+			}
+			return Collections.unmodifiableList(res);
+		} catch (Exception ee) { return null; }
+	});
+	private final static AttributeMap.ParsedColumn<List<String>> PARSEDCOLUMN_STRINGLIST = new AttributeMap.ParsedColumn<> (val -> 
+	{
+		final List<String> res = StringUtils.readEscapedString_asStringList (val , null);
+		return res == null? null : Collections.unmodifiableList(res);
+	});
 
 	protected NetPlan netPlan;
 	final protected long id;
@@ -58,6 +81,8 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
 		this.description = "";
 		this.tags = new TreeSet<> (); 
 		this.elementType = NetworkElement.getNetworkElementType(this);
+		if ((netPlan != null) && (netPlan.changeTracker != null)) netPlan.changeTracker.markStructureModified(this);
+		if (netPlan != null) netPlan.cache_structureVersion ++;
 	}
 
 	public NetworkElementType getNeType () { return this.elementType; }
@@ -65,7 +90,7 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
 	/** Sets this element name
 	 * @param name  see above
 	 */
-	public final void setName (String name) { this.name = name == null? "" : name; }
+	public final void setName (String name) { this.name = name == null? "" : name; if (netPlan != null) netPlan.cache_modificationStamp ++; if ((this instanceof NetworkLayer) && (netPlan != null)) netPlan.cache_structureVersion ++; }
 
 	/** Returns current element name String
 	 * @return see above
@@ -75,7 +100,7 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
     /** Sets this element description
      * @param description  see above
      */
-    public final void setDescription (String description) { this.description = description == null? "" : description; }
+    public final void setDescription (String description) { this.description = description == null? "" : description; if (netPlan != null) netPlan.cache_modificationStamp ++; }
 
     /** Returns current element description String
      * @return see above
@@ -167,12 +192,24 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
 	 */
 	public Double getAttributeAsDouble (String key , Double defaultValue)
 	{
-		final String val = attributes.get(key);
-		if (val == null) return defaultValue;
-		try 
-		{
-			return Double.parseDouble(val);
-		} catch (Exception ee) { return defaultValue; }
+		final Double val = attributes.getParsedValue(key , PARSEDCOLUMN_DOUBLE);
+		return val == null? defaultValue : val;
+	}
+	
+	/**
+	 * Returns the value of a given attribute for this network element, parsed with the parser of the given column. The parsed value is kept 
+	 * while the attribute does not change, so reading it again does not parse the attribute again. 
+	 * The returned object is shared by successive calls, and must not be modified
+	 * @param key Attribute name
+	 * @param column the column defining the parser
+	 * @param defaultValue default value to return if not found, or could not be parsed
+	 * @param <T> the type of the parsed value
+	 * @return see above
+	 */
+	public <T> T getAttributeAsParsedValue (String key , AttributeMap.ParsedColumn<T> column , T defaultValue)
+	{
+		final T val = attributes.getParsedValue(key , column);
+		return val == null? defaultValue : val;
 	}
 	
 	/**
@@ -251,19 +288,8 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
 	public List<Double> getAttributeAsDoubleList (String key , List<Double> defaultValue)
 	{
 		checkAttachedToNetPlanObject();
-		final String val = attributes.get(key);
-		if (val == null) return defaultValue;  
-		try 
-		{
-			final String [] parts = val.split(MATRIX_COLSEPARATOR,-1);
-			final List<Double> res = new ArrayList<> (parts.length);
-			for (String part : parts)
-			{
-				if (part.equals("")) continue;
-				res.add(Double.parseDouble(part));
-			}
-			return res;
-		} catch (Exception ee) { ee.printStackTrace();return defaultValue; }
+		final List<Double> val = attributes.getParsedValue(key , PARSEDCOLUMN_DOUBLELIST);
+		return val == null? defaultValue : new ArrayList<> (val);
 	}
 
 	/**
@@ -275,9 +301,8 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
 	public List<String> getAttributeAsStringList (String key , List<String> defaultValue)
 	{
 		checkAttachedToNetPlanObject();
-		final String val = attributes.get(key);
-		if (val == null) return defaultValue;  
-		return StringUtils.readEscapedString_asStringList (val , defaultValue);
+		final List<String> val = attributes.getParsedValue(key , PARSEDCOLUMN_STRINGLIST);
+		return val == null? defaultValue : new ArrayList<> (val);
 	}
 	
 	/**
@@ -322,6 +347,7 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
 		SortedSet<NetworkElement> setElements = netPlan.cache_taggedElements.get (tag);
 		if (setElements == null) { setElements = new TreeSet<> (); netPlan.cache_taggedElements.put (tag , setElements); }
 		setElements.add (this);
+		netPlan.cache_structureVersion ++;
 	}
 	
 	/** Returns true if this network element has the given tag
@@ -341,7 +367,10 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
 	{
 		final boolean removed = this.tags.remove (tag);
 		if (removed)
+		{
 			netPlan.cache_taggedElements.get (tag).remove (this);
+			netPlan.cache_structureVersion ++;
+		}
 		return removed;
 	}
 	
@@ -584,10 +613,18 @@ public abstract class NetworkElement implements Comparable<NetworkElement>
 
 	final protected void removeId () 
 	{ 
+		if ((netPlan != null) && (netPlan.changeTracker != null)) netPlan.changeTracker.markStructureModified(this);
+		if (netPlan != null) netPlan.cache_structureVersion ++;
 		this.netPlan = null;
 	} // called when the element is removed from the net2plan object
 
 
+	/* Marks this element as changed in the change tracker of the design, if any */
+	final void markModified ()
+	{
+		if ((netPlan != null) && (netPlan.changeTracker != null)) netPlan.changeTracker.markModified(this);
+	}
+
 	void checkCachesConsistency ()
 	{
 		/* Check all the tags here are in the cache */
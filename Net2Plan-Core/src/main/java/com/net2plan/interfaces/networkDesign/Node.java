@@ -115,17 +115,17 @@ public class Node extends NetworkElement
 		for (Entry<String,Point2D> entry : origin.mapLayout2NodeXYPositionMap.entrySet())
 		    this.mapLayout2NodeXYPositionMap.put(entry.getKey(), new UnmodifiablePoint2D(entry.getValue().getX(), entry.getValue().getY()));
 		this.isUp = origin.isUp;
-		this.mapLayer2URLSpecificIcon.clear(); for (NetworkLayer l : origin.mapLayer2URLSpecificIcon.keySet()) this.mapLayer2URLSpecificIcon.put(this.netPlan.getNetworkLayerFromId(l.getId()) , origin.mapLayer2URLSpecificIcon.get(l));
-		this.cache_nodeIncomingLinks.clear (); for (Link e : origin.cache_nodeIncomingLinks) this.cache_nodeIncomingLinks.add(this.netPlan.getLinkFromId (e.id));
-		this.cache_nodeOutgoingLinks.clear (); for (Link e : origin.cache_nodeOutgoingLinks) this.cache_nodeOutgoingLinks.add(this.netPlan.getLinkFromId (e.id));
-		this.cache_nodeIncomingDemands.clear (); for (Demand d : origin.cache_nodeIncomingDemands) this.cache_nodeIncomingDemands.add(this.netPlan.getDemandFromId (d.id));
-		this.cache_nodeOutgoingDemands.clear (); for (Demand d : origin.cache_nodeOutgoingDemands) this.cache_nodeOutgoingDemands.add(this.netPlan.getDemandFromId (d.id));
-		this.cache_nodeIncomingMulticastDemands.clear (); for (MulticastDemand d : origin.cache_nodeIncomingMulticastDemands) this.cache_nodeIncomingMulticastDemands.add(this.netPlan.getMulticastDemandFromId(d.id));
-		this.cache_nodeOutgoingMulticastDemands.clear (); for (MulticastDemand d : origin.cache_nodeOutgoingMulticastDemands) this.cache_nodeOutgoingMulticastDemands.add(this.netPlan.getMulticastDemandFromId(d.id));
-		this.cache_nodeNonDynamicSRGs.clear (); for (SharedRiskGroup s : origin.cache_nodeNonDynamicSRGs) this.cache_nodeNonDynamicSRGs.add(this.netPlan.getSRGFromId(s.id));
-		this.cache_nodeResources.clear(); for (Resource r : origin.cache_nodeResources) this.cache_nodeResources.add(this.netPlan.getResourceFromId(r.id));
-		this.cache_nodeAssociatedRoutes.clear (); for (Route r : origin.cache_nodeAssociatedRoutes) this.cache_nodeAssociatedRoutes.add(this.netPlan.getRouteFromId (r.id));
-		this.cache_nodeAssociatedulticastTrees.clear (); for (MulticastTree t : origin.cache_nodeAssociatedulticastTrees) this.cache_nodeAssociatedulticastTrees.add(this.netPlan.getMulticastTreeFromId(t.id));
+		this.mapLayer2URLSpecificIcon.clear(); for (NetworkLayer l : origin.mapLayer2URLSpecificIcon.keySet()) this.mapLayer2URLSpecificIcon.put(this.netPlan.getPeerElementInThisNetPlan(l) , origin.mapLayer2URLSpecificIcon.get(l));
+		this.cache_nodeIncomingLinks.clear (); this.cache_nodeIncomingLinks.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeIncomingLinks));
+		this.cache_nodeOutgoingLinks.clear (); this.cache_nodeOutgoingLinks.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeOutgoingLinks));
+		this.cache_nodeIncomingDemands.clear (); this.cache_nodeIncomingDemands.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeIncomingDemands));
+		this.cache_nodeOutgoingDemands.clear (); this.cache_nodeOutgoingDemands.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeOutgoingDemands));
+		this.cache_nodeIncomingMulticastDemands.clear (); this.cache_nodeIncomingMulticastDemands.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeIncomingMulticastDemands));
+		this.cache_nodeOutgoingMulticastDemands.clear (); this.cache_nodeOutgoingMulticastDemands.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeOutgoingMulticastDemands));
+		this.cache_nodeNonDynamicSRGs.clear (); this.cache_nodeNonDynamicSRGs.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeNonDynamicSRGs));
+		this.cache_nodeResources.clear (); this.cache_nodeResources.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeResources));
+		this.cache_nodeAssociatedRoutes.clear (); this.cache_nodeAssociatedRoutes.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeAssociatedRoutes));
+		this.cache_nodeAssociatedulticastTrees.clear (); this.cache_nodeAssociatedulticastTrees.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.cache_nodeAssociatedulticastTrees));
 	}
 	
 	boolean isDeepCopy (Node e2)
@@ -331,7 +331,7 @@ public class Node extends NetworkElement
 		netPlan.checkIsModifiable();
 		NetworkLayer layer = netPlan.checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
 		for (Link e : cache_nodeOutgoingLinks) if (e.layer.equals (layer)) e.removeAllForwardingRules();
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	
@@ -644,7 +644,7 @@ public class Node extends NetworkElement
 		if (isUp == setAsUp) return isUp;
 		List<Node> aux = new LinkedList<Node> (); aux.add(this);
 		if (setAsUp) netPlan.setLinksAndNodesFailureState (null , null , aux , null); else netPlan.setLinksAndNodesFailureState (null, null , null , aux); 
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 		return !setAsUp; // the previous state
 	}
 
@@ -850,7 +850,7 @@ public class Node extends NetworkElement
 		NetPlan.removeNetworkElementAndShiftIndexes(netPlan.nodes , this.index);
         final NetPlan npOld = this.netPlan;
         removeId();
-        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
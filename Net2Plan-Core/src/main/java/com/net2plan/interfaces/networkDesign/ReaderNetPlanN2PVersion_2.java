@@ -53,7 +53,7 @@ class ReaderNetPlanN2PVersion_2 implements IReaderNetPlan
 		parseNetwork(netPlan, xmlStreamReader);
 		
 		// System.out.println ("netPlan leido: --- " + netPlan + " --- netPlan leido");
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 
 	}
 	
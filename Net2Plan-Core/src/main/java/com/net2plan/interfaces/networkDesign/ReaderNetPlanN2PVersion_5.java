@@ -69,7 +69,7 @@ class ReaderNetPlanN2PVersion_5 implements IReaderNetPlan //extends NetPlanForma
 
 //		System.out.println ("End ReaderNetPlan_v5: " + netPlan + " ----------- ");
 		
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 		ProfileUtils.printTime("Reading n2p file");
 	}
 
@@ -78,7 +78,7 @@ class ReaderNetPlanN2PVersion_6 implements IReaderNetPlan //extends NetPlanForma
 
 //		System.out.println ("End ReaderNetPlan_v5: " + netPlan + " ----------- ");
 		
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 		ProfileUtils.printTime("Reading n2p file");
 	}
 
@@ -363,7 +363,9 @@ class ReaderNetPlanN2PVersion_6 implements IReaderNetPlan //extends NetPlanForma
 		}
 		final Route newRoute = netPlan.addServiceChain(routeId , newNetPlanDemand, initialStateCarriedTrafficIfNotFailing, 
 				initialStateOccupationIfNotFailing, initialStatePath, null);
-		newRoute.setPath(currentCarriedTrafficIfNotFailing, currentPath, currentLinksAndResourcesOccupationIfNotFailing);
+		final boolean currentSameAsInitial = currentPath.equals(initialStatePath) && currentCarriedTrafficIfNotFailing == initialStateCarriedTrafficIfNotFailing && currentLinksAndResourcesOccupationIfNotFailing.equals(initialStateOccupationIfNotFailing);
+		if (!currentSameAsInitial)
+			newRoute.setPath(currentCarriedTrafficIfNotFailing, currentPath, currentLinksAndResourcesOccupationIfNotFailing);
         newRoute.setName(getStringOrDefault("name", ""));
         newRoute.setDescription(getStringOrDefault("description", ""));
 
@@ -671,6 +673,7 @@ class ReaderNetPlanN2PVersion_6 implements IReaderNetPlan //extends NetPlanForma
 	private void parseSourceRouting(NetPlan netPlan, long layerId) throws XMLStreamException
 	{
 		this.backupRouteIdsMap.clear(); // in multiple layers, we have to refresh this
+		netPlan.beginBulkChanges(); // the traffic in links and demands is computed once, after all the routes are read
 		
 		while(xmlStreamReader.hasNext())
 		{
@@ -695,6 +698,8 @@ class ReaderNetPlanN2PVersion_6 implements IReaderNetPlan //extends NetPlanForma
 					String endElementName = xmlStreamReader.getName().toString();
 					if (endElementName.equals("sourceRouting"))
 					{
+						netPlan.commitBulkChanges();
+
 						/* Before returning, we add the backup routes */
 						for (Entry<Route,List<Long>> entry : this.backupRouteIdsMap.entrySet())
 						{
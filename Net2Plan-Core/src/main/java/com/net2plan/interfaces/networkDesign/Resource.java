@@ -90,33 +90,15 @@ public class Resource extends NetworkElement
 		if ((this.netPlan == null) || (origin.netPlan == null) || (this.netPlan == origin.netPlan)) throw new RuntimeException ("Bad");
 		this.type = origin.type;
 		this.name = origin.name;
-		this.hostNode = origin.hostNode.isPresent()? Optional.of(this.netPlan.getNodeFromId (origin.hostNode.get().id)) : Optional.empty();
+		this.hostNode = origin.hostNode.isPresent()? Optional.of(this.netPlan.getPeerElementInThisNetPlan(origin.hostNode.get())) : Optional.empty();
 		this.capacityMeasurementUnits = origin.capacityMeasurementUnits;
 		this.capacity = origin.capacity;
 		this.cache_totalOccupiedCapacity = origin.cache_totalOccupiedCapacity;
 		this.processingTimeToTraversingTrafficInMs = origin.processingTimeToTraversingTrafficInMs;
 		this.urlIcon = origin.urlIcon;
-		this.capacityUpperResourcesOccupyInMe = new TreeMap<Resource,Double> ();
-		for (Entry<Resource,Double> entry : origin.capacityUpperResourcesOccupyInMe.entrySet())
-		{
-			final Resource resourceThisNp = this.netPlan.getResourceFromId(entry.getKey().id);
-			if (resourceThisNp == null) throw new RuntimeException ("Bad");
-			this.capacityUpperResourcesOccupyInMe.put(resourceThisNp , entry.getValue());
-		}
-		this.capacityIOccupyInBaseResource = new TreeMap<Resource,Double> ();
-		for (Entry<Resource,Double> entry : origin.capacityIOccupyInBaseResource.entrySet())
-		{
-			final Resource resourceThisNp = this.netPlan.getResourceFromId(entry.getKey().id);
-			if (resourceThisNp == null) throw new RuntimeException ("Bad");
-			this.capacityIOccupyInBaseResource.put(resourceThisNp , entry.getValue());
-		}
-		this.cache_traversingRoutesAndOccupiedCapacitiesIfNotFailingRoute = new TreeMap<Route,Double> ();
-		for (Entry<Route,Double> originRoute : origin.cache_traversingRoutesAndOccupiedCapacitiesIfNotFailingRoute.entrySet())
-		{
-			final Route routeThisNp = this.netPlan.getRouteFromId(originRoute.getKey().id);
-			if (routeThisNp == null) throw new RuntimeException ("Bad");
-			this.cache_traversingRoutesAndOccupiedCapacitiesIfNotFailingRoute.put(this.netPlan.getRouteFromId(originRoute.getKey().id) , originRoute.getValue());
-		}
+		this.capacityUpperResourcesOccupyInMe = new TreeMap<Resource,Double> (this.netPlan.getPeerElementsInThisNetPlan(origin.capacityUpperResourcesOccupyInMe));
+		this.capacityIOccupyInBaseResource = new TreeMap<Resource,Double> (this.netPlan.getPeerElementsInThisNetPlan(origin.capacityIOccupyInBaseResource));
+		this.cache_traversingRoutesAndOccupiedCapacitiesIfNotFailingRoute = new TreeMap<Route,Double> (this.netPlan.getPeerElementsInThisNetPlan(origin.cache_traversingRoutesAndOccupiedCapacitiesIfNotFailingRoute));
 	}
 
 	boolean isDeepCopy (Resource r2)
@@ -452,7 +434,7 @@ public class Resource extends NetworkElement
 		NetPlan.removeNetworkElementAndShiftIndexes(netPlan.resources , index);
         final NetPlan npOld = this.netPlan;
         removeId();
-        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	
@@ -142,16 +142,16 @@ public class Route extends NetworkElement
 		this.currentLinksAndResourcesOccupationIfNotFailing = new ArrayList<Double> (origin.currentLinksAndResourcesOccupationIfNotFailing);
 		this.initialStateCarriedTrafficIfNotFailing = origin.initialStateCarriedTrafficIfNotFailing;
 		this.initialStateOccupationIfNotFailing = new ArrayList<Double> (origin.initialStateOccupationIfNotFailing);
-		this.currentPath = (List<NetworkElement>) getInThisNetPlan(origin.currentPath);
-        try { this.initialStatePath = (List<NetworkElement>) getInThisNetPlan(origin.initialStatePath); } catch (Exception e) { this.initialStatePath = new ArrayList<> (currentPath); } 
-		this.backupRoutes = (List<Route>) getInThisNetPlan(origin.backupRoutes);
-		this.cache_routesIAmBackUp = (SortedSet<Route>) getInThisNetPlan(origin.cache_routesIAmBackUp);
-		this.cache_seqLinksRealPath = (List<Link>) getInThisNetPlan(origin.cache_seqLinksRealPath);
-		this.cache_seqNodesRealPath = (List<Node>) getInThisNetPlan(origin.cache_seqNodesRealPath);
+		this.currentPath = netPlan.getPeerElementsInThisNetPlan(origin.currentPath);
+        try { this.initialStatePath = netPlan.getPeerElementsInThisNetPlan(origin.initialStatePath); } catch (Exception e) { this.initialStatePath = new ArrayList<> (currentPath); } 
+		this.backupRoutes = netPlan.getPeerElementsInThisNetPlan(origin.backupRoutes);
+		this.cache_routesIAmBackUp = new TreeSet<Route> (netPlan.getPeerElementsInThisNetPlan(origin.cache_routesIAmBackUp));
+		this.cache_seqLinksRealPath = netPlan.getPeerElementsInThisNetPlan(origin.cache_seqLinksRealPath);
+		this.cache_seqNodesRealPath = netPlan.getPeerElementsInThisNetPlan(origin.cache_seqNodesRealPath);
 		this.cache_hasLoops = origin.cache_hasLoops;
 		this.cache_linkAndResourcesTraversedOccupiedCapIfnotFailMap.clear();
-	    this.bidirectionalPair = origin.bidirectionalPair == null? null : netPlan.getRouteFromId(origin.bidirectionalPair.getId());
-		for (Entry<NetworkElement,Double> e : origin.cache_linkAndResourcesTraversedOccupiedCapIfnotFailMap.entrySet()) this.cache_linkAndResourcesTraversedOccupiedCapIfnotFailMap.put(getInThisNetPlan (e.getKey()) , e.getValue());
+	    this.bidirectionalPair = origin.bidirectionalPair == null? null : netPlan.getPeerElementInThisNetPlan(origin.bidirectionalPair);
+		this.cache_linkAndResourcesTraversedOccupiedCapIfnotFailMap.putAll(netPlan.getPeerElementsInThisNetPlan(origin.cache_linkAndResourcesTraversedOccupiedCapIfnotFailMap));
 	}
 
     /**
@@ -282,7 +282,7 @@ public class Route extends NetworkElement
 		if (this.backupRoutes.contains(backupRoute)) throw new Net2PlanException ("The route is already a backup route");
 		this.backupRoutes.add (backupRoute);
 		backupRoute.cache_routesIAmBackUp.add(this);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
@@ -297,7 +297,7 @@ public class Route extends NetworkElement
 		if (!backupRoutes.contains(backupRoute)) throw new Net2PlanException ("This route is not a backup");
 		backupRoute.cache_routesIAmBackUp.remove(this);
 		this.backupRoutes.remove (backupRoute);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/** Returns the route carried traffic at this moment. Recall that if the route is down (traverses a link or node that is down) its carried traffic is
@@ -645,11 +645,12 @@ public class Route extends NetworkElement
         {
         	demand.cache_worstCaseLengthInKm = 0;
         	for (Route r : demand.cache_routes) demand.cache_worstCaseLengthInKm = Math.max(demand.cache_worstCaseLengthInKm, r.getLengthInKm());
+        	demand.markModified();
         }
 
         final NetPlan npOld = this.netPlan;
         removeId();
-        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/** Sets the route carried traffic and the occupied capacity in the traversed links and resources (typically the same as the carried traffic),
@@ -703,18 +704,29 @@ public class Route extends NetworkElement
 		/* Now the update of the links and resources occupation */
 		this.cache_linkAndResourcesTraversedOccupiedCapIfnotFailMap = updateLinkResourceOccupationCache ();
 
-		demand.carriedTraffic = 0; for (Route r : demand.cache_routes) demand.carriedTraffic += r.getCarriedTraffic();
-		if (demand.coupledUpperOrSameLayerLink != null)
-			demand.coupledUpperOrSameLayerLink.updateCapacityAndZeroCapacityLinksAndRoutesCaches(demand.carriedTraffic);
+		/* If the traffic updates are deferred, the demand and links are updated later in one pass */
+		final boolean deferTrafficUpdates = netPlan.isDeferringTrafficUpdates();
+		if (deferTrafficUpdates)
+			netPlan.cache_demandsWithDeferredTrafficUpdate.add(demand);
+		else
+		{
+			demand.carriedTraffic = 0; for (Route r : demand.cache_routes) demand.carriedTraffic += r.getCarriedTraffic();
+			demand.markModified();
+			if (demand.coupledUpperOrSameLayerLink != null)
+				demand.coupledUpperOrSameLayerLink.updateCapacityAndZeroCapacityLinksAndRoutesCaches(demand.carriedTraffic);
+		}
 
 		for (NetworkElement e : cache_linkAndResourcesTraversedOccupiedCapIfnotFailMap.keySet())
 			if (e instanceof Resource)
 				((Resource) e).addTraversingRoute(this , cache_linkAndResourcesTraversedOccupiedCapIfnotFailMap.get(e));
 			else if (e instanceof Link)
-				((Link) e).updateLinkTrafficAndOccupation();
+			{
+				if (deferTrafficUpdates) netPlan.cache_linksWithDeferredTrafficUpdate.add((Link) e);
+				else ((Link) e).updateLinkTrafficAndOccupation();
+			}
 
 
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/** Sets the new sequence of links and/or resources traversed by the route, carried traffic, and occupied capacity in the traversed links/resources
@@ -784,7 +796,7 @@ public class Route extends NetworkElement
 		this.updatePropagationAndProcessingDelayInMiliseconds();
 
 		setCarriedTraffic (newCarriedTraffic , newOccupationInformation);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/** Sets the new sequence of links traversed by the route. Since this method receives a list of
@@ -957,49 +969,6 @@ public class Route extends NetworkElement
 		return res;
 	}
 
-	private NetworkElement getInThisNetPlan (NetworkElement e)
-	{
-		NetworkElement res = null;
-		if (e instanceof Link) res = this.netPlan.getLinkFromId(e.id);
-		else if (e instanceof Resource) res = this.netPlan.getResourceFromId(e.id);
-		else if (e instanceof Node) res = this.netPlan.getNodeFromId(e.id);
-		else throw new RuntimeException ("Bad");
-		if (res == null) throw new RuntimeException ("Element of id: " + e.id + ", of class: " + e.getClass().getName() + ", does not exsit in current NetPlan");
-		return res;
-	}
-
-	private List<? extends NetworkElement> getInThisNetPlan (List<? extends NetworkElement> list)
-	{
-		List<NetworkElement> res = new ArrayList<NetworkElement> (list.size());
-		for (NetworkElement e : list)
-		{
-			if (e instanceof Link) res.add(this.netPlan.getLinkFromId(e.id));
-			else if (e instanceof Resource) res.add(this.netPlan.getResourceFromId(e.id));
-			else if (e instanceof Node) res.add(this.netPlan.getNodeFromId(e.id));
-			else if (e instanceof Route) res.add(this.netPlan.getRouteFromId(e.id));
-			else throw new RuntimeException ("Bad");
-			if (res.get(res.size()-1) == null) throw new RuntimeException ("Element of id: " + e.id + ", of class: " + e.getClass().getName() + ", does not exsit in current NetPlan");
-		}
-		return res;
-	}
-
-	private SortedSet<? extends NetworkElement> getInThisNetPlan (SortedSet<? extends NetworkElement> list)
-	{
-		SortedSet<NetworkElement> res = new TreeSet<> ();
-		for (NetworkElement e : list)
-		{
-			NetworkElement ee = null;
-			if (e instanceof Link) ee = this.netPlan.getLinkFromId(e.id);
-			else if (e instanceof Resource) ee = this.netPlan.getResourceFromId(e.id);
-			else if (e instanceof Node) ee = this.netPlan.getNodeFromId(e.id);
-			else if (e instanceof Route) ee = this.netPlan.getRouteFromId(e.id);
-			else throw new RuntimeException ("Bad");
-			if (ee == null) throw new RuntimeException ("Element of id: " + e.id + ", of class: " + e.getClass().getName() + ", does not exsit in current NetPlan");
-			res.add(ee);
-		}
-		return res;
-	}
-
 	private SortedMap<NetworkElement,Double> updateLinkResourceOccupationCache ()
 	{
 		SortedMap<NetworkElement,Double> res = new TreeMap<NetworkElement,Double> ();
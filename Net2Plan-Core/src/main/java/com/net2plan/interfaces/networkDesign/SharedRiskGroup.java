@@ -105,8 +105,8 @@ public class SharedRiskGroup extends NetworkElement
 		}
 		else
 		{
-	        this.linksIfNonDynamic.clear (); for (Link e : origin.linksIfNonDynamic) this.linksIfNonDynamic.add(this.netPlan.getLinkFromId (e.id));
-	        this.nodesIfNonDynamic.clear (); for (Node n : origin.nodesIfNonDynamic) this.nodesIfNonDynamic.add(this.netPlan.getNodeFromId (n.id));
+	        this.linksIfNonDynamic.clear (); this.linksIfNonDynamic.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.linksIfNonDynamic));
+	        this.nodesIfNonDynamic.clear (); this.nodesIfNonDynamic.addAll(this.netPlan.getPeerElementsInThisNetPlan(origin.nodesIfNonDynamic));
 	        this.dynamicSrgImplementation = null;
 		}
 	}
@@ -377,7 +377,7 @@ public class SharedRiskGroup extends NetworkElement
 		netPlan.checkIsModifiable();
 		e.cache_nonDynamicSrgs.remove (this); 
 		linksIfNonDynamic.remove (e);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 	
 	/**
@@ -391,7 +391,7 @@ public class SharedRiskGroup extends NetworkElement
 		netPlan.checkIsModifiable();
 		n.cache_nodeNonDynamicSRGs.remove (this);
 		nodesIfNonDynamic.remove (n);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
@@ -417,7 +417,7 @@ public class SharedRiskGroup extends NetworkElement
 		if (isDynamicSrg()) netPlan.cache_dynamicSrgs.remove(this);
         final NetPlan npOld = this.netPlan;
         removeId();
-        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistency();
+        if (ErrorHandling.isDebugEnabled()) npOld.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
@@ -433,7 +433,7 @@ public class SharedRiskGroup extends NetworkElement
 		if (this.linksIfNonDynamic.contains(link)) return;
 		link.cache_nonDynamicSrgs.add(this);
 		this.linksIfNonDynamic.add(link);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
@@ -449,7 +449,7 @@ public class SharedRiskGroup extends NetworkElement
 		if (this.nodesIfNonDynamic.contains(node)) return;
 		node.cache_nodeNonDynamicSRGs.add(this);
 		this.nodesIfNonDynamic.add(node);
-		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+		if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistencyIfNotInBulkChanges();
 	}
 
 	/**
@@ -18,11 +18,15 @@
 
 package com.net2plan.internal;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
- * Extends {@code TreeMap} to forbid 'null or empty' keys.
+ * Extends {@code TreeMap} to forbid 'null or empty' keys. In addition, it keeps the values of the attributes already parsed into typed 
+ * values (see {@link #getParsedValue(String, ParsedColumn)}), so attributes read often are not parsed again while they do not change.
  * 
  * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
  * @since 0.3.0
@@ -31,6 +35,45 @@ public class AttributeMap extends TreeMap<String, String>
 {
 	private static final long serialVersionUID = 1L;
 	
+	/**
+	 * A typed view of the attribute values, defined by the parser from the string value. Each column keeps its own parsed values.
+	 * Parsers must return {@code null} when the value cannot be parsed, and the values they return are shared, so they must not be modified.
+	 * 
+	 * @param <T> the type of the parsed values
+	 */
+	public static final class ParsedColumn<T>
+	{
+		private final Function<String,T> parser;
+		
+		/**
+		 * Constructor.
+		 * 
+		 * @param parser the function parsing the string value of the attribute
+		 */
+		public ParsedColumn(Function<String,T> parser)
+		{
+			this.parser = parser;
+		}
+	}
+
+	/* A parsed value of an attribute in a column, valid while the attribute keeps the same string object */
+	private static final class ParsedValue
+	{
+		private final ParsedColumn<?> column;
+		private final String key;
+		private final String stringValue;
+		private final Object parsedValue;
+		private ParsedValue(ParsedColumn<?> column, String key, String stringValue, Object parsedValue) { this.column = column; this.key = key; this.stringValue = stringValue; this.parsedValue = parsedValue; }
+	}
+
+	private static final int MAXNUMBEROFPARSEDVALUESINARRAY = 8;
+
+	/* The attributes may be read from several threads. Most elements have a few parsed values, kept in a small array that is replaced 
+	 * (never modified) when it changes, so the reads need no lock. Only with more parsed values, they are kept in a concurrent map from 
+	 * the attribute name to the (also replaced, not modified) array of its parsed values */
+	private transient volatile ParsedValue [] parsedValuesArray = null;
+	private transient volatile ConcurrentHashMap<String,ParsedValue []> parsedValuesMap = null;
+	
 	/**
 	 * Default constructor.
 	 * 
@@ -55,6 +98,75 @@ public class AttributeMap extends TreeMap<String, String>
 		for (Map.Entry<String, String> entry : m.entrySet()) put(new String (entry.getKey()), new String (entry.getValue()));
 	}
 
+	/**
+	 * Returns the value of the given attribute, parsed by the parser of the given column, or {@code null} if the attribute does not exist 
+	 * or cannot be parsed. The parsed value is kept until the attribute value changes, so successive calls do not parse it again.
+	 * 
+	 * @param key Attribute name
+	 * @param column the column defining the parser
+	 * @param <T> the type of the parsed value
+	 * @return the parsed value (must not be modified)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T getParsedValue(String key, ParsedColumn<T> column)
+	{
+		final String value = get(key);
+		if (value == null) return null;
+		final ConcurrentHashMap<String,ParsedValue []> map = parsedValuesMap;
+		final ParsedValue cached = find(map == null ? parsedValuesArray : map.get(key), column, key);
+		if (cached != null && cached.stringValue == value) return (T) cached.parsedValue;
+		final T parsedValue = column.parser.apply(value);
+		putParsedValue(new ParsedValue(column, key, value, parsedValue));
+		return parsedValue;
+	}
+
+	private synchronized void putParsedValue(ParsedValue parsedValue)
+	{
+		if (parsedValuesMap != null) { parsedValuesMap.put(parsedValue.key, with(parsedValuesMap.get(parsedValue.key), parsedValue)); return; }
+		final ParsedValue [] values = with(parsedValuesArray, parsedValue);
+		if (values.length <= MAXNUMBEROFPARSEDVALUESINARRAY) { parsedValuesArray = values; return; }
+		final ConcurrentHashMap<String,ParsedValue []> map = new ConcurrentHashMap<> ();
+		for (ParsedValue value : values) map.put(value.key, with(map.get(value.key), value));
+		parsedValuesMap = map;
+		parsedValuesArray = null;
+	}
+
+	private static ParsedValue find(ParsedValue [] values, ParsedColumn<?> column, String key)
+	{
+		if (values == null) return null;
+		for (ParsedValue value : values) if (value.column == column && value.key.equals(key)) return value;
+		return null;
+	}
+
+	/* Returns a copy of the array, with the given value replacing the one of the same column and attribute (if any) */
+	private static ParsedValue [] with(ParsedValue [] values, ParsedValue newValue)
+	{
+		if (values == null) return new ParsedValue [] { newValue };
+		for (int i = 0; i < values.length; i++)
+			if (values [i].column == newValue.column && values [i].key.equals(newValue.key))
+			{
+				final ParsedValue [] res = values.clone();
+				res [i] = newValue;
+				return res;
+			}
+		final ParsedValue [] res = Arrays.copyOf(values, values.length + 1);
+		res [values.length] = newValue;
+		return res;
+	}
+
+	/* Returns a copy of the array without the values of the given attribute, or null if none is left */
+	private static ParsedValue [] without(ParsedValue [] values, Object key)
+	{
+		int numLeft = 0;
+		for (ParsedValue value : values) if (!value.key.equals(key)) numLeft++;
+		if (numLeft == values.length) return values;
+		if (numLeft == 0) return null;
+		final ParsedValue [] res = new ParsedValue [numLeft];
+		numLeft = 0;
+		for (ParsedValue value : values) if (!value.key.equals(key)) res [numLeft++] = value;
+		return res;
+	}
+
 	@Override
 	public String put(String key, String value)
 	{
@@ -68,4 +180,26 @@ public class AttributeMap extends TreeMap<String, String>
 		if (m == null) { clear(); return; }
 		super.putAll(m);
 	}
+	
+	@Override
+	public String remove(Object key)
+	{
+		synchronized (this)
+		{
+			if (parsedValuesMap != null) parsedValuesMap.remove(key);
+			else if (parsedValuesArray != null) parsedValuesArray = without(parsedValuesArray, key);
+		}
+		return super.remove(key);
+	}
+
+	@Override
+	public void clear()
+	{
+		synchronized (this)
+		{
+			parsedValuesArray = null;
+			parsedValuesMap = null;
+		}
+		super.clear();
+	}
 }
@@ -0,0 +1,237 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.internal;
+
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Hash map from primitive {@code long} keys to objects, using open addressing with linear probing. Keys are not boxed, and lookups do
+ * not allocate. It is used for the caches from element identifiers to elements. Null values are not allowed. The map does not keep any
+ * iteration order: {@link #toSortedMap()} returns the contents ordered by key.
+ *
+ * @param <V> the type of the values
+ */
+public class LongObjectHashMap<V>
+{
+	private static final int MIN_CAPACITY = 16;
+
+	private long [] keys;
+	private Object [] values;
+	private int size;
+	private int mask;
+
+	/**
+	 * Default constructor.
+	 */
+	public LongObjectHashMap()
+	{
+		this (MIN_CAPACITY / 2);
+	}
+
+	/**
+	 * Constructor with the expected number of entries, so no resizing is needed until that size is reached.
+	 *
+	 * @param expectedSize the expected number of entries
+	 */
+	public LongObjectHashMap(int expectedSize)
+	{
+		allocate (tableSizeFor (expectedSize));
+	}
+
+	/**
+	 * Returns the value associated to the key.
+	 *
+	 * @param key the key
+	 * @return the value, or {@code null} if the key is not in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		int pos = slot (key);
+		while (values [pos] != null)
+		{
+			if (keys [pos] == key) return (V) values [pos];
+			pos = (pos + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Indicates if the key is in the map.
+	 *
+	 * @param key the key
+	 * @return see above
+	 */
+	public boolean containsKey(long key)
+	{
+		return get (key) != null;
+	}
+
+	/**
+	 * Associates the value to the key, replacing any previous value.
+	 *
+	 * @param key the key
+	 * @param value the value (cannot be {@code null})
+	 * @return the previous value associated to the key, or {@code null} if none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value)
+	{
+		if (value == null) throw new NullPointerException ("Null values are not allowed");
+		int pos = slot (key);
+		while (values [pos] != null)
+		{
+			if (keys [pos] == key)
+			{
+				final V previous = (V) values [pos];
+				values [pos] = value;
+				return previous;
+			}
+			pos = (pos + 1) & mask;
+		}
+		keys [pos] = key;
+		values [pos] = value;
+		if (++ size > (mask + 1) / 4 * 3) resize ((mask + 1) * 2);
+		return null;
+	}
+
+	/**
+	 * Removes the key from the map.
+	 *
+	 * @param key the key
+	 * @return the value that was associated to the key, or {@code null} if the key was not in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key)
+	{
+		int pos = slot (key);
+		while (values [pos] != null)
+		{
+			if (keys [pos] == key)
+			{
+				final V previous = (V) values [pos];
+				deleteSlot (pos);
+				size --;
+				return previous;
+			}
+			pos = (pos + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return see above
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Indicates if the map is empty.
+	 *
+	 * @return see above
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Removes all the entries.
+	 */
+	public void clear()
+	{
+		Arrays.fill (values, null);
+		size = 0;
+	}
+
+	/**
+	 * Returns a new map with the same entries, ordered by key.
+	 *
+	 * @return see above
+	 */
+	@SuppressWarnings("unchecked")
+	public SortedMap<Long, V> toSortedMap()
+	{
+		final SortedMap<Long, V> res = new TreeMap<Long, V> ();
+		for (int pos = 0; pos < values.length; pos++)
+			if (values [pos] != null) res.put (keys [pos], (V) values [pos]);
+		return res;
+	}
+
+	@Override
+	public String toString()
+	{
+		return toSortedMap ().toString ();
+	}
+
+	/* Removes the entry in the given slot, moving back the entries of the same probe sequence, so no deleted markers are needed */
+	private void deleteSlot(int pos)
+	{
+		int hole = pos;
+		int next = (hole + 1) & mask;
+		while (values [next] != null)
+		{
+			final int ideal = slot (keys [next]);
+			/* the entry can fill the hole if its ideal slot is not in the cyclic interval (hole, next] */
+			final boolean canMove = hole <= next ? (ideal <= hole || ideal > next) : (ideal <= hole && ideal > next);
+			if (canMove)
+			{
+				keys [hole] = keys [next];
+				values [hole] = values [next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		values [hole] = null;
+	}
+
+	private int slot(long key)
+	{
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void allocate(int capacity)
+	{
+		this.keys = new long [capacity];
+		this.values = new Object [capacity];
+		this.mask = capacity - 1;
+	}
+
+	private void resize(int newCapacity)
+	{
+		final long [] oldKeys = keys;
+		final Object [] oldValues = values;
+		allocate (newCapacity);
+		for (int pos = 0; pos < oldValues.length; pos++)
+		{
+			if (oldValues [pos] == null) continue;
+			int newPos = slot (oldKeys [pos]);
+			while (values [newPos] != null) newPos = (newPos + 1) & mask;
+			keys [newPos] = oldKeys [pos];
+			values [newPos] = oldValues [pos];
+		}
+	}
+
+	private static int tableSizeFor(int expectedSize)
+	{
+		int capacity = MIN_CAPACITY;
+		while (capacity / 4 * 3 < expectedSize) capacity *= 2;
+		return capacity;
+	}
+}
@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.internal.sim;
+
+import com.net2plan.interfaces.simulation.SimEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Calendar queue (R. Brown, "Calendar queues: a fast O(1) priority queue implementation for the simulation event set problem",
+ * Communications of the ACM, 1988). Events are distributed in buckets of a given time width, like days in a calendar, each bucket keeping
+ * its events sorted. The number of buckets and their width are adapted as the number of events changes, so that insertions and removals
+ * take constant average time, instead of the logarithmic time of a binary heap.</p>
+ *
+ * <p>Events with the same time and priority are returned in insertion order. The bucket of an event is computed from its time as an integer
+ * (the "virtual bucket", which increases with time), so the order is exact and not affected by rounding errors in the bucket limits.</p>
+ */
+final class CalendarEventQueue implements IEventQueue
+{
+	private static final int MIN_BUCKETS = 2;
+	private static final int RESIZE_SAMPLE_SIZE = 25;
+
+	private BucketEntry [] buckets;
+	private int mask;
+	private double bucketWidth;
+	private int size;
+
+	/* no pending event is in a virtual bucket lower than this one, which is the one of the first event once located */
+	private long currentVirtualBucket;
+
+	/**
+	 * Default constructor.
+	 */
+	CalendarEventQueue()
+	{
+		this.bucketWidth = 1.0;
+		clear();
+	}
+
+	@Override
+	public void add(SimEvent event, long insertionOrder)
+	{
+		final BucketEntry entry = new BucketEntry(event, insertionOrder);
+		insert(entry);
+		size++;
+		if (size > 2 * buckets.length) resize(2 * buckets.length);
+	}
+
+	@Override
+	public void clear()
+	{
+		this.buckets = new BucketEntry [MIN_BUCKETS];
+		this.mask = MIN_BUCKETS - 1;
+		this.size = 0;
+		this.currentVirtualBucket = 0;
+	}
+
+	@Override
+	public SimEvent peek()
+	{
+		final BucketEntry first = locateFirst();
+		return first == null ? null : first.event;
+	}
+
+	@Override
+	public SimEvent poll()
+	{
+		final BucketEntry first = locateFirst();
+		if (first == null) return null;
+		buckets [bucketIndex(first.virtualBucket)] = first.next;
+		size--;
+		if (size < buckets.length / 2 && buckets.length > MIN_BUCKETS) resize(buckets.length / 2);
+		return first.event;
+	}
+
+	@Override
+	public boolean remove(SimEvent event)
+	{
+		final int bucket = bucketIndex(virtualBucket(event.getEventTime()));
+		BucketEntry previous = null;
+		for (BucketEntry e = buckets [bucket]; e != null; previous = e, e = e.next)
+		{
+			if (e.event != event) continue;
+			if (previous == null) buckets [bucket] = e.next;
+			else previous.next = e.next;
+			size--;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public int size()
+	{
+		return size;
+	}
+
+	@Override
+	public List<SimEvent> toList()
+	{
+		final List<BucketEntry> entries = new ArrayList<BucketEntry>(size);
+		for (BucketEntry head : buckets)
+			for (BucketEntry e = head; e != null; e = e.next)
+				entries.add(e);
+		entries.sort(null);
+		final List<SimEvent> res = new ArrayList<SimEvent>(size);
+		for (BucketEntry e : entries) res.add(e.event);
+		return res;
+	}
+
+	/* Returns the first entry, leaving the current virtual bucket pointing to it */
+	private BucketEntry locateFirst()
+	{
+		if (size == 0) return null;
+
+		/* scan one year of buckets, starting from the current one */
+		for (int cont = 0; cont < buckets.length; cont++)
+		{
+			final BucketEntry head = buckets [bucketIndex(currentVirtualBucket)];
+			if (head != null && head.virtualBucket <= currentVirtualBucket) return head;
+			currentVirtualBucket++;
+		}
+
+		/* all the events are more than one year ahead: direct search of the lowest one among the bucket heads */
+		BucketEntry first = null;
+		for (BucketEntry head : buckets)
+			if (head != null && (first == null || head.compareTo(first) < 0)) first = head;
+		currentVirtualBucket = first.virtualBucket;
+		return first;
+	}
+
+	/* Inserts the entry in its bucket, after the entries that are not greater */
+	private void insert(BucketEntry entry)
+	{
+		entry.virtualBucket = virtualBucket(entry.event.getEventTime());
+		if (entry.virtualBucket < currentVirtualBucket) currentVirtualBucket = entry.virtualBucket;
+		final int bucket = bucketIndex(entry.virtualBucket);
+		BucketEntry previous = null;
+		BucketEntry next = buckets [bucket];
+		while (next != null && next.compareTo(entry) <= 0)
+		{
+			previous = next;
+			next = next.next;
+		}
+		entry.next = next;
+		if (previous == null) buckets [bucket] = entry;
+		else previous.next = entry;
+	}
+
+	/* Changes the number of buckets, and sets the bucket width to three times the average separation between the first events */
+	private void resize(int newNumBuckets)
+	{
+		final double [] sampleTimes = new double [Math.min(size, RESIZE_SAMPLE_SIZE)];
+		final List<BucketEntry> sampledEntries = new ArrayList<BucketEntry>(sampleTimes.length);
+		for (int cont = 0; cont < sampleTimes.length; cont++)
+		{
+			final BucketEntry first = locateFirst();
+			buckets [bucketIndex(first.virtualBucket)] = first.next;
+			size--;
+			sampledEntries.add(first);
+			sampleTimes [cont] = first.event.getEventTime();
+		}
+		final double newBucketWidth = computeBucketWidth(sampleTimes);
+
+		final BucketEntry [] oldBuckets = buckets;
+		final int numEntries = size + sampledEntries.size();
+		this.buckets = new BucketEntry [newNumBuckets];
+		this.mask = newNumBuckets - 1;
+		if (newBucketWidth > 0) this.bucketWidth = newBucketWidth;
+		this.currentVirtualBucket = Long.MAX_VALUE;
+		for (BucketEntry e : sampledEntries) insert(e);
+		for (BucketEntry head : oldBuckets)
+		{
+			BucketEntry e = head;
+			while (e != null)
+			{
+				final BucketEntry next = e.next;
+				insert(e);
+				e = next;
+			}
+		}
+		if (numEntries == 0) this.currentVirtualBucket = 0;
+		this.size = numEntries;
+	}
+
+	private int bucketIndex(long virtualBucket)
+	{
+		return (int) (virtualBucket & mask);
+	}
+
+	private long virtualBucket(double time)
+	{
+		return (long) (time / bucketWidth);
+	}
+
+	/* Three times the average separation of consecutive times, discarding separations larger than twice the average. Non-positive if undefined */
+	private static double computeBucketWidth(double [] sortedTimes)
+	{
+		if (sortedTimes.length < 2) return -1;
+		final double averageSeparation = (sortedTimes [sortedTimes.length - 1] - sortedTimes [0]) / (sortedTimes.length - 1);
+		double sum = 0;
+		int count = 0;
+		for (int cont = 1; cont < sortedTimes.length; cont++)
+		{
+			final double separation = sortedTimes [cont] - sortedTimes [cont - 1];
+			if (separation > 2 * averageSeparation) continue;
+			sum += separation;
+			count++;
+		}
+		return count == 0 ? -1 : 3 * sum / count;
+	}
+
+	/* Entry of an event, linked to the next one in the same bucket */
+	private static final class BucketEntry extends FutureEventList.Entry
+	{
+		private long virtualBucket;
+		private BucketEntry next;
+
+		private BucketEntry(SimEvent event, long insertionOrder)
+		{
+			super(event, insertionOrder);
+		}
+	}
+}
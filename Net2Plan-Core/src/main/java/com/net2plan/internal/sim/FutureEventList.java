@@ -22,8 +22,10 @@ import com.net2plan.interfaces.networkDesign.Net2PlanException;
 import com.net2plan.interfaces.simulation.SimEvent;
 import com.net2plan.utils.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.PriorityQueue;
 
 /**
@@ -37,23 +39,84 @@ import java.util.PriorityQueue;
  * <li>3. Insertion order (first in, first out)</li>
  * </ul>
  *
+ * <p>Two implementations are available (see {@link Type}): a binary heap, and a calendar queue. The calendar queue inserts and removes
+ * events in constant average time, and is faster in simulations with a large number of pending events. Both return the events in the
+ * same order.</p>
+ *
  * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
  * @since 0.2.0
  */
 public final class FutureEventList
 {
-	private final PriorityQueue<SimEvent> futureEventList;
+	/**
+	 * Implementation of the future event list.
+	 *
+	 * @since 0.6.6
+	 */
+	public enum Type
+	{
+		/** Binary heap ({@code java.util.PriorityQueue}), logarithmic time per insertion and removal. */
+		BINARY_HEAP("binaryHeap"),
+		/** Calendar queue, constant average time per insertion and removal. */
+		CALENDAR_QUEUE("calendarQueue");
+
+		private final String parameterValue;
+
+		private Type(String parameterValue)
+		{
+			this.parameterValue = parameterValue;
+		}
+
+		/**
+		 * Returns the name of the implementation, as used in the simulation parameters.
+		 *
+		 * @return Name of the implementation
+		 */
+		public String getParameterValue()
+		{
+			return parameterValue;
+		}
+
+		/**
+		 * Returns the implementation with the given name, as used in the simulation parameters.
+		 *
+		 * @param parameterValue Name of the implementation
+		 * @return Implementation
+		 */
+		public static Type fromParameterValue(String parameterValue)
+		{
+			for (Type type : values())
+				if (type.parameterValue.equals(parameterValue)) return type;
+			throw new Net2PlanException("Unknown future event list type: " + parameterValue);
+		}
+	}
+
+	private IEventQueue futureEventList;
+	private Type type;
 	private double currentTime;
 	private long eventsProcessed;
+	private long eventsAdded;
 
 	/**
-	 * Default constructor.
+	 * Default constructor, using a binary heap.
 	 *
 	 * @since 0.2.0
 	 */
 	public FutureEventList()
 	{
-		futureEventList = new PriorityQueue<SimEvent>();
+		this(Type.BINARY_HEAP);
+	}
+
+	/**
+	 * Constructor to set the implementation of the future event list.
+	 *
+	 * @param type Implementation of the future event list
+	 * @since 0.6.6
+	 */
+	public FutureEventList(Type type)
+	{
+		this.type = type;
+		this.futureEventList = createEventQueue(type);
 		reset();
 	}
 	
@@ -62,12 +125,38 @@ public final class FutureEventList
 	{
 		StringBuilder out = new StringBuilder();
 		
-		Iterator<SimEvent> it = futureEventList.iterator();
-		while(it.hasNext()) out.append(it.next());
+		for (SimEvent event : futureEventList.toList()) out.append(event);
 		
 		return out.toString();
 	}
 
+	/**
+	 * Returns the implementation of the future event list.
+	 *
+	 * @return Implementation of the future event list
+	 * @since 0.6.6
+	 */
+	public Type getType()
+	{
+		return type;
+	}
+
+	/**
+	 * Changes the implementation of the future event list. Pending events are kept.
+	 *
+	 * @param type Implementation of the future event list
+	 * @since 0.6.6
+	 */
+	public void setType(Type type)
+	{
+		if (type == this.type) return;
+		final IEventQueue newFutureEventList = createEventQueue(type);
+		long insertionOrder = 0;
+		for (SimEvent event : futureEventList.toList()) newFutureEventList.add(event, insertionOrder++);
+		this.futureEventList = newFutureEventList;
+		this.type = type;
+	}
+
 	/**
 	 * <p>Adds an event to the future event list.</p>
 	 *
@@ -90,7 +179,7 @@ public final class FutureEventList
 			throw new Net2PlanException(String.format("Event cannot be scheduled before the current simulation time (sim. time = %s, event time = %s)", StringUtils.secondsToYearsDaysHoursMinutesSeconds(currentTime), StringUtils.secondsToYearsDaysHoursMinutesSeconds(event.getEventTime())));
 		}
 
-		futureEventList.add(event);
+		futureEventList.add(event, eventsAdded++);
 	}
 
 	/**
@@ -154,7 +243,7 @@ public final class FutureEventList
 	 */
 	public SimEvent getNextEvent()
 	{
-		if (futureEventList.isEmpty()) return null;
+		if (futureEventList.size() == 0) return null;
 
 		SimEvent nextEvent = futureEventList.poll();
 		currentTime = nextEvent.getEventTime();
@@ -188,15 +277,18 @@ public final class FutureEventList
 	/**
 	 * <p>Returns the whole future event list.</p>
 	 *
-	 * <p><b>Important</b>: It is the original future event list, changes by user
-	 * are not checked, so it is discouraged at all.</p>
+	 * <p><b>Important</b>: It is a copy of the pending events, changes by user
+	 * are not applied to the future event list.</p>
 	 *
 	 * @return Future event list
 	 * @since 0.2.0
 	 */
 	public PriorityQueue<SimEvent> getPendingEvents()
 	{
-		return futureEventList;
+		final List<SimEvent> pendingEvents = futureEventList.toList();
+		final PriorityQueue<SimEvent> res = new PriorityQueue<SimEvent>(Math.max(1, pendingEvents.size()));
+		res.addAll(pendingEvents);
+		return res;
 	}
 
 	/**
@@ -207,7 +299,7 @@ public final class FutureEventList
 	 */
 	public boolean hasMoreEvents()
 	{
-		return !futureEventList.isEmpty();
+		return futureEventList.size() > 0;
 	}
 
 	/**
@@ -230,6 +322,80 @@ public final class FutureEventList
 	{
 		currentTime = 0;
 		eventsProcessed = 0;
+		eventsAdded = 0;
 		clear();
 	}
+
+	private static IEventQueue createEventQueue(Type type)
+	{
+		switch (type)
+		{
+			case BINARY_HEAP: return new HeapEventQueue();
+			case CALENDAR_QUEUE: return new CalendarEventQueue();
+			default: throw new RuntimeException("Bad");
+		}
+	}
+
+	/* Pending event in a queue. Events with the same time and priority are sorted by insertion order */
+	static class Entry implements Comparable<Entry>
+	{
+		final SimEvent event;
+		final long insertionOrder;
+
+		Entry(SimEvent event, long insertionOrder)
+		{
+			this.event = event;
+			this.insertionOrder = insertionOrder;
+		}
+
+		@Override
+		public int compareTo(Entry e)
+		{
+			final int res = event.compareTo(e.event);
+			if (res != 0) return res;
+			return Long.compare(insertionOrder, e.insertionOrder);
+		}
+	}
+
+	private static final class HeapEventQueue implements IEventQueue
+	{
+		private final PriorityQueue<Entry> heap = new PriorityQueue<Entry>();
+
+		@Override
+		public void add(SimEvent event, long insertionOrder) { heap.add(new Entry(event, insertionOrder)); }
+
+		@Override
+		public void clear() { heap.clear(); }
+
+		@Override
+		public SimEvent peek() { final Entry first = heap.peek(); return first == null ? null : first.event; }
+
+		@Override
+		public SimEvent poll() { final Entry first = heap.poll(); return first == null ? null : first.event; }
+
+		@Override
+		public boolean remove(SimEvent event)
+		{
+			for (Iterator<Entry> it = heap.iterator(); it.hasNext();)
+			{
+				if (it.next().event != event) continue;
+				it.remove();
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public int size() { return heap.size(); }
+
+		@Override
+		public List<SimEvent> toList()
+		{
+			final List<Entry> entries = new ArrayList<Entry>(heap);
+			entries.sort(null);
+			final List<SimEvent> res = new ArrayList<SimEvent>(entries.size());
+			for (Entry e : entries) res.add(e.event);
+			return res;
+		}
+	}
 }
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.internal.sim;
+
+import com.net2plan.interfaces.simulation.SimEvent;
+
+import java.util.List;
+
+/**
+ * Contract of the data structures storing the pending events of the {@link com.net2plan.internal.sim.FutureEventList FutureEventList}.
+ * Events are returned in increasing order of {@link com.net2plan.interfaces.simulation.SimEvent#compareTo(SimEvent) SimEvent.compareTo},
+ * and events with the same time and priority in increasing insertion order (see {@link FutureEventList.Entry}).
+ */
+interface IEventQueue
+{
+	/**
+	 * Adds an event.
+	 *
+	 * @param event Event to be added
+	 * @param insertionOrder Insertion order of the event, to break ties among events with the same time and priority
+	 */
+	public void add(SimEvent event, long insertionOrder);
+
+	/**
+	 * Removes all the events.
+	 */
+	public void clear();
+
+	/**
+	 * Returns the first event, without removing it.
+	 *
+	 * @return First event (or null, if empty)
+	 */
+	public SimEvent peek();
+
+	/**
+	 * Removes and returns the first event.
+	 *
+	 * @return First event (or null, if empty)
+	 */
+	public SimEvent poll();
+
+	/**
+	 * Removes the given event, if present.
+	 *
+	 * @param event Event to be removed
+	 * @return {@code true} if the event was present
+	 */
+	public boolean remove(SimEvent event);
+
+	/**
+	 * Returns the number of events.
+	 *
+	 * @return Number of events
+	 */
+	public int size();
+
+	/**
+	 * Returns a new list with the events, in the order they would be returned.
+	 *
+	 * @return List of events
+	 */
+	public List<SimEvent> toList();
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.internal.sim;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the summary results of independent replications of a simulation (see {@link SimStats#getSummaryResults(double)}) into
+ * their mean and confidence interval, computed with the Student's t-distribution.
+ *
+ * @since 0.6.6
+ */
+final class ReplicationStatistics
+{
+	private ReplicationStatistics() { }
+
+	/**
+	 * Returns the half-width of the confidence interval of the mean of the given samples. If there are less than two samples, it is not
+	 * defined, and {@code Double.NaN} is returned.
+	 *
+	 * @param samples Samples (one per replication)
+	 * @param confidenceLevel Confidence level (e.g. 0.95)
+	 * @return Half-width of the confidence interval
+	 */
+	static double getConfidenceIntervalHalfWidth(double [] samples, double confidenceLevel)
+	{
+		final int R = samples.length;
+		if (R < 2) return Double.NaN;
+		final double mean = getMean(samples);
+		double sumSquares = 0;
+		for (double x : samples) sumSquares += (x - mean) * (x - mean);
+		final double standardDeviation = Math.sqrt(sumSquares / (R - 1));
+		final double t = new TDistribution(R - 1).inverseCumulativeProbability(1 - (1 - confidenceLevel) / 2);
+		return t * standardDeviation / Math.sqrt(R);
+	}
+
+	/**
+	 * Returns the mean of the given samples.
+	 *
+	 * @param samples Samples
+	 * @return Mean
+	 */
+	static double getMean(double [] samples)
+	{
+		double sum = 0;
+		for (double x : samples) sum += x;
+		return sum / samples.length;
+	}
+
+	/**
+	 * Returns, for each metric present in the results of all the replications, the values in each replication (in the order of the first replication).
+	 *
+	 * @param resultsPerReplication Summary results of each replication
+	 * @return Metric name to samples map
+	 */
+	static Map<String, double []> getSamplesPerMetric(List<Map<String, Double>> resultsPerReplication)
+	{
+		final Map<String, double []> res = new LinkedHashMap<String, double []>();
+		if (resultsPerReplication.isEmpty()) return res;
+		for (String metric : resultsPerReplication.get(0).keySet())
+		{
+			final double [] samples = new double [resultsPerReplication.size()];
+			boolean inAllReplications = true;
+			for (int r = 0; r < samples.length && inAllReplications; r++)
+			{
+				final Double value = resultsPerReplication.get(r).get(metric);
+				if (value == null) inAllReplications = false;
+				else samples [r] = value;
+			}
+			if (inAllReplications) res.put(metric, samples);
+		}
+		return res;
+	}
+
+	/**
+	 * Returns a HTML report with the mean, confidence interval, minimum and maximum of each metric among the replications.
+	 *
+	 * @param resultsPerReplication Summary results of each replication
+	 * @param simulationInfoPerReplication For each replication, a list of parameter-value pairs with general information (e.g. simulation time)
+	 * @param confidenceLevel Confidence level (e.g. 0.95)
+	 * @return HTML report
+	 */
+	static String getReport(List<Map<String, Double>> resultsPerReplication, List<Map<String, String>> simulationInfoPerReplication, double confidenceLevel)
+	{
+		final int R = resultsPerReplication.size();
+		final Map<String, double []> samplesPerMetric = getSamplesPerMetric(resultsPerReplication);
+
+		StringBuilder info = new StringBuilder();
+		info.append("<html><head><title>Simulation report</title></head>");
+		info.append("<body>");
+		info.append("<h1>Simulation information</h1>");
+		info.append("<center><table border='1'><tr><th>Parameter</th><th>Value</th></tr>");
+		info.append(String.format("<tr><td>Number of independent replications</td><td>%d</td></tr>", R));
+		info.append(String.format("<tr><td>Confidence level</td><td>%.3f</td></tr>", confidenceLevel));
+		info.append("</table></center>");
+
+		info.append("<h1>General results</h1>");
+		if (samplesPerMetric.isEmpty())
+		{
+			info.append("<p>No results available (statistics disabled, or no event was processed)</p>");
+		}
+		else
+		{
+			info.append("<center><table border='1'><tr><th>Metric</th><th>Mean</th><th>Confidence interval</th><th>Minimum</th><th>Maximum</th></tr>");
+			for (Map.Entry<String, double []> entry : samplesPerMetric.entrySet())
+			{
+				final double [] samples = entry.getValue();
+				final double mean = getMean(samples);
+				final double halfWidth = getConfidenceIntervalHalfWidth(samples, confidenceLevel);
+				double min = Double.MAX_VALUE; double max = -Double.MAX_VALUE;
+				for (double x : samples) { min = Math.min(min, x); max = Math.max(max, x); }
+				info.append(String.format("<tr><td>%s</td><td>%.6f</td><td>%s</td><td>%.6f</td><td>%.6f</td></tr>", entry.getKey(), mean,
+						Double.isNaN(halfWidth) ? "-" : String.format("[%.6f, %.6f] (&plusmn; %.6f)", mean - halfWidth, mean + halfWidth, halfWidth), min, max));
+			}
+			info.append("</table></center>");
+		}
+		info.append("<p>Only the general results of the simulation statistics are merged. The results reported by the event generator and the event processor (e.g. the blocking probability of the connections) are only available in the report of each replication.</p>");
+
+		info.append("<h1>Replications</h1>");
+		final List<String> parameters = new ArrayList<String>();
+		for (Map<String, String> replicationInfo : simulationInfoPerReplication)
+			for (String parameter : replicationInfo.keySet())
+				if (!parameters.contains(parameter)) parameters.add(parameter);
+		info.append("<center><table border='1'><tr><th>Replication</th>");
+		for (String parameter : parameters) info.append(String.format("<th>%s</th>", parameter));
+		info.append("</tr>");
+		for (int r = 0; r < simulationInfoPerReplication.size(); r++)
+		{
+			info.append(String.format("<tr><td>%d</td>", r));
+			for (String parameter : parameters)
+			{
+				final String value = simulationInfoPerReplication.get(r).get(parameter);
+				info.append(String.format("<td>%s</td>", value == null ? "-" : value));
+			}
+			info.append("</tr>");
+		}
+		info.append("</table></center>");
+
+		info.append("</body></html>");
+		return info.toString();
+	}
+}
@@ -89,6 +89,9 @@ public final class SimCore implements Runnable
 		}
 	}
 	
+	/* Number of events processed between two checks of the refresh time, when running without graphical user interface */
+	private static final int HEADLESS_BATCH_SIZE = 1024;
+
 	private final IEventCallback callback;
 	private final FutureEventList futureEventList;
 	private double cpuTime;
@@ -101,6 +104,7 @@ public final class SimCore implements Runnable
 	private boolean isInTransitory;
 	private SimState simulationState;
 	private boolean processingEvent;
+	private boolean eventLoopStarted;
 
 	/**
 	 * Default constructor.
@@ -121,8 +125,7 @@ public final class SimCore implements Runnable
 	{
 		if (simulationState == SimState.NOT_STARTED) throw new RuntimeException("Bad - Simulation not started yet");
 
-		isInTransitory = true;
-		if (totalTransitoryEvents == -1 && totalTransitoryTime == -1) isInTransitory = false;
+		startEventLoop();
 		while (simulationState != SimState.STOPPED)
 		{
 			while (futureEventList.hasMoreEvents())
@@ -132,28 +135,7 @@ public final class SimCore implements Runnable
 					double nextEventTime = futureEventList.getNextEventSimulationTime();
 					if (nextEventTime == -1) throw new RuntimeException("Bad");
 
-					if (isInTransitory)
-					{
-						if (totalTransitoryTime != -1 && nextEventTime >= totalTransitoryTime)
-						{
-							finishTransitory(totalTransitoryTime);
-						}
-						else if (totalTransitoryEvents != -1 && futureEventList.getNumberOfProcessedEvents() == totalTransitoryEvents)
-						{
-							finishTransitory(futureEventList.getCurrentSimulationTime());
-						}
-					}
-
-					if (totalSimTime != -1 && nextEventTime >= totalSimTime)
-					{
-						setSimulationState(SimState.STOPPED, new EndSimulationException());
-						return; // this kills the thread
-					}
-					else if (totalSimEvents != -1 && futureEventList.getNumberOfProcessedEvents() == totalSimEvents)
-					{
-						setSimulationState(SimState.STOPPED, new EndSimulationException());
-						return;  // this kills the thread
-					}
+					if (checkTransitoryAndEndOfSimulation(nextEventTime)) return; // this kills the thread
 
 					/* Process next event in the future event list */
 					long start = System.nanoTime();
@@ -238,6 +220,127 @@ public final class SimCore implements Runnable
 		}
 	}
 	
+	/**
+	 * <p>Runs the simulation without the overhead needed by graphical user interfaces: events are processed in batches, without taking the
+	 * lock of the callback nor measuring the CPU time per event, and the state is not polled while paused. The simulation log is refreshed,
+	 * at most, once per batch. It returns when the simulation is stopped.</p>
+	 *
+	 * <p><b>Important</b>: The simulation state cannot be changed from other threads while this method is running.</p>
+	 *
+	 * @since 0.6.6
+	 */
+	public void runHeadless()
+	{
+		while (simulationState != SimState.STOPPED)
+		{
+			processEvents(HEADLESS_BATCH_SIZE, -1);
+
+			if (cpuTime - timeSinceLastRefresh >= refreshTimeInSeconds)
+			{
+				callback.refresh(false);
+				timeSinceLastRefresh = cpuTime;
+			}
+		}
+	}
+
+	/**
+	 * <p>Processes events in the calling thread, until the given number of events are processed, the next event is later than the given
+	 * simulation time, or the simulation ends (then, the simulation state is set to {@code STOPPED}, as in {@link #run()}). Transitory and
+	 * end-of-simulation conditions are checked for each event, as in {@link #run()}.</p>
+	 *
+	 * <p><b>Important</b>: The simulation must be started (any state but {@code NOT_STARTED}), and the simulation state cannot be changed
+	 * from other threads while this method is running.</p>
+	 *
+	 * @param maxNumEvents Maximum number of events to process (if -1, this constraint will not be applied)
+	 * @param maxSimTime Events with a simulation time greater than this one are not processed (if -1, this constraint will not be applied)
+	 * @return Number of events processed
+	 * @since 0.6.6
+	 */
+	public long processEvents(long maxNumEvents, double maxSimTime)
+	{
+		if (simulationState == SimState.NOT_STARTED) throw new RuntimeException("Bad - Simulation not started yet");
+		if (maxNumEvents <= 0 && maxNumEvents != -1) throw new Net2PlanException("'maxNumEvents' must be in range [1, Long.MAX_VALUE], or -1 for no limit");
+		if (simulationState == SimState.STOPPED) return 0;
+
+		startEventLoop();
+		final long start = System.nanoTime();
+		long numEvents = 0;
+		while (numEvents != maxNumEvents && futureEventList.hasMoreEvents())
+		{
+			double nextEventTime = futureEventList.getNextEventSimulationTime();
+			if (maxSimTime != -1 && nextEventTime > maxSimTime) break;
+			if (checkTransitoryAndEndOfSimulation(nextEventTime)) break;
+
+			SimEvent event = futureEventList.getNextEvent();
+			try
+			{
+				callback.processEvent(event);
+			}
+			catch (Throwable e)
+			{
+				cpuTime += ((double) (System.nanoTime() - start)) / 1e9;
+				setSimulationState(SimCore.SimState.STOPPED, e);
+				callback.refresh(true);
+				return numEvents + 1;
+			}
+			numEvents++;
+
+			if (futureEventList.getNumberOfProcessedEvents() == Long.MAX_VALUE)
+			{
+				setSimulationState(SimState.STOPPED);
+				break;
+			}
+		}
+
+		cpuTime += ((double) (System.nanoTime() - start)) / 1e9;
+
+		if (simulationState != SimState.STOPPED && !futureEventList.hasMoreEvents())
+		{
+			callback.refresh(true);
+			timeSinceLastRefresh = cpuTime;
+			setSimulationState(SimState.STOPPED, new EndSimulationException());
+		}
+
+		return numEvents;
+	}
+
+	/* Initializes the transitory state, the first time events are processed */
+	private void startEventLoop()
+	{
+		if (eventLoopStarted) return;
+		eventLoopStarted = true;
+		isInTransitory = totalTransitoryEvents != -1 || totalTransitoryTime != -1;
+	}
+
+	/* Finishes the transitory if needed, and checks if the simulation ends before the next event (then, the simulation state is set to STOPPED) */
+	private boolean checkTransitoryAndEndOfSimulation(double nextEventTime)
+	{
+		if (isInTransitory)
+		{
+			if (totalTransitoryTime != -1 && nextEventTime >= totalTransitoryTime)
+			{
+				finishTransitory(totalTransitoryTime);
+			}
+			else if (totalTransitoryEvents != -1 && futureEventList.getNumberOfProcessedEvents() == totalTransitoryEvents)
+			{
+				finishTransitory(futureEventList.getCurrentSimulationTime());
+			}
+		}
+
+		if (totalSimTime != -1 && nextEventTime >= totalSimTime)
+		{
+			setSimulationState(SimState.STOPPED, new EndSimulationException());
+			return true;
+		}
+		else if (totalSimEvents != -1 && futureEventList.getNumberOfProcessedEvents() == totalSimEvents)
+		{
+			setSimulationState(SimState.STOPPED, new EndSimulationException());
+			return true;
+		}
+
+		return false;
+	}
+
 	private void checkSimulationNotStartedYet()
 	{
 		if (simulationState != SimState.NOT_STARTED)
@@ -312,6 +415,7 @@ public final class SimCore implements Runnable
 		totalSimTime = -1;
 		totalTransitoryTime = -1;
 		isInTransitory = true;
+		eventLoopStarted = false;
 
 		processingEvent = false;
 		setSimulationState(SimState.NOT_STARTED);
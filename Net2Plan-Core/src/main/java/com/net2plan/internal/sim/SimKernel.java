@@ -21,12 +21,20 @@ package com.net2plan.internal.sim;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import com.jom.JOMException;
 import com.net2plan.interfaces.networkDesign.Net2PlanException;
@@ -189,6 +197,9 @@ public class SimKernel implements IEventCallback
 		if (!simulationParameters.containsKey("simTime")) throw new Net2PlanException("'simTime' parameter is not configured");
 		double simTime = Double.parseDouble(simulationParameters.get("simTime"));
 		simCore.setTotalSimulationTime(simTime);
+
+		final String futureEventListType = simulationParameters.get("futureEventList");
+		simCore.getFutureEventList().setType(futureEventListType == null ? FutureEventList.Type.BINARY_HEAP : FutureEventList.Type.fromParameterValue(futureEventListType));
 		
 		if (!getEventGeneratorClass().isAssignableFrom(eventGenerator.getClass())) throw new RuntimeException("Bad - Event generator is not an instance of " + getEventGeneratorClass().getName());
 		if (!getEventProcessorClass().isAssignableFrom(eventProcessor.getClass())) throw new RuntimeException("Bad - Event processor is not an instance of " + getEventProcessorClass().getName());
@@ -336,6 +347,7 @@ public class SimKernel implements IEventCallback
 		parameters.add(Triple.of("transitoryEvents", "-1", "Number of events for transitory period (-1 means no transitory period). In case that 'transitoryTime' and 'transitoryEvents' are specified, the transitory period will finish when one of the previous values is reached"));
 		parameters.add(Triple.of("simTime", "-1", "Total simulation time (in seconds, including transitory period) (-1 means no limit). In case that 'simTime' and 'simEvents' are specified, the transitory period will finish when one of the previous values is reached"));
 		parameters.add(Triple.of("transitoryTime", "-1", "Transitory time (in seconds) (-1 means no transitory period). In case that 'transitoryTime' and 'transitoryEvents' are specified, the transitory period will finish when one of the previous values is reached"));
+		parameters.add(Triple.of("futureEventList", "#select# " + FutureEventList.Type.BINARY_HEAP.getParameterValue() + " " + FutureEventList.Type.CALENDAR_QUEUE.getParameterValue(), "Implementation of the future event list. The calendar queue is faster when the number of pending events is large (e.g. many connections holding resources)"));
 
 		return parameters;
 	}
@@ -493,22 +505,7 @@ public class SimKernel implements IEventCallback
 		Map<String, String> eventProcessorParameters = CommandLineParser.getParameters(defaultEventProcessorParameters, customEventProcessorParameters);
 		Map<String, String> simulationParameters = CommandLineParser.getParameters(simKernel.getSimulationParameters(), customSimulatorParameters);
 
-		System.out.println("Net2Plan parameters");
-		System.out.println("-----------------------------");
-		System.out.println(StringUtils.mapToString(net2planParameters, "=", String.format("%n")));
-		System.out.println();
-		System.out.println("Simulation parameters");
-		System.out.println("-----------------------------");
-		System.out.println(StringUtils.mapToString(simulationParameters, "=", String.format("%n")));
-		System.out.println();
-		System.out.println(getEventGeneratorLabel() + " parameters");
-		System.out.println("-----------------------------");
-		System.out.println(eventGeneratorParameters.isEmpty() ? "None" : StringUtils.mapToString(eventGeneratorParameters, "=", String.format("%n")));
-		System.out.println();
-		System.out.println(getEventProcessorLabel() + " parameters");
-		System.out.println("-----------------------------");
-		System.out.println(eventProcessorParameters.isEmpty() ? "None" : StringUtils.mapToString(eventProcessorParameters, "=", String.format("%n")));
-		System.out.println();
+		printParameters(net2planParameters, simulationParameters, eventGeneratorParameters, eventProcessorParameters);
 		
 		simKernel.configureSimulation(simulationParameters, net2planParameters, eventGenerator, eventGeneratorParameters, eventProcessor, eventProcessorParameters);
 		simKernel.initialize();
@@ -517,7 +514,7 @@ public class SimKernel implements IEventCallback
 
 		long init = System.nanoTime();
 		simKernel.getSimCore().setSimulationState(SimCore.SimState.RUNNING);
-		simKernel.getSimCore().run();
+		simKernel.getSimCore().runHeadless();
 		long end = System.nanoTime();
 		if (simKernel.lastReason != null && !(simKernel.lastReason instanceof EndSimulationException)) throw new RuntimeException(simKernel.lastReason);
 		
@@ -528,6 +525,181 @@ public class SimKernel implements IEventCallback
 		return Pair.of(simKernel.getCurrentNetPlan(), simKernel.getSimulationReport());
 	}
 	
+	/**
+	 * <p>Runs independent replications of a simulation concurrently, to compute confidence intervals of the results. Each replication runs
+	 * in its own simulation kernel, with its own copy of the input design, and its own instances of the event generator and processor (created
+	 * with their no-argument constructor). Every parameter of the event generator or the event processor whose name ends with {@code seed}
+	 * (case insensitive, e.g. {@code randomSeed} or {@code simulation_randomSeed}) is a random seed: replication {@code r} (starting at zero)
+	 * uses the configured seed plus {@code r} (a seed equal to -1, meaning a random seed, is kept). Running more than one replication
+	 * when there is no such parameter is an error, since all the replications would be identical.</p>
+	 *
+	 * <p>The summary results of the statistics of each replication (see {@link SimStats#getSummaryResults(double)}) are merged into their
+	 * mean and confidence interval: the average number of nodes and, for each layer, the average number of links and demands, the average
+	 * offered and carried traffic, the blocked traffic fraction, the average total capacity, the average and maximum congestion, and the
+	 * (classic and weighted) availability of the layer and of its worst demand. The results reported by the event generator and the event
+	 * processor in their {@code finish} method (e.g. the blocking probability of the connections) are not merged, and are only available
+	 * in the report of each replication.</p>
+	 *
+	 * @param netPlan Input network design
+	 * @param eventGenerator Event generator
+	 * @param customEventGeneratorParameters Custom event generator parameters (null means empty)
+	 * @param eventProcessor Event processor
+	 * @param customEventProcessorParameters Custom event processor parameters (null means empty)
+	 * @param customSimulatorParameters Custom simulator parameters (null means empty)
+	 * @param net2planParameters Net2Plan parameters
+	 * @param numReplications Number of replications
+	 * @param numThreads Maximum number of replications run at the same time
+	 * @param confidenceLevel Confidence level of the confidence intervals (e.g. 0.95)
+	 * @return Report with the mean and confidence interval of the results (first), and the simulation report of each replication (second)
+	 * @since 0.6.6
+	 */
+	public static Pair<String, List<String>> runReplications(NetPlan netPlan, IExternal eventGenerator, Properties customEventGeneratorParameters, IExternal eventProcessor, Properties customEventProcessorParameters, Properties customSimulatorParameters, Map<String, String> net2planParameters, int numReplications, int numThreads, double confidenceLevel)
+	{
+		if (numReplications < 1) throw new Net2PlanException("'numReplications' must be in range [1, Integer.MAX_VALUE]");
+		if (confidenceLevel <= 0 || confidenceLevel >= 1) throw new Net2PlanException("'confidenceLevel' must be in range (0, 1)");
+
+		List<Triple<String, String, String>> defaultEventGeneratorParameters = null;
+		try { defaultEventGeneratorParameters = eventGenerator.getParameters(); }
+		catch(UnsupportedOperationException ex) { }
+
+		List<Triple<String, String, String>> defaultEventProcessorParameters = null;
+		try { defaultEventProcessorParameters = eventProcessor.getParameters(); }
+		catch(UnsupportedOperationException ex) { }
+
+		Map<String, String> eventGeneratorParameters = CommandLineParser.getParameters(defaultEventGeneratorParameters, customEventGeneratorParameters);
+		Map<String, String> eventProcessorParameters = CommandLineParser.getParameters(defaultEventProcessorParameters, customEventProcessorParameters);
+		Map<String, String> simulationParameters = CommandLineParser.getParameters(new SimKernel().getSimulationParameters(), customSimulatorParameters);
+
+		printParameters(net2planParameters, simulationParameters, eventGeneratorParameters, eventProcessorParameters);
+
+		if (numReplications > 1 && !hasSeedParameter(eventGeneratorParameters) && !hasSeedParameter(eventProcessorParameters))
+			throw new Net2PlanException("Neither the event generator nor the event processor have a random seed parameter (a parameter whose name ends with 'seed'): all the replications would be identical");
+
+		/* Each replication is configured in this thread, and initialized and run in a worker */
+		final List<SimKernel> simKernels = new ArrayList<SimKernel>(numReplications);
+		final List<Callable<Void>> replications = new ArrayList<Callable<Void>>(numReplications);
+		for (int r = 0; r < numReplications; r++)
+		{
+			final SimKernel simKernel = new SimKernel();
+			simKernel.setGUIListener(new IGUISimulationListener()
+			{
+				@Override
+				public void refresh(boolean forceRefresh) { }
+
+				@Override
+				public void simulationStateChanged(SimCore.SimState simulationState, Throwable reason) { }
+			});
+			simKernel.setNetPlan(netPlan.copy());
+			simKernel.configureSimulation(simulationParameters, net2planParameters, newInstance(eventGenerator), getReplicationParameters(eventGeneratorParameters, r), newInstance(eventProcessor), getReplicationParameters(eventProcessorParameters, r));
+			simKernels.add(simKernel);
+			replications.add(() ->
+			{
+				simKernel.initialize();
+				simKernel.getSimCore().setSimulationState(SimCore.SimState.RUNNING);
+				simKernel.getSimCore().runHeadless();
+				if (simKernel.lastReason != null && !(simKernel.lastReason instanceof EndSimulationException)) throw new RuntimeException(simKernel.lastReason);
+				return null;
+			});
+		}
+
+		System.out.println(String.format("Simulation started (%d replications)...", numReplications));
+		System.out.println();
+
+		long init = System.nanoTime();
+		final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(numThreads, numReplications)));
+		try
+		{
+			for (Future<Void> future : executor.invokeAll(replications)) future.get();
+		}
+		catch (InterruptedException e) { throw new Net2PlanException("Interrupted while running the replications"); }
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error) throw (Error) e.getCause();
+			throw new Net2PlanException(e.getCause().getMessage());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		long end = System.nanoTime();
+
+		final List<Map<String, Double>> resultsPerReplication = new ArrayList<Map<String, Double>>(numReplications);
+		final List<Map<String, String>> simulationInfoPerReplication = new ArrayList<Map<String, String>>(numReplications);
+		final List<String> reportPerReplication = new ArrayList<String>(numReplications);
+		for (SimKernel simKernel : simKernels)
+		{
+			double simTime = simKernel.getSimCore().getFutureEventList().getCurrentSimulationTime();
+			Map<String, String> simulationInfo = new LinkedHashMap<String, String>();
+			simulationInfo.put("Simulation time", StringUtils.secondsToYearsDaysHoursMinutesSeconds(simTime));
+			simulationInfo.put("CPU time", StringUtils.secondsToYearsDaysHoursMinutesSeconds(simKernel.getSimCore().getCPUTime()));
+			simulationInfo.put("Number of processed events", Long.toString(simKernel.getSimCore().getFutureEventList().getNumberOfProcessedEvents()));
+			simulationInfoPerReplication.add(simulationInfo);
+			resultsPerReplication.add(simKernel.stats == null ? new LinkedHashMap<String, Double>() : simKernel.stats.getSummaryResults(simTime));
+			reportPerReplication.add(simKernel.getSimulationReport());
+		}
+
+		double totalSimTimeInSeconds = (end - init) / 1.0e9;
+		String totalSimTime = StringUtils.secondsToYearsDaysHoursMinutesSeconds(totalSimTimeInSeconds);
+		System.out.println(String.format("%n%nSimulation finished successfully in %s", totalSimTime));
+
+		return Pair.of(ReplicationStatistics.getReport(resultsPerReplication, simulationInfoPerReplication, confidenceLevel), reportPerReplication);
+	}
+
+	private static boolean isSeedParameter(String parameterName)
+	{
+		return parameterName.toLowerCase(Locale.ENGLISH).endsWith("seed");
+	}
+
+	private static boolean hasSeedParameter(Map<String, String> parameters)
+	{
+		for (String parameterName : parameters.keySet())
+			if (isSeedParameter(parameterName)) return true;
+		return false;
+	}
+
+	/* Each random seed of a replication is the configured one plus the replication index (a seed equal to -1, meaning random, is kept) */
+	private static Map<String, String> getReplicationParameters(Map<String, String> parameters, int replication)
+	{
+		Map<String, String> res = new LinkedHashMap<String, String>(parameters);
+		for (Entry<String, String> entry : res.entrySet())
+		{
+			if (!isSeedParameter(entry.getKey())) continue;
+
+			long seed;
+			try { seed = Long.parseLong(entry.getValue().trim()); }
+			catch (NumberFormatException e) { throw new Net2PlanException("'" + entry.getKey() + "' must be an integer"); }
+			if (seed != -1) entry.setValue(Long.toString(seed + replication));
+		}
+		return res;
+	}
+
+	private static IExternal newInstance(IExternal algorithm)
+	{
+		try { return algorithm.getClass().newInstance(); }
+		catch (InstantiationException | IllegalAccessException e) { throw new Net2PlanException("Unable to create a new instance of " + algorithm.getClass().getName() + " (a public no-argument constructor is required)"); }
+	}
+
+	private static void printParameters(Map<String, String> net2planParameters, Map<String, String> simulationParameters, Map<String, String> eventGeneratorParameters, Map<String, String> eventProcessorParameters)
+	{
+		System.out.println("Net2Plan parameters");
+		System.out.println("-----------------------------");
+		System.out.println(StringUtils.mapToString(net2planParameters, "=", String.format("%n")));
+		System.out.println();
+		System.out.println("Simulation parameters");
+		System.out.println("-----------------------------");
+		System.out.println(StringUtils.mapToString(simulationParameters, "=", String.format("%n")));
+		System.out.println();
+		System.out.println(getEventGeneratorLabel() + " parameters");
+		System.out.println("-----------------------------");
+		System.out.println(eventGeneratorParameters.isEmpty() ? "None" : StringUtils.mapToString(eventGeneratorParameters, "=", String.format("%n")));
+		System.out.println();
+		System.out.println(getEventProcessorLabel() + " parameters");
+		System.out.println("-----------------------------");
+		System.out.println(eventProcessorParameters.isEmpty() ? "None" : StringUtils.mapToString(eventProcessorParameters, "=", String.format("%n")));
+		System.out.println();
+	}
+
 	/**
 	 *
 	 * @param stateListener State listener
@@ -21,7 +21,6 @@ package com.net2plan.internal.sim;
 import com.net2plan.interfaces.networkDesign.*;
 import com.net2plan.utils.HTMLUtils;
 import com.net2plan.utils.StringUtils;
-import org.apache.commons.lang3.mutable.MutableDouble;
 import org.codehaus.stax2.XMLOutputFactory2;
 import org.codehaus.stax2.XMLStreamWriter2;
 
@@ -33,57 +32,54 @@ import java.util.*;
 /**
  * Abstract class defining a template for statistics classes for simulations.
  *
+ * <p>All the metrics are constant between two consecutive events. The statistics of each node, link and demand are kept in primitive arrays indexed by the
+ * element index, storing the current values of its metrics, and the time integral, minimum and maximum of the values held until the last time they changed.
+ * After each event, only the elements marked in a {@link com.net2plan.interfaces.networkDesign.NetPlanChangeTracker NetPlanChangeTracker} attached to the network state
+ * are visited, and their statistics are only updated if some value actually changed.</p>
+ *
  * @author Pablo Pavon-Marino, Jose-Luis Izquierdo-Zaragoza
  * @since 0.2.3
  */
 public class SimStats
 {
+	/* Metrics of each link */
+	private static final int LINK_LENGTH = 0, LINK_CAPACITY = 1, LINK_OCCUPIEDCAPACITY = 2, LINK_UTILIZATION = 3, LINK_OVERSUBSCRIBEDCAPACITY = 4, LINK_ISOVERSUBSCRIBED = 5, LINK_ISUP = 6, NUM_LINK_METRICS = 7;
+
+	/* Metrics of each demand */
+	private static final int DEMAND_OFFEREDTRAFFIC = 0, DEMAND_CARRIEDTRAFFIC = 1, DEMAND_BLOCKEDTRAFFIC = 2, DEMAND_EXCESSCARRIEDTRAFFIC = 3, DEMAND_HASEXCESSCARRIEDTRAFFIC = 4, DEMAND_AVAILABILITYCLASSIC = 5, DEMAND_AVAILABILITYWEIGHTED = 6, NUM_DEMAND_METRICS = 7;
+
+	/* Metrics of each node, and of each node in each layer */
+	private static final int NODE_ISUP = 0, NUM_NODE_METRICS = 1;
+	private static final int NODE_INDEGREE = 0, NODE_OUTDEGREE = 1, NODE_INGRESSTRAFFIC = 2, NODE_EGRESSTRAFFIC = 3, NUM_NODELAYER_METRICS = 4;
+
+	/* Metrics of each layer */
+	private static final int LAYER_NUMLINKS = 0, LAYER_NUMDEMANDS = 1, LAYER_TOTALOFFEREDTRAFFIC = 2, LAYER_TOTALCARRIEDTRAFFIC = 3, LAYER_TOTALCAPACITY = 4, LAYER_CONGESTION = 5, LAYER_AVAILABILITYCLASSIC = 6, LAYER_AVAILABILITYWEIGHTED = 7, NUM_LAYER_METRICS = 8;
+
 	/* Input and Net2Plan-wide parameters */
 	private final double precisionFactor;
-	
+
 	private final NetPlan netState;
+	private final NetPlanChangeTracker changeTracker;
 
 	private double lastEventTime, transitoryTime;
-	
-	private Set<Long> previousState_layerIds;
-	private Set<Long> previousState_nodeIds, previousState_nodeDownIds;
-	private Map<Long, Set<Long>> previousState_linkIds, previousState_linkDownIds, previousState_demandIds;
-	
+	private boolean forceFullUpdate;
+
 	/* Network information */
+	private int previousState_numLayers, previousState_numNodes;
 	private double accum_avgNumLayers, accum_avgNumNodes;
 	private int maxNumLayers, maxNumNodes, minNumLayers, minNumNodes;
-	
-	/* Layer information */
-	private Map<Long, MutableDouble> accum_layerTotalTime, accum_avgNumLinks, accum_avgNumDemands, accum_avgTotalOfferedTraffic, maxTotalOfferedTraffic, minTotalOfferedTraffic, accum_avgTotalCarriedTraffic, maxTotalCarriedTraffic, minTotalCarriedTraffic, accum_avgTotalCapacity, maxTotalCapacity, minTotalCapacity, accum_avgCongestion, maxCongestion, minCongestion, accum_availabilityClassic, accum_availabilityWeighted, worstDemandAvailabilityClassic, worstDemandAvailabilityWeighted;
-	private Map<Long, Integer> maxNumLinks, minNumLinks, maxNumDemands, minNumDemands;
-	
-	/* Node information */
-	private Map<Long, MutableDouble> accum_nodeUpTime, accum_nodeTotalTime;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgNodeInDegree, accum_avgNodeOutDegree, accum_avgNodeIngressTraffic, accum_avgNodeEgressTraffic;
-	private Map<Long, Map<Long, Double>> previousState_nodeIngressTraffic, previousState_nodeEgressTraffic, maxNodeIngressTraffic, minNodeIngressTraffic, maxNodeEgressTraffic, minNodeEgressTraffic;
-	private Map<Long, Map<Long, Integer>> previousState_nodeInDegree, previousState_nodeOutDegree, maxNodeInDegree, maxNodeOutDegree, minNodeInDegree, minNodeOutDegree;
-	
-	/* Link information */
-	private Map<Long, Map<Long, Double>> previousState_linkLengthInKm, previousState_linkCapacity, previousState_linkOccupiedCapacity;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgLinkLengthInKm, minLinkLengthInKm, maxLinkLengthInKm;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgCapacity, minCapacity, maxCapacity;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgLinkOccupiedCapacity, minLinkOccupiedCapacity, maxLinkOccupiedCapacity;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgUtilization, minUtilization, maxUtilization;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgOversubscribedCapacity, minOversubscribedCapacity, maxOversubscribedCapacity;
-	private Map<Long, Map<Long, MutableDouble>> accum_linkOversubscribedTime, accum_linkUpTime, accum_linkTotalTime;
-	
-	/* Demand information */
-	private Map<Long, Map<Long, Double>> previousState_demandOfferedTraffic, previousState_demandCarriedTraffic;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgDemandOfferedTraffic, minDemandOfferedTraffic, maxDemandOfferedTraffic;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgDemandCarriedTraffic, minDemandCarriedTraffic, maxDemandCarriedTraffic;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgDemandBlockedTraffic, minDemandBlockedTraffic, maxDemandBlockedTraffic;
-	private Map<Long, Map<Long, MutableDouble>> accum_avgExcessCarriedTraffic, minDemandExcessCarriedTraffic, maxDemandExcessCarriedTraffic;
-	private Map<Long, Map<Long, MutableDouble>> accum_demandAvailabilityClassic, accum_demandAvailabilityWeighted;
-	private Map<Long, Map<Long, MutableDouble>> excessDemandCarriedTrafficTime, demandTotalTime;
-	
+
+	/* Node and layer information */
+	private Node [] nodes;
+	private Accumulators nodeStats;
+	private LayerStats [] layerStats;
+
+	/* Reused to pass the values of an element, to avoid allocations */
+	private final double [] values;
+
 	/**
 	 * Default constructor.
-	 * 
+	 *
 	 * @param netState Reference to the current network state
 	 * @param simulationParameters A key-value map with simulation options
 	 * @param net2planParameters A key-value map with {@code Net2Plan}-wide configuration options
@@ -91,174 +87,21 @@ public class SimStats
 	 */
 	public SimStats(NetPlan netState, Map<String, String> simulationParameters, Map<String, String> net2planParameters)
 	{
-		this.netState = netState;
-		precisionFactor = Double.parseDouble(net2planParameters.get("precisionFactor"));
-		
-		reset(0);
-	}
-	
-	private void checkAndCreateDemand(long layerId, long demandId)
-	{
-		if (!accum_avgDemandOfferedTraffic.get(layerId).containsKey(demandId))
-		{
-			/* Initialize demand information */
-			accum_avgDemandOfferedTraffic.get(layerId).put(demandId, new MutableDouble());
-			minDemandOfferedTraffic.get(layerId).put(demandId, new MutableDouble(Double.MAX_VALUE));
-			maxDemandOfferedTraffic.get(layerId).put(demandId, new MutableDouble());
-			accum_avgDemandCarriedTraffic.get(layerId).put(demandId, new MutableDouble());
-			minDemandCarriedTraffic.get(layerId).put(demandId, new MutableDouble(Double.MAX_VALUE));
-			maxDemandCarriedTraffic.get(layerId).put(demandId, new MutableDouble());
-			accum_avgDemandBlockedTraffic.get(layerId).put(demandId, new MutableDouble());
-			minDemandBlockedTraffic.get(layerId).put(demandId, new MutableDouble(Double.MAX_VALUE));
-			maxDemandBlockedTraffic.get(layerId).put(demandId, new MutableDouble());
-			accum_avgExcessCarriedTraffic.get(layerId).put(demandId, new MutableDouble());
-			minDemandExcessCarriedTraffic.get(layerId).put(demandId, new MutableDouble(Double.MAX_VALUE));
-			maxDemandExcessCarriedTraffic.get(layerId).put(demandId, new MutableDouble());
-			accum_demandAvailabilityClassic.get(layerId).put(demandId, new MutableDouble());
-			accum_demandAvailabilityWeighted.get(layerId).put(demandId, new MutableDouble());
-			excessDemandCarriedTrafficTime.get(layerId).put(demandId, new MutableDouble());
-			demandTotalTime.get(layerId).put(demandId, new MutableDouble());
-		}
+		this(netState, simulationParameters, net2planParameters, true);
 	}
 
-	private void checkAndCreateLayer(long layerId)
+	/* If the change tracker is not used, all the elements are visited after each event */
+	SimStats(NetPlan netState, Map<String, String> simulationParameters, Map<String, String> net2planParameters, boolean useChangeTracker)
 	{
-		if (!accum_avgLinkLengthInKm.containsKey(layerId))
-		{
-			/* Initialize layer information */
-			accum_layerTotalTime.put(layerId, new MutableDouble());
-			accum_avgNumLinks.put(layerId, new MutableDouble());
-			accum_avgNumDemands.put(layerId, new MutableDouble());
-			accum_avgTotalOfferedTraffic.put(layerId, new MutableDouble());
-			maxTotalOfferedTraffic.put(layerId, new MutableDouble());
-			minTotalOfferedTraffic.put(layerId, new MutableDouble(Double.MAX_VALUE));
-			accum_avgTotalCarriedTraffic.put(layerId, new MutableDouble());
-			maxTotalCarriedTraffic.put(layerId, new MutableDouble());
-			minTotalCarriedTraffic.put(layerId, new MutableDouble(Double.MAX_VALUE));
-			accum_avgTotalCapacity.put(layerId, new MutableDouble());
-			maxTotalCapacity.put(layerId, new MutableDouble());
-			minTotalCapacity.put(layerId, new MutableDouble(Double.MAX_VALUE));
-			accum_avgCongestion.put(layerId, new MutableDouble());
-			maxCongestion.put(layerId, new MutableDouble());
-			minCongestion.put(layerId, new MutableDouble(Double.MAX_VALUE));
-			accum_availabilityClassic.put(layerId, new MutableDouble());
-			accum_availabilityWeighted.put(layerId, new MutableDouble());
-			worstDemandAvailabilityClassic.put(layerId, new MutableDouble(1));
-			worstDemandAvailabilityWeighted.put(layerId, new MutableDouble(1));
-			maxNumLinks.put(layerId, 0);
-			minNumLinks.put(layerId, Integer.MAX_VALUE);
-			maxNumDemands.put(layerId, 0);
-			minNumDemands.put(layerId, Integer.MAX_VALUE);
-
-			/* Initialize node information in this layer */
-			accum_avgNodeInDegree.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minNodeInDegree.put(layerId, new LinkedHashMap<Long, Integer>());
-			maxNodeInDegree.put(layerId, new LinkedHashMap<Long, Integer>());
-			accum_avgNodeOutDegree.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minNodeOutDegree.put(layerId, new LinkedHashMap<Long, Integer>());
-			maxNodeOutDegree.put(layerId, new LinkedHashMap<Long, Integer>());
-			accum_avgNodeIngressTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxNodeIngressTraffic.put(layerId, new LinkedHashMap<Long, Double>());
-			minNodeIngressTraffic.put(layerId, new LinkedHashMap<Long, Double>());
-			accum_avgNodeEgressTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxNodeEgressTraffic.put(layerId, new LinkedHashMap<Long, Double>());
-			minNodeEgressTraffic.put(layerId, new LinkedHashMap<Long, Double>());
-
-			/* Initialize link information in this layer */
-			accum_avgLinkLengthInKm.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minLinkLengthInKm.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxLinkLengthInKm.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_avgCapacity.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minCapacity.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxCapacity.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_avgLinkOccupiedCapacity.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minLinkOccupiedCapacity.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxLinkOccupiedCapacity.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_avgUtilization.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minUtilization.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxUtilization.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_avgOversubscribedCapacity.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minOversubscribedCapacity.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxOversubscribedCapacity.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_linkOversubscribedTime.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_linkUpTime.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_linkTotalTime.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-
-			/* Initialize demand information in this layer */
-			accum_avgDemandOfferedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minDemandOfferedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxDemandOfferedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_avgDemandCarriedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minDemandCarriedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxDemandCarriedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_avgDemandBlockedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minDemandBlockedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxDemandBlockedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_avgExcessCarriedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			minDemandExcessCarriedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			maxDemandExcessCarriedTraffic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_demandAvailabilityClassic.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			accum_demandAvailabilityWeighted.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			excessDemandCarriedTrafficTime.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-			demandTotalTime.put(layerId, new LinkedHashMap<Long, MutableDouble>());
-		}
-	}
+		this.netState = netState;
+		precisionFactor = Double.parseDouble(net2planParameters.get("precisionFactor"));
+		this.values = new double [Math.max(Math.max(NUM_LINK_METRICS, NUM_DEMAND_METRICS), NUM_LAYER_METRICS)];
+		this.changeTracker = useChangeTracker ? new NetPlanChangeTracker() : null;
+		if (useChangeTracker) netState.setChangeTracker(changeTracker);
 
-	private void checkAndCreateLink(long layerId, long linkId)
-	{
-		if (!accum_avgLinkLengthInKm.get(layerId).containsKey(linkId))
-		{
-			/* Initialize link information */
-			accum_avgLinkLengthInKm.get(layerId).put(linkId, new MutableDouble());
-			minLinkLengthInKm.get(layerId).put(linkId, new MutableDouble(Double.MAX_VALUE));
-			maxLinkLengthInKm.get(layerId).put(linkId, new MutableDouble());
-			accum_avgCapacity.get(layerId).put(linkId, new MutableDouble());
-			minCapacity.get(layerId).put(linkId, new MutableDouble(Double.MAX_VALUE));
-			maxCapacity.get(layerId).put(linkId, new MutableDouble());
-			accum_avgLinkOccupiedCapacity.get(layerId).put(linkId, new MutableDouble());
-			minLinkOccupiedCapacity.get(layerId).put(linkId, new MutableDouble(Double.MAX_VALUE));
-			maxLinkOccupiedCapacity.get(layerId).put(linkId, new MutableDouble());
-			accum_avgUtilization.get(layerId).put(linkId, new MutableDouble());
-			minUtilization.get(layerId).put(linkId, new MutableDouble(Double.MAX_VALUE));
-			maxUtilization.get(layerId).put(linkId, new MutableDouble());
-			accum_avgOversubscribedCapacity.get(layerId).put(linkId, new MutableDouble());
-			minOversubscribedCapacity.get(layerId).put(linkId, new MutableDouble(Double.MAX_VALUE));
-			maxOversubscribedCapacity.get(layerId).put(linkId, new MutableDouble());
-			accum_linkOversubscribedTime.get(layerId).put(linkId, new MutableDouble());
-			accum_linkUpTime.get(layerId).put(linkId, new MutableDouble());
-			accum_linkTotalTime.get(layerId).put(linkId, new MutableDouble());
-		}
-	}
-	
-	private void checkAndCreateNode(long nodeId)
-	{
-		if (!accum_nodeUpTime.containsKey(nodeId))
-		{
-			/* Initialize node information */
-			accum_nodeUpTime.put(nodeId, new MutableDouble());
-			accum_nodeTotalTime.put(nodeId, new MutableDouble());
-		}
-	}
-	
-	private void checkAndCreateNode(long layerId, long nodeId)
-	{
-		if (!accum_avgNodeInDegree.get(layerId).containsKey(nodeId))
-		{
-			accum_avgNodeInDegree.get(layerId).put(nodeId, new MutableDouble());
-			minNodeInDegree.get(layerId).put(nodeId, Integer.MAX_VALUE);
-			maxNodeInDegree.get(layerId).put(nodeId, 0);
-			accum_avgNodeOutDegree.get(layerId).put(nodeId, new MutableDouble());
-			minNodeOutDegree.get(layerId).put(nodeId, Integer.MAX_VALUE);
-			maxNodeOutDegree.get(layerId).put(nodeId, 0);
-			accum_avgNodeIngressTraffic.get(layerId).put(nodeId, new MutableDouble());
-			maxNodeIngressTraffic.get(layerId).put(nodeId, 0.0);
-			minNodeIngressTraffic.get(layerId).put(nodeId, Double.MAX_VALUE);
-			accum_avgNodeEgressTraffic.get(layerId).put(nodeId, new MutableDouble());
-			maxNodeEgressTraffic.get(layerId).put(nodeId, 0.0);
-			minNodeEgressTraffic.get(layerId).put(nodeId, Double.MAX_VALUE);
-		}
+		reset(0);
 	}
-	
+
 	/**
 	 * Computes statistics for the current simulation time.
 	 *
@@ -267,417 +110,147 @@ public class SimStats
 	 */
 	public void computeNextState(double simTime)
 	{
-		/* Do not update metrics for events in the same simulation time */
+		/* Network metrics: accum += previous * timeInterval, and max/min metric = max/min(metric, previous). Do not update them for events in the same simulation time */
 		if (simTime > lastEventTime)
 		{
-			/*
-			 * Update metrics:
-			 * - Cumulative metrics: accum += previous * timeInterval
-			 * - Max/min metrics: metric = max/min(metric, previous)
-			 */
 			double timeInterval = simTime - lastEventTime;
 
-			/* Network metrics */
-			int numLayers = previousState_layerIds.size();
-			accum_avgNumLayers += numLayers * timeInterval;
-			minNumLayers = Math.min(numLayers, minNumLayers);
-			maxNumLayers = Math.max(numLayers, maxNumLayers);
-
-			int numNodes = previousState_nodeIds.size();
-			accum_avgNumNodes += numNodes * timeInterval;
-			minNumNodes = Math.min(numNodes, minNumNodes);
-			maxNumNodes = Math.max(numNodes, maxNumNodes);
-			
-			for(long nodeId : previousState_nodeIds)
-			{
-				checkAndCreateNode(nodeId);
+			accum_avgNumLayers += previousState_numLayers * timeInterval;
+			minNumLayers = Math.min(previousState_numLayers, minNumLayers);
+			maxNumLayers = Math.max(previousState_numLayers, maxNumLayers);
 
-				if (netState.getNodeFromId (nodeId) != null)
-				{
-					if (!previousState_nodeDownIds.contains(nodeId)) accum_nodeUpTime.get(nodeId).add(timeInterval);
-					accum_nodeTotalTime.get(nodeId).add(timeInterval);
-				}
-				else
-				{
-					accum_nodeUpTime.remove(nodeId);
-					accum_nodeTotalTime.remove(nodeId);
-				}
-			}
+			accum_avgNumNodes += previousState_numNodes * timeInterval;
+			minNumNodes = Math.min(previousState_numNodes, minNumNodes);
+			maxNumNodes = Math.max(previousState_numNodes, maxNumNodes);
+		}
+
+		/* When elements were added or removed, the statistics are moved to the new element indexes, and all the elements are visited */
+		final boolean visitAllElements = forceFullUpdate || changeTracker == null || changeTracker.isStructureModified();
+		if (visitAllElements) updateStructure(simTime);
 
-			for(long layerId : previousState_layerIds)
+		/* Node metrics */
+		final BitSet modifiedNodes = visitAllElements ? null : changeTracker.getModifiedNodes();
+		for (int index = next(modifiedNodes, 0, nodes.length); index >= 0; index = next(modifiedNodes, index + 1, nodes.length))
+		{
+			values [NODE_ISUP] = nodes [index].isUp() ? 1 : 0;
+			nodeStats.update(index, values, simTime);
+		}
+
+		for (LayerStats layer : layerStats)
+		{
+			final int layerIndex = layer.layer.getIndex();
+			boolean layerChanged = visitAllElements;
+
+			/* Link metrics */
+			final BitSet modifiedLinks = visitAllElements ? null : changeTracker.getModifiedLinks(layerIndex);
+			for (int index = next(modifiedLinks, 0, layer.links.length); index >= 0; index = next(modifiedLinks, index + 1, layer.links.length))
 			{
-				checkAndCreateLayer(layerId);
+				final Link link = layer.links [index];
+				double u_e = link.getCapacity();
+				double y_e = link.getOccupiedCapacity();
+				double rho_e = y_e == 0 ? 0 : Math.max(y_e / u_e, 0);
+				double oversubscribedCapacity = y_e - u_e; if (oversubscribedCapacity < precisionFactor) oversubscribedCapacity = 0;
+
+				values [LINK_LENGTH] = link.getLengthInKm();
+				values [LINK_CAPACITY] = u_e;
+				values [LINK_OCCUPIEDCAPACITY] = y_e;
+				values [LINK_UTILIZATION] = rho_e;
+				values [LINK_OVERSUBSCRIBEDCAPACITY] = oversubscribedCapacity;
+				values [LINK_ISOVERSUBSCRIBED] = oversubscribedCapacity > 0 ? 1 : 0;
+				values [LINK_ISUP] = link.isUp() ? 1 : 0;
+				if (layer.linkStats.update(index, values, simTime)) layerChanged = true;
+			}
 
-				if (netState.getNetworkLayerFromId (layerId) != null)
-				{
-					accum_layerTotalTime.get(layerId).add(timeInterval);
-
-					for(long nodeId : previousState_nodeIds)
-					{
-						checkAndCreateNode(layerId, nodeId);
-
-						if (netState.getNodeFromId (nodeId) != null)
-						{
-							int nodeInDegree = previousState_nodeInDegree.get(layerId).get(nodeId);
-							accum_avgNodeInDegree.get(layerId).get(nodeId).add(nodeInDegree * timeInterval);
-							minNodeInDegree.get(layerId).put(nodeId, Math.min(nodeInDegree, minNodeInDegree.get(layerId).get(nodeId)));
-							maxNodeInDegree.get(layerId).put(nodeId, Math.max(nodeInDegree, maxNodeInDegree.get(layerId).get(nodeId)));
-
-							int nodeOutDegree = previousState_nodeOutDegree.get(layerId).get(nodeId);
-							accum_avgNodeOutDegree.get(layerId).get(nodeId).add(nodeOutDegree * timeInterval);
-							minNodeOutDegree.get(layerId).put(nodeId, Math.min(nodeInDegree, minNodeOutDegree.get(layerId).get(nodeId)));
-							maxNodeOutDegree.get(layerId).put(nodeId, Math.max(nodeInDegree, maxNodeOutDegree.get(layerId).get(nodeId)));
-
-							double nodeIngressTraffic = previousState_nodeIngressTraffic.get(layerId).get(nodeId);
-							accum_avgNodeIngressTraffic.get(layerId).get(nodeId).add(nodeIngressTraffic * timeInterval);
-							minNodeIngressTraffic.get(layerId).put(nodeId, Math.min(nodeIngressTraffic, minNodeIngressTraffic.get(layerId).get(nodeId)));
-							maxNodeIngressTraffic.get(layerId).put(nodeId, Math.max(nodeIngressTraffic, maxNodeIngressTraffic.get(layerId).get(nodeId)));
-
-							double nodeEgressTraffic = previousState_nodeEgressTraffic.get(layerId).get(nodeId);
-							accum_avgNodeEgressTraffic.get(layerId).get(nodeId).add(nodeEgressTraffic * timeInterval);
-							minNodeEgressTraffic.get(layerId).put(nodeId, Math.min(nodeEgressTraffic, minNodeEgressTraffic.get(layerId).get(nodeId)));
-							maxNodeEgressTraffic.get(layerId).put(nodeId, Math.max(nodeEgressTraffic, maxNodeEgressTraffic.get(layerId).get(nodeId)));
-
-						}
-						else
-						{
-							accum_avgNodeInDegree.get(layerId).remove(nodeId);
-							minNodeInDegree.get(layerId).remove(nodeId);
-							maxNodeInDegree.get(layerId).remove(nodeId);
-							accum_avgNodeOutDegree.get(layerId).remove(nodeId);
-							minNodeOutDegree.get(layerId).remove(nodeId);
-							maxNodeOutDegree.get(layerId).remove(nodeId);
-							accum_avgNodeIngressTraffic.get(layerId).remove(nodeId);
-							maxNodeIngressTraffic.get(layerId).remove(nodeId);
-							minNodeIngressTraffic.get(layerId).remove(nodeId);
-							accum_avgNodeEgressTraffic.get(layerId).remove(nodeId);
-							maxNodeEgressTraffic.get(layerId).remove(nodeId);
-							minNodeEgressTraffic.get(layerId).remove(nodeId);
-						}
-					}
-					
-					Set<Long> previousState_linkIds_thisLayer = previousState_linkIds.get(layerId);
-					int numLinks = previousState_linkIds_thisLayer.size();
-					accum_avgNumLinks.get(layerId).add(numLinks * timeInterval);
-					maxNumLinks.put(layerId, Math.max(numLinks, maxNumLinks.get(layerId)));
-					minNumLinks.put(layerId, Math.min(numLinks, minNumLinks.get(layerId)));
-					
-					Set<Long> previousState_demandIds_thisLayer = previousState_demandIds.get(layerId);
-					int numDemands = previousState_demandIds_thisLayer.size();
-					accum_avgNumDemands.get(layerId).add(numDemands * timeInterval);
-					maxNumDemands.put(layerId, Math.max(numDemands, maxNumDemands.get(layerId)));
-					minNumDemands.put(layerId, Math.min(numDemands, minNumDemands.get(layerId)));
-
-					double totalCapacityInstalled = 0;
-					double congestion = 0;
-					
-					Set<Long> previousState_linkDownIds_thisLayer = previousState_linkDownIds.get(layerId);
-					Map<Long, Double> previousState_linkCapacity_thisLayer = previousState_linkCapacity.get(layerId);
-					Map<Long, Double> previousState_linkOccupiedCapacity_thisLayer = previousState_linkOccupiedCapacity.get(layerId);
-					Map<Long, Double> previousState_linkLengthInKm_thisLayer = previousState_linkLengthInKm.get(layerId);
-					for(long linkId : previousState_linkIds_thisLayer)
-					{
-						double u_e = previousState_linkCapacity_thisLayer.get(linkId);
-						double y_e = previousState_linkOccupiedCapacity_thisLayer.get(linkId);
-						double rho_e = y_e == 0 ? 0 : Math.max(y_e / u_e, 0);
-						
-						totalCapacityInstalled += u_e;
-						congestion = Math.max(congestion, rho_e);
-						
-						checkAndCreateLink(layerId, linkId);
-
-						if (netState.getLinkFromId (linkId) != null)
-						{
-							double l_e = previousState_linkLengthInKm_thisLayer.get(linkId);
-							double oversubscribedCapacity = y_e - u_e; if (oversubscribedCapacity < precisionFactor) oversubscribedCapacity = 0;
-
-							accum_avgLinkLengthInKm.get(layerId).get(linkId).add(l_e * timeInterval);
-							minLinkLengthInKm.get(layerId).get(linkId).setValue(Math.min(minLinkLengthInKm.get(layerId).get(linkId).doubleValue(), l_e));
-							maxLinkLengthInKm.get(layerId).get(linkId).setValue(Math.max(maxLinkLengthInKm.get(layerId).get(linkId).doubleValue(), l_e));
-							accum_avgCapacity.get(layerId).get(linkId).add(u_e * timeInterval);
-							minCapacity.get(layerId).get(linkId).setValue(Math.min(minCapacity.get(layerId).get(linkId).doubleValue(), u_e));
-							maxCapacity.get(layerId).get(linkId).setValue(Math.max(maxCapacity.get(layerId).get(linkId).doubleValue(), u_e));
-							accum_avgLinkOccupiedCapacity.get(layerId).get(linkId).add(y_e * timeInterval);
-							minLinkOccupiedCapacity.get(layerId).get(linkId).setValue(Math.min(minLinkOccupiedCapacity.get(layerId).get(linkId).doubleValue(), y_e));
-							maxLinkOccupiedCapacity.get(layerId).get(linkId).setValue(Math.max(maxLinkOccupiedCapacity.get(layerId).get(linkId).doubleValue(), y_e));
-							accum_avgUtilization.get(layerId).get(linkId).add(rho_e * timeInterval);
-							minUtilization.get(layerId).get(linkId).setValue(Math.min(minUtilization.get(layerId).get(linkId).doubleValue(), rho_e));
-							maxUtilization.get(layerId).get(linkId).setValue(Math.max(maxUtilization.get(layerId).get(linkId).doubleValue(), rho_e));
-							accum_avgOversubscribedCapacity.get(layerId).get(linkId).add(oversubscribedCapacity * timeInterval);
-							minOversubscribedCapacity.get(layerId).get(linkId).setValue(Math.min(minOversubscribedCapacity.get(layerId).get(linkId).doubleValue(), oversubscribedCapacity));
-							maxOversubscribedCapacity.get(layerId).get(linkId).setValue(Math.max(maxOversubscribedCapacity.get(layerId).get(linkId).doubleValue(), oversubscribedCapacity));
-							if (oversubscribedCapacity > 0) accum_linkOversubscribedTime.get(layerId).get(linkId).add(timeInterval);
-							if (!previousState_linkDownIds_thisLayer.contains(linkId)) accum_linkUpTime.get(layerId).get(linkId).add(timeInterval);
-							accum_linkTotalTime.get(layerId).get(linkId).add(timeInterval);
-						}
-						else
-						{
-							accum_avgLinkLengthInKm.get(layerId).remove(linkId);
-							minLinkLengthInKm.get(layerId).remove(linkId);
-							maxLinkLengthInKm.get(layerId).remove(linkId);
-							accum_avgCapacity.get(layerId).remove(linkId);
-							minCapacity.get(layerId).remove(linkId);
-							maxCapacity.get(layerId).remove(linkId);
-							accum_avgLinkOccupiedCapacity.get(layerId).remove(linkId);
-							minLinkOccupiedCapacity.get(layerId).remove(linkId);
-							maxLinkOccupiedCapacity.get(layerId).remove(linkId);
-							accum_avgUtilization.get(layerId).remove(linkId);
-							minUtilization.get(layerId).remove(linkId);
-							maxUtilization.get(layerId).remove(linkId);
-							accum_avgOversubscribedCapacity.get(layerId).remove(linkId);
-							minOversubscribedCapacity.get(layerId).remove(linkId);
-							maxOversubscribedCapacity.get(layerId).remove(linkId);
-							accum_linkOversubscribedTime.get(layerId).remove(linkId);
-							accum_linkUpTime.get(layerId).remove(linkId);
-							accum_linkTotalTime.get(layerId).remove(linkId);
-						}
-					}
-					
-					accum_avgTotalCapacity.get(layerId).add(totalCapacityInstalled * timeInterval);
-					maxTotalCapacity.get(layerId).setValue(Math.max(totalCapacityInstalled, maxTotalCapacity.get(layerId).doubleValue()));
-					minTotalCapacity.get(layerId).setValue(Math.min(totalCapacityInstalled, minTotalCapacity.get(layerId).doubleValue()));
-					accum_avgCongestion.get(layerId).add(congestion * timeInterval);
-					maxCongestion.get(layerId).setValue(Math.max(congestion, maxCongestion.get(layerId).doubleValue()));
-					minCongestion.get(layerId).setValue(Math.min(congestion, minCongestion.get(layerId).doubleValue()));
-					
-					double totalOfferedTraffic = 0;
-					double totalCarriedTraffic = 0;
-					double totalBlockedTraffic = 0;
-
-					double worstDemandAvailabilityClassic_thisLayer = 1;
-					double worstDemandAvailabilityWeighted_thisLayer = 1;
-
-					Map<Long, Double> previousState_demandOfferedTraffic_thislayer = previousState_demandOfferedTraffic.get(layerId);
-					Map<Long, Double> previousState_demandCarriedTraffic_thisLayer = previousState_demandCarriedTraffic.get(layerId);
-					for(long demandId : previousState_demandIds_thisLayer)
-					{
-						double h_d = previousState_demandOfferedTraffic_thislayer.get(demandId);
-						double r_d = previousState_demandCarriedTraffic_thisLayer.get(demandId);
-						double blockedTraffic_d = h_d - r_d; if (blockedTraffic_d < precisionFactor) blockedTraffic_d = 0;
-						totalOfferedTraffic += h_d;
-						totalCarriedTraffic += r_d;
-						totalBlockedTraffic += blockedTraffic_d;
-						
-						checkAndCreateDemand(layerId, demandId);
-							
-						if (netState.getDemandFromId (demandId) != null)
-						{
-							double excessCarriedTraffic_d = r_d - h_d; if (excessCarriedTraffic_d < precisionFactor) excessCarriedTraffic_d = 0;
-
-							accum_avgDemandOfferedTraffic.get(layerId).get(demandId).add(h_d * timeInterval);
-							minDemandOfferedTraffic.get(layerId).get(demandId).setValue(Math.min(minDemandOfferedTraffic.get(layerId).get(demandId).doubleValue(), h_d));
-							maxDemandOfferedTraffic.get(layerId).get(demandId).setValue(Math.max(maxDemandOfferedTraffic.get(layerId).get(demandId).doubleValue(), h_d));
-							accum_avgDemandCarriedTraffic.get(layerId).get(demandId).add(r_d * timeInterval);
-							minDemandCarriedTraffic.get(layerId).get(demandId).setValue(Math.min(minDemandCarriedTraffic.get(layerId).get(demandId).doubleValue(), r_d));
-							maxDemandCarriedTraffic.get(layerId).get(demandId).setValue(Math.max(maxDemandCarriedTraffic.get(layerId).get(demandId).doubleValue(), r_d));
-							accum_avgDemandBlockedTraffic.get(layerId).get(demandId).add(blockedTraffic_d * timeInterval);
-							minDemandBlockedTraffic.get(layerId).get(demandId).setValue(Math.min(minDemandBlockedTraffic.get(layerId).get(demandId).doubleValue(), blockedTraffic_d));
-							maxDemandBlockedTraffic.get(layerId).get(demandId).setValue(Math.max(maxDemandBlockedTraffic.get(layerId).get(demandId).doubleValue(), blockedTraffic_d));
-							if (blockedTraffic_d == 0) accum_demandAvailabilityClassic.get(layerId).get(demandId).add(timeInterval);
-							accum_demandAvailabilityWeighted.get(layerId).get(demandId).add(h_d > 0 ? (1 - blockedTraffic_d / h_d) * timeInterval : timeInterval);
-							accum_avgExcessCarriedTraffic.get(layerId).get(demandId).add(excessCarriedTraffic_d * timeInterval);
-							minDemandExcessCarriedTraffic.get(layerId).get(demandId).setValue(Math.min(minDemandExcessCarriedTraffic.get(layerId).get(demandId).doubleValue(), excessCarriedTraffic_d));
-							maxDemandExcessCarriedTraffic.get(layerId).get(demandId).setValue(Math.max(maxDemandExcessCarriedTraffic.get(layerId).get(demandId).doubleValue(), excessCarriedTraffic_d));
-							if (excessCarriedTraffic_d > 0) excessDemandCarriedTrafficTime.get(layerId).get(demandId).add(timeInterval);
-							demandTotalTime.get(layerId).get(demandId).add(timeInterval);
-						}
-						else
-						{
-							double totalTime_thisDemand = demandTotalTime.get(layerId).get(demandId).doubleValue();
-							if (totalTime_thisDemand > 0)
-							{
-								worstDemandAvailabilityClassic_thisLayer = Math.min(worstDemandAvailabilityClassic_thisLayer, accum_demandAvailabilityClassic.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand);
-								worstDemandAvailabilityWeighted_thisLayer = Math.min(worstDemandAvailabilityWeighted_thisLayer, accum_demandAvailabilityWeighted.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand);
-							}
-							
-							accum_avgDemandOfferedTraffic.get(layerId).remove(demandId);
-							minDemandOfferedTraffic.get(layerId).remove(demandId);
-							maxDemandOfferedTraffic.get(layerId).remove(demandId);
-							accum_avgDemandCarriedTraffic.get(layerId).remove(demandId);
-							minDemandCarriedTraffic.get(layerId).remove(demandId);
-							maxDemandCarriedTraffic.get(layerId).remove(demandId);
-							accum_avgDemandBlockedTraffic.get(layerId).remove(demandId);
-							minDemandBlockedTraffic.get(layerId).remove(demandId);
-							maxDemandBlockedTraffic.get(layerId).remove(demandId);
-							accum_demandAvailabilityClassic.get(layerId).remove(demandId);
-							accum_demandAvailabilityWeighted.get(layerId).remove(demandId);
-							accum_avgExcessCarriedTraffic.get(layerId).remove(demandId);
-							minDemandExcessCarriedTraffic.get(layerId).remove(demandId);
-							maxDemandExcessCarriedTraffic.get(layerId).remove(demandId);
-							excessDemandCarriedTrafficTime.get(layerId).remove(demandId);
-							demandTotalTime.get(layerId).remove(demandId);
-						}
-					}
-					
-					accum_avgTotalOfferedTraffic.get(layerId).add(totalOfferedTraffic * timeInterval);
-					maxTotalOfferedTraffic.get(layerId).setValue(Math.max(totalOfferedTraffic, maxTotalOfferedTraffic.get(layerId).doubleValue()));
-					minTotalOfferedTraffic.get(layerId).setValue(Math.min(totalOfferedTraffic, minTotalOfferedTraffic.get(layerId).doubleValue()));
-					accum_avgTotalCarriedTraffic.get(layerId).add(totalCarriedTraffic * timeInterval);
-					maxTotalCarriedTraffic.get(layerId).setValue(Math.max(totalCarriedTraffic, maxTotalCarriedTraffic.get(layerId).doubleValue()));
-					minTotalCarriedTraffic.get(layerId).setValue(Math.min(totalCarriedTraffic, minTotalCarriedTraffic.get(layerId).doubleValue()));
-					if (totalBlockedTraffic < precisionFactor) accum_availabilityClassic.get(layerId).add(timeInterval);
-					accum_availabilityWeighted.get(layerId).add(totalOfferedTraffic > 0 ? Math.min(1, 1 - totalBlockedTraffic / totalOfferedTraffic) * timeInterval : timeInterval);
-					worstDemandAvailabilityClassic.get(layerId).setValue(Math.min(worstDemandAvailabilityClassic_thisLayer, worstDemandAvailabilityClassic.get(layerId).doubleValue()));
-					worstDemandAvailabilityWeighted.get(layerId).setValue(Math.min(worstDemandAvailabilityWeighted_thisLayer, worstDemandAvailabilityWeighted.get(layerId).doubleValue()));
-				}
-				else
+			/* Demand metrics. The ingress and egress nodes of the demands that changed, get their traffic updated */
+			final BitSet modifiedDemands = visitAllElements ? null : changeTracker.getModifiedDemands(layerIndex);
+			for (int index = next(modifiedDemands, 0, layer.demands.length); index >= 0; index = next(modifiedDemands, index + 1, layer.demands.length))
+			{
+				final Demand demand = layer.demands [index];
+				double h_d = demand.getOfferedTraffic();
+				double r_d = demand.getCarriedTraffic();
+				double blockedTraffic_d = h_d - r_d; if (blockedTraffic_d < precisionFactor) blockedTraffic_d = 0;
+				double excessCarriedTraffic_d = r_d - h_d; if (excessCarriedTraffic_d < precisionFactor) excessCarriedTraffic_d = 0;
+
+				values [DEMAND_OFFEREDTRAFFIC] = h_d;
+				values [DEMAND_CARRIEDTRAFFIC] = r_d;
+				values [DEMAND_BLOCKEDTRAFFIC] = blockedTraffic_d;
+				values [DEMAND_EXCESSCARRIEDTRAFFIC] = excessCarriedTraffic_d;
+				values [DEMAND_HASEXCESSCARRIEDTRAFFIC] = excessCarriedTraffic_d > 0 ? 1 : 0;
+				values [DEMAND_AVAILABILITYCLASSIC] = blockedTraffic_d == 0 ? 1 : 0;
+				values [DEMAND_AVAILABILITYWEIGHTED] = h_d > 0 ? 1 - blockedTraffic_d / h_d : 1;
+				if (layer.demandStats.update(index, values, simTime))
 				{
-					/* Remove layer information */
-					accum_layerTotalTime.remove(layerId);
-					accum_avgNumLinks.remove(layerId);
-					accum_avgNumDemands.remove(layerId);
-					accum_avgTotalOfferedTraffic.remove(layerId);
-					maxTotalOfferedTraffic.remove(layerId);
-					minTotalOfferedTraffic.remove(layerId);
-					accum_avgTotalCarriedTraffic.remove(layerId);
-					maxTotalCarriedTraffic.remove(layerId);
-					minTotalCarriedTraffic.remove(layerId);
-					accum_avgTotalCapacity.remove(layerId);
-					maxTotalCapacity.remove(layerId);
-					minTotalCapacity.remove(layerId);
-					accum_avgCongestion.remove(layerId);
-					maxCongestion.remove(layerId);
-					minCongestion.remove(layerId);
-					accum_availabilityClassic.remove(layerId);
-					accum_availabilityWeighted.remove(layerId);
-					worstDemandAvailabilityClassic.remove(layerId);
-					worstDemandAvailabilityWeighted.remove(layerId);
-					maxNumLinks.remove(layerId);
-					minNumLinks.remove(layerId);
-					maxNumDemands.remove(layerId);
-					minNumDemands.remove(layerId);
-
-					/* Remove node information in this layer */
-					accum_avgNodeInDegree.remove(layerId);
-					minNodeInDegree.remove(layerId);
-					maxNodeInDegree.remove(layerId);
-					accum_avgNodeOutDegree.remove(layerId);
-					minNodeOutDegree.remove(layerId);
-					maxNodeOutDegree.remove(layerId);
-					accum_avgNodeIngressTraffic.remove(layerId);
-					maxNodeIngressTraffic.remove(layerId);
-					minNodeIngressTraffic.remove(layerId);
-					accum_avgNodeEgressTraffic.remove(layerId);
-					maxNodeEgressTraffic.remove(layerId);
-					minNodeEgressTraffic.remove(layerId);
-
-					/* Remove link information in this layer */
-					accum_avgLinkLengthInKm.remove(layerId);
-					minLinkLengthInKm.remove(layerId);
-					maxLinkLengthInKm.remove(layerId);
-					accum_avgCapacity.remove(layerId);
-					minCapacity.remove(layerId);
-					maxCapacity.remove(layerId);
-					accum_avgLinkOccupiedCapacity.remove(layerId);
-					minLinkOccupiedCapacity.remove(layerId);
-					maxLinkOccupiedCapacity.remove(layerId);
-					accum_avgUtilization.remove(layerId);
-					minUtilization.remove(layerId);
-					maxUtilization.remove(layerId);
-					accum_avgOversubscribedCapacity.remove(layerId);
-					minOversubscribedCapacity.remove(layerId);
-					maxOversubscribedCapacity.remove(layerId);
-					accum_linkOversubscribedTime.remove(layerId);
-					accum_linkUpTime.remove(layerId);
-					accum_linkTotalTime.remove(layerId);
-
-					/* Remove demand information in this layer */
-					accum_avgDemandOfferedTraffic.remove(layerId);
-					minDemandOfferedTraffic.remove(layerId);
-					maxDemandOfferedTraffic.remove(layerId);
-					accum_avgDemandCarriedTraffic.remove(layerId);
-					minDemandCarriedTraffic.remove(layerId);
-					maxDemandCarriedTraffic.remove(layerId);
-					accum_avgDemandBlockedTraffic.remove(layerId);
-					minDemandBlockedTraffic.remove(layerId);
-					maxDemandBlockedTraffic.remove(layerId);
-					accum_avgExcessCarriedTraffic.remove(layerId);
-					minDemandExcessCarriedTraffic.remove(layerId);
-					maxDemandExcessCarriedTraffic.remove(layerId);
-					accum_demandAvailabilityClassic.remove(layerId);
-					accum_demandAvailabilityWeighted.remove(layerId);
-					excessDemandCarriedTrafficTime.remove(layerId);
-					demandTotalTime.remove(layerId);
+					layerChanged = true;
+					layer.nodesWithTrafficChange.set(demand.getIngressNode().getIndex());
+					layer.nodesWithTrafficChange.set(demand.getEgressNode().getIndex());
 				}
 			}
-		}
-		
-		/* Update previous state (previous = current) */
-		previousState_layerIds = new LinkedHashSet<Long>(netState.getNetworkLayerIds());
-		previousState_nodeIds = new LinkedHashSet<Long>(netState.getNodeIds());
-		previousState_nodeDownIds = new LinkedHashSet<Long>(NetPlan.getIds (netState.getNodesDown()));
-		previousState_nodeInDegree = new LinkedHashMap<Long, Map<Long, Integer>>();
-		previousState_nodeOutDegree = new LinkedHashMap<Long, Map<Long, Integer>>();
-		previousState_nodeIngressTraffic = new LinkedHashMap<Long, Map<Long, Double>>();
-		previousState_nodeEgressTraffic = new LinkedHashMap<Long, Map<Long, Double>>();
-		previousState_linkIds = new LinkedHashMap<Long, Set<Long>>();
-		previousState_linkDownIds = new LinkedHashMap<Long, Set<Long>>();
-		previousState_linkLengthInKm = new LinkedHashMap<Long, Map<Long, Double>>();
-		previousState_linkCapacity = new LinkedHashMap<Long, Map<Long, Double>>();
-		previousState_linkOccupiedCapacity = new LinkedHashMap<Long, Map<Long, Double>>();
-		previousState_demandIds = new LinkedHashMap<Long, Set<Long>>();
-		previousState_demandOfferedTraffic = new LinkedHashMap<Long, Map<Long, Double>>();
-		previousState_demandCarriedTraffic = new LinkedHashMap<Long, Map<Long, Double>>();
-		
-		/* Compute node, link metrics */
-		for(long layerId : previousState_layerIds)
-		{
-			NetworkLayer netStateLayer = netState.getNetworkLayerFromId (layerId);
-			previousState_nodeInDegree.put(layerId, new LinkedHashMap<Long, Integer>());
-			previousState_nodeOutDegree.put(layerId, new LinkedHashMap<Long, Integer>());
-			previousState_nodeIngressTraffic.put(layerId, new LinkedHashMap<Long, Double>());
-			previousState_nodeEgressTraffic.put(layerId, new LinkedHashMap<Long, Double>());
-			for(long nodeId : previousState_nodeIds)
+
+			/* Node metrics in this layer */
+			final BitSet modifiedNodesThisLayer = visitAllElements ? null : layer.nodesWithTrafficChange;
+			for (int index = next(modifiedNodesThisLayer, 0, layer.nodes.length); index >= 0; index = next(modifiedNodesThisLayer, index + 1, layer.nodes.length))
 			{
-				Node netStateNode = netState.getNodeFromId (nodeId);
-				previousState_nodeInDegree.get(layerId).put(nodeId, netStateNode.getIncomingLinks(netStateLayer).size());
-				previousState_nodeOutDegree.get(layerId).put(nodeId, netStateNode.getOutgoingLinks(netStateLayer).size());
-				previousState_nodeIngressTraffic.get(layerId).put(nodeId, netStateNode.getIngressCarriedTraffic(netStateLayer));
-				previousState_nodeEgressTraffic.get(layerId).put(nodeId, netStateNode.getEgressCarriedTraffic(netStateLayer));
+				final Node node = layer.nodes [index];
+				final boolean trafficChanged = layer.nodesWithTrafficChange.get(index);
+				values [NODE_INDEGREE] = layer.nodeInDegree [index];
+				values [NODE_OUTDEGREE] = layer.nodeOutDegree [index];
+				values [NODE_INGRESSTRAFFIC] = trafficChanged ? node.getIngressCarriedTraffic(layer.layer) : layer.nodeStats.getValue(index, NODE_INGRESSTRAFFIC);
+				values [NODE_EGRESSTRAFFIC] = trafficChanged ? node.getEgressCarriedTraffic(layer.layer) : layer.nodeStats.getValue(index, NODE_EGRESSTRAFFIC);
+				layer.nodeStats.update(index, values, simTime);
 			}
+			layer.nodesWithTrafficChange.clear();
+
+			/* Layer metrics, recomputed from the link and demand values only if some of them changed */
+			if (!layerChanged) continue;
 
-			previousState_linkIds.put(layerId, new LinkedHashSet<Long>(netState.getLinkIds(netStateLayer)));
-			previousState_linkDownIds.put(layerId, new LinkedHashSet<Long>(NetPlan.getIds (netState.getLinksDown(netStateLayer))));
-			previousState_linkCapacity.put(layerId, new LinkedHashMap<Long, Double>());
-			previousState_linkOccupiedCapacity.put(layerId, new LinkedHashMap<Long, Double>());
-			previousState_linkLengthInKm.put(layerId, new LinkedHashMap<Long, Double>());
-			for(long linkId : previousState_linkIds.get(layerId))
+			double totalCapacityInstalled = 0;
+			double congestion = 0;
+			for (int index = 0; index < layer.links.length; index++)
 			{
-				Link netStateLink = netState.getLinkFromId (linkId);
-				previousState_linkCapacity.get(layerId).put(linkId, netStateLink.getCapacity());
-				previousState_linkOccupiedCapacity.get(layerId).put(linkId, netStateLink.getOccupiedCapacity());
-				previousState_linkLengthInKm.get(layerId).put(linkId, netStateLink.getLengthInKm());
+				totalCapacityInstalled += layer.linkStats.getValue(index, LINK_CAPACITY);
+				congestion = Math.max(congestion, layer.linkStats.getValue(index, LINK_UTILIZATION));
 			}
-		}
-		
-		/* Compute demand metrics */
-		for(long layerId : previousState_layerIds)
-		{
-			NetworkLayer netStateLayer = netState.getNetworkLayerFromId (layerId);
-			previousState_demandIds.put(layerId, new LinkedHashSet<Long>(netState.getDemandIds(netStateLayer)));
-			previousState_demandOfferedTraffic.put(layerId, new LinkedHashMap<Long, Double>());
-			previousState_demandCarriedTraffic.put(layerId, new LinkedHashMap<Long, Double>());
-			for(long demandId : previousState_demandIds.get(layerId))
+
+			double totalOfferedTraffic = 0;
+			double totalCarriedTraffic = 0;
+			double totalBlockedTraffic = 0;
+			for (int index = 0; index < layer.demands.length; index++)
 			{
-				Demand netStateDemand = netState.getDemandFromId (demandId);
-				previousState_demandOfferedTraffic.get(layerId).put(demandId, netStateDemand.getOfferedTraffic());
-				previousState_demandCarriedTraffic.get(layerId).put(demandId, netStateDemand.getCarriedTraffic());
+				totalOfferedTraffic += layer.demandStats.getValue(index, DEMAND_OFFEREDTRAFFIC);
+				totalCarriedTraffic += layer.demandStats.getValue(index, DEMAND_CARRIEDTRAFFIC);
+				totalBlockedTraffic += layer.demandStats.getValue(index, DEMAND_BLOCKEDTRAFFIC);
 			}
+
+			values [LAYER_NUMLINKS] = layer.links.length;
+			values [LAYER_NUMDEMANDS] = layer.demands.length;
+			values [LAYER_TOTALOFFEREDTRAFFIC] = totalOfferedTraffic;
+			values [LAYER_TOTALCARRIEDTRAFFIC] = totalCarriedTraffic;
+			values [LAYER_TOTALCAPACITY] = totalCapacityInstalled;
+			values [LAYER_CONGESTION] = congestion;
+			values [LAYER_AVAILABILITYCLASSIC] = totalBlockedTraffic < precisionFactor ? 1 : 0;
+			values [LAYER_AVAILABILITYWEIGHTED] = totalOfferedTraffic > 0 ? Math.min(1, 1 - totalBlockedTraffic / totalOfferedTraffic) : 1;
+			layer.layerStats.update(0, values, simTime);
 		}
-		
+
+		/* Update previous state (previous = current) */
+		previousState_numLayers = layerStats.length;
+		previousState_numNodes = nodes.length;
+		if (changeTracker != null) changeTracker.clear();
+		forceFullUpdate = false;
+
 		lastEventTime = simTime;
 	}
-	
+
 	/**
 	 * Resets the statistics.
-	 * 
+	 *
 	 * @param simTime Current simulation time
 	 * @since 0.2.3
 	 */
 	public void reset(double simTime)
 	{
 		lastEventTime = simTime;
-		
+
 		/* Network information */
 		accum_avgNumLayers = 0;
 		accum_avgNumNodes = 0;
@@ -686,92 +259,174 @@ public class SimStats
 		minNumLayers = Integer.MAX_VALUE;
 		minNumNodes = Integer.MAX_VALUE;
 
-		/* Layer information */
-		accum_layerTotalTime = new LinkedHashMap<Long, MutableDouble>();
-		accum_avgNumLinks = new LinkedHashMap<Long, MutableDouble>();
-		accum_avgNumDemands = new LinkedHashMap<Long, MutableDouble>();
-		accum_avgTotalOfferedTraffic = new LinkedHashMap<Long, MutableDouble>();
-		maxTotalOfferedTraffic = new LinkedHashMap<Long, MutableDouble>();
-		minTotalOfferedTraffic = new LinkedHashMap<Long, MutableDouble>();
-		accum_avgTotalCarriedTraffic = new LinkedHashMap<Long, MutableDouble>();
-		maxTotalCarriedTraffic = new LinkedHashMap<Long, MutableDouble>();
-		minTotalCarriedTraffic = new LinkedHashMap<Long, MutableDouble>();
-		accum_avgTotalCapacity = new LinkedHashMap<Long, MutableDouble>();
-		maxTotalCapacity = new LinkedHashMap<Long, MutableDouble>();
-		minTotalCapacity = new LinkedHashMap<Long, MutableDouble>();
-		accum_avgCongestion = new LinkedHashMap<Long, MutableDouble>();
-		maxCongestion = new LinkedHashMap<Long, MutableDouble>();
-		minCongestion = new LinkedHashMap<Long, MutableDouble>();
-		accum_availabilityClassic = new LinkedHashMap<Long, MutableDouble>();
-		accum_availabilityWeighted = new LinkedHashMap<Long, MutableDouble>();
-		worstDemandAvailabilityClassic = new LinkedHashMap<Long, MutableDouble>();
-		worstDemandAvailabilityWeighted = new LinkedHashMap<Long, MutableDouble>();
-		maxNumLinks = new LinkedHashMap<Long, Integer>();
-		minNumLinks = new LinkedHashMap<Long, Integer>();
-		maxNumDemands = new LinkedHashMap<Long, Integer>();
-		minNumDemands = new LinkedHashMap<Long, Integer>();
-	
-		/* Node information */
-		accum_nodeUpTime = new LinkedHashMap<Long, MutableDouble>();
-		accum_nodeTotalTime = new LinkedHashMap<Long, MutableDouble>();
-		accum_avgNodeInDegree = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxNodeInDegree = new LinkedHashMap<Long, Map<Long, Integer>>();
-		minNodeInDegree = new LinkedHashMap<Long, Map<Long, Integer>>();
-		accum_avgNodeOutDegree = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxNodeOutDegree = new LinkedHashMap<Long, Map<Long, Integer>>();
-		minNodeOutDegree = new LinkedHashMap<Long, Map<Long, Integer>>();
-		accum_avgNodeIngressTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxNodeIngressTraffic = new LinkedHashMap<Long, Map<Long, Double>>();
-		minNodeIngressTraffic = new LinkedHashMap<Long, Map<Long, Double>>();
-		accum_avgNodeEgressTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxNodeEgressTraffic = new LinkedHashMap<Long, Map<Long, Double>>();
-		minNodeEgressTraffic = new LinkedHashMap<Long, Map<Long, Double>>();
-		
-		/* Link information */
-		accum_avgLinkLengthInKm = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		minLinkLengthInKm = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxLinkLengthInKm = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_avgCapacity = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		minCapacity = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxCapacity = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_avgLinkOccupiedCapacity = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		minLinkOccupiedCapacity = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxLinkOccupiedCapacity = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_avgUtilization = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		minUtilization = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxUtilization = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_avgOversubscribedCapacity = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		minOversubscribedCapacity = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxOversubscribedCapacity = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_linkOversubscribedTime = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_linkUpTime = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_linkTotalTime = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-
-		/* Demand information */
-		accum_avgDemandOfferedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		minDemandOfferedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxDemandOfferedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_avgDemandCarriedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		minDemandCarriedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxDemandCarriedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_avgDemandBlockedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		minDemandBlockedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxDemandBlockedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_avgExcessCarriedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		minDemandExcessCarriedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		maxDemandExcessCarriedTraffic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_demandAvailabilityClassic = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		accum_demandAvailabilityWeighted = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		excessDemandCarriedTrafficTime = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		demandTotalTime = new LinkedHashMap<Long, Map<Long, MutableDouble>>();
-		
+		/* Node and layer information */
+		nodes = new Node [0];
+		nodeStats = new Accumulators(NUM_NODE_METRICS);
+		layerStats = new LayerStats [0];
+
+		forceFullUpdate = true;
 		computeNextState(simTime);
 		transitoryTime = simTime;
 	}
 
+	/* Moves the statistics of the nodes, links and demands to their current indexes. Removed elements are discarded, and added elements start from now */
+	private void updateStructure(double simTime)
+	{
+		final List<Node> currentNodes = netState.getNodes();
+		nodeStats.remap(getNewIndexes(nodes, currentNodes), currentNodes.size(), simTime);
+		nodes = currentNodes.toArray(new Node [currentNodes.size()]);
+
+		final List<NetworkLayer> currentLayers = netState.getNetworkLayers();
+		final LayerStats [] newLayerStats = new LayerStats [currentLayers.size()];
+		for (LayerStats layer : layerStats)
+		{
+			final int index = layer.layer.getIndex();
+			if (!layer.layer.wasRemoved() && index < newLayerStats.length && currentLayers.get(index) == layer.layer) newLayerStats [index] = layer;
+		}
+		for (int index = 0; index < newLayerStats.length; index++)
+			if (newLayerStats [index] == null) newLayerStats [index] = new LayerStats(currentLayers.get(index), simTime);
+		layerStats = newLayerStats;
+
+		for (LayerStats layer : layerStats)
+		{
+			final int [] newNodeIndexes = getNewIndexes(layer.nodes, currentNodes);
+			layer.nodeStats.remap(newNodeIndexes, currentNodes.size(), simTime);
+			layer.nodes = nodes;
+
+			final List<Link> currentLinks = netState.getLinks(layer.layer);
+			layer.linkStats.remap(getNewIndexes(layer.links, currentLinks), currentLinks.size(), simTime);
+			layer.links = currentLinks.toArray(new Link [currentLinks.size()]);
+
+			/* removed demands are accounted in the worst demand availability, and change the traffic of its end nodes */
+			final List<Demand> currentDemands = netState.getDemands(layer.layer);
+			final int [] newDemandIndexes = getNewIndexes(layer.demands, currentDemands);
+			for (int index = 0; index < newDemandIndexes.length; index++)
+			{
+				if (newDemandIndexes [index] != -1) continue;
+				double totalTime_thisDemand = layer.demandStats.getTotalTime(index, lastEventTime);
+				if (totalTime_thisDemand > 0)
+				{
+					layer.worstDemandAvailabilityClassic = Math.min(layer.worstDemandAvailabilityClassic, layer.demandStats.getIntegral(index, DEMAND_AVAILABILITYCLASSIC, lastEventTime) / totalTime_thisDemand);
+					layer.worstDemandAvailabilityWeighted = Math.min(layer.worstDemandAvailabilityWeighted, layer.demandStats.getIntegral(index, DEMAND_AVAILABILITYWEIGHTED, lastEventTime) / totalTime_thisDemand);
+				}
+				final Node ingressNode = layer.demands [index].getIngressNode();
+				final Node egressNode = layer.demands [index].getEgressNode();
+				if (!ingressNode.wasRemoved()) layer.nodesWithTrafficChange.set(ingressNode.getIndex());
+				if (!egressNode.wasRemoved()) layer.nodesWithTrafficChange.set(egressNode.getIndex());
+			}
+			layer.demandStats.remap(newDemandIndexes, currentDemands.size(), simTime);
+			layer.demands = currentDemands.toArray(new Demand [currentDemands.size()]);
+
+			/* the traffic of new nodes is computed, the degrees are computed again for all the nodes */
+			final BitSet newNodes = new BitSet(); newNodes.set(0, nodes.length);
+			for (int newIndex : newNodeIndexes) if (newIndex != -1) newNodes.clear(newIndex);
+			layer.nodesWithTrafficChange.or(newNodes);
+			layer.nodeInDegree = new int [nodes.length];
+			layer.nodeOutDegree = new int [nodes.length];
+			for (Link link : layer.links)
+			{
+				layer.nodeOutDegree [link.getOriginNode().getIndex()]++;
+				layer.nodeInDegree [link.getDestinationNode().getIndex()]++;
+			}
+		}
+	}
+
+	/* For each element previously tracked, returns its current index, or -1 if it was removed */
+	private static int [] getNewIndexes(NetworkElement [] previousElements, List<? extends NetworkElement> currentElements)
+	{
+		final int [] res = new int [previousElements.length];
+		for (int index = 0; index < previousElements.length; index++)
+		{
+			final NetworkElement e = previousElements [index];
+			final int currentIndex = e.getIndex();
+			res [index] = !e.wasRemoved() && currentIndex < currentElements.size() && currentElements.get(currentIndex) == e ? currentIndex : -1;
+		}
+		return res;
+	}
+
+	/* Next index to visit, starting from the given one: all of them if no marked set is given, or only the marked ones. Returns -1 when there are no more */
+	private static int next(BitSet marked, int fromIndex, int size)
+	{
+		final int index = marked == null ? fromIndex : marked.nextSetBit(fromIndex);
+		return index >= 0 && index < size ? index : -1;
+	}
+
+	/* Index where the statistics of the given element are stored, or -1 if the element is not tracked (e.g. it was created after the last event) */
+	private static int getStatsIndex(NetworkElement [] elements, NetworkElement e)
+	{
+		final int index = e.getIndex();
+		return index < elements.length && elements [index] == e ? index : -1;
+	}
+
+	private LayerStats getLayerStats(NetworkLayer layer)
+	{
+		final int index = layer.getIndex();
+		if (index < layerStats.length && layerStats [index].layer == layer) return layerStats [index];
+		return new LayerStats(layer, lastEventTime);
+	}
+
+	/* Returns the given minimum, or zero if no value was ever held (minimum equal to Double.MAX_VALUE) */
+	private static double minOrZero(double min)
+	{
+		return min == Double.MAX_VALUE ? 0 : min;
+	}
+
+	/* Worst availability (classic or weighted) among the current demands of the layer, and the ones removed during the simulation */
+	private double getWorstDemandAvailability(LayerStats layer, int availabilityMetric, double t)
+	{
+		double res = availabilityMetric == DEMAND_AVAILABILITYCLASSIC ? layer.worstDemandAvailabilityClassic : layer.worstDemandAvailabilityWeighted;
+		for(Demand demand : netState.getDemands(layer.layer))
+		{
+			final int demandIndex = getStatsIndex(layer.demands, demand);
+			double totalTime_thisDemand = layer.demandStats.getTotalTime(demandIndex, t);
+			res = Math.min(res, totalTime_thisDemand > 0 ? layer.demandStats.getIntegral(demandIndex, availabilityMetric, t) / totalTime_thisDemand : 0);
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the main network-wide and per-layer results, as a map from the name of each metric to its value (in the same order for
+	 * designs with the same layers). It is used to aggregate the results of independent replications of a simulation.
+	 *
+	 * @param simTime Current simulation time
+	 * @return Metric name to value map (empty if no event was processed)
+	 * @since 0.6.6
+	 */
+	public Map<String, Double> getSummaryResults(double simTime)
+	{
+		final Map<String, Double> res = new LinkedHashMap<String, Double>();
+		double totalSimulationTime = simTime - transitoryTime;
+		if (lastEventTime == 0 || totalSimulationTime == 0) return res;
+
+		final double t = lastEventTime;
+		res.put("Average number of nodes", totalSimulationTime > 0 ? accum_avgNumNodes / totalSimulationTime : 0);
+		for(NetworkLayer netStateLayer : netState.getNetworkLayers ())
+		{
+			final LayerStats layer = getLayerStats(netStateLayer);
+			final Accumulators layerAccum = layer.layerStats;
+			final double totalTime_thisLayer = layerAccum.getTotalTime(0, t);
+			final double avgOfferedTraffic = totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_TOTALOFFEREDTRAFFIC, t) / totalTime_thisLayer : 0;
+			final double avgCarriedTraffic = totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_TOTALCARRIEDTRAFFIC, t) / totalTime_thisLayer : 0;
+			final String prefix = String.format("Layer %d (%s): ", netStateLayer.getIndex(), netStateLayer.getName());
+			res.put(prefix + "average number of links", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_NUMLINKS, t) / totalTime_thisLayer : 0);
+			res.put(prefix + "average number of demands", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_NUMDEMANDS, t) / totalTime_thisLayer : 0);
+			res.put(prefix + "average offered traffic", avgOfferedTraffic);
+			res.put(prefix + "average carried traffic", avgCarriedTraffic);
+			res.put(prefix + "blocked traffic fraction", avgOfferedTraffic > 0 ? Math.max(0, 1 - avgCarriedTraffic / avgOfferedTraffic) : 0);
+			res.put(prefix + "average total capacity", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_TOTALCAPACITY, t) / totalTime_thisLayer : 0);
+			res.put(prefix + "average congestion", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_CONGESTION, t) / totalTime_thisLayer : 0);
+			res.put(prefix + "maximum congestion", layerAccum.getMax(0, LAYER_CONGESTION, t));
+			res.put(prefix + "availability (classic)", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_AVAILABILITYCLASSIC, t) / totalTime_thisLayer : 0);
+			res.put(prefix + "availability (weighted)", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_AVAILABILITYWEIGHTED, t) / totalTime_thisLayer : 0);
+			res.put(prefix + "worst demand availability (classic)", getWorstDemandAvailability(layer, DEMAND_AVAILABILITYCLASSIC, t));
+			res.put(prefix + "worst demand availability (weighted)", getWorstDemandAvailability(layer, DEMAND_AVAILABILITYWEIGHTED, t));
+		}
+		return res;
+	}
+
 	/**
 	 * Returns a HTML {@code String} with statistics.
-	 * 
+	 *
 	 * @param simTime Current simulation time
 	 * @return Statistics in HTML format
 	 * @since 0.2.3
@@ -779,275 +434,203 @@ public class SimStats
 	public String getResults(double simTime)
 	{
 		if (lastEventTime == 0) return "<p>No event was processed</p>";
-		
+
 		double totalSimulationTime = simTime - transitoryTime;
 		if (totalSimulationTime == 0) return "<p>Simulation time equal to zero. No results</p>";
-		
-//		computeNextState(simTime+0.0000000000001);
+
+		/* Statistics are computed until the last event */
+		final double t = lastEventTime;
 		try (ByteArrayOutputStream os = new ByteArrayOutputStream())
 		{
 			XMLOutputFactory2 output = (XMLOutputFactory2) XMLOutputFactory.newFactory();
 			XMLStreamWriter2 writer = (XMLStreamWriter2) output.createXMLStreamWriter(os);
-			
+
 			writer.writeStartDocument("UTF-8", "1.0");
-			
+
 			/* Write network information */
 			writer.writeStartElement("network");
 			writer.writeAttribute("avgNumLayers", String.format("%.3f", totalSimulationTime > 0 ? accum_avgNumLayers / totalSimulationTime : 0));
-			
+
 			int minNumLayers_thisNetwork = minNumLayers;
 			if (minNumLayers_thisNetwork == Integer.MAX_VALUE) minNumLayers_thisNetwork = 0;
 			writer.writeAttribute("minNumLayers", Integer.toString(minNumLayers_thisNetwork));
 			writer.writeAttribute("maxNumLayers", Integer.toString(maxNumLayers));
 			writer.writeAttribute("avgNumNodes", String.format("%.3f", totalSimulationTime > 0 ? accum_avgNumNodes / totalSimulationTime : 0));
-			
+
 			int minNumNodes_thisNetwork = minNumNodes;
 			if (minNumNodes_thisNetwork == Integer.MAX_VALUE) minNumNodes_thisNetwork = 0;
 			writer.writeAttribute("minNumNodes", Integer.toString(minNumNodes_thisNetwork));
 			writer.writeAttribute("maxNumNodes", Integer.toString(maxNumNodes));
-			
+
 			/* Write node information */
-			Collection<Long> nodeIds = netState.getNodeIds();
-			for(long nodeId : nodeIds)
+			List<Node> currentNodes = netState.getNodes();
+			for(Node node : currentNodes)
 			{
-				checkAndCreateNode(nodeId);
-				
-				double upTime_thisNode = accum_nodeUpTime.get(nodeId).doubleValue();
-				double totalTime_thisNode = accum_nodeTotalTime.get(nodeId).doubleValue();
+				final int nodeIndex = getStatsIndex(nodes, node);
+				double upTime_thisNode = nodeStats.getIntegral(nodeIndex, NODE_ISUP, t);
+				double totalTime_thisNode = nodeStats.getTotalTime(nodeIndex, t);
 				double upTimePercentage_thisNode = totalTime_thisNode > 0 ? 100 * upTime_thisNode / totalTime_thisNode : 0;
-				
+
 				writer.writeStartElement("node");
-				writer.writeAttribute("id", Long.toString(nodeId));
-				writer.writeAttribute("name", netState.getNodeFromId(nodeId).getName ());
+				writer.writeAttribute("id", Long.toString(node.getId()));
+				writer.writeAttribute("name", node.getName ());
 				writer.writeAttribute("upTime", StringUtils.secondsToYearsDaysHoursMinutesSeconds(upTime_thisNode));
 				writer.writeAttribute("upTimePercentage", String.format("%.3f", upTimePercentage_thisNode));
 				writer.writeAttribute("totalTime", StringUtils.secondsToYearsDaysHoursMinutesSeconds(totalTime_thisNode));
-				writer.writeEndElement();	
-			}			
-			
+				writer.writeEndElement();
+			}
+
 			/* Write layer information */
-			for(long layerId : netState.getNetworkLayerIds ())
+			for(NetworkLayer netStateLayer : netState.getNetworkLayers ())
 			{
-				checkAndCreateLayer(layerId);
-				
-				double totalTime_thisLayer = accum_layerTotalTime.get(layerId).doubleValue();
-				
-				NetworkLayer netStateLayer = netState.getNetworkLayerFromId (layerId);
-				
+				final LayerStats layer = getLayerStats(netStateLayer);
+				final Accumulators layerAccum = layer.layerStats;
+
+				double totalTime_thisLayer = layerAccum.getTotalTime(0, t);
+
 				String trafficUnitsName = netState.getDemandTrafficUnitsName(netStateLayer);
 				if (trafficUnitsName.isEmpty()) trafficUnitsName = "none";
 				String capacityUnitsName = netState.getLinkCapacityUnitsName(netStateLayer);
 				if (capacityUnitsName.isEmpty()) capacityUnitsName = "none";
-				
+
 				writer.writeStartElement("layer");
-				writer.writeAttribute("id", Long.toString(layerId));
+				writer.writeAttribute("id", Long.toString(netStateLayer.getId()));
 				writer.writeAttribute("name", netStateLayer.getName ());
-				writer.writeAttribute("avgNumLinks", String.format("%.3f", totalTime_thisLayer > 0 ? accum_avgNumLinks.get(layerId).doubleValue() / totalTime_thisLayer : 0));
-
-				int minNumLinks_thisLayer = minNumLinks.get(layerId);
-				if (minNumLinks_thisLayer == Integer.MAX_VALUE) minNumLinks_thisLayer = 0;
-				writer.writeAttribute("minNumLinks", Integer.toString(minNumLinks_thisLayer));
-				writer.writeAttribute("maxNumLinks", Integer.toString(maxNumLinks.get(layerId)));
-				writer.writeAttribute("avgNumDemands", String.format("%.3f", totalTime_thisLayer > 0 ? accum_avgNumDemands.get(layerId).doubleValue() / totalTime_thisLayer : 0));
-
-				int minNumDemands_thisLayer = minNumDemands.get(layerId);
-				if (minNumDemands_thisLayer == Integer.MAX_VALUE) minNumDemands_thisLayer = 0;
-				writer.writeAttribute("minNumDemands", Integer.toString(minNumDemands_thisLayer));
-				writer.writeAttribute("maxNumDemands", Integer.toString(maxNumDemands.get(layerId)));
+				writer.writeAttribute("avgNumLinks", String.format("%.3f", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_NUMLINKS, t) / totalTime_thisLayer : 0));
+				writer.writeAttribute("minNumLinks", Integer.toString((int) minOrZero(layerAccum.getMin(0, LAYER_NUMLINKS, t))));
+				writer.writeAttribute("maxNumLinks", Integer.toString((int) layerAccum.getMax(0, LAYER_NUMLINKS, t)));
+				writer.writeAttribute("avgNumDemands", String.format("%.3f", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_NUMDEMANDS, t) / totalTime_thisLayer : 0));
+				writer.writeAttribute("minNumDemands", Integer.toString((int) minOrZero(layerAccum.getMin(0, LAYER_NUMDEMANDS, t))));
+				writer.writeAttribute("maxNumDemands", Integer.toString((int) layerAccum.getMax(0, LAYER_NUMDEMANDS, t)));
 				writer.writeAttribute("totalTime", StringUtils.secondsToYearsDaysHoursMinutesSeconds(totalTime_thisLayer));
 				writer.writeAttribute("trafficUnitsName", trafficUnitsName);
-				writer.writeAttribute("avgOfferedTraffic", String.format("%.3f", totalTime_thisLayer > 0 ? accum_avgTotalOfferedTraffic.get(layerId).doubleValue() / totalTime_thisLayer : 0));
-				
-				double minTotalOfferedTraffic_thisLayer = minTotalOfferedTraffic.get(layerId).doubleValue();
-				if (minTotalOfferedTraffic_thisLayer == Double.MAX_VALUE) minTotalOfferedTraffic_thisLayer = 0;
-				writer.writeAttribute("minOfferedTraffic", String.format("%.3f", minTotalOfferedTraffic_thisLayer));
-				writer.writeAttribute("maxOfferedTraffic", String.format("%.3f", maxTotalOfferedTraffic.get(layerId).doubleValue()));
-				writer.writeAttribute("avgCarriedTraffic", String.format("%.3f", totalTime_thisLayer > 0 ? accum_avgTotalCarriedTraffic.get(layerId).doubleValue() / totalTime_thisLayer : 0));
-				
-				double minTotalCarriedTraffic_thisLayer = minTotalCarriedTraffic.get(layerId).doubleValue();
-				if (minTotalCarriedTraffic_thisLayer == Double.MAX_VALUE) minTotalCarriedTraffic_thisLayer = 0;
-				writer.writeAttribute("minCarriedTraffic", String.format("%.3f", minTotalCarriedTraffic_thisLayer));
-				writer.writeAttribute("maxCarriedTraffic", String.format("%.3f", maxTotalCarriedTraffic.get(layerId).doubleValue()));
+				writer.writeAttribute("avgOfferedTraffic", String.format("%.3f", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_TOTALOFFEREDTRAFFIC, t) / totalTime_thisLayer : 0));
+				writer.writeAttribute("minOfferedTraffic", String.format("%.3f", minOrZero(layerAccum.getMin(0, LAYER_TOTALOFFEREDTRAFFIC, t))));
+				writer.writeAttribute("maxOfferedTraffic", String.format("%.3f", layerAccum.getMax(0, LAYER_TOTALOFFEREDTRAFFIC, t)));
+				writer.writeAttribute("avgCarriedTraffic", String.format("%.3f", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_TOTALCARRIEDTRAFFIC, t) / totalTime_thisLayer : 0));
+				writer.writeAttribute("minCarriedTraffic", String.format("%.3f", minOrZero(layerAccum.getMin(0, LAYER_TOTALCARRIEDTRAFFIC, t))));
+				writer.writeAttribute("maxCarriedTraffic", String.format("%.3f", layerAccum.getMax(0, LAYER_TOTALCARRIEDTRAFFIC, t)));
 				writer.writeAttribute("capacityUnitsName", capacityUnitsName);
-				writer.writeAttribute("avgTotalCapacity", String.format("%.3f", totalTime_thisLayer > 0 ? accum_avgTotalCapacity.get(layerId).doubleValue() / totalTime_thisLayer : 0));
-				
-				double minTotalCapacity_thisLayer = minTotalCapacity.get(layerId).doubleValue();
-				if (minTotalCapacity_thisLayer == Double.MAX_VALUE) minTotalCapacity_thisLayer = 0;
-				writer.writeAttribute("minTotalCapacity", String.format("%.3f", minTotalCapacity_thisLayer));
-				writer.writeAttribute("maxTotalCapacity", String.format("%.3f", maxTotalCapacity.get(layerId).doubleValue()));
-				writer.writeAttribute("avgCongestion", String.format("%.3f", totalTime_thisLayer > 0 ? accum_avgCongestion.get(layerId).doubleValue() / totalTime_thisLayer : 0));
-				
-				double minCongestion_thisLayer = minCongestion.get(layerId).doubleValue();
-				if (minCongestion_thisLayer == Double.MAX_VALUE) minCongestion_thisLayer = 0;
-				writer.writeAttribute("minCongestion", String.format("%.3f", minCongestion_thisLayer));
-				writer.writeAttribute("maxCongestion", String.format("%.3f", maxCongestion.get(layerId).doubleValue()));
-				writer.writeAttribute("availabilityClassic", String.format("%.6f", totalTime_thisLayer > 0 ? accum_availabilityClassic.get(layerId).doubleValue() / totalTime_thisLayer : 0));
-				writer.writeAttribute("availabilityWeighted", String.format("%.6f", totalTime_thisLayer > 0 ? accum_availabilityWeighted.get(layerId).doubleValue() / totalTime_thisLayer : 0));
-				
-				double worstDemandAvailabilityClassic_thisLayer = worstDemandAvailabilityClassic.get(layerId).doubleValue();
-				double worstDemandAvailabilityWeighted_thisLayer = worstDemandAvailabilityWeighted.get(layerId).doubleValue();
-
-				/* Write demand information */
-				Collection<Long> demandIds_thisLayer = netState.getDemandIds(netStateLayer);
-				for(long demandId : netState.getDemandIds (netStateLayer))
-				{
-					checkAndCreateDemand(layerId, demandId);
-					
-					double totalTime_thisDemand = demandTotalTime.get(layerId).get(demandId).doubleValue();
-					worstDemandAvailabilityClassic_thisLayer = Math.min(worstDemandAvailabilityClassic_thisLayer, totalTime_thisDemand > 0 ? accum_demandAvailabilityClassic.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand : 0);
-					worstDemandAvailabilityWeighted_thisLayer = Math.min(worstDemandAvailabilityWeighted_thisLayer, totalTime_thisDemand > 0 ? accum_demandAvailabilityWeighted.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand : 0);
-				}
+				writer.writeAttribute("avgTotalCapacity", String.format("%.3f", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_TOTALCAPACITY, t) / totalTime_thisLayer : 0));
+				writer.writeAttribute("minTotalCapacity", String.format("%.3f", minOrZero(layerAccum.getMin(0, LAYER_TOTALCAPACITY, t))));
+				writer.writeAttribute("maxTotalCapacity", String.format("%.3f", layerAccum.getMax(0, LAYER_TOTALCAPACITY, t)));
+				writer.writeAttribute("avgCongestion", String.format("%.3f", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_CONGESTION, t) / totalTime_thisLayer : 0));
+				writer.writeAttribute("minCongestion", String.format("%.3f", minOrZero(layerAccum.getMin(0, LAYER_CONGESTION, t))));
+				writer.writeAttribute("maxCongestion", String.format("%.3f", layerAccum.getMax(0, LAYER_CONGESTION, t)));
+				writer.writeAttribute("availabilityClassic", String.format("%.6f", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_AVAILABILITYCLASSIC, t) / totalTime_thisLayer : 0));
+				writer.writeAttribute("availabilityWeighted", String.format("%.6f", totalTime_thisLayer > 0 ? layerAccum.getIntegral(0, LAYER_AVAILABILITYWEIGHTED, t) / totalTime_thisLayer : 0));
+
+				double worstDemandAvailabilityClassic_thisLayer = getWorstDemandAvailability(layer, DEMAND_AVAILABILITYCLASSIC, t);
+				double worstDemandAvailabilityWeighted_thisLayer = getWorstDemandAvailability(layer, DEMAND_AVAILABILITYWEIGHTED, t);
+				List<Demand> demands_thisLayer = netState.getDemands(netStateLayer);
 
 				writer.writeAttribute("worstDemandAvailabilityClassic", String.format("%.6f", worstDemandAvailabilityClassic_thisLayer));
 				writer.writeAttribute("worstDemandAvailabilityWeighted", String.format("%.6f", worstDemandAvailabilityWeighted_thisLayer));
-				
+
 				/* Write node information */
-				for(long nodeId : nodeIds)
+				for(Node node : currentNodes)
 				{
-					checkAndCreateNode(layerId, nodeId);
-					
-					double totalTime_thisNode_thisLayer = Math.min(accum_nodeTotalTime.get(nodeId).doubleValue(), totalTime_thisLayer);
+					final int nodeIndex = getStatsIndex(layer.nodes, node);
+					double totalTime_thisNode_thisLayer = Math.min(nodeStats.getTotalTime(getStatsIndex(nodes, node), t), totalTime_thisLayer);
 					writer.writeStartElement("node");
-					writer.writeAttribute("id", Long.toString(nodeId));
-					writer.writeAttribute("name", netState.getNodeFromId(nodeId).getName ());
-					writer.writeAttribute("avgInDegree", String.format("%.3f", totalTime_thisNode_thisLayer > 0 ? accum_avgNodeInDegree.get(layerId).get(nodeId).doubleValue() / totalTime_thisNode_thisLayer : 0));
-					
-					int minNodeInDegree_thisNode_thisLayer = minNodeInDegree.get(layerId).get(nodeId);
-					if (minNodeInDegree_thisNode_thisLayer == Integer.MAX_VALUE) minNodeInDegree_thisNode_thisLayer = 0;
-					writer.writeAttribute("minInDegree", Integer.toString(minNodeInDegree_thisNode_thisLayer));
-					writer.writeAttribute("maxInDegree", Integer.toString(maxNodeInDegree.get(layerId).get(nodeId)));
-					writer.writeAttribute("avgOutDegree", String.format("%.3f", totalTime_thisNode_thisLayer > 0 ? accum_avgNodeOutDegree.get(layerId).get(nodeId).doubleValue() / totalTime_thisNode_thisLayer : 0));
-					
-					int minNodeOutDegree_thisNode_thisLayer = minNodeOutDegree.get(layerId).get(nodeId);
-					if (minNodeOutDegree_thisNode_thisLayer == Integer.MAX_VALUE) minNodeOutDegree_thisNode_thisLayer = 0;
-					writer.writeAttribute("minOutDegree", Integer.toString(minNodeOutDegree_thisNode_thisLayer));
-					writer.writeAttribute("maxOutDegree", Integer.toString(maxNodeOutDegree.get(layerId).get(nodeId)));
-					writer.writeAttribute("avgIngressTraffic", String.format("%.3f", totalTime_thisNode_thisLayer > 0 ? accum_avgNodeIngressTraffic.get(layerId).get(nodeId).doubleValue() / totalTime_thisNode_thisLayer : 0));
-					
-					double minNodeIngressTraffic_thisNode_thisLayer = minNodeIngressTraffic.get(layerId).get(nodeId);
-					if (minNodeIngressTraffic_thisNode_thisLayer == Double.MAX_VALUE) minNodeIngressTraffic_thisNode_thisLayer = 0;
-					writer.writeAttribute("minIngressTraffic", String.format("%.3f", minNodeIngressTraffic.get(layerId).get(nodeId)));
-					writer.writeAttribute("maxIngressTraffic", String.format("%.3f", maxNodeIngressTraffic.get(layerId).get(nodeId)));
-					writer.writeAttribute("avgEgressTraffic", String.format("%.3f", totalTime_thisNode_thisLayer > 0 ? accum_avgNodeEgressTraffic.get(layerId).get(nodeId).doubleValue() / totalTime_thisNode_thisLayer : 0));
-					
-					double minNodeEgressTraffic_thisNode_thisLayer = minNodeEgressTraffic.get(layerId).get(nodeId);
-					if (minNodeEgressTraffic_thisNode_thisLayer == Double.MAX_VALUE) minNodeEgressTraffic_thisNode_thisLayer = 0;
-					writer.writeAttribute("minEgressTraffic", String.format("%.3f", minNodeEgressTraffic_thisNode_thisLayer));
-					writer.writeAttribute("maxEgressTraffic", String.format("%.3f", maxNodeEgressTraffic.get(layerId).get(nodeId)));
-					
-					writer.writeEndElement();	
-				}			
-				
+					writer.writeAttribute("id", Long.toString(node.getId()));
+					writer.writeAttribute("name", node.getName ());
+					writer.writeAttribute("avgInDegree", String.format("%.3f", totalTime_thisNode_thisLayer > 0 ? layer.nodeStats.getIntegral(nodeIndex, NODE_INDEGREE, t) / totalTime_thisNode_thisLayer : 0));
+					writer.writeAttribute("minInDegree", Integer.toString((int) minOrZero(layer.nodeStats.getMin(nodeIndex, NODE_INDEGREE, t))));
+					writer.writeAttribute("maxInDegree", Integer.toString((int) layer.nodeStats.getMax(nodeIndex, NODE_INDEGREE, t)));
+					writer.writeAttribute("avgOutDegree", String.format("%.3f", totalTime_thisNode_thisLayer > 0 ? layer.nodeStats.getIntegral(nodeIndex, NODE_OUTDEGREE, t) / totalTime_thisNode_thisLayer : 0));
+					writer.writeAttribute("minOutDegree", Integer.toString((int) minOrZero(layer.nodeStats.getMin(nodeIndex, NODE_OUTDEGREE, t))));
+					writer.writeAttribute("maxOutDegree", Integer.toString((int) layer.nodeStats.getMax(nodeIndex, NODE_OUTDEGREE, t)));
+					writer.writeAttribute("avgIngressTraffic", String.format("%.3f", totalTime_thisNode_thisLayer > 0 ? layer.nodeStats.getIntegral(nodeIndex, NODE_INGRESSTRAFFIC, t) / totalTime_thisNode_thisLayer : 0));
+					writer.writeAttribute("minIngressTraffic", String.format("%.3f", minOrZero(layer.nodeStats.getMin(nodeIndex, NODE_INGRESSTRAFFIC, t))));
+					writer.writeAttribute("maxIngressTraffic", String.format("%.3f", layer.nodeStats.getMax(nodeIndex, NODE_INGRESSTRAFFIC, t)));
+					writer.writeAttribute("avgEgressTraffic", String.format("%.3f", totalTime_thisNode_thisLayer > 0 ? layer.nodeStats.getIntegral(nodeIndex, NODE_EGRESSTRAFFIC, t) / totalTime_thisNode_thisLayer : 0));
+					writer.writeAttribute("minEgressTraffic", String.format("%.3f", minOrZero(layer.nodeStats.getMin(nodeIndex, NODE_EGRESSTRAFFIC, t))));
+					writer.writeAttribute("maxEgressTraffic", String.format("%.3f", layer.nodeStats.getMax(nodeIndex, NODE_EGRESSTRAFFIC, t)));
+					writer.writeEndElement();
+				}
+
 				/* Write link information */
-				Collection<Long> linkIds_thisLayer = netState.getLinkIds(netState.getNetworkLayerFromId (layerId));
-				for(long linkId : linkIds_thisLayer)
+				for(Link netStateLink : netState.getLinks(netStateLayer))
 				{
-					checkAndCreateLink(layerId, linkId);
-					Link netStateLink = netState.getLinkFromId (linkId);
+					final int linkIndex = getStatsIndex(layer.links, netStateLink);
+					final Accumulators linkAccum = layer.linkStats;
 					long originNodeId_thisLink = netStateLink.getOriginNode().getId ();
 					long destinationNodeId_thisLink = netStateLink.getDestinationNode().getId ();
 					String originNodeName = netStateLink.getOriginNode().getName ();
 					String destinationNodeName = netStateLink.getDestinationNode().getName ();
-					double upTime_thisLink = accum_linkUpTime.get(layerId).get(linkId).doubleValue();
-					double totalTime_thisLink = accum_linkTotalTime.get(layerId).get(linkId).doubleValue();
+					double upTime_thisLink = linkAccum.getIntegral(linkIndex, LINK_ISUP, t);
+					double totalTime_thisLink = linkAccum.getTotalTime(linkIndex, t);
 					double upTimePercentage_thisLink = totalTime_thisLink > 0 ? 100 * upTime_thisLink / totalTime_thisLink : 0;
-					double oversubscribedTime_thisLink = accum_linkOversubscribedTime.get(layerId).get(linkId).doubleValue();
+					double oversubscribedTime_thisLink = linkAccum.getIntegral(linkIndex, LINK_ISOVERSUBSCRIBED, t);
 					double oversubscribedTimePercentage_thisLink = totalTime_thisLink > 0 ? 100 * oversubscribedTime_thisLink / totalTime_thisLink : 0;
-					
+
 					writer.writeStartElement("link");
-					writer.writeAttribute("id", Long.toString(linkId));
+					writer.writeAttribute("id", Long.toString(netStateLink.getId()));
 					writer.writeAttribute("originNode", originNodeName.isEmpty() ? Long.toString(originNodeId_thisLink) : String.format("%d (%s)", originNodeId_thisLink, originNodeName));
 					writer.writeAttribute("destinationNode", destinationNodeName.isEmpty() ? Long.toString(destinationNodeId_thisLink) : String.format("%d (%s)", destinationNodeId_thisLink, destinationNodeName));
-					writer.writeAttribute("avgLengthInKm", String.format("%.3f", totalTime_thisLink > 0 ? accum_avgLinkLengthInKm.get(layerId).get(linkId).doubleValue() / totalTime_thisLink : 0));
-					
-					double minLinkLengthInKm_thisLink = minLinkLengthInKm.get(layerId).get(linkId).doubleValue();
-					if (minLinkLengthInKm_thisLink == Double.MAX_VALUE) minLinkLengthInKm_thisLink = 0;
-					writer.writeAttribute("minLengthInKm", String.format("%.3f", minLinkLengthInKm_thisLink));
-					writer.writeAttribute("maxLengthInKm", String.format("%.3f", maxLinkLengthInKm.get(layerId).get(linkId).doubleValue()));
-					writer.writeAttribute("avgCapacity", String.format("%.3f", totalTime_thisLink > 0 ? accum_avgCapacity.get(layerId).get(linkId).doubleValue() / totalTime_thisLink : 0));
-					
-					double minCapacity_thisLayer = minCapacity.get(layerId).get(linkId).doubleValue();
-					if (minCapacity_thisLayer == Double.MAX_VALUE) minCapacity_thisLayer = 0;
-					writer.writeAttribute("minCapacity", String.format("%.3f", minCapacity_thisLayer));
-					writer.writeAttribute("maxCapacity", String.format("%.3f", maxCapacity.get(layerId).get(linkId).doubleValue()));
-					writer.writeAttribute("avgOccupiedCapacity", String.format("%.3f", totalTime_thisLink > 0 ? accum_avgLinkOccupiedCapacity.get(layerId).get(linkId).doubleValue() / totalTime_thisLink : 0));
-					
-					double minCarriedTraffic_thisLink = minLinkOccupiedCapacity.get(layerId).get(linkId).doubleValue();
-					if (minCarriedTraffic_thisLink == Double.MAX_VALUE) minCarriedTraffic_thisLink = 0;
-					writer.writeAttribute("minOccupiedCapacity", String.format("%.3f", minCarriedTraffic_thisLink));
-					writer.writeAttribute("maxOccupiedCapacity", String.format("%.3f", maxLinkOccupiedCapacity.get(layerId).get(linkId).doubleValue()));
-					
-					writer.writeAttribute("avgUtilization", String.format("%.3f", totalTime_thisLink > 0 ? accum_avgUtilization.get(layerId).get(linkId).doubleValue() / totalTime_thisLink : 0));
-					
-					double minUtilization_thisLink = minUtilization.get(layerId).get(linkId).doubleValue();
-					if (minUtilization_thisLink == Double.MAX_VALUE) minUtilization_thisLink = 0;
-					writer.writeAttribute("minUtilization", String.format("%.3f", minUtilization_thisLink));
-					writer.writeAttribute("maxUtilization", String.format("%.3f", maxUtilization.get(layerId).get(linkId).doubleValue()));
-					
-					writer.writeAttribute("avgOversubscribedCapacity", String.format("%.3f", totalTime_thisLink > 0 ? accum_avgOversubscribedCapacity.get(layerId).get(linkId).doubleValue() / totalTime_thisLink : 0));
-					
-					double minOversubscribedCapacity_thisLink = minOversubscribedCapacity.get(layerId).get(linkId).doubleValue();
-					if (minOversubscribedCapacity_thisLink == Double.MAX_VALUE) minOversubscribedCapacity_thisLink = 0;
-					writer.writeAttribute("minOversubscribedCapacity", String.format("%.3f", minOversubscribedCapacity_thisLink));
-					writer.writeAttribute("maxOversubscribedCapacity", String.format("%.3f", maxOversubscribedCapacity.get(layerId).get(linkId).doubleValue()));
+					writer.writeAttribute("avgLengthInKm", String.format("%.3f", totalTime_thisLink > 0 ? linkAccum.getIntegral(linkIndex, LINK_LENGTH, t) / totalTime_thisLink : 0));
+					writer.writeAttribute("minLengthInKm", String.format("%.3f", minOrZero(linkAccum.getMin(linkIndex, LINK_LENGTH, t))));
+					writer.writeAttribute("maxLengthInKm", String.format("%.3f", linkAccum.getMax(linkIndex, LINK_LENGTH, t)));
+					writer.writeAttribute("avgCapacity", String.format("%.3f", totalTime_thisLink > 0 ? linkAccum.getIntegral(linkIndex, LINK_CAPACITY, t) / totalTime_thisLink : 0));
+					writer.writeAttribute("minCapacity", String.format("%.3f", minOrZero(linkAccum.getMin(linkIndex, LINK_CAPACITY, t))));
+					writer.writeAttribute("maxCapacity", String.format("%.3f", linkAccum.getMax(linkIndex, LINK_CAPACITY, t)));
+					writer.writeAttribute("avgOccupiedCapacity", String.format("%.3f", totalTime_thisLink > 0 ? linkAccum.getIntegral(linkIndex, LINK_OCCUPIEDCAPACITY, t) / totalTime_thisLink : 0));
+					writer.writeAttribute("minOccupiedCapacity", String.format("%.3f", minOrZero(linkAccum.getMin(linkIndex, LINK_OCCUPIEDCAPACITY, t))));
+					writer.writeAttribute("maxOccupiedCapacity", String.format("%.3f", linkAccum.getMax(linkIndex, LINK_OCCUPIEDCAPACITY, t)));
+					writer.writeAttribute("avgUtilization", String.format("%.3f", totalTime_thisLink > 0 ? linkAccum.getIntegral(linkIndex, LINK_UTILIZATION, t) / totalTime_thisLink : 0));
+					writer.writeAttribute("minUtilization", String.format("%.3f", minOrZero(linkAccum.getMin(linkIndex, LINK_UTILIZATION, t))));
+					writer.writeAttribute("maxUtilization", String.format("%.3f", linkAccum.getMax(linkIndex, LINK_UTILIZATION, t)));
+					writer.writeAttribute("avgOversubscribedCapacity", String.format("%.3f", totalTime_thisLink > 0 ? linkAccum.getIntegral(linkIndex, LINK_OVERSUBSCRIBEDCAPACITY, t) / totalTime_thisLink : 0));
+					writer.writeAttribute("minOversubscribedCapacity", String.format("%.3f", minOrZero(linkAccum.getMin(linkIndex, LINK_OVERSUBSCRIBEDCAPACITY, t))));
+					writer.writeAttribute("maxOversubscribedCapacity", String.format("%.3f", linkAccum.getMax(linkIndex, LINK_OVERSUBSCRIBEDCAPACITY, t)));
 					writer.writeAttribute("oversubscribedTime", StringUtils.secondsToYearsDaysHoursMinutesSeconds(oversubscribedTime_thisLink));
 					writer.writeAttribute("oversubscribedTimePercentage", String.format("%.3f", oversubscribedTimePercentage_thisLink));
 					writer.writeAttribute("upTime", StringUtils.secondsToYearsDaysHoursMinutesSeconds(upTime_thisLink));
 					writer.writeAttribute("upTimePercentage", String.format("%.3f", upTimePercentage_thisLink));
 					writer.writeAttribute("totalTime", StringUtils.secondsToYearsDaysHoursMinutesSeconds(totalTime_thisLink));
-					writer.writeEndElement();	
+					writer.writeEndElement();
 				}
-				
+
 				/* Write demand information */
-				for(long demandId : demandIds_thisLayer)
+				for(Demand netStateDemand : demands_thisLayer)
 				{
-					Demand netStateDemand = netState.getDemandFromId (demandId);
+					final int demandIndex = getStatsIndex(layer.demands, netStateDemand);
+					final Accumulators demandAccum = layer.demandStats;
 					long ingressNodeId_thisDemand = netStateDemand.getIngressNode().getId ();
 					long egressNodeId_thisDemand = netStateDemand.getEgressNode().getId ();
 					String ingressNodeName = netStateDemand.getIngressNode().getName ();
 					String egressNodeName = netStateDemand.getEgressNode().getName ();
-					double totalTime_thisDemand = demandTotalTime.get(layerId).get(demandId).doubleValue();
-					double excessCarriedTrafficTime_thisDemand = excessDemandCarriedTrafficTime.get(layerId).get(demandId).doubleValue();
+					double totalTime_thisDemand = demandAccum.getTotalTime(demandIndex, t);
+					double excessCarriedTrafficTime_thisDemand = demandAccum.getIntegral(demandIndex, DEMAND_HASEXCESSCARRIEDTRAFFIC, t);
 					double excessCarriedTrafficTimePercentage_thisDemand = totalTime_thisDemand > 0 ? 100 * excessCarriedTrafficTime_thisDemand / totalTime_thisDemand : 0;
 
 					writer.writeStartElement("demand");
-					writer.writeAttribute("id", Long.toString(demandId));
+					writer.writeAttribute("id", Long.toString(netStateDemand.getId()));
 					writer.writeAttribute("ingressNode", ingressNodeName.isEmpty() ? Long.toString(ingressNodeId_thisDemand) : String.format("%d (%s)", ingressNodeId_thisDemand, ingressNodeName));
 					writer.writeAttribute("egressNode", egressNodeName.isEmpty() ? Long.toString(egressNodeId_thisDemand) : String.format("%d (%s)", egressNodeId_thisDemand, egressNodeName));
-					writer.writeAttribute("avgOfferedTraffic", String.format("%.3f", totalTime_thisDemand > 0 ? accum_avgDemandOfferedTraffic.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand : 0));
-					
-					double minOfferedTraffic_thisDemand = minDemandOfferedTraffic.get(layerId).get(demandId).doubleValue();
-					if (minOfferedTraffic_thisDemand == Double.MAX_VALUE) minOfferedTraffic_thisDemand = 0;
-					writer.writeAttribute("minOfferedTraffic", String.format("%.3f", minOfferedTraffic_thisDemand));
-					writer.writeAttribute("maxOfferedTraffic", String.format("%.3f", maxDemandOfferedTraffic.get(layerId).get(demandId).doubleValue()));
-					writer.writeAttribute("avgCarriedTraffic", String.format("%.3f", totalTime_thisDemand > 0 ? accum_avgDemandCarriedTraffic.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand : 0));
-					
-					double minCarriedTraffic_thisDemand = minDemandCarriedTraffic.get(layerId).get(demandId).doubleValue();
-					if (minCarriedTraffic_thisDemand == Double.MAX_VALUE) minCarriedTraffic_thisDemand = 0;
-					writer.writeAttribute("minCarriedTraffic", String.format("%.3f", minCarriedTraffic_thisDemand));
-					writer.writeAttribute("maxCarriedTraffic", String.format("%.3f", maxDemandCarriedTraffic.get(layerId).get(demandId).doubleValue()));
-					writer.writeAttribute("avgBlockedTraffic", String.format("%.3f", totalTime_thisDemand > 0 ? accum_avgDemandBlockedTraffic.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand : 0));
-					
-					double minBlockedTraffic_thisDemand = minDemandBlockedTraffic.get(layerId).get(demandId).doubleValue();
-					if (minBlockedTraffic_thisDemand == Double.MAX_VALUE) minBlockedTraffic_thisDemand = 0;
-					writer.writeAttribute("minBlockedTraffic", String.format("%.3f", minBlockedTraffic_thisDemand));
-					writer.writeAttribute("maxBlockedTraffic", String.format("%.3f", maxDemandBlockedTraffic.get(layerId).get(demandId).doubleValue()));
-					writer.writeAttribute("availabilityClassic", String.format("%.6f", totalTime_thisDemand > 0 ? accum_demandAvailabilityClassic.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand : 0));
-					writer.writeAttribute("availabilityWeighted", String.format("%.6f", totalTime_thisDemand > 0 ? accum_demandAvailabilityWeighted.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand : 0));
-					writer.writeAttribute("avgExcessCarriedTraffic", String.format("%.3f", totalTime_thisDemand > 0 ? accum_avgExcessCarriedTraffic.get(layerId).get(demandId).doubleValue() / totalTime_thisDemand : 0));
-					
-					double minExcessCarriedTraffic_thisDemand = minDemandExcessCarriedTraffic.get(layerId).get(demandId).doubleValue();
-					if (minExcessCarriedTraffic_thisDemand == Double.MAX_VALUE) minExcessCarriedTraffic_thisDemand = 0;
-					writer.writeAttribute("minExcessCarriedTraffic", String.format("%.3f", minExcessCarriedTraffic_thisDemand));
-					writer.writeAttribute("maxExcessCarriedTraffic", String.format("%.3f", maxDemandExcessCarriedTraffic.get(layerId).get(demandId).doubleValue()));
+					writer.writeAttribute("avgOfferedTraffic", String.format("%.3f", totalTime_thisDemand > 0 ? demandAccum.getIntegral(demandIndex, DEMAND_OFFEREDTRAFFIC, t) / totalTime_thisDemand : 0));
+					writer.writeAttribute("minOfferedTraffic", String.format("%.3f", minOrZero(demandAccum.getMin(demandIndex, DEMAND_OFFEREDTRAFFIC, t))));
+					writer.writeAttribute("maxOfferedTraffic", String.format("%.3f", demandAccum.getMax(demandIndex, DEMAND_OFFEREDTRAFFIC, t)));
+					writer.writeAttribute("avgCarriedTraffic", String.format("%.3f", totalTime_thisDemand > 0 ? demandAccum.getIntegral(demandIndex, DEMAND_CARRIEDTRAFFIC, t) / totalTime_thisDemand : 0));
+					writer.writeAttribute("minCarriedTraffic", String.format("%.3f", minOrZero(demandAccum.getMin(demandIndex, DEMAND_CARRIEDTRAFFIC, t))));
+					writer.writeAttribute("maxCarriedTraffic", String.format("%.3f", demandAccum.getMax(demandIndex, DEMAND_CARRIEDTRAFFIC, t)));
+					writer.writeAttribute("avgBlockedTraffic", String.format("%.3f", totalTime_thisDemand > 0 ? demandAccum.getIntegral(demandIndex, DEMAND_BLOCKEDTRAFFIC, t) / totalTime_thisDemand : 0));
+					writer.writeAttribute("minBlockedTraffic", String.format("%.3f", minOrZero(demandAccum.getMin(demandIndex, DEMAND_BLOCKEDTRAFFIC, t))));
+					writer.writeAttribute("maxBlockedTraffic", String.format("%.3f", demandAccum.getMax(demandIndex, DEMAND_BLOCKEDTRAFFIC, t)));
+					writer.writeAttribute("availabilityClassic", String.format("%.6f", totalTime_thisDemand > 0 ? demandAccum.getIntegral(demandIndex, DEMAND_AVAILABILITYCLASSIC, t) / totalTime_thisDemand : 0));
+					writer.writeAttribute("availabilityWeighted", String.format("%.6f", totalTime_thisDemand > 0 ? demandAccum.getIntegral(demandIndex, DEMAND_AVAILABILITYWEIGHTED, t) / totalTime_thisDemand : 0));
+					writer.writeAttribute("avgExcessCarriedTraffic", String.format("%.3f", totalTime_thisDemand > 0 ? demandAccum.getIntegral(demandIndex, DEMAND_EXCESSCARRIEDTRAFFIC, t) / totalTime_thisDemand : 0));
+					writer.writeAttribute("minExcessCarriedTraffic", String.format("%.3f", minOrZero(demandAccum.getMin(demandIndex, DEMAND_EXCESSCARRIEDTRAFFIC, t))));
+					writer.writeAttribute("maxExcessCarriedTraffic", String.format("%.3f", demandAccum.getMax(demandIndex, DEMAND_EXCESSCARRIEDTRAFFIC, t)));
 					writer.writeAttribute("excessCarriedTrafficTime", StringUtils.secondsToYearsDaysHoursMinutesSeconds(excessCarriedTrafficTime_thisDemand));
 					writer.writeAttribute("excessCarriedTrafficTimePercentage", String.format("%.3f", excessCarriedTrafficTimePercentage_thisDemand));
 					writer.writeAttribute("totalTime", StringUtils.secondsToYearsDaysHoursMinutesSeconds(totalTime_thisDemand));
-					writer.writeEndElement();	
+					writer.writeEndElement();
 				}
-				
-				writer.writeEndElement();	
-			}			
+
+				writer.writeEndElement();
+			}
 
 			writer.writeEndElement();
 			writer.writeEndDocument();
@@ -1062,4 +645,152 @@ public class SimStats
 			throw new RuntimeException(e);
 		}
 	}
+
+	/* Statistics of the nodes, links and demands of a layer, and of the layer itself */
+	private static final class LayerStats
+	{
+		private final NetworkLayer layer;
+		private Node [] nodes;
+		private Link [] links;
+		private Demand [] demands;
+		private int [] nodeInDegree, nodeOutDegree;
+		private final Accumulators nodeStats, linkStats, demandStats, layerStats;
+		private double worstDemandAvailabilityClassic, worstDemandAvailabilityWeighted;
+
+		/* nodes (by index) whose ingress or egress traffic in this layer may have changed */
+		private final BitSet nodesWithTrafficChange;
+
+		private LayerStats(NetworkLayer layer, double simTime)
+		{
+			this.layer = layer;
+			this.nodes = new Node [0];
+			this.links = new Link [0];
+			this.demands = new Demand [0];
+			this.nodeInDegree = new int [0];
+			this.nodeOutDegree = new int [0];
+			this.nodeStats = new Accumulators(NUM_NODELAYER_METRICS);
+			this.linkStats = new Accumulators(NUM_LINK_METRICS);
+			this.demandStats = new Accumulators(NUM_DEMAND_METRICS);
+			this.layerStats = new Accumulators(NUM_LAYER_METRICS);
+			this.layerStats.remap(new int [0], 1, simTime);
+			this.worstDemandAvailabilityClassic = 1;
+			this.worstDemandAvailabilityWeighted = 1;
+			this.nodesWithTrafficChange = new BitSet();
+		}
+	}
+
+	/*
+	 * Time integral, minimum and maximum of a set of metrics of a group of elements (e.g. the links of a layer), stored by element index.
+	 * The metrics are piecewise constant: for each element, the current values are kept, together with the time since they are held. The
+	 * integral, minimum and maximum only include the values held until that time, and are only updated when some value changes.
+	 */
+	private static final class Accumulators
+	{
+		private final int numMetrics;
+		private int size;
+		private double [] value, integral, min, max; // element index * numMetrics + metric
+		private double [] since, start; // element index
+
+		private Accumulators(int numMetrics)
+		{
+			this.numMetrics = numMetrics;
+			this.size = 0;
+			this.value = new double [0];
+			this.integral = new double [0];
+			this.min = new double [0];
+			this.max = new double [0];
+			this.since = new double [0];
+			this.start = new double [0];
+		}
+
+		/* The element previously in index i, moves to index newIndexes [i] (-1 if removed). Elements not coming from a previous one start at the given time, with no values */
+		private void remap(int [] newIndexes, int newSize, double simTime)
+		{
+			final double [] newValue = new double [newSize * numMetrics];
+			final double [] newIntegral = new double [newSize * numMetrics];
+			final double [] newMin = new double [newSize * numMetrics];
+			final double [] newMax = new double [newSize * numMetrics];
+			final double [] newSince = new double [newSize];
+			final double [] newStart = new double [newSize];
+			Arrays.fill(newValue, Double.NaN);
+			Arrays.fill(newMin, Double.MAX_VALUE);
+			Arrays.fill(newSince, simTime);
+			Arrays.fill(newStart, simTime);
+			for (int index = 0; index < size; index++)
+			{
+				final int newIndex = newIndexes [index];
+				if (newIndex == -1) continue;
+				System.arraycopy(value, index * numMetrics, newValue, newIndex * numMetrics, numMetrics);
+				System.arraycopy(integral, index * numMetrics, newIntegral, newIndex * numMetrics, numMetrics);
+				System.arraycopy(min, index * numMetrics, newMin, newIndex * numMetrics, numMetrics);
+				System.arraycopy(max, index * numMetrics, newMax, newIndex * numMetrics, numMetrics);
+				newSince [newIndex] = since [index];
+				newStart [newIndex] = start [index];
+			}
+			this.value = newValue;
+			this.integral = newIntegral;
+			this.min = newMin;
+			this.max = newMax;
+			this.since = newSince;
+			this.start = newStart;
+			this.size = newSize;
+		}
+
+		/* Sets the current values of an element. If some value changed, the previous ones are accounted until now. Returns true if some value changed */
+		private boolean update(int index, double [] newValues, double simTime)
+		{
+			final int offset = index * numMetrics;
+			int metric = 0;
+			while (metric < numMetrics && Double.compare(value [offset + metric], newValues [metric]) == 0) metric++;
+			if (metric == numMetrics) return false;
+
+			final double timeInterval = simTime - since [index];
+			for (metric = 0; metric < numMetrics; metric++)
+			{
+				final double previousValue = value [offset + metric];
+				if (timeInterval > 0)
+				{
+					integral [offset + metric] += previousValue * timeInterval;
+					min [offset + metric] = Math.min(min [offset + metric], previousValue);
+					max [offset + metric] = Math.max(max [offset + metric], previousValue);
+				}
+				value [offset + metric] = newValues [metric];
+			}
+			since [index] = simTime;
+			return true;
+		}
+
+		private double getValue(int index, int metric)
+		{
+			return value [index * numMetrics + metric];
+		}
+
+		/* The statistics until the given time, or the ones of an element with no time if the index is -1 */
+		private double getIntegral(int index, int metric, double simTime)
+		{
+			if (index == -1) return 0;
+			final double res = integral [index * numMetrics + metric];
+			return simTime > since [index] ? res + value [index * numMetrics + metric] * (simTime - since [index]) : res;
+		}
+
+		private double getMin(int index, int metric, double simTime)
+		{
+			if (index == -1) return Double.MAX_VALUE;
+			final double res = min [index * numMetrics + metric];
+			return simTime > since [index] ? Math.min(res, value [index * numMetrics + metric]) : res;
+		}
+
+		private double getMax(int index, int metric, double simTime)
+		{
+			if (index == -1) return 0;
+			final double res = max [index * numMetrics + metric];
+			return simTime > since [index] ? Math.max(res, value [index * numMetrics + metric]) : res;
+		}
+
+		private double getTotalTime(int index, double simTime)
+		{
+			if (index == -1) return 0;
+			return Math.max(0, simTime - start [index]);
+		}
+	}
 }
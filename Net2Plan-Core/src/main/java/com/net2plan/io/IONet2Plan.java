@@ -45,7 +45,7 @@ public class IONet2Plan extends IOFilter
 	 */
 	public IONet2Plan()
 	{
-		super(title, EnumSet.allOf(IOFeature.class), "n2p");
+		super(title, EnumSet.allOf(IOFeature.class), "n2p", "gz");
 	}
 
 	@Override
@@ -0,0 +1,598 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.libraries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.Net2PlanException;
+import com.net2plan.interfaces.networkDesign.Node;
+
+import cern.colt.matrix.tdouble.DoubleFactory2D;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+
+/**
+ * <p>Compact, array-based snapshot of a network topology, in the compressed sparse row (CSR) format. The snapshot stores, for each node,
+ * its outgoing and incoming links in contiguous {@code int} arrays, so that the path computation algorithms implemented here (Dijkstra,
+ * Yen's k-loopless shortest paths, Suurballe's two link-disjoint paths) do not need to build an object graph at each call.</p>
+ *
+ * <p>Nodes and links are identified by their index ({@link Node#getIndex()}, {@link Link#getIndex()}). Link costs are given as a {@code double []}
+ * array indexed by the link index, where a cost of {@code Double.MAX_VALUE} means that the link cannot be used. If the costs are {@code null},
+ * all the links have cost one. The snapshot reflects the topology at the moment it was created: if nodes or links are added or removed,
+ * a new snapshot must be built. Changing the link costs does not require a new snapshot.</p>
+ *
+ * <p>A snapshot is immutable, and can be shared by several threads computing paths concurrently.</p>
+ */
+public class CsrGraph
+{
+	private final List<Node> nodes;
+	private final List<Link> links;
+	private final int [] nodeIndex2Pos;
+	private final int [] linkIndex2Pos;
+	final int [] linkIndexOfPos;
+	final int [] linkOriginPos;
+	final int [] linkDestinationPos;
+	private final double [] linkLengthInKm;
+	private final double [] linkPropDelayInMs;
+	final int [] outStart;
+	final int [] outLinks;
+	final int [] inStart;
+	final int [] inLinks;
+
+	/**
+	 * Builds the snapshot of the topology formed by the given nodes and links. The end nodes of every link must be in the node collection
+	 * @param nodes the nodes
+	 * @param links the links
+	 */
+	public CsrGraph (List<Node> nodes , List<Link> links)
+	{
+		this.nodes = Collections.unmodifiableList(new ArrayList<> (nodes));
+		this.links = Collections.unmodifiableList(new ArrayList<> (links));
+		final int N = nodes.size();
+		final int E = links.size();
+		final int maxNodeIndex = nodes.stream().mapToInt(n->n.getIndex()).max().orElse(-1);
+		this.nodeIndex2Pos = new int [maxNodeIndex + 1];
+		Arrays.fill(nodeIndex2Pos, -1);
+		for (int pos = 0; pos < N ; pos ++) nodeIndex2Pos [nodes.get(pos).getIndex()] = pos;
+		final int maxLinkIndex = links.stream().mapToInt(e->e.getIndex()).max().orElse(-1);
+		this.linkIndex2Pos = new int [maxLinkIndex + 1];
+		Arrays.fill(linkIndex2Pos, -1);
+		for (int pos = 0; pos < E ; pos ++) linkIndex2Pos [links.get(pos).getIndex()] = pos;
+		this.linkIndexOfPos = new int [E];
+		this.linkOriginPos = new int [E];
+		this.linkDestinationPos = new int [E];
+		this.linkLengthInKm = new double [E];
+		this.linkPropDelayInMs = new double [E];
+		this.outStart = new int [N+1];
+		this.inStart = new int [N+1];
+		for (int pos = 0; pos < E ; pos ++)
+		{
+			final Link e = links.get(pos);
+			final int a = getNodePos(e.getOriginNode());
+			final int b = getNodePos(e.getDestinationNode());
+			if (a == -1 || b == -1) throw new Net2PlanException ("The end nodes of link " + e + " are not in the node list");
+			linkIndexOfPos [pos] = e.getIndex();
+			linkOriginPos [pos] = a;
+			linkDestinationPos [pos] = b;
+			linkLengthInKm [pos] = e.getLengthInKm();
+			linkPropDelayInMs [pos] = e.getPropagationDelayInMs();
+			outStart [a+1] ++;
+			inStart [b+1] ++;
+		}
+		for (int n = 0; n < N ; n ++) { outStart [n+1] += outStart [n]; inStart [n+1] += inStart [n]; }
+		this.outLinks = new int [E];
+		this.inLinks = new int [E];
+		final int [] nextOut = Arrays.copyOf(outStart, N);
+		final int [] nextIn = Arrays.copyOf(inStart, N);
+		for (int pos = 0; pos < E ; pos ++)
+		{
+			outLinks [nextOut [linkOriginPos [pos]] ++] = pos;
+			inLinks [nextIn [linkDestinationPos [pos]] ++] = pos;
+		}
+	}
+
+	/**
+	 * Returns the nodes in the snapshot
+	 * @return an unmodifiable list with the nodes
+	 */
+	public List<Node> getNodes () { return nodes; }
+
+	/**
+	 * Returns the links in the snapshot
+	 * @return an unmodifiable list with the links
+	 */
+	public List<Link> getLinks () { return links; }
+
+	/**
+	 * Returns the number of nodes in the snapshot
+	 * @return the number of nodes
+	 */
+	public int getNumberOfNodes () { return nodes.size(); }
+
+	/**
+	 * Returns the number of links in the snapshot
+	 * @return the number of links
+	 */
+	public int getNumberOfLinks () { return links.size(); }
+
+	/**
+	 * Returns the sequence of links of the shortest path between the two nodes. Links with cost {@code Double.MAX_VALUE} are not considered
+	 * @param linkCosts the cost of each link, indexed by link index (if null, all links have cost one)
+	 * @param originNode the origin node
+	 * @param destinationNode the destination node
+	 * @return the shortest path (empty if the destination is not reachable, or origin and destination are the same)
+	 */
+	public List<Link> getShortestPath (double [] linkCosts , Node originNode , Node destinationNode)
+	{
+		final int s = getNodePos(originNode);
+		final int t = getNodePos(destinationNode);
+		if (s == -1 || t == -1 || s == t) return new ArrayList<> ();
+		final int [] predLink = new int [nodes.size()];
+		final double dist = dijkstraFromOrigin(linkCosts, s, t, null, null, new double [nodes.size()], predLink);
+		if (dist == Double.POSITIVE_INFINITY) return new ArrayList<> ();
+		return toLinkList(getPathFromPredecessors(predLink, s, t));
+	}
+
+	/**
+	 * Returns the cost of the shortest path from each node to the given destination node. Links with cost {@code Double.MAX_VALUE} are not considered
+	 * @param linkCosts the cost of each link, indexed by link index (if null, all links have cost one)
+	 * @param destinationNode the destination node
+	 * @return an array with one element per node, in the same order as in {@link #getNodes()}, with the distance to the destination (Double.POSITIVE_INFINITY if not reachable)
+	 */
+	public double [] getShortestPathDistancesToNode (double [] linkCosts , Node destinationNode)
+	{
+		final int t = getNodePos(destinationNode);
+		if (t == -1) throw new Net2PlanException ("The node is not in the graph");
+		final double [] dist = new double [nodes.size()];
+		dijkstraToDestination(linkCosts, t, dist);
+		return dist;
+	}
+
+	/**
+	 * <p>Returns the K-loopless shortest paths between two nodes, using Yen's algorithm, satisfying the given constraints. The constraints
+	 * are the same as in {@link GraphUtils#getKLooplessShortestPaths(List, List, Node, Node, java.util.Map, int, double, int, double, double, double, double)}.</p>
+	 * @param linkCosts the cost of each link, indexed by link index (if null, all links have cost one). A cost of Double.MAX_VALUE means that the link cannot be used
+	 * @param originNode Origin node
+	 * @param destinationNode Destination node
+	 * @param K Desired nummber of paths (a lower number of paths may be returned if there are less than {@code K} loop-less paths admissible)
+	 * @param maxLengthInKm Maximum length of the path. If non-positive, no maximum limit is assumed
+	 * @param maxNumHops Maximum number of hops. If non-positive, no maximum limit is assumed
+	 * @param maxPropDelayInMs Maximum propagation delay of the path. If non-positive, no maximum limit is assumed
+	 * @param maxRouteCost Maximum route cost. If non-positive, no maximum limit is assumed
+	 * @param maxRouteCostFactorRespectToShortestPath Maximum route cost factor respect to the shortest path. If non-positive, no maximum limit is assumed
+	 * @param maxRouteCostRespectToShortestPath Maximum route cost respect to the shortest path. If non-positive, no maximum limit is assumed
+	 * @return the K-shortest paths, in increasing order of cost
+	 */
+	public List<List<Link>> getKLooplessShortestPaths (double [] linkCosts , Node originNode, Node destinationNode, int K, double maxLengthInKm, int maxNumHops, double maxPropDelayInMs, double maxRouteCost, double maxRouteCostFactorRespectToShortestPath, double maxRouteCostRespectToShortestPath)
+	{
+		if (maxLengthInKm <= 0) maxLengthInKm = Double.MAX_VALUE;
+		if (maxNumHops <= 0) maxNumHops = Integer.MAX_VALUE;
+		if (maxPropDelayInMs <= 0) maxPropDelayInMs = Double.MAX_VALUE;
+		if (maxRouteCost <= 0) maxRouteCost = Double.MAX_VALUE;
+		if (maxRouteCostFactorRespectToShortestPath <= 0) maxRouteCostFactorRespectToShortestPath = Double.MAX_VALUE;
+		if (maxRouteCostRespectToShortestPath <= 0) maxRouteCostRespectToShortestPath = Double.MAX_VALUE;
+
+		final List<List<Link>> res = new ArrayList<> ();
+		final int s = getNodePos(originNode);
+		final int t = getNodePos(destinationNode);
+		if (s == -1 || t == -1 || s == t || K <= 0) return res;
+		final int N = nodes.size();
+		final int E = links.size();
+		final double [] dist = new double [N];
+		final int [] predLink = new int [N];
+		if (dijkstraFromOrigin(linkCosts, s, t, null, null, dist, predLink) == Double.POSITIVE_INFINITY) return res;
+
+		final CsrPath shortestPath = new CsrPath (getPathFromPredecessors(predLink, s, t), linkCosts);
+		if (!acceptPath(shortestPath, maxNumHops, maxLengthInKm, maxPropDelayInMs)) return res;
+		final List<CsrPath> paths = new ArrayList<> ();
+		paths.add(shortestPath);
+
+		final PriorityQueue<CsrPath> candidates = new PriorityQueue<> ();
+		final Set<CsrPath> candidatesAlreadyFound = new HashSet<> ();
+		candidatesAlreadyFound.add(shortestPath);
+		final boolean [] blockedNodes = new boolean [N];
+		final boolean [] blockedLinks = new boolean [E];
+		while (paths.size() < K)
+		{
+			final int [] lastPath = paths.get(paths.size() - 1).linkPos;
+			for (int deviationId = 0; deviationId < lastPath.length ; deviationId ++)
+			{
+				final int deviationNode = deviationId == 0? s : linkDestinationPos [lastPath [deviationId - 1]];
+
+				/* Block the nodes in the head (but the deviation node), and the links leaving the deviation node in previous paths with the same head */
+				Arrays.fill(blockedNodes, false);
+				Arrays.fill(blockedLinks, false);
+				for (int cont = 0; cont < deviationId ; cont ++) blockedNodes [linkOriginPos [lastPath [cont]]] = true;
+				for (CsrPath p : paths)
+					if (p.linkPos.length > deviationId && sameHead(p.linkPos, lastPath, deviationId))
+						blockedLinks [p.linkPos [deviationId]] = true;
+
+				if (dijkstraFromOrigin(linkCosts, deviationNode, t, blockedNodes, blockedLinks, dist, predLink) == Double.POSITIVE_INFINITY) continue;
+				final int [] tail = getPathFromPredecessors(predLink, deviationNode, t);
+				final int [] candidateLinks = new int [deviationId + tail.length];
+				System.arraycopy(lastPath, 0, candidateLinks, 0, deviationId);
+				System.arraycopy(tail, 0, candidateLinks, deviationId, tail.length);
+				final CsrPath candidate = new CsrPath (candidateLinks , linkCosts);
+				if (candidatesAlreadyFound.contains(candidate)) continue;
+				if (!acceptPath(candidate, maxNumHops, maxLengthInKm, maxPropDelayInMs)) continue;
+				if (maxRouteCost != Double.MAX_VALUE && candidate.cost > maxRouteCost) continue;
+				if (maxRouteCostFactorRespectToShortestPath != Double.MAX_VALUE && candidate.cost > shortestPath.cost * maxRouteCostFactorRespectToShortestPath) continue;
+				if (maxRouteCostRespectToShortestPath != Double.MAX_VALUE && candidate.cost > shortestPath.cost + maxRouteCostRespectToShortestPath) continue;
+				candidatesAlreadyFound.add(candidate);
+				candidates.add(candidate);
+			}
+			if (candidates.isEmpty()) break;
+			paths.add(candidates.poll());
+		}
+		for (CsrPath p : paths) res.add(toLinkList(p.linkPos));
+		return res;
+	}
+
+	/**
+	 * Returns the shortest pair of link-disjoint paths, using Suurballe's algorithm. Links with cost {@code Double.MAX_VALUE} are not considered.
+	 * The number of returned items will be equal to the number of paths found: when empty, no path was found; when {@code size()} = 1,
+	 * only one path was found; and when {@code size()} = 2, the link-disjoint paths were found (the one with lower cost first).
+	 * @param linkCosts the cost of each link, indexed by link index (if null, all links have cost one). Costs must be non-negative
+	 * @param originNode Origin node
+	 * @param destinationNode Destination node
+	 * @return the shortest pair of link-disjoint paths
+	 */
+	public List<List<Link>> getTwoLinkDisjointPaths (double [] linkCosts , Node originNode, Node destinationNode)
+	{
+		final List<List<Link>> res = new ArrayList<> ();
+		final int s = getNodePos(originNode);
+		final int t = getNodePos(destinationNode);
+		if (s == -1 || t == -1 || s == t) return res;
+		final int N = nodes.size();
+		final int E = links.size();
+		final double [] dist = new double [N];
+		final int [] predLink = new int [N];
+		dijkstraFromOrigin(linkCosts, s, -1, null, null, dist, predLink);
+		if (dist [t] == Double.POSITIVE_INFINITY) return res;
+		final int [] firstPath = getPathFromPredecessors(predLink, s, t);
+
+		/* Residual graph: links of the first path are traversed backwards at zero cost, the rest forward with the reduced costs */
+		final boolean [] inFirstPath = new boolean [E];
+		for (int e : firstPath) inFirstPath [e] = true;
+		final double [] residualDist = new double [N];
+		final int [] residualPredLink = new int [N];
+		final boolean [] residualPredIsBackward = new boolean [N];
+		Arrays.fill(residualDist, Double.POSITIVE_INFINITY);
+		Arrays.fill(residualPredLink, -1);
+		final boolean [] settled = new boolean [N];
+		final IndexedMinHeap heap = new IndexedMinHeap (N);
+		residualDist [s] = 0;
+		heap.insertOrDecrease(s, 0);
+		while (!heap.isEmpty())
+		{
+			final int u = heap.pollMin();
+			settled [u] = true;
+			if (u == t) break;
+			for (int cont = outStart [u]; cont < outStart [u+1] ; cont ++)
+			{
+				final int e = outLinks [cont];
+				if (inFirstPath [e]) continue;
+				final double c = getCost(linkCosts, e);
+				if (c == Double.MAX_VALUE) continue;
+				final int v = linkDestinationPos [e];
+				if (settled [v] || dist [v] == Double.POSITIVE_INFINITY) continue;
+				final double reducedCost = Math.max(0, c + dist [u] - dist [v]);
+				if (residualDist [u] + reducedCost < residualDist [v])
+				{
+					residualDist [v] = residualDist [u] + reducedCost; residualPredLink [v] = e; residualPredIsBackward [v] = false;
+					heap.insertOrDecrease(v, residualDist [v]);
+				}
+			}
+			for (int cont = inStart [u]; cont < inStart [u+1] ; cont ++)
+			{
+				final int e = inLinks [cont];
+				if (!inFirstPath [e]) continue;
+				final int v = linkOriginPos [e];
+				if (settled [v]) continue;
+				if (residualDist [u] < residualDist [v])
+				{
+					residualDist [v] = residualDist [u]; residualPredLink [v] = e; residualPredIsBackward [v] = true;
+					heap.insertOrDecrease(v, residualDist [v]);
+				}
+			}
+		}
+		if (residualDist [t] == Double.POSITIVE_INFINITY)
+		{
+			res.add(toLinkList(firstPath));
+			return res;
+		}
+
+		/* Union of both paths, cancelling the links of the first path traversed backwards by the second */
+		final boolean [] inUnion = Arrays.copyOf(inFirstPath, E);
+		for (int v = t; v != s ; )
+		{
+			final int e = residualPredLink [v];
+			if (residualPredIsBackward [v]) { inUnion [e] = false; v = linkDestinationPos [e]; }
+			else { inUnion [e] = true; v = linkOriginPos [e]; }
+		}
+		final List<CsrPath> twoPaths = new ArrayList<> (2);
+		for (int pathId = 0; pathId < 2 ; pathId ++)
+		{
+			final List<Integer> path = new ArrayList<> ();
+			int current = s;
+			while (current != t)
+			{
+				int next = -1;
+				for (int cont = outStart [current]; cont < outStart [current+1] ; cont ++)
+					if (inUnion [outLinks [cont]]) { next = outLinks [cont]; break; }
+				if (next == -1) throw new RuntimeException ("Bad");
+				inUnion [next] = false;
+				path.add(next);
+				current = linkDestinationPos [next];
+			}
+			twoPaths.add(new CsrPath (path.stream().mapToInt(e->e).toArray() , linkCosts));
+		}
+		Collections.sort(twoPaths);
+		for (CsrPath p : twoPaths) res.add(toLinkList(p.linkPos));
+		return res;
+	}
+
+	/**
+	 * Computes the routing table matrix according to an OSPF/ECMP scheme, in the same form as in {@link IPUtils#computeECMPRoutingTableMatrix_fte(List, List, DoubleMatrix1D)}:
+	 * for each destination node <i>t</i>, and each link <i>e</i>, {@code f_te[t][e]} is the fraction of the traffic to <i>t</i> arriving to
+	 * the origin node of the link, forwarded through it. Rows and columns are indexed by node and link index. Links with a weight of Double.MAX_VALUE are not considered
+	 * @param linkWeights the weight of each link, indexed by link index (if null, all links have weight one)
+	 * @return Destination-based routing in the form <i>f<sub>te</sub></i>, with as many rows as nodes and as many columns as links in the snapshot
+	 */
+	public DoubleMatrix2D computeECMPRoutingTableMatrix_fte (double [] linkWeights)
+	{
+		final int N = nodes.size();
+		final int E = links.size();
+		final DoubleMatrix2D f_te = DoubleFactory2D.sparse.make(N,E);
+		final double [] dist = new double [N];
+		final int [] numOutLinks = new int [N];
+		for (int t = 0; t < N ; t ++)
+		{
+			dijkstraToDestination(linkWeights, t, dist);
+			Arrays.fill(numOutLinks, 0);
+			for (int e = 0; e < E ; e ++)
+				if (isInShortestPathDag(linkWeights, e, t, dist)) numOutLinks [linkOriginPos [e]] ++;
+			final int tIndex = nodes.get(t).getIndex();
+			for (int e = 0; e < E ; e ++)
+				if (isInShortestPathDag(linkWeights, e, t, dist)) f_te.set(tIndex, linkIndexOfPos [e], 1.0 / numOutLinks [linkOriginPos [e]]);
+		}
+		return f_te;
+	}
+
+	private boolean isInShortestPathDag (double [] linkWeights , int e , int t , double [] distToT)
+	{
+		final int a = linkOriginPos [e];
+		final int b = linkDestinationPos [e];
+		if (a == t) return false;
+		final double w = getCost(linkWeights, e);
+		if (w == Double.MAX_VALUE) return false;
+		if (distToT [a] == Double.POSITIVE_INFINITY || distToT [b] == Double.POSITIVE_INFINITY) return false;
+		return Math.abs(distToT [a] - (w + distToT [b])) < 1E-10;
+	}
+
+	/* Position of the node in the snapshot, or -1 if not there */
+	int getNodePos (Node n)
+	{
+		final int index = n.getIndex();
+		if (index < 0 || index >= nodeIndex2Pos.length) return -1;
+		final int pos = nodeIndex2Pos [index];
+		return pos == -1 || nodes.get(pos) != n? -1 : pos;
+	}
+
+	/* Position of the link in the snapshot, or -1 if not there */
+	int getLinkPos (Link e)
+	{
+		final int index = e.getIndex();
+		if (index < 0 || index >= linkIndex2Pos.length) return -1;
+		final int pos = linkIndex2Pos [index];
+		return pos == -1 || links.get(pos) != e? -1 : pos;
+	}
+
+	double getCost (double [] linkCosts , int e)
+	{
+		return linkCosts == null? 1.0 : linkCosts [linkIndexOfPos [e]];
+	}
+
+	/* Dijkstra from the origin node, stopping when the destination (if not -1) is settled. Returns the distance to the destination */
+	private double dijkstraFromOrigin (double [] linkCosts , int s , int t , boolean [] blockedNodes , boolean [] blockedLinks , double [] dist , int [] predLink)
+	{
+		final int N = nodes.size();
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		Arrays.fill(predLink, -1);
+		final boolean [] settled = new boolean [N];
+		final IndexedMinHeap heap = new IndexedMinHeap (N);
+		dist [s] = 0;
+		heap.insertOrDecrease(s, 0);
+		while (!heap.isEmpty())
+		{
+			final int u = heap.pollMin();
+			settled [u] = true;
+			if (u == t) break;
+			for (int cont = outStart [u]; cont < outStart [u+1] ; cont ++)
+			{
+				final int e = outLinks [cont];
+				if (blockedLinks != null && blockedLinks [e]) continue;
+				final int v = linkDestinationPos [e];
+				if (settled [v]) continue;
+				if (blockedNodes != null && blockedNodes [v]) continue;
+				final double c = getCost(linkCosts, e);
+				if (c == Double.MAX_VALUE) continue;
+				if (dist [u] + c < dist [v]) { dist [v] = dist [u] + c; predLink [v] = e; heap.insertOrDecrease(v, dist [v]); }
+			}
+		}
+		return t == -1? Double.POSITIVE_INFINITY : dist [t];
+	}
+
+	/* Dijkstra over the reversed links, giving the distance from each node to the destination */
+	void dijkstraToDestination (double [] linkCosts , int t , double [] dist)
+	{
+		final int N = nodes.size();
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		final boolean [] settled = new boolean [N];
+		final IndexedMinHeap heap = new IndexedMinHeap (N);
+		dist [t] = 0;
+		heap.insertOrDecrease(t, 0);
+		while (!heap.isEmpty())
+		{
+			final int v = heap.pollMin();
+			settled [v] = true;
+			for (int cont = inStart [v]; cont < inStart [v+1] ; cont ++)
+			{
+				final int e = inLinks [cont];
+				final int u = linkOriginPos [e];
+				if (settled [u]) continue;
+				final double c = getCost(linkCosts, e);
+				if (c == Double.MAX_VALUE) continue;
+				if (dist [v] + c < dist [u]) { dist [u] = dist [v] + c; heap.insertOrDecrease(u, dist [u]); }
+			}
+		}
+	}
+
+	private int [] getPathFromPredecessors (int [] predLink , int s , int t)
+	{
+		int numHops = 0;
+		for (int v = t; v != s ; v = linkOriginPos [predLink [v]]) numHops ++;
+		final int [] path = new int [numHops];
+		for (int v = t; v != s ; v = linkOriginPos [predLink [v]]) path [-- numHops] = predLink [v];
+		return path;
+	}
+
+	private List<Link> toLinkList (int [] linkPos)
+	{
+		final List<Link> res = new ArrayList<> (linkPos.length);
+		for (int e : linkPos) res.add(links.get(e));
+		return res;
+	}
+
+	private static boolean sameHead (int [] path1 , int [] path2 , int headLength)
+	{
+		for (int cont = 0; cont < headLength ; cont ++) if (path1 [cont] != path2 [cont]) return false;
+		return true;
+	}
+
+	private boolean acceptPath (CsrPath path , int maxNumHops , double maxLengthInKm , double maxPropDelayInMs)
+	{
+		if (maxNumHops != Integer.MAX_VALUE && path.linkPos.length > maxNumHops) return false;
+		if (maxLengthInKm == Double.MAX_VALUE && maxPropDelayInMs == Double.MAX_VALUE) return true;
+		double pathLengthInKm = 0;
+		double pathPropDelayInMs = 0;
+		for (int e : path.linkPos) { pathLengthInKm += linkLengthInKm [e]; pathPropDelayInMs += linkPropDelayInMs [e]; }
+		return pathLengthInKm <= maxLengthInKm && pathPropDelayInMs <= maxPropDelayInMs;
+	}
+
+	/* A path as a sequence of link positions, ordered by cost, then number of hops, then link sequence */
+	private class CsrPath implements Comparable<CsrPath>
+	{
+		private final int [] linkPos;
+		private final double cost;
+
+		private CsrPath (int [] linkPos , double [] linkCosts)
+		{
+			this.linkPos = linkPos;
+			double c = 0; for (int e : linkPos) c += getCost(linkCosts, e);
+			this.cost = c;
+		}
+
+		@Override
+		public boolean equals (Object o)
+		{
+			if (o == this) return true;
+			if (!(o instanceof CsrPath)) return false;
+			return Arrays.equals(linkPos, ((CsrPath) o).linkPos);
+		}
+
+		@Override
+		public int hashCode () { return Arrays.hashCode(linkPos); }
+
+		@Override
+		public int compareTo (CsrPath o)
+		{
+			if (cost != o.cost) return Double.compare(cost, o.cost);
+			if (linkPos.length != o.linkPos.length) return Integer.compare(linkPos.length, o.linkPos.length);
+			for (int cont = 0; cont < linkPos.length ; cont ++)
+				if (linkPos [cont] != o.linkPos [cont]) return Integer.compare(linkPos [cont], o.linkPos [cont]);
+			return 0;
+		}
+	}
+
+	/* Binary min-heap of node positions, with decrease-key. Ties are broken by the node position, so results are deterministic */
+	static class IndexedMinHeap
+	{
+		private final int [] heap;
+		private final int [] posInHeap;
+		private final double [] key;
+		private int size;
+
+		IndexedMinHeap (int capacity)
+		{
+			this.heap = new int [capacity];
+			this.posInHeap = new int [capacity];
+			this.key = new double [capacity];
+			Arrays.fill(posInHeap, -1);
+		}
+
+		boolean isEmpty () { return size == 0; }
+
+		void insertOrDecrease (int n , double k)
+		{
+			key [n] = k;
+			if (posInHeap [n] == -1) { heap [size] = n; posInHeap [n] = size; size ++; }
+			siftUp(posInHeap [n]);
+		}
+
+		int pollMin ()
+		{
+			final int min = heap [0];
+			size --;
+			posInHeap [min] = -1;
+			if (size > 0) { heap [0] = heap [size]; posInHeap [heap [0]] = 0; siftDown(0); }
+			return min;
+		}
+
+		private boolean less (int n1 , int n2) { return key [n1] < key [n2] || (key [n1] == key [n2] && n1 < n2); }
+
+		private void siftUp (int pos)
+		{
+			final int n = heap [pos];
+			while (pos > 0)
+			{
+				final int parent = (pos - 1) / 2;
+				if (!less(n , heap [parent])) break;
+				heap [pos] = heap [parent]; posInHeap [heap [pos]] = pos;
+				pos = parent;
+			}
+			heap [pos] = n; posInHeap [n] = pos;
+		}
+
+		private void siftDown (int pos)
+		{
+			final int n = heap [pos];
+			while (true)
+			{
+				int child = 2 * pos + 1;
+				if (child >= size) break;
+				if (child + 1 < size && less(heap [child+1] , heap [child])) child ++;
+				if (!less(heap [child] , n)) break;
+				heap [pos] = heap [child]; posInHeap [heap [pos]] = pos;
+				pos = child;
+			}
+			heap [pos] = n; posInHeap [n] = pos;
+		}
+	}
+}
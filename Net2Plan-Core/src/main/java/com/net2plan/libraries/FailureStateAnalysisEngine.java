@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.libraries;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.Net2PlanException;
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.NetworkLayer;
+import com.net2plan.interfaces.networkDesign.Node;
+import com.net2plan.interfaces.networkDesign.SharedRiskGroup;
+import com.net2plan.utils.Pair;
+
+import cern.colt.matrix.tdouble.DoubleFactory1D;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+
+/**
+ * <p>Evaluates a list of failure states (e.g. the ones returned by {@link SRGUtils#enumerateFailureStates(Collection, boolean, boolean)}) of a design,
+ * possibly in parallel. The failure states are distributed among a number of worker threads, each one holding its own copy of the design. In each
+ * failure state, the links and nodes of the failing SRGs are set as down, and a user-defined evaluator computes the per-state result. The results are
+ * passed to an aggregator, one at a time and in the same order of the failure states, so the aggregated values do not depend on the number of threads.</p>
+ * <p>If the evaluator does not modify the design, the failure states are applied and rolled back in the working copy of each thread
+ * (see {@link NetPlan#evaluateFailureState(Collection, Collection, java.util.function.Function)}). Otherwise (e.g. if a recovery algorithm
+ * is run in each failure state), each failure state is evaluated in a fresh copy of the working copy of the thread.</p>
+ */
+public class FailureStateAnalysisEngine
+{
+	private static final int MAXPENDINGRESULTSPERWORKER = 4;
+
+	private FailureStateAnalysisEngine() { }
+
+	/**
+	 * Computes the result of a failure state
+	 * @param <T> the type of the result
+	 */
+	public interface FailureStateEvaluator<T>
+	{
+		/**
+		 * Returns the result for the given failure state
+		 * @param netPlan the design in the failure state (a working copy of the original design, unless only one thread is used)
+		 * @param failingSrgs the failing SRGs, in the design received
+		 * @return the result
+		 */
+		T evaluate (NetPlan netPlan , SortedSet<SharedRiskGroup> failingSrgs);
+	}
+
+	/**
+	 * Receives the results of the failure states, one at a time and in the order of the failure states
+	 * @param <T> the type of the result
+	 */
+	public interface FailureStateAggregator<T>
+	{
+		/**
+		 * Aggregates the result of a failure state
+		 * @param failureStateIndex the index of the failure state in the list
+		 * @param failingSrgs the failing SRGs, in the original design
+		 * @param result the result returned by the evaluator
+		 */
+		void aggregate (int failureStateIndex , SortedSet<SharedRiskGroup> failingSrgs , T result);
+	}
+
+	/**
+	 * Evaluates the given failure states, passing the results to the aggregator in the order of the failure states. The original design is not modified
+	 * (if only one thread is used and the evaluator does not modify the design, the failure states are applied and rolled back on it).
+	 * @param netPlan the design
+	 * @param failureStates each failure state, given by the set of SRGs failing
+	 * @param evaluator the evaluator of each failure state
+	 * @param aggregator the aggregator of the results
+	 * @param evaluatorModifiesDesign {@code true} if the evaluator modifies the design it receives (e.g. runs a recovery algorithm)
+	 * @param numThreads the number of worker threads (if one or less, the states are evaluated in the calling thread)
+	 * @param <T> the type of the result
+	 */
+	public static <T> void evaluateFailureStates (NetPlan netPlan , List<? extends Collection<SharedRiskGroup>> failureStatesList , FailureStateEvaluator<T> evaluator ,
+			FailureStateAggregator<? super T> aggregator , boolean evaluatorModifiesDesign , int numThreads)
+	{
+		final List<Collection<SharedRiskGroup>> failureStates = new ArrayList<> (failureStatesList); // random access, the input may be e.g. a linked list
+		for (Collection<SharedRiskGroup> failureState : failureStates)
+			for (SharedRiskGroup srg : failureState)
+				if (srg.getNetPlan() != netPlan) throw new Net2PlanException ("The SRGs must belong to the design");
+		final int F = failureStates.size();
+		final int numWorkers = Math.max(1, Math.min(numThreads, F));
+		final OrderedDelivery<T> delivery = new OrderedDelivery<> (failureStates , aggregator , MAXPENDINGRESULTSPERWORKER * numWorkers);
+		if (numWorkers == 1)
+		{
+			evaluateFailureStatesInWorker(netPlan, failureStates, evaluator, evaluatorModifiesDesign, delivery);
+			return;
+		}
+
+		/* Each worker has its own copy, made in this thread */
+		final List<Callable<Void>> workers = new ArrayList<> (numWorkers);
+		for (int cont = 0; cont < numWorkers ; cont ++)
+		{
+			final NetPlan workingCopy = netPlan.copy();
+			workers.add(() -> { evaluateFailureStatesInWorker(workingCopy, failureStates, evaluator, evaluatorModifiesDesign, delivery); return null; });
+		}
+		final ExecutorService executor = Executors.newFixedThreadPool(numWorkers);
+		try
+		{
+			for (Future<Void> future : executor.invokeAll(workers)) future.get();
+		}
+		catch (InterruptedException e)
+		{
+			delivery.abort();
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new Net2PlanException ("Interrupted while evaluating the failure states");
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error) throw (Error) e.getCause();
+			throw new Net2PlanException (e.getCause().getMessage());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Evaluates the given failure states, and returns the results in the order of the failure states. See
+	 * {@link #evaluateFailureStates(NetPlan, List, FailureStateEvaluator, FailureStateAggregator, boolean, int)}
+	 * @param netPlan the design
+	 * @param failureStates each failure state, given by the set of SRGs failing
+	 * @param evaluator the evaluator of each failure state
+	 * @param evaluatorModifiesDesign {@code true} if the evaluator modifies the design it receives (e.g. runs a recovery algorithm)
+	 * @param numThreads the number of worker threads (if one or less, the states are evaluated in the calling thread)
+	 * @param <T> the type of the result
+	 * @return the result of each failure state
+	 */
+	public static <T> List<T> evaluateFailureStates (NetPlan netPlan , List<? extends Collection<SharedRiskGroup>> failureStates , FailureStateEvaluator<T> evaluator ,
+			boolean evaluatorModifiesDesign , int numThreads)
+	{
+		final List<T> res = new ArrayList<> (failureStates.size());
+		evaluateFailureStates(netPlan, failureStates, evaluator, (index , srgs , result) -> res.add(result) , evaluatorModifiesDesign, numThreads);
+		return res;
+	}
+
+	/**
+	 * Returns the worst case (maximum) blocked traffic of each demand, and the worst case occupied capacity of each link, among the given failure states
+	 * (no recovery action is taken in the failure states)
+	 * @param netPlan the design
+	 * @param failureStates each failure state, given by the set of SRGs failing
+	 * @param numThreads the number of worker threads
+	 * @param optionalLayerParameter the layer (optional)
+	 * @return the worst case blocked traffic per demand (indexed by demand index) and the worst case occupied capacity per link (indexed by link index)
+	 */
+	public static Pair<DoubleMatrix1D,DoubleMatrix1D> computeWorstCaseBlockedTrafficAndLinkOccupation (NetPlan netPlan , List<? extends Collection<SharedRiskGroup>> failureStates ,
+			int numThreads , NetworkLayer ... optionalLayerParameter)
+	{
+		final NetworkLayer layer = netPlan.checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
+		final DoubleMatrix1D wcBlockedTraffic = DoubleFactory1D.dense.make(netPlan.getNumberOfDemands(layer));
+		final DoubleMatrix1D wcOccupiedCapacity = DoubleFactory1D.dense.make(netPlan.getNumberOfLinks(layer));
+		final FailureStateEvaluator<Pair<DoubleMatrix1D,DoubleMatrix1D>> evaluator = (np , srgs) ->
+		{
+			final NetworkLayer thisLayer = np.getNetworkLayer(layer.getIndex());
+			return Pair.of(np.getVectorDemandBlockedTraffic(thisLayer) , np.getVectorLinkOccupiedCapacity(thisLayer));
+		};
+		evaluateFailureStates(netPlan, failureStates, evaluator, (index , srgs , result) ->
+		{
+			for (int d = 0; d < wcBlockedTraffic.size() ; d ++) wcBlockedTraffic.set(d, Math.max(wcBlockedTraffic.get(d), result.getFirst().get(d)));
+			for (int e = 0; e < wcOccupiedCapacity.size() ; e ++) wcOccupiedCapacity.set(e, Math.max(wcOccupiedCapacity.get(e), result.getSecond().get(e)));
+		} , false , numThreads);
+		return Pair.of(wcBlockedTraffic , wcOccupiedCapacity);
+	}
+
+	private static <T> void evaluateFailureStatesInWorker (NetPlan workingCopy , List<Collection<SharedRiskGroup>> failureStates , FailureStateEvaluator<T> evaluator ,
+			boolean evaluatorModifiesDesign , OrderedDelivery<T> delivery)
+	{
+		try
+		{
+			while (true)
+			{
+				final int index = delivery.claimNextFailureState();
+				if (index < 0) return;
+				final T result;
+				if (evaluatorModifiesDesign)
+				{
+					final NetPlan npThisState = workingCopy.copy();
+					final SortedSet<SharedRiskGroup> srgsThisState = getSrgsInDesign(npThisState, failureStates.get(index));
+					for (SharedRiskGroup srg : srgsThisState) srg.setAsDown();
+					result = evaluator.evaluate(npThisState, srgsThisState);
+				}
+				else
+				{
+					final SortedSet<SharedRiskGroup> srgsThisState = getSrgsInDesign(workingCopy, failureStates.get(index));
+					final Set<Link> linksToSetAsDown = new HashSet<> ();
+					final Set<Node> nodesToSetAsDown = new HashSet<> ();
+					for (SharedRiskGroup srg : srgsThisState) { linksToSetAsDown.addAll(srg.getLinksAllLayers()); nodesToSetAsDown.addAll(srg.getNodes()); }
+					result = workingCopy.evaluateFailureState(linksToSetAsDown, nodesToSetAsDown, np -> evaluator.evaluate(np, srgsThisState));
+				}
+				delivery.deliver(index, result);
+			}
+		}
+		catch (RuntimeException | Error e)
+		{
+			delivery.abort(); // the other workers stop
+			throw e;
+		}
+	}
+
+	private static SortedSet<SharedRiskGroup> getSrgsInDesign (NetPlan np , Collection<SharedRiskGroup> srgs)
+	{
+		final SortedSet<SharedRiskGroup> res = new TreeSet<> ();
+		for (SharedRiskGroup srg : srgs) res.add(srg.getNetPlan() == np? srg : np.getSRGFromId(srg.getId()));
+		return res;
+	}
+
+	/* Gives the failure states to evaluate to the workers, and passes the results to the aggregator in the order of the failure states, keeping
+	 * the ones that arrive before their turn. A failure state is not given to a worker until the results pending are less than the window size,
+	 * so the memory used by them is bounded */
+	private static class OrderedDelivery<T>
+	{
+		private final List<Collection<SharedRiskGroup>> failureStates;
+		private final FailureStateAggregator<? super T> aggregator;
+		private final Object [] pendingResults; // circular, index modulo the window size
+		private final boolean [] isPending;
+		private int nextIndexToClaim;
+		private int nextIndexToDeliver;
+		private boolean aborted;
+
+		private OrderedDelivery (List<Collection<SharedRiskGroup>> failureStates , FailureStateAggregator<? super T> aggregator , int windowSize)
+		{
+			this.failureStates = failureStates;
+			this.aggregator = aggregator;
+			this.pendingResults = new Object [windowSize];
+			this.isPending = new boolean [windowSize];
+			this.nextIndexToClaim = 0;
+			this.nextIndexToDeliver = 0;
+			this.aborted = false;
+		}
+
+		/* Returns the index of the next failure state to evaluate, or -1 if there are no more. Waits if too many results are pending */
+		private synchronized int claimNextFailureState ()
+		{
+			while (!aborted && nextIndexToClaim < failureStates.size() && nextIndexToClaim >= nextIndexToDeliver + pendingResults.length)
+			{
+				try { wait(); }
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					throw new Net2PlanException ("Interrupted while evaluating the failure states");
+				}
+			}
+			if (aborted || nextIndexToClaim >= failureStates.size()) return -1;
+			return nextIndexToClaim ++;
+		}
+
+		private synchronized void abort ()
+		{
+			this.aborted = true;
+			notifyAll();
+		}
+
+		@SuppressWarnings("unchecked")
+		private synchronized void deliver (int index , T result)
+		{
+			final int position = index % pendingResults.length;
+			pendingResults [position] = result;
+			isPending [position] = true;
+			while ((nextIndexToDeliver < failureStates.size()) && isPending [nextIndexToDeliver % pendingResults.length])
+			{
+				final int positionToDeliver = nextIndexToDeliver % pendingResults.length;
+				final T resultToDeliver = (T) pendingResults [positionToDeliver];
+				pendingResults [positionToDeliver] = null;
+				isPending [positionToDeliver] = false;
+				aggregator.aggregate(nextIndexToDeliver, new TreeSet<> (failureStates.get(nextIndexToDeliver)), resultToDeliver);
+				nextIndexToDeliver ++;
+			}
+			notifyAll();
+		}
+	}
+}
@@ -42,9 +42,12 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.swing.JComponent;
 
@@ -871,6 +874,71 @@ public class GraphUtils
 	 * @param maxRouteCostRespectToShortestPath Maximum route cost respect to the shortest path. If non-positive, no maximum limit is assumed
 	 * @return K-shortest paths */
 	public static List<List<Link>> getKLooplessShortestPaths(List<Node> nodes, List<Link> links, Node originNode, Node destinationNode, Map<Link, Double> linkCostMap, int K, double maxLengthInKm, int maxNumHops, double maxPropDelayInMs, double maxRouteCost, double maxRouteCostFactorRespectToShortestPath, double maxRouteCostRespectToShortestPath)
+	{
+		final List<Link> filteredListLinks = linkCostMap == null? links : links.stream().filter(e->linkCostMap.get(e) != Double.MAX_VALUE).collect(Collectors.toList());
+		final Graph<Node, Link> g = JUNGUtils.getGraphFromLinkMap(nodes, filteredListLinks);
+		return getKLooplessShortestPaths(g, JUNGUtils.getEdgeWeightTransformer(linkCostMap), originNode, destinationNode, K, maxLengthInKm, maxNumHops, maxPropDelayInMs, maxRouteCost, maxRouteCostFactorRespectToShortestPath, maxRouteCostRespectToShortestPath);
+	}
+
+	/** <p>Returns the K-loopless shortest paths for each of the given node pairs, with the same constraints as in 
+	 * {@link #getKLooplessShortestPaths(List, List, Node, Node, Map, int, double, int, double, double, double, double) getKLooplessShortestPaths}.</p>
+	 * 
+	 * <p>The graph and the link weights are built only once, and shared (read-only) by the computations of all the node pairs. 
+	 * If {@code numThreads} is greater than one, the per node pair computations are distributed in a fork-join pool of that parallelism. 
+	 * The result does not depend on the number of threads: it is the same as calling the single node pair method for each pair.</p>
+	 * 
+	 * @param nodes List of nodes
+	 * @param links List of links
+	 * @param nodePairs the node pairs (origin, destination) for which the paths are computed
+	 * @param linkCostMap Cost per link, where the key is the link identifier and the value is the cost of traversing the link. No special iteration-order (i.e. ascending) is required. If {@code null}, all links have weight one. A value of Double.MAX_VALUE means that the link cannot be used
+	 * @param K Desired nummber of paths (a lower number of paths may be returned if there are less than {@code K} loop-less paths admissible)
+	 * @param maxLengthInKm Maximum length of the path. If non-positive, no maximum limit is assumed
+	 * @param maxNumHops Maximum number of hops. If non-positive, no maximum limit is assumed
+	 * @param maxPropDelayInMs Maximum propagation delay of the path. If non-positive, no maximum limit is assumed
+	 * @param maxRouteCost Maximum route cost. If non-positive, no maximum limit is assumed
+	 * @param maxRouteCostFactorRespectToShortestPath Maximum route cost factor respect to the shortest path. If non-positive, no maximum limit is assumed
+	 * @param maxRouteCostRespectToShortestPath Maximum route cost respect to the shortest path. If non-positive, no maximum limit is assumed
+	 * @param numThreads the number of threads to use. If one or less, the computation is sequential in the calling thread
+	 * @return K-shortest paths (values) per node pair (keys) */
+	public static SortedMap<Pair<Node, Node>, List<List<Link>>> getKLooplessShortestPaths(List<Node> nodes, List<Link> links, Collection<Pair<Node, Node>> nodePairs, Map<Link, Double> linkCostMap, int K, double maxLengthInKm, int maxNumHops, double maxPropDelayInMs, double maxRouteCost, double maxRouteCostFactorRespectToShortestPath, double maxRouteCostRespectToShortestPath, int numThreads)
+	{
+		final List<Link> filteredListLinks = linkCostMap == null? links : links.stream().filter(e->linkCostMap.get(e) != Double.MAX_VALUE).collect(Collectors.toList());
+		final Graph<Node, Link> g = JUNGUtils.getGraphFromLinkMap(nodes, filteredListLinks);
+		final Transformer<Link, Double> nev = JUNGUtils.getEdgeWeightTransformer(linkCostMap);
+		final List<Pair<Node, Node>> pairList = new ArrayList<> (nodePairs);
+		final List<List<List<Link>>> pathsPerPair = new ArrayList<> (Collections.nCopies(pairList.size(), null));
+		if (numThreads <= 1 || pairList.size() <= 1)
+		{
+			for (int cont = 0; cont < pairList.size(); cont++)
+				pathsPerPair.set(cont, getKLooplessShortestPaths(g, nev, pairList.get(cont).getFirst(), pairList.get(cont).getSecond(), K, maxLengthInKm, maxNumHops, maxPropDelayInMs, maxRouteCost, maxRouteCostFactorRespectToShortestPath, maxRouteCostRespectToShortestPath));
+		} else
+		{
+			/* The graph and transformer are only read from here on, so they can be shared by the workers. Each worker writes in its own positions */
+			final ForkJoinPool pool = new ForkJoinPool(numThreads);
+			try
+			{
+				pool.submit(() -> IntStream.range(0, pairList.size()).parallel().forEach(cont -> 
+					pathsPerPair.set(cont, getKLooplessShortestPaths(g, nev, pairList.get(cont).getFirst(), pairList.get(cont).getSecond(), K, maxLengthInKm, maxNumHops, maxPropDelayInMs, maxRouteCost, maxRouteCostFactorRespectToShortestPath, maxRouteCostRespectToShortestPath)))).get();
+			} catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				throw new Net2PlanException("Interrupted while computing the k-shortest paths");
+			} catch (ExecutionException e)
+			{
+				if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+				throw new RuntimeException(e.getCause());
+			} finally
+			{
+				pool.shutdown();
+			}
+		}
+		final SortedMap<Pair<Node, Node>, List<List<Link>>> res = new TreeMap<> ();
+		for (int cont = 0; cont < pairList.size(); cont++)
+			res.put(pairList.get(cont), pathsPerPair.get(cont));
+		return res;
+	}
+
+	private static List<List<Link>> getKLooplessShortestPaths(Graph<Node, Link> g, Transformer<Link, Double> nev, Node originNode, Node destinationNode, int K, double maxLengthInKm, int maxNumHops, double maxPropDelayInMs, double maxRouteCost, double maxRouteCostFactorRespectToShortestPath, double maxRouteCostRespectToShortestPath)
 	{
 		if (maxLengthInKm <= 0) maxLengthInKm = Double.MAX_VALUE;
 		if (maxNumHops <= 0) maxNumHops = Integer.MAX_VALUE;
@@ -879,10 +947,7 @@ public class GraphUtils
 		if (maxRouteCostFactorRespectToShortestPath <= 0) maxRouteCostFactorRespectToShortestPath = Double.MAX_VALUE;
 		if (maxRouteCostRespectToShortestPath <= 0) maxRouteCostRespectToShortestPath = Double.MAX_VALUE;
 
-		final List<Link> filteredListLinks = linkCostMap == null? links : links.stream().filter(e->linkCostMap.get(e) != Double.MAX_VALUE).collect(Collectors.toList());
-		final Graph<Node, Link> g = JUNGUtils.getGraphFromLinkMap(nodes, filteredListLinks);
-		YenAlgorithm<Node, Link> paths = new YenAlgorithm<Node, Link>(g, 
-				JUNGUtils.getEdgeWeightTransformer(linkCostMap), 
+		YenAlgorithm<Node, Link> paths = new YenAlgorithm<Node, Link>(g, nev, 
 				K, maxNumHops, maxLengthInKm, maxPropDelayInMs, maxRouteCost, 
 				maxRouteCostFactorRespectToShortestPath, maxRouteCostRespectToShortestPath)
 		{
@@ -1385,6 +1450,8 @@ public class GraphUtils
 	 *     <li>the type of routing of the demand (loopless, or close cycles. Open cycles are not detected)</li>
 	 *     <li>the fraction of demand traffic that arrives to the destination node and is absorbed there (it may be less than one if the routing has cycles that involve the destination node)</li>
 	 * </ol>
+	 * <p>If the forwarding rules have no cycles, the vector is computed propagating the traffic in topological order through the links with 
+	 * forwarding rules, and the linear system is only solved otherwise.</p>
 	 * @param frs the forwarding rules applicable
 	 * @param outFrs output forwarding rule
 	 * @param ingressNode the ingress node
@@ -1393,6 +1460,8 @@ public class GraphUtils
 	 */
 	public static Quintuple<DoubleMatrix1D, RoutingCycleType,  Double , Double , Double> computeRoutingFundamentalVector(SortedMap<Link,Double> frs , SortedMap<Node,SortedSet<Link>> outFrs , Node ingressNode , Node egressNode)
 	{
+		final Quintuple<DoubleMatrix1D, RoutingCycleType,  Double , Double , Double> resLoopless = computeRoutingFundamentalVectorIfNoCycles(frs, ingressNode, egressNode);
+		if (resLoopless != null) return resLoopless;
 		final int N = ingressNode.getNetPlan ().getNumberOfNodes();
 		DoubleMatrix2D eyeMinusQ_nn = new SparseCCDoubleMatrix2D (N,N);
 		for (Entry<Link,Double> frInfo : frs.entrySet())
@@ -1418,6 +1487,99 @@ public class GraphUtils
 		return Quintuple.of(Mv, routingCycleType , s_n , wcProp , wcLength);
 	}
 
+
+	/* Fast path of computeRoutingFundamentalVector when the forwarding rules form no cycle (the usual case, e.g. in OSPF routing): the 
+	 * traffic is propagated in topological order, visiting only the links with forwarding rules. Returns null if the rules have a 
+	 * cycle (open or closed), so the linear system should be solved */
+	private static Quintuple<DoubleMatrix1D, RoutingCycleType,  Double , Double , Double> computeRoutingFundamentalVectorIfNoCycles (SortedMap<Link,Double> frs , Node ingressNode , Node egressNode)
+	{
+		final int N = ingressNode.getNetPlan ().getNumberOfNodes();
+		final int A = frs.size();
+		final Link [] links = new Link [A];
+		final double [] splitFactors = new double [A];
+		final int [] outStart = new int [N+1];
+		final int [] inDegree = new int [N];
+		for (Entry<Link,Double> frInfo : frs.entrySet())
+		{
+			final Link e = frInfo.getKey();
+			outStart [e.getOriginNode().getIndex() + 1] ++;
+			inDegree [e.getDestinationNode().getIndex()] ++;
+		}
+		for (int n = 0; n < N ; n ++) outStart [n+1] += outStart [n];
+		final int [] nextPos = Arrays.copyOf(outStart, N);
+		for (Entry<Link,Double> frInfo : frs.entrySet())
+		{
+			final int pos = nextPos [frInfo.getKey().getOriginNode().getIndex()] ++;
+			links [pos] = frInfo.getKey();
+			splitFactors [pos] = frInfo.getValue();
+		}
+		
+		/* Topological order of the nodes with forwarding rules (Kahn's algorithm). If not all of them are sorted, there are cycles */
+		final int [] topologicalOrder = new int [N];
+		int numSorted = 0;
+		int numNodesWithRules = 0;
+		for (int n = 0; n < N ; n ++)
+		{
+			if ((outStart [n+1] == outStart [n]) && (inDegree [n] == 0)) continue;
+			numNodesWithRules ++;
+			if (inDegree [n] == 0) topologicalOrder [numSorted ++] = n;
+		}
+		for (int cont = 0; cont < numSorted ; cont ++)
+		{
+			final int n = topologicalOrder [cont];
+			for (int pos = outStart [n]; pos < outStart [n+1] ; pos ++)
+				if (-- inDegree [links [pos].getDestinationNode().getIndex()] == 0) 
+					topologicalOrder [numSorted ++] = links [pos].getDestinationNode().getIndex();
+		}
+		if (numSorted < numNodesWithRules) return null;
+
+		/* Expected number of visits to each node, and longest (worst case) paths from the ingress node, not traversing the egress node */
+		final double [] M = new double [N];
+		final double [] wcPropSoFar = new double [N];
+		final double [] wcLengthSoFar = new double [N];
+		final boolean [] reachedNotThroughEgress = new boolean [N];
+		final int ingressIndex = ingressNode.getIndex();
+		final int egressIndex = egressNode == null? -1 : egressNode.getIndex();
+		M [ingressIndex] = 1;
+		reachedNotThroughEgress [ingressIndex] = true;
+		for (int cont = 0; cont < numSorted ; cont ++)
+		{
+			final int n = topologicalOrder [cont];
+			final boolean propagateWc = reachedNotThroughEgress [n] && (n != egressIndex);
+			for (int pos = outStart [n]; pos < outStart [n+1] ; pos ++)
+			{
+				final Link e = links [pos];
+				final int b = e.getDestinationNode().getIndex();
+				M [b] += M [n] * splitFactors [pos];
+				if (!propagateWc || (splitFactors [pos] == 0)) continue;
+				if (!reachedNotThroughEgress [b])
+				{
+					reachedNotThroughEgress [b] = true;
+					wcPropSoFar [b] = wcPropSoFar [n] + e.getPropagationDelayInMs();
+					wcLengthSoFar [b] = wcLengthSoFar [n] + e.getLengthInKm();
+				}
+				else
+				{
+					wcPropSoFar [b] = Math.max(wcPropSoFar [b] , wcPropSoFar [n] + e.getPropagationDelayInMs());
+					wcLengthSoFar [b] = Math.max(wcLengthSoFar [b] , wcLengthSoFar [n] + e.getLengthInKm());
+				}
+			}
+		}
+
+		double s_n = egressNode == null? -1 : 1;
+		boolean egressForwardsTraffic = false;
+		if (egressNode != null) 
+			for (int pos = outStart [egressIndex]; pos < outStart [egressIndex+1] ; pos ++) 
+			{ 
+				s_n -= splitFactors [pos]; 
+				if (splitFactors [pos] > 0) egressForwardsTraffic = true; 
+			}
+		final boolean egressReached = (egressNode != null) && (egressIndex != ingressIndex) && reachedNotThroughEgress [egressIndex];
+		final double wcProp = egressReached && !egressForwardsTraffic? wcPropSoFar [egressIndex] : Double.MAX_VALUE;
+		final double wcLength = egressReached && !egressForwardsTraffic? wcLengthSoFar [egressIndex] : Double.MAX_VALUE;
+		final RoutingCycleType routingCycleType = wcProp == Double.MAX_VALUE? RoutingCycleType.OPEN_CYCLES : RoutingCycleType.LOOPLESS;
+		return Quintuple.of(DoubleFactory1D.dense.make(M), routingCycleType , s_n , wcProp , wcLength);
+	}
 	
 	/** <p>Given a list of Network Element, it computes the node-network element incoming incidence matrix. This is a matrix with as many rows as nodes, and as many columns as network elements. Position (<i>n</i>, <i>e</i>) has a 1 if element <i>e</i> (<i>e = 0</i> refers to the first element n {@code elements}, <i>e = 1</i> refers to the second one, and so on) is terminated in node <i>n</i> (<i>n = 0</i> refers to the first node in {@code nodes}, <i>n = 1</i> refers to the second one, and so on), and 0 otherwise.</p>
 	 * 
@@ -1497,6 +1659,53 @@ public class GraphUtils
 		return path;
 	}
 
+
+	/** Obtains the sequence of links representing the (unidirectional) shortest path between two nodes, computed on a {@link CsrGraph} topology snapshot.
+	 * Links with cost {@code Double.MAX_VALUE} are not considered.
+	 * @param graph the topology snapshot
+	 * @param linkCosts Cost per link, indexed by the link index. If <code>null</code>, the shortest path in number of traversed links is returned
+	 * @param originNode Origin node
+	 * @param destinationNode Destination node
+	 * @return Sequence of links in the shortest path (empty, if destination not reachable from origin) */
+	public static List<Link> getShortestPath(CsrGraph graph, double [] linkCosts, Node originNode, Node destinationNode)
+	{
+		return graph.getShortestPath(linkCosts, originNode, destinationNode);
+	}
+
+	/** Returns the K-loopless shortest paths between two nodes, computed on a {@link CsrGraph} topology snapshot. The constraints are the same as in 
+	 * {@link #getKLooplessShortestPaths(List, List, Node, Node, Map, int, double, int, double, double, double, double) getKLooplessShortestPaths}
+	 * @param graph the topology snapshot
+	 * @param linkCosts Cost per link, indexed by the link index. If {@code null}, all links have weight one. A value of Double.MAX_VALUE means that the link cannot be used
+	 * @param originNode Origin node
+	 * @param destinationNode Destination node
+	 * @param K Desired nummber of paths (a lower number of paths may be returned if there are less than {@code K} loop-less paths admissible)
+	 * @param maxLengthInKm Maximum length of the path. If non-positive, no maximum limit is assumed
+	 * @param maxNumHops Maximum number of hops. If non-positive, no maximum limit is assumed
+	 * @param maxPropDelayInMs Maximum propagation delay of the path. If non-positive, no maximum limit is assumed
+	 * @param maxRouteCost Maximum route cost. If non-positive, no maximum limit is assumed
+	 * @param maxRouteCostFactorRespectToShortestPath Maximum route cost factor respect to the shortest path. If non-positive, no maximum limit is assumed
+	 * @param maxRouteCostRespectToShortestPath Maximum route cost respect to the shortest path. If non-positive, no maximum limit is assumed
+	 * @return K-shortest paths */
+	public static List<List<Link>> getKLooplessShortestPaths(CsrGraph graph, double [] linkCosts, Node originNode, Node destinationNode, int K, double maxLengthInKm, int maxNumHops, double maxPropDelayInMs, double maxRouteCost, double maxRouteCostFactorRespectToShortestPath, double maxRouteCostRespectToShortestPath)
+	{
+		return graph.getKLooplessShortestPaths(linkCosts, originNode, destinationNode, K, maxLengthInKm, maxNumHops, maxPropDelayInMs, maxRouteCost, maxRouteCostFactorRespectToShortestPath, maxRouteCostRespectToShortestPath);
+	}
+
+	/** Returns the shortest pair of link-disjoint paths, computed on a {@link CsrGraph} topology snapshot, where each item represents a path. 
+	 * Links with cost Double.MAX_VALUE are not considered. 
+	 * The number of returned items will be equal to the number of paths found: 
+	 * when empty, no path was found; when {@code size()} = 1, only one path was found; 
+	 * and when {@code size()} = 2, the link-disjoint paths were found. 
+	 * Internally it uses the Suurballe algorithm.
+	 * @param graph the topology snapshot
+	 * @param linkCosts Cost per link, indexed by the link index. If {@code null}, all links have weight one
+	 * @param originNode Origin node
+	 * @param destinationNode Destination node
+	 * @return Shortest pair of link-disjoint paths */
+	public static List<List<Link>> getTwoLinkDisjointPaths(CsrGraph graph, double [] linkCosts, Node originNode, Node destinationNode)
+	{
+		return graph.getTwoLinkDisjointPaths(linkCosts, originNode, destinationNode);
+	}
 	
 	/**
 	 * Returns the K-minimum cost multicast trees starting in the originNode and ending in the set destinationNodes, satisfying some user-defined constraints.
@@ -271,66 +271,24 @@ public class IPUtils
 	 */
 	public static DoubleMatrix2D computeECMPRoutingTableMatrix_fte (List<Node> nodes, List<Link> links, DoubleMatrix1D linkWeightVector)
 	{
-		final int N = nodes.size();
-		final int E = links.size();
-
-		final SortedMap<Link,Double> linkWeightMap = CollectionUtils.toMap(links, linkWeightVector);
-		final Transformer<Link, Double> nev = JUNGUtils.getEdgeWeightTransformer(linkWeightMap);
-		final List<Link> linksToConsider = links.stream().filter(e->linkWeightMap.get(e) != Double.MAX_VALUE).collect(Collectors.toList());
-		final Graph<Node, Link> graph = JUNGUtils.getGraphFromLinkMap(nodes, linksToConsider);
-		final DijkstraDistance<Node,Link> shortestDistanceMatrix = new DijkstraDistance<Node,Link> (graph, nev); 
-		
-		final DoubleMatrix2D f_te = DoubleFactory2D.sparse.make(N,E);
-		
-		final SortedMap<Pair<Node, Node>, Pair<SortedSet<Link>,Double>> linksPerNodeSameMinimumCost = new TreeMap<>();
-		for(Link link : linksToConsider)
-		{
-			final double newLinkCost = linkWeightMap.get(link);
-			final Pair<Node,Node> nodePair_thisLink = Pair.of(link.getOriginNode() , link.getDestinationNode());
-			final Pair<SortedSet<Link>,Double> links_thisNodePair = linksPerNodeSameMinimumCost.get(nodePair_thisLink);
-			if (links_thisNodePair == null)
-			{
-				final SortedSet<Link> setForLinkThisNodePair = new TreeSet<Link>();
-				setForLinkThisNodePair.add(link);
-				linksPerNodeSameMinimumCost.put(nodePair_thisLink, Pair.of(setForLinkThisNodePair , newLinkCost));
-			}
-			else
-			{
-				final double previousLinksCost = links_thisNodePair.getSecond();
-				if (newLinkCost < previousLinksCost) { links_thisNodePair.getFirst().clear(); links_thisNodePair.getFirst().add(link); links_thisNodePair.setSecond(newLinkCost); }
-				else if (newLinkCost == previousLinksCost) { links_thisNodePair.getFirst().add(link); }
-				else if (newLinkCost > previousLinksCost) { continue; }
-			}
-		}
+		if (linkWeightVector.size() != links.size()) throw new Net2PlanException ("Wrong array size");
+		final double [] linkWeights = new double [links.stream().mapToInt(e->e.getIndex()).max().orElse(-1) + 1];
+		for (int cont = 0; cont < links.size() ; cont ++) linkWeights [links.get(cont).getIndex()] = linkWeightVector.get(cont);
+		return computeECMPRoutingTableMatrix_fte(new CsrGraph (nodes, links), linkWeights);
+	}
 
-		for (Node egressNode : nodes)
-		{
-			final int t = egressNode.getIndex();
-			for (Node sourceNode : nodes)
-			{
-				final int n = sourceNode.getIndex ();
-				if (n == t) continue;
-				final Number shortestPathDistance_ij = shortestDistanceMatrix.getDistance(sourceNode, egressNode);
-				if (shortestPathDistance_ij == null) continue; // egress not reachable
-				final SortedSet<Link> minCostLinks = new TreeSet<> (); 
-				for (Node intermediateNode : graph.getNeighbors(sourceNode))
-				{
-					final Pair<SortedSet<Link>,Double> nodePairLinks = linksPerNodeSameMinimumCost.get(Pair.of(sourceNode, intermediateNode));
-					if (nodePairLinks == null) continue;
-					if (nodePairLinks.getFirst().isEmpty()) continue;
-					final Number costFromIntermediateToEnd = shortestDistanceMatrix.getDistance(intermediateNode, egressNode);
-					if (costFromIntermediateToEnd == null) continue;
-					final double costThroghThisIntermediate = nodePairLinks.getSecond() + costFromIntermediateToEnd.doubleValue();
-					if (Math.abs(shortestPathDistance_ij.doubleValue() - costThroghThisIntermediate) < 1E-10)
-						minCostLinks.addAll(nodePairLinks.getFirst());
-				}
-				final int outdegree = minCostLinks.size();
-				if (outdegree > 0)
-					for (Link link : minCostLinks)
-						f_te.set (t , link.getIndex () , 1.0 / outdegree);
-			}
-		}
-		return f_te;
+	/**
+	 * Computes the routing table matrix according to an OSPF/ECMP scheme, as in {@link #computeECMPRoutingTableMatrix_fte(List, List, DoubleMatrix1D)}, 
+	 * on a previously built topology snapshot. This avoids building the graph in algorithms that compute the routing 
+	 * for many different link weights on the same topology. 
+	 * Links with a weight of Double.MAX_VALUE are not considered
+	 * @param graph the topology snapshot
+	 * @param linkWeights the weight of each link, indexed by the link index
+	 * @return Destination-based routing in the form <i>f<sub>te</sub></i> (fractions of traffic in a node, that is forwarded through each of its output links to node {@code t})
+	 */
+	public static DoubleMatrix2D computeECMPRoutingTableMatrix_fte (CsrGraph graph, double [] linkWeights)
+	{
+		return graph.computeECMPRoutingTableMatrix_fte(linkWeights);
 	}
 
 	/**
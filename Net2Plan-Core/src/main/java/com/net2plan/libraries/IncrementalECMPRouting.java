@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.libraries;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.net2plan.interfaces.networkDesign.Demand;
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.Net2PlanException;
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.NetworkLayer;
+import com.net2plan.interfaces.networkDesign.Node;
+
+import cern.colt.matrix.tdouble.DoubleFactory1D;
+import cern.colt.matrix.tdouble.DoubleFactory2D;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+
+/**
+ * <p>Keeps the OSPF/ECMP routing of the demands in a layer, and the resulting carried traffic per link, for a given link weight setting.
+ * When the weight of a link changes, only the destinations whose shortest path DAG changes are updated: the shortest path distances to that destination
+ * are updated (incrementally if the weight decreases), and the traffic towards that destination is propagated again along the new DAG.
+ * This makes it suitable for the weight optimization heuristics, that evaluate many link weight settings differing in a single weight.</p>
+ *
+ * <p>The results are the same as those of {@link IPUtils#computeCarriedTrafficFromIGPWeights(NetPlan, DoubleMatrix1D, NetworkLayer...)} and
+ * {@link IPUtils#computeECMPRoutingTableMatrix_fte(List, List, DoubleMatrix1D)}: all the demands of the layer are considered, and the traffic of the
+ * demands whose egress node is not reachable is not carried. The object captures the topology and the offered traffic of the demands at construction time.</p>
+ */
+public class IncrementalECMPRouting
+{
+	private final CsrGraph graph;
+	private final double [] linkWeights;
+	private final double [][] distToDestination;
+	private final double [][] trafficToDestination;
+	private final double [][] y_te;
+	private final double [] y_e;
+	private final double [] inflow;
+	private final CsrGraph.IndexedMinHeap heap;
+
+	/**
+	 * Creates the object, computing the ECMP routing for the given link weights
+	 * @param netPlan the design
+	 * @param linkWeightVector the weight of each link of the layer (if null, taken from the link attributes as in {@link IPUtils#getLinkWeightVector(NetPlan, NetworkLayer...)}). Weights must be strictly positive. A weight of Double.MAX_VALUE means the link is not used
+	 * @param optionalLayer the layer (optional)
+	 */
+	public IncrementalECMPRouting (NetPlan netPlan , DoubleMatrix1D linkWeightVector , NetworkLayer ... optionalLayer)
+	{
+		final NetworkLayer layer = netPlan.checkInThisNetPlanOptionalLayerParameter(optionalLayer);
+		if (linkWeightVector == null) linkWeightVector = IPUtils.getLinkWeightVector(netPlan, layer);
+		final List<Link> links = netPlan.getLinks(layer);
+		if (linkWeightVector.size() != links.size()) throw new Net2PlanException ("Wrong array size");
+		this.graph = new CsrGraph (netPlan.getNodes() , links);
+		final int N = graph.getNumberOfNodes();
+		final int E = graph.getNumberOfLinks();
+		this.linkWeights = new double [E];
+		for (int e = 0; e < E ; e ++)
+		{
+			final double w = linkWeightVector.get(e);
+			if (w <= 0) throw new Net2PlanException ("Link weights must be strictly possitive");
+			linkWeights [links.get(e).getIndex()] = w;
+		}
+		this.distToDestination = new double [N][N];
+		this.trafficToDestination = new double [N][];
+		this.y_te = new double [N][];
+		this.y_e = new double [E];
+		this.inflow = new double [N];
+		this.heap = new CsrGraph.IndexedMinHeap (N);
+		for (Demand d : netPlan.getDemands(layer))
+		{
+			final int t = graph.getNodePos(d.getEgressNode());
+			if (trafficToDestination [t] == null) { trafficToDestination [t] = new double [N]; y_te [t] = new double [E]; }
+			trafficToDestination [t][graph.getNodePos(d.getIngressNode())] += d.getOfferedTraffic();
+		}
+		for (int t = 0; t < N ; t ++)
+		{
+			graph.dijkstraToDestination(linkWeights, t, distToDestination [t]);
+			updateTrafficToDestination(t);
+		}
+	}
+
+	/**
+	 * Returns the current weight of the link
+	 * @param e the link
+	 * @return the weight
+	 */
+	public double getLinkWeight (Link e)
+	{
+		return linkWeights [getLinkPos(e)];
+	}
+
+	/**
+	 * Changes the weight of a link, updating the routing and carried traffic only for the destinations whose shortest path DAG changes
+	 * @param e the link
+	 * @param newWeight the new weight (strictly positive). A weight of Double.MAX_VALUE means the link is not used
+	 * @return the number of destinations whose routing was updated
+	 */
+	public int setLinkWeight (Link e , double newWeight)
+	{
+		return setLinkWeight(getLinkPos(e), newWeight);
+	}
+
+	/**
+	 * Changes the weights of all the links, updating the routing incrementally for each link whose weight changed
+	 * @param linkWeightVector the new weight of each link of the layer
+	 * @return the number of destination updates made
+	 */
+	public int setLinkWeights (DoubleMatrix1D linkWeightVector)
+	{
+		if (linkWeightVector.size() != graph.getNumberOfLinks()) throw new Net2PlanException ("Wrong array size");
+		int numUpdates = 0;
+		for (int e = 0; e < graph.getNumberOfLinks() ; e ++)
+			if (linkWeightVector.get(e) != linkWeights [e]) numUpdates += setLinkWeight(e, linkWeightVector.get(e));
+		return numUpdates;
+	}
+
+	/**
+	 * Returns the traffic carried by each link, with the current link weights
+	 * @return a new vector with the carried traffic, indexed by link index
+	 */
+	public DoubleMatrix1D getCarriedTrafficPerLink ()
+	{
+		return DoubleFactory1D.dense.make(Arrays.copyOf(y_e, y_e.length));
+	}
+
+	/**
+	 * Returns the routing table matrix, in the same form as in {@link IPUtils#computeECMPRoutingTableMatrix_fte(List, List, DoubleMatrix1D)}
+	 * @return Destination-based routing in the form <i>f<sub>te</sub></i> (fractions of traffic in a node, that is forwarded through each of its output links to node {@code t})
+	 */
+	public DoubleMatrix2D getRoutingTableMatrix_fte ()
+	{
+		final int N = graph.getNumberOfNodes();
+		final int E = graph.getNumberOfLinks();
+		final DoubleMatrix2D f_te = DoubleFactory2D.sparse.make(N,E);
+		final int [] numOutLinks = new int [N];
+		for (int t = 0; t < N ; t ++)
+		{
+			Arrays.fill(numOutLinks, 0);
+			for (int e = 0; e < E ; e ++) if (isInDag(e, t)) numOutLinks [graph.linkOriginPos [e]] ++;
+			for (int e = 0; e < E ; e ++) if (isInDag(e, t)) f_te.set(t, e, 1.0 / numOutLinks [graph.linkOriginPos [e]]);
+		}
+		return f_te;
+	}
+
+	private int getLinkPos (Link e)
+	{
+		final int pos = graph.getLinkPos(e);
+		if (pos == -1) throw new Net2PlanException ("Unknown link");
+		return pos;
+	}
+
+	private int setLinkWeight (int e , double newWeight)
+	{
+		if (newWeight <= 0) throw new Net2PlanException ("Link weights must be strictly possitive");
+		final double oldWeight = linkWeights [e];
+		if (oldWeight == newWeight) return 0;
+		final int a = graph.linkOriginPos [e];
+		final int b = graph.linkDestinationPos [e];
+		final int N = graph.getNumberOfNodes();
+		int numUpdatedDestinations = 0;
+		/* The DAG of the destinations not updated below is the same with the old and the new weight */
+		linkWeights [e] = newWeight;
+		for (int t = 0; t < N ; t ++)
+		{
+			if (a == t) continue; // links out of the destination are never in its DAG
+			final double [] dist = distToDestination [t];
+			if (dist [b] == Double.POSITIVE_INFINITY) continue;
+			final boolean wasInDag = oldWeight != Double.MAX_VALUE && dist [a] != Double.POSITIVE_INFINITY && Math.abs(dist [a] - (oldWeight + dist [b])) < 1E-10;
+			final boolean isAffected;
+			if (newWeight < oldWeight)
+				isAffected = newWeight != Double.MAX_VALUE && newWeight + dist [b] < dist [a] + 1E-10;
+			else
+				isAffected = wasInDag;
+			if (!isAffected) continue;
+			numUpdatedDestinations ++;
+			if (newWeight < oldWeight)
+				decreaseDistances(t, a, newWeight + dist [b]);
+			else
+				graph.dijkstraToDestination(linkWeights, t, dist);
+			updateTrafficToDestination(t);
+		}
+		return numUpdatedDestinations;
+	}
+
+	/* The distance from node n to destination t decreases to the given value: propagate the decrease upstream */
+	private void decreaseDistances (int t , int n , double newDist)
+	{
+		final double [] dist = distToDestination [t];
+		if (newDist >= dist [n]) return;
+		dist [n] = newDist;
+		heap.insertOrDecrease(n, newDist);
+		while (!heap.isEmpty())
+		{
+			final int v = heap.pollMin();
+			for (int cont = graph.inStart [v]; cont < graph.inStart [v+1] ; cont ++)
+			{
+				final int f = graph.inLinks [cont];
+				final double w = linkWeights [f];
+				if (w == Double.MAX_VALUE) continue;
+				final int u = graph.linkOriginPos [f];
+				if (dist [v] + w < dist [u]) { dist [u] = dist [v] + w; heap.insertOrDecrease(u, dist [u]); }
+			}
+		}
+	}
+
+	private boolean isInDag (int e , int t)
+	{
+		final int a = graph.linkOriginPos [e];
+		if (a == t) return false;
+		final double w = linkWeights [e];
+		if (w == Double.MAX_VALUE) return false;
+		final double [] dist = distToDestination [t];
+		final int b = graph.linkDestinationPos [e];
+		if (dist [a] == Double.POSITIVE_INFINITY || dist [b] == Double.POSITIVE_INFINITY) return false;
+		return Math.abs(dist [a] - (w + dist [b])) < 1E-10;
+	}
+
+	/* Propagates the traffic to destination t along its shortest path DAG, in decreasing order of distance to t, updating the link carried traffic */
+	private void updateTrafficToDestination (int t)
+	{
+		if (trafficToDestination [t] == null) return;
+		final int N = graph.getNumberOfNodes();
+		final double [] dist = distToDestination [t];
+		final double [] y_thisDestination = y_te [t];
+		for (int e = 0; e < y_thisDestination.length ; e ++) y_e [e] -= y_thisDestination [e];
+		Arrays.fill(y_thisDestination, 0);
+		System.arraycopy(trafficToDestination [t], 0, inflow, 0, N);
+		/* the nodes are taken from the heap in decreasing order of distance (the key is the distance with the sign changed) */
+		for (int n = 0; n < N ; n ++) if (n != t && dist [n] != Double.POSITIVE_INFINITY) heap.insertOrDecrease(n, -dist [n]);
+		while (!heap.isEmpty())
+		{
+			final int n = heap.pollMin();
+			if (inflow [n] == 0) continue;
+			int numOutLinks = 0;
+			for (int cont = graph.outStart [n]; cont < graph.outStart [n+1] ; cont ++) if (isInDag(graph.outLinks [cont], t)) numOutLinks ++;
+			final double trafficPerLink = inflow [n] / numOutLinks;
+			for (int cont = graph.outStart [n]; cont < graph.outStart [n+1] ; cont ++)
+			{
+				final int e = graph.outLinks [cont];
+				if (!isInDag(e, t)) continue;
+				y_thisDestination [e] = trafficPerLink;
+				inflow [graph.linkDestinationPos [e]] += trafficPerLink;
+			}
+		}
+		for (int e = 0; e < y_thisDestination.length ; e ++) y_e [e] += y_thisDestination [e];
+	}
+}
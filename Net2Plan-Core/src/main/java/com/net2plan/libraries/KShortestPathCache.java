@@ -0,0 +1,312 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.libraries;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.Net2PlanException;
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.NetworkLayer;
+import com.net2plan.interfaces.networkDesign.Node;
+import com.net2plan.utils.Triple;
+
+/**
+ * <p>Cache of the K-loopless shortest paths between node pairs, for algorithms (e.g. online event processors) that compute the candidate paths
+ * of the same node pairs again and again. Entries are keyed by layer, node pair and path constraints ({@link PathConstraints}), and are computed
+ * on a {@link CsrGraph} snapshot of the layer topology, built once and reused for all the node pairs.</p>
+ *
+ * <p>The cache is not notified automatically of the changes in the design: the user should call {@link #linkAdded(Link)}, {@link #linkRemoved(Link)},
+ * {@link #linkChanged(Link)} (failure state, length or propagation delay changed), {@link #nodeAdded(Node)} and {@link #nodeRemoved(Node)}.
+ * Only the entries that may be affected by the change are invalidated: the ones with a path traversing the link, and, if the link is usable now, the ones
+ * where a path through the link could be among the K shortest (less than K paths cached, or the link cost alone not higher than the cost of the K-th path).</p>
+ */
+public class KShortestPathCache
+{
+	/**
+	 * The link cost used to order the paths
+	 */
+	public enum LinkCostType
+	{
+		/** All the links have cost one */
+		HOPS,
+		/** The cost of a link is its length in km */
+		LENGTH_IN_KM,
+		/** The cost of a link is its propagation delay in ms */
+		PROPAGATION_DELAY_IN_MS
+	}
+
+	/**
+	 * The set of constraints of the K-loopless shortest paths computation, with the same meaning as in
+	 * {@link GraphUtils#getKLooplessShortestPaths(List, List, Node, Node, Map, int, double, int, double, double, double, double)}, plus the link cost type,
+	 * and if the links that are down can be used. Two objects with the same values are equal.
+	 */
+	public static final class PathConstraints
+	{
+		private final LinkCostType linkCostType;
+		private final boolean onlyUpLinks;
+		private final int K;
+		private final double maxLengthInKm;
+		private final int maxNumHops;
+		private final double maxPropDelayInMs;
+		private final double maxRouteCost;
+		private final double maxRouteCostFactorRespectToShortestPath;
+		private final double maxRouteCostRespectToShortestPath;
+
+		/**
+		 * Creates the set of constraints
+		 * @param linkCostType the link cost
+		 * @param onlyUpLinks if true, the links that are down are not used
+		 * @param K Desired nummber of paths (a lower number of paths may be returned if there are less than {@code K} loop-less paths admissible)
+		 * @param maxLengthInKm Maximum length of the path. If non-positive, no maximum limit is assumed
+		 * @param maxNumHops Maximum number of hops. If non-positive, no maximum limit is assumed
+		 * @param maxPropDelayInMs Maximum propagation delay of the path. If non-positive, no maximum limit is assumed
+		 * @param maxRouteCost Maximum route cost. If non-positive, no maximum limit is assumed
+		 * @param maxRouteCostFactorRespectToShortestPath Maximum route cost factor respect to the shortest path. If non-positive, no maximum limit is assumed
+		 * @param maxRouteCostRespectToShortestPath Maximum route cost respect to the shortest path. If non-positive, no maximum limit is assumed
+		 */
+		public PathConstraints (LinkCostType linkCostType , boolean onlyUpLinks , int K, double maxLengthInKm, int maxNumHops, double maxPropDelayInMs, double maxRouteCost, double maxRouteCostFactorRespectToShortestPath, double maxRouteCostRespectToShortestPath)
+		{
+			this.linkCostType = linkCostType;
+			this.onlyUpLinks = onlyUpLinks;
+			this.K = K;
+			this.maxLengthInKm = maxLengthInKm;
+			this.maxNumHops = maxNumHops;
+			this.maxPropDelayInMs = maxPropDelayInMs;
+			this.maxRouteCost = maxRouteCost;
+			this.maxRouteCostFactorRespectToShortestPath = maxRouteCostFactorRespectToShortestPath;
+			this.maxRouteCostRespectToShortestPath = maxRouteCostRespectToShortestPath;
+		}
+
+		/**
+		 * Returns the number of paths requested
+		 * @return see above
+		 */
+		public int getK () { return K; }
+
+		/**
+		 * Returns the link cost type
+		 * @return see above
+		 */
+		public LinkCostType getLinkCostType () { return linkCostType; }
+
+		/**
+		 * Returns true if the links that are down are not used
+		 * @return see above
+		 */
+		public boolean isOnlyUpLinks () { return onlyUpLinks; }
+
+		@Override
+		public boolean equals (Object o)
+		{
+			if (this == o) return true;
+			if (!(o instanceof PathConstraints)) return false;
+			final PathConstraints c = (PathConstraints) o;
+			return linkCostType == c.linkCostType && onlyUpLinks == c.onlyUpLinks && K == c.K && maxLengthInKm == c.maxLengthInKm && maxNumHops == c.maxNumHops &&
+					maxPropDelayInMs == c.maxPropDelayInMs && maxRouteCost == c.maxRouteCost && maxRouteCostFactorRespectToShortestPath == c.maxRouteCostFactorRespectToShortestPath &&
+					maxRouteCostRespectToShortestPath == c.maxRouteCostRespectToShortestPath;
+		}
+
+		@Override
+		public int hashCode ()
+		{
+			return Objects.hash(linkCostType, onlyUpLinks, K, maxLengthInKm, maxNumHops, maxPropDelayInMs, maxRouteCost, maxRouteCostFactorRespectToShortestPath, maxRouteCostRespectToShortestPath);
+		}
+	}
+
+	private static class CachedPaths
+	{
+		private final List<List<Link>> paths;
+		private final Set<Link> traversedLinks;
+		private final double costOfLastPath;
+
+		private CachedPaths (List<List<Link>> paths , double [] linkCosts)
+		{
+			this.paths = Collections.unmodifiableList(paths);
+			this.traversedLinks = new HashSet<> ();
+			double cost = 0;
+			for (List<Link> path : paths) traversedLinks.addAll(path);
+			if (!paths.isEmpty()) for (Link e : paths.get(paths.size()-1)) cost += linkCosts [e.getIndex()];
+			this.costOfLastPath = cost;
+		}
+	}
+
+	private static class LayerCache
+	{
+		private CsrGraph graph; // null if the topology changed, and the snapshot must be built again
+		private final Map<PathConstraints,double []> linkCosts = new HashMap<> (); // per constraints, since the cost depends on the cost type and the links down
+		private final Map<Triple<Node,Node,PathConstraints>,CachedPaths> entries = new HashMap<> ();
+	}
+
+	private final Map<NetworkLayer,LayerCache> cachePerLayer = new HashMap<> ();
+
+	/**
+	 * Returns the K-loopless shortest paths between the two nodes in the given layer, satisfying the given constraints. If they are in the cache, they are
+	 * returned with no computation. If not, they are computed and stored in the cache. The returned list cannot be modified.
+	 * @param originNode Origin node
+	 * @param destinationNode Destination node
+	 * @param constraints the path constraints
+	 * @param optionalLayerParameter Network layer (optional)
+	 * @return the K-shortest paths, in increasing order of cost
+	 */
+	public List<List<Link>> getKLooplessShortestPaths (Node originNode , Node destinationNode , PathConstraints constraints , NetworkLayer ... optionalLayerParameter)
+	{
+		final NetPlan netPlan = originNode.getNetPlan();
+		final NetworkLayer layer = netPlan.checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
+		if (destinationNode.getNetPlan() != netPlan) throw new Net2PlanException ("The nodes belong to different designs");
+		LayerCache layerCache = cachePerLayer.get(layer);
+		if (layerCache == null) { layerCache = new LayerCache (); cachePerLayer.put(layer, layerCache); }
+		final Triple<Node,Node,PathConstraints> key = Triple.of(originNode, destinationNode, constraints);
+		final CachedPaths cached = layerCache.entries.get(key);
+		if (cached != null) return cached.paths;
+
+		if (layerCache.graph == null)
+		{
+			layerCache.graph = new CsrGraph (netPlan.getNodes() , netPlan.getLinks(layer));
+			layerCache.linkCosts.clear();
+		}
+		double [] linkCosts = layerCache.linkCosts.get(constraints);
+		if (linkCosts == null)
+		{
+			final List<Link> links = layerCache.graph.getLinks();
+			linkCosts = new double [links.size()];
+			for (Link e : links) linkCosts [e.getIndex()] = getLinkCost(e, constraints);
+			layerCache.linkCosts.put(constraints, linkCosts);
+		}
+		final List<List<Link>> paths = layerCache.graph.getKLooplessShortestPaths(linkCosts, originNode, destinationNode, constraints.K, constraints.maxLengthInKm,
+				constraints.maxNumHops, constraints.maxPropDelayInMs, constraints.maxRouteCost, constraints.maxRouteCostFactorRespectToShortestPath, constraints.maxRouteCostRespectToShortestPath);
+		final CachedPaths newEntry = new CachedPaths (paths , linkCosts);
+		layerCache.entries.put(key, newEntry);
+		return newEntry.paths;
+	}
+
+	/**
+	 * Updates the cache after a link was added to the design
+	 * @param e the new link
+	 */
+	public void linkAdded (Link e)
+	{
+		final LayerCache layerCache = cachePerLayer.get(e.getLayer());
+		if (layerCache == null) return;
+		layerCache.graph = null;
+		invalidate(layerCache, e, false);
+	}
+
+	/**
+	 * Updates the cache after a link was removed from the design
+	 * @param e the removed link
+	 */
+	public void linkRemoved (Link e)
+	{
+		final LayerCache layerCache = cachePerLayer.get(e.getLayer());
+		if (layerCache == null) return;
+		layerCache.graph = null;
+		invalidate(layerCache, e, true);
+	}
+
+	/**
+	 * Updates the cache after a link of the design changed its failure state, its length or its propagation delay
+	 * @param e the link
+	 */
+	public void linkChanged (Link e)
+	{
+		final LayerCache layerCache = cachePerLayer.get(e.getLayer());
+		if (layerCache == null) return;
+		layerCache.linkCosts.clear();
+		invalidate(layerCache, e, false);
+	}
+
+	/**
+	 * Updates the cache after a node was added to the design (the cached paths are still valid, but the topology snapshots must be built again)
+	 * @param n the new node
+	 */
+	public void nodeAdded (Node n)
+	{
+		for (LayerCache layerCache : cachePerLayer.values()) layerCache.graph = null;
+	}
+
+	/**
+	 * Updates the cache after a node was removed from the design (which also removes its links)
+	 * @param n the removed node
+	 */
+	public void nodeRemoved (Node n)
+	{
+		for (LayerCache layerCache : cachePerLayer.values())
+		{
+			layerCache.graph = null;
+			final Iterator<Map.Entry<Triple<Node,Node,PathConstraints>,CachedPaths>> it = layerCache.entries.entrySet().iterator();
+			while (it.hasNext())
+			{
+				final Map.Entry<Triple<Node,Node,PathConstraints>,CachedPaths> entry = it.next();
+				boolean traversesNode = entry.getKey().getFirst() == n || entry.getKey().getSecond() == n;
+				for (Link e : entry.getValue().traversedLinks) if (e.getOriginNode() == n || e.getDestinationNode() == n) { traversesNode = true; break; }
+				if (traversesNode) it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all the entries of the cache
+	 */
+	public void clear ()
+	{
+		cachePerLayer.clear();
+	}
+
+	/**
+	 * Returns the number of node pair and constraints entries cached for the given layer
+	 * @param layer the layer
+	 * @return see above
+	 */
+	public int getNumberOfCachedEntries (NetworkLayer layer)
+	{
+		final LayerCache layerCache = cachePerLayer.get(layer);
+		return layerCache == null? 0 : layerCache.entries.size();
+	}
+
+	/* Removes the entries traversing the link, and if the link still exists, the ones that could now include a path through it */
+	private static void invalidate (LayerCache layerCache , Link e , boolean linkRemoved)
+	{
+		final Iterator<Map.Entry<Triple<Node,Node,PathConstraints>,CachedPaths>> it = layerCache.entries.entrySet().iterator();
+		while (it.hasNext())
+		{
+			final Map.Entry<Triple<Node,Node,PathConstraints>,CachedPaths> entry = it.next();
+			final CachedPaths cached = entry.getValue();
+			if (cached.traversedLinks.contains(e)) { it.remove(); continue; }
+			if (linkRemoved) continue;
+			final PathConstraints constraints = entry.getKey().getThird();
+			final double cost = getLinkCost(e, constraints);
+			if (cost == Double.MAX_VALUE) continue;
+			/* A path through e costs at least the cost of e */
+			if (cached.paths.size() < constraints.K || cost <= cached.costOfLastPath) it.remove();
+		}
+	}
+
+	private static double getLinkCost (Link e , PathConstraints constraints)
+	{
+		if (constraints.onlyUpLinks && e.isDown()) return Double.MAX_VALUE;
+		switch (constraints.linkCostType)
+		{
+			case HOPS: return 1;
+			case LENGTH_IN_KM: return e.getLengthInKm();
+			case PROPAGATION_DELAY_IN_MS: return e.getPropagationDelayInMs();
+			default: throw new RuntimeException ("Bad");
+		}
+	}
+}
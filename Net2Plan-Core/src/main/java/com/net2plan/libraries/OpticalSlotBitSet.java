@@ -0,0 +1,289 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License 
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+
+package com.net2plan.libraries;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.net2plan.utils.Pair;
+
+/** A set of optical slot ids, stored as a bitset of 64-bit words. Slot ids can be negative: bit 0 of the first word corresponds to a slot id that
+ * is a multiple of 64, and the words array grows in both directions as needed. Intersections and differences of the sets of two fibers or
+ * directionless modules are computed word by word, and ranges of contiguous slots are searched with bit scans. It is the slot occupancy
+ * representation used by the spectrum assignment algorithms of {@link WDMUtils} and {@link com.net2plan.niw.OpticalSpectrumManager}.
+ * @since 0.6.6
+ */
+public final class OpticalSlotBitSet
+{
+	private long [] words;
+	private int firstSlotId; // slot id of bit 0 of words [0], multiple of 64
+
+	/** Creates an empty set
+	 */
+	public OpticalSlotBitSet ()
+	{
+		this.words = new long [0];
+		this.firstSlotId = 0;
+	}
+
+	/** Creates a set with the slots in the given ranges (both ends included)
+	 * @param ranges see above
+	 * @return see above
+	 */
+	public static OpticalSlotBitSet fromRanges (List<Pair<Integer,Integer>> ranges)
+	{
+		final OpticalSlotBitSet res = new OpticalSlotBitSet();
+		for (Pair<Integer,Integer> range : ranges) res.setRange(range.getFirst(), range.getSecond());
+		return res;
+	}
+
+	/** Returns a copy of this set, that can be modified independently
+	 * @return see above
+	 */
+	public OpticalSlotBitSet copy ()
+	{
+		final OpticalSlotBitSet res = new OpticalSlotBitSet();
+		res.words = Arrays.copyOf(words, words.length);
+		res.firstSlotId = firstSlotId;
+		return res;
+	}
+
+	/** Returns true if the given slot is in the set
+	 * @param slotId see above
+	 * @return see above
+	 */
+	public boolean get (int slotId)
+	{
+		final int w = wordIndex(slotId);
+		return w >= 0 && w < words.length && (words [w] & bitMask(slotId)) != 0;
+	}
+
+	/** Adds the given slot to the set
+	 * @param slotId see above
+	 */
+	public void set (int slotId)
+	{
+		ensureCapacity(slotId, slotId);
+		words [wordIndex(slotId)] |= bitMask(slotId);
+	}
+
+	/** Removes the given slot from the set
+	 * @param slotId see above
+	 */
+	public void clear (int slotId)
+	{
+		final int w = wordIndex(slotId);
+		if (w >= 0 && w < words.length) words [w] &= ~bitMask(slotId);
+	}
+
+	/** Removes the given slots from the set
+	 * @param slotIds see above
+	 */
+	public void clear (Collection<Integer> slotIds)
+	{
+		for (int slotId : slotIds) clear(slotId);
+	}
+
+	/** Sets all the slots between the two given, both included
+	 * @param firstSlot see above
+	 * @param lastSlot see above
+	 */
+	public void setRange (int firstSlot , int lastSlot)
+	{
+		if (lastSlot < firstSlot) return;
+		ensureCapacity(firstSlot, lastSlot);
+		for (int s = firstSlot; s <= lastSlot; )
+		{
+			final int w = wordIndex(s);
+			final int firstBit = s - firstSlotId - 64 * w;
+			final int lastBit = Math.min(63, lastSlot - firstSlotId - 64 * w);
+			words [w] |= (-1L >>> (63 - lastBit)) & (-1L << firstBit);
+			s += lastBit - firstBit + 1;
+		}
+	}
+
+	/** Removes the slots lower than the given one
+	 * @param slotId see above
+	 */
+	public void clearBelow (int slotId)
+	{
+		final int w = wordIndex(slotId);
+		if (w < 0) return;
+		Arrays.fill(words, 0, Math.min(w, words.length), 0L);
+		if (w < words.length) words [w] &= -1L << (slotId - firstSlotId - 64 * w);
+	}
+
+	/** Keeps only the slots that are also in the other set (this = this AND other)
+	 * @param other see above
+	 */
+	public void and (OpticalSlotBitSet other)
+	{
+		for (int w = 0; w < words.length; w++)
+		{
+			final int ow = w + (firstSlotId - other.firstSlotId) / 64;
+			words [w] &= ow >= 0 && ow < other.words.length ? other.words [ow] : 0L;
+		}
+	}
+
+	/** Adds the slots that are in the other set (this = this OR other)
+	 * @param other see above
+	 */
+	public void or (OpticalSlotBitSet other)
+	{
+		if (other.words.length == 0) return;
+		ensureCapacity(other.firstSlotId, other.firstSlotId + 64 * other.words.length - 1);
+		final int offset = (other.firstSlotId - firstSlotId) / 64;
+		for (int ow = 0; ow < other.words.length; ow++) words [ow + offset] |= other.words [ow];
+	}
+
+	/** Removes the slots that are in the other set (this = this AND NOT other)
+	 * @param other see above
+	 */
+	public void andNot (OpticalSlotBitSet other)
+	{
+		for (int w = 0; w < words.length; w++)
+		{
+			final int ow = w + (firstSlotId - other.firstSlotId) / 64;
+			if (ow >= 0 && ow < other.words.length) words [w] &= ~other.words [ow];
+		}
+	}
+
+	/** Returns true if the set has no slot
+	 * @return see above
+	 */
+	public boolean isEmpty ()
+	{
+		for (long word : words) if (word != 0) return false;
+		return true;
+	}
+
+	/** Returns the number of slots in the set
+	 * @return see above
+	 */
+	public int cardinality ()
+	{
+		int res = 0;
+		for (long word : words) res += Long.bitCount(word);
+		return res;
+	}
+
+	/** Returns the lowest slot in the set that is equal or higher than the given one, or null if none
+	 * @param fromSlotId see above
+	 * @return see above
+	 */
+	public Integer nextSetSlot (int fromSlotId)
+	{
+		int w = Math.max(0, wordIndex(fromSlotId));
+		if (w >= words.length) return null;
+		long word = fromSlotId < firstSlotId + 64 * w ? words [w] : words [w] & (-1L << (fromSlotId - firstSlotId - 64 * w));
+		while (true)
+		{
+			if (word != 0) return firstSlotId + 64 * w + Long.numberOfTrailingZeros(word);
+			if (++w == words.length) return null;
+			word = words [w];
+		}
+	}
+
+	/** Returns the lowest slot not in the set, that is equal or higher than the given one
+	 * @param fromSlotId see above
+	 * @return see above
+	 */
+	public int nextClearSlot (int fromSlotId)
+	{
+		int w = wordIndex(fromSlotId);
+		if (w < 0 || w >= words.length) return fromSlotId;
+		long word = ~words [w] & (-1L << (fromSlotId - firstSlotId - 64 * w));
+		while (true)
+		{
+			if (word != 0) return firstSlotId + 64 * w + Long.numberOfTrailingZeros(word);
+			if (++w == words.length) return firstSlotId + 64 * w;
+			word = ~words [w];
+		}
+	}
+
+	/** Returns the initial slot of the lowest range of the given number of contiguous slots in the set, or null if none
+	 * @param numContiguousSlots see above
+	 * @return see above
+	 */
+	public Integer getFirstRangeInitialSlot (int numContiguousSlots)
+	{
+		Integer start = nextSetSlot(firstSlotId);
+		while (start != null)
+		{
+			final int end = nextClearSlot(start);
+			if (end - start >= numContiguousSlots) return start;
+			start = nextSetSlot(end);
+		}
+		return null;
+	}
+
+	/** Returns the initial slots of all the ranges of the given number of contiguous slots in the set (ranges can overlap)
+	 * @param numContiguousSlots see above
+	 * @return see above
+	 */
+	public SortedSet<Integer> getAllRangesInitialSlots (int numContiguousSlots)
+	{
+		final SortedSet<Integer> res = new TreeSet<> ();
+		Integer start = nextSetSlot(firstSlotId);
+		while (start != null)
+		{
+			final int end = nextClearSlot(start);
+			for (int s = start; s + numContiguousSlots <= end; s++) res.add(s);
+			start = nextSetSlot(end);
+		}
+		return res;
+	}
+
+	/** Returns the slots in the set, in increasing order
+	 * @return see above
+	 */
+	public SortedSet<Integer> toSortedSet ()
+	{
+		final SortedSet<Integer> res = new TreeSet<> ();
+		for (int w = 0; w < words.length; w++)
+		{
+			long word = words [w];
+			while (word != 0)
+			{
+				res.add(firstSlotId + 64 * w + Long.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		return res;
+	}
+
+	private int wordIndex (int slotId)
+	{
+		return Math.floorDiv(slotId - firstSlotId, 64);
+	}
+
+	private static long bitMask (int slotId)
+	{
+		return 1L << Math.floorMod(slotId, 64);
+	}
+
+	/* Grows the words array so that it covers the slots between the two given */
+	private void ensureCapacity (int minSlotId , int maxSlotId)
+	{
+		if (words.length == 0) firstSlotId = 64 * Math.floorDiv(minSlotId, 64);
+		final int numWordsBefore = Math.max(0, -wordIndex(minSlotId));
+		final int numWordsAfter = Math.max(0, wordIndex(maxSlotId) - words.length + 1);
+		if (numWordsBefore == 0 && numWordsAfter == 0) return;
+		final long [] newWords = new long [numWordsBefore + words.length + numWordsAfter];
+		System.arraycopy(words, 0, newWords, numWordsBefore, words.length);
+		this.words = newWords;
+		this.firstSlotId -= 64 * numWordsBefore;
+	}
+}
@@ -643,6 +643,188 @@ public class WDMUtils
 		public LightpathModify (Route lp , RSA rsa , double carriedTraffic) { this.lp = lp; this.rsa = rsa; this.carriedTraffic = carriedTraffic; }  
 	}
 	
+	/**
+	 * This class represents the frequency slots occupied in each fiber, and the number of occupied regenerators in each node, as one {@link OpticalSlotBitSet} per fiber.
+	 * It is an alternative to the slot-fiber occupancy matrix and the regenerator occupancy vector returned by {@link #getNetworkSlotAndRegeneratorOcupancy(NetPlan, boolean, NetworkLayer...)}, 
+	 * intended for online algorithms where it is kept updated with {@link #allocateResources(RSA)} and {@link #releaseResources(RSA)} on each 
+	 * lightpath change. The RSA functions of this library have overloads receiving this object, that return the same results as the ones receiving the occupancy matrix.
+	 * Fibers and nodes are identified by their index.
+	 */
+	public static class SlotOccupancy
+	{
+		private final int W;
+		private OpticalSlotBitSet [] occupiedSlots_e;
+		private int [] numOccupiedRegenerators_n;
+
+		/**
+		 * Creates an occupancy object with no slot occupied in any fiber, and no regenerator occupied in any node.
+		 * @param numSlots Number of frequency slots (the slots with an index equal or higher than this are not valid in any fiber)
+		 * @param numFibers Number of fibers
+		 * @param numNodes Number of nodes
+		 */
+		public SlotOccupancy (int numSlots , int numFibers , int numNodes)
+		{
+			if (numSlots < 0) throw new WDMException("The number of slots must be non-negative");
+			this.W = numSlots;
+			this.occupiedSlots_e = new OpticalSlotBitSet [numFibers];
+			for (int e = 0; e < numFibers ; e ++) occupiedSlots_e [e] = new OpticalSlotBitSet ();
+			this.numOccupiedRegenerators_n = new int [numNodes];
+		}
+
+		/**
+		 * Creates an occupancy object with the same information as the given slot-fiber occupancy matrix and per node regenerator occupancy vector.
+		 * @param frequencySlot2FiberOccupancy_se Slot-fiber occupancy matrix
+		 * @param nodeRegeneratorOccupancy Number of regenerators occupied per node. If {@code null}, no regenerator is occupied
+		 * @param numNodes Number of nodes
+		 */
+		public SlotOccupancy (DoubleMatrix2D frequencySlot2FiberOccupancy_se , DoubleMatrix1D nodeRegeneratorOccupancy , int numNodes)
+		{
+			this (frequencySlot2FiberOccupancy_se.rows() , frequencySlot2FiberOccupancy_se.columns() , numNodes);
+			for (int e = 0; e < occupiedSlots_e.length ; e ++)
+				for (int s = 0; s < W ; s ++)
+					if (frequencySlot2FiberOccupancy_se.get(s , e) != 0) occupiedSlots_e [e].set(s);
+			if (nodeRegeneratorOccupancy != null)
+				for (int n = 0; n < numNodes ; n ++) numOccupiedRegenerators_n [n] = (int) nodeRegeneratorOccupancy.get(n);
+		}
+
+		/**
+		 * Returns the number of frequency slots (the slots with an index equal or higher than this are not valid in any fiber)
+		 * @return see above
+		 */
+		public int getNumSlots () { return W; }
+
+		/**
+		 * Returns {@code true} if the given slot is occupied in the given fiber (or it is not a valid slot there), {@code false} otherwise 
+		 * @param slotId Slot id
+		 * @param fiber The fiber
+		 * @return see above
+		 */
+		public boolean isOccupied (int slotId , Link fiber) 
+		{ 
+			final int e = fiber.getIndex();
+			return e < occupiedSlots_e.length? occupiedSlots_e [e].get(slotId) : false;
+		}
+
+		/**
+		 * Returns the number of regenerators occupied in the given node
+		 * @param node The node
+		 * @return see above
+		 */
+		public int getNumOccupiedRegenerators (Node node) 
+		{ 
+			final int n = node.getIndex();
+			return n < numOccupiedRegenerators_n.length? numOccupiedRegenerators_n [n] : 0;
+		}
+
+		/**
+		 * Returns the slot-fiber occupancy matrix with the same information as this object (1 if occupied, 0 if not)
+		 * @return see above
+		 */
+		public DoubleMatrix2D getFrequencySlot2FiberOccupancy ()
+		{
+			DoubleMatrix2D res = DoubleFactory2D.dense.make (W , occupiedSlots_e.length);
+			for (int e = 0; e < occupiedSlots_e.length ; e ++)
+				for (Integer s = occupiedSlots_e [e].nextSetSlot(0); s != null ; s = occupiedSlots_e [e].nextSetSlot(s+1)) res.set(s , e , 1.0);
+			return res;
+		}
+
+		/**
+		 * Returns the vector with the number of regenerators occupied in each node
+		 * @return see above
+		 */
+		public DoubleMatrix1D getNodeRegeneratorOccupancy ()
+		{
+			return DoubleFactory1D.dense.make (IntUtils.toDoubleArray(numOccupiedRegenerators_n));
+		}
+
+		/**
+		 * Updates the occupancy to consider that a new lightpath is occupying the resources given by {@code rsa}.
+		 * An exception is raised if any of the slots is already occupied, or is not valid
+		 * @param rsa The RSA
+		 */
+		public void allocateResources (RSA rsa)
+		{
+			ListIterator<Link> fiberIt = rsa.seqLinks.listIterator();
+			while(fiberIt.hasNext())
+			{
+				final int hopId = fiberIt.nextIndex();
+				final Link fiber = fiberIt.next();
+				final OpticalSlotBitSet occupiedSlots = getFiberOccupiedSlots(fiber);
+				for (int cont = 0 ; cont < rsa.seqFrequencySlots_se.rows() ; cont ++)
+				{
+					final int slotId = rsa.seqFrequencySlots_se.get(cont , hopId);
+					if (slotId < 0 || slotId >= W) throw new WDMException ("The slot id is negative or higher than the number of slots available");
+					if (occupiedSlots.get(slotId)) throw new WDMException ("Frequency slot clashing: slot " + slotId + ", fiber: " + fiber.getId ());
+					occupiedSlots.set(slotId);
+				}
+				if (rsa.seqRegeneratorsOccupancy_e != null)
+					if (rsa.seqRegeneratorsOccupancy_e[hopId] == 1)
+						getNodeRegenerators (fiber.getOriginNode()) [fiber.getOriginNode().getIndex()] ++;
+			}
+		}
+
+		/**
+		 * Updates the occupancy to consider that a lightpath is releasing the resources given by {@code rsa}.
+		 * An exception is raised if any of the slots was not occupied
+		 * @param rsa The RSA
+		 */
+		public void releaseResources (RSA rsa)
+		{
+			ListIterator<Link> fiberIt = rsa.seqLinks.listIterator();
+			while(fiberIt.hasNext())
+			{
+				final int hopId = fiberIt.nextIndex();
+				final Link fiber = fiberIt.next();
+				final OpticalSlotBitSet occupiedSlots = getFiberOccupiedSlots(fiber);
+				for (int cont = 0 ; cont < rsa.seqFrequencySlots_se.rows() ; cont ++)
+				{
+					final int slotId = rsa.seqFrequencySlots_se.get(cont , hopId);
+					if (!occupiedSlots.get(slotId)) throw new WDMException("Wavelength " + slotId + " was unused in fiber " + fiber.getId ());
+					occupiedSlots.clear(slotId);
+				}
+				if (rsa.seqRegeneratorsOccupancy_e != null)
+					if (rsa.seqRegeneratorsOccupancy_e[hopId] == 1)
+						getNodeRegenerators (fiber.getOriginNode()) [fiber.getOriginNode().getIndex()] --;
+			}
+		}
+
+		/* Slots occupied in any of the fibers */
+		private OpticalSlotBitSet getPathOccupiedSlots (List<Link> seqFibers)
+		{
+			final OpticalSlotBitSet res = new OpticalSlotBitSet ();
+			for (Link fiber : seqFibers) res.or(getFiberOccupiedSlots(fiber));
+			return res;
+		}
+
+		/* Valid slots that are idle in all the fibers */
+		private OpticalSlotBitSet getPathIdleSlots (List<Link> seqFibers)
+		{
+			final OpticalSlotBitSet res = new OpticalSlotBitSet ();
+			res.setRange(0 , W - 1);
+			for (Link fiber : seqFibers) res.andNot(getFiberOccupiedSlots(fiber));
+			return res;
+		}
+
+		/* Bitset of the fiber. Links created after this object have no slot occupied */
+		private OpticalSlotBitSet getFiberOccupiedSlots (Link fiber)
+		{
+			final int e = fiber.getIndex();
+			if (e >= occupiedSlots_e.length)
+			{
+				final int oldE = occupiedSlots_e.length;
+				occupiedSlots_e = Arrays.copyOf(occupiedSlots_e, e+1);
+				for (int e2 = oldE; e2 <= e ; e2 ++) occupiedSlots_e [e2] = new OpticalSlotBitSet ();
+			}
+			return occupiedSlots_e [e];
+		}
+
+		private int [] getNodeRegenerators (Node node)
+		{
+			if (node.getIndex() >= numOccupiedRegenerators_n.length) numOccupiedRegenerators_n = Arrays.copyOf(numOccupiedRegenerators_n, node.getIndex()+1);
+			return numOccupiedRegenerators_n;
+		}
+	}
+
 	/**
 	 * Route/protection segment attribute name for sequence of regenerators.
 	 */
@@ -866,6 +1048,36 @@ public class WDMUtils
 		return true;
 	}
 
+	/**
+	 * Returns {@code true} if all the RSAs are allocatable (the needed frequency slots are free in the given sequence of links), {@code false} otherwise. 
+	 * @param slotOccupancy Current slot-fiber occupancy 
+	 * @param rsas one or more RSAs to check. We start allocating them in order (never releasing the resources of the previous ones). Then, {@code true} is returned if it is possible to allocate all of them simultaneously. In other words, if two RSAs in {@code rsas} require the same frequency slot in the same link, they are not allocatable. 
+	 * @return See description above
+	 */
+	public static boolean isAllocatableRSASet (SlotOccupancy slotOccupancy , RSA ... rsas)
+	{
+		Map<Link,OpticalSlotBitSet> checkSlots = new HashMap<Link,OpticalSlotBitSet> ();
+		for (RSA rsa : rsas)
+		{
+			int orderTravLink = 0; 
+			for (Link e : rsa.seqLinks)
+			{
+				OpticalSlotBitSet checkThisLink = checkSlots.get(e);
+				if (checkThisLink == null) { checkThisLink = new OpticalSlotBitSet (); checkSlots.put(e , checkThisLink); }
+				for (int s = 0; s < rsa.seqFrequencySlots_se.rows() ; s ++)
+				{
+					final int slotIndex = rsa.seqFrequencySlots_se.get(s,orderTravLink);
+					if (slotIndex < 0 || slotIndex >= slotOccupancy.getNumSlots()) return false;
+					if (slotOccupancy.isOccupied (slotIndex , e)) return false; 
+					if (checkThisLink.get (slotIndex)) return false; 
+					checkThisLink.set (slotIndex);
+				}
+				orderTravLink ++;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * Returns the fiber occupied (columns) in each wavelength (rows), and an array with the number of occupied regenerators in each node.
 	 * The lightpaths with occupied capacity equal to zero (as Route objects) are not counted. 
@@ -899,6 +1111,34 @@ public class WDMUtils
 		return Pair.of(frequencySlot2FiberOccupancy_se,nodeRegeneratorOccupancy);
 	}
 
+	/**
+	 * Returns the frequency slots occupied in each fiber and the number of occupied regenerators in each node, with the same information as 
+	 * {@link #getNetworkSlotAndRegeneratorOcupancy(NetPlan, boolean, NetworkLayer...)}, but as a {@link SlotOccupancy} object that can be updated incrementally.
+	 * @param netPlan Current design
+	 * @param countFailedLightpaths Include paths (current, primary or backup) that are down
+	 * @param optionalLayerParameter WDM network layer. If not present, the default layer is assumed
+	 * @return The slot and regenerator occupancy
+	 */
+	public static SlotOccupancy getNetworkSlotOccupancy(NetPlan netPlan, boolean countFailedLightpaths , NetworkLayer ... optionalLayerParameter)
+	{
+		NetworkLayer layer = netPlan.checkInThisNetPlanOptionalLayerParameter(optionalLayerParameter);
+		DoubleMatrix1D w_f = getVectorFiberNumFrequencySlots (netPlan, layer);
+		final int W = w_f.size () == 0? 0 : (int) w_f.getMaxLocation() [0];
+		SlotOccupancy slotOccupancy = new SlotOccupancy (W , netPlan.getNumberOfLinks (layer) , netPlan.getNumberOfNodes ());
+
+		/* The wavelengths above the maximum number of wavelengths of a fiber, are set as occupied */
+		for (Link e : netPlan.getLinks (layer)) slotOccupancy.getFiberOccupiedSlots(e).setRange ((int) w_f.get(e.getIndex ()) , W - 1);
+
+		/* Wavlengths occupied by the lightpaths as routes */
+		for (Route lpRoute : netPlan.getRoutes(layer))
+		{
+			final RSA rsa = new RSA (lpRoute , false);
+			if (!countFailedLightpaths && rsa.isDown()) continue;
+			slotOccupancy.allocateResources(rsa);
+		}
+		return slotOccupancy;
+	}
+
 	/**
 	 * Returns two maps, showing the frequency slots in the links and signal regenerator in the nodes occupancies. 
 	 * The slot occupancy is a map where the keys are the pairs (fiber,slot) occupied by at least one lightpath, and the 
@@ -1068,6 +1308,23 @@ public class WDMUtils
 		return -1;
 	}
 
+	/**
+	 * <p>Frequency slot assignment algorithm based on a first-fit fashion. It tries to find a set of contiguous slots that are available 
+	 * in all the traversed links, and gets the one which starts in the lowest slot id (the initial slot id of the block is returned)
+	 * <p><b>Important</b>: {@code slotOccupancy} is not updated by this method
+	 *
+	 * @param seqFibers Sequence of traversed fibers
+	 * @param slotOccupancy Current slot-fiber occupancy 
+	 * @param numContiguousSlotsRequired Number of slots of the block (in fixed-grid WDM, this is 1)
+	 * @return The id of the initial slot of the contiguous block, or -1 if there is no such block of contigous slots with free resources in all the links
+	 */
+	public static int spectrumAssignment_firstFit(List<Link> seqFibers, SlotOccupancy slotOccupancy , int numContiguousSlotsRequired)
+	{
+		GraphUtils.checkRouteContinuity(seqFibers, Constants.CheckRoutingCycleType.NO_REPEAT_LINK);
+		final Integer initialSlot = slotOccupancy.getPathIdleSlots(seqFibers).getFirstRangeInitialSlot(numContiguousSlotsRequired);
+		return initialSlot == null? -1 : initialSlot;
+	}
+
 	/**
 	 * <p>Frequency slot assignment algorithm based on a first-fit fashion for two different paths. 
 	 * It tries to find the lowest {@code (s1,s2)} pair, so that a contiguous block of the needed slots, starting in s1, are free in the first path,
@@ -1116,6 +1373,37 @@ public class WDMUtils
 		return null;
 	}
 
+	/**
+	 * <p>Frequency slot assignment algorithm based on a first-fit fashion for two different paths. 
+	 * It tries to find the lowest {@code (s1,s2)} pair, so that a contiguous block of the needed slots, starting in s1, are free in the first path,
+	 * and starting in {@code s2} are free in the second path (assuming the occupied slots in the first path are not available now). 
+	 * Among all the feasible {@code (s1,s2)} pairs, the returned is the one with lowest {@code s1}, and if more than one, with the lowest {@code s2}. 
+	 * If no {@code (s1,s2)} pair exists with the required idle frequency slots, the method returns {@code null} </p>
+	 *
+	 * <p><b>Important</b>: {@code slotOccupancy} is not updated by this method
+	 *
+	 * @param seqFibers_1 First sequence of traversed fibers
+	 * @param seqFibers_2 Second sequence of traversed fibers
+	 * @param slotOccupancy Current slot-fiber occupancy 
+	 * @param numContiguousSlotsRequired Number of slots of the block (in fixed-grid WDM, this is 1)
+	 * @return Pair of sequences of wavelengths traversed by each lightpath
+	 */
+	public static Pair<Integer,Integer> spectrumAssignment_firstFitTwoRoutes(List<Link> seqFibers_1, List<Link> seqFibers_2 , SlotOccupancy slotOccupancy , int numContiguousSlotsRequired)
+	{
+		GraphUtils.checkRouteContinuity(seqFibers_1, Constants.CheckRoutingCycleType.NO_REPEAT_LINK);
+		GraphUtils.checkRouteContinuity(seqFibers_2, Constants.CheckRoutingCycleType.NO_REPEAT_LINK);
+		final boolean haveLinksInCommon = !Sets.intersection(new HashSet<>(seqFibers_1)  , new HashSet<>(seqFibers_2)).isEmpty();
+		final SortedSet<Integer> validInitialSlots_1 = slotOccupancy.getPathIdleSlots(seqFibers_1).getAllRangesInitialSlots(numContiguousSlotsRequired);
+		final SortedSet<Integer> validInitialSlots_2 = slotOccupancy.getPathIdleSlots(seqFibers_2).getAllRangesInitialSlots(numContiguousSlotsRequired);
+		for (int initialSlot_1 : validInitialSlots_1)
+			for (int initialSlot_2 : validInitialSlots_2)
+			{
+				if (haveLinksInCommon && (Math.abs(initialSlot_1 - initialSlot_2) < numContiguousSlotsRequired)) continue;
+				return Pair.of(initialSlot_1, initialSlot_2);
+			}
+		return null;
+	}
+
 	/**
 	 * <p>Wavelength assignment algorithm based on a first-fit fashion assuming
 	 * full wavelength conversion and regeneration capabilities. This algorithm is targeted for fixed-frid WDM networks, where all 
@@ -1249,6 +1537,96 @@ public class WDMUtils
 
 		return Pair.of(IntUtils.toArray(seqWavelengths), IntUtils.toArray(seqRegenerators));
 	}
+
+	/**
+	 * <p>Wavelength assignment algorithm based on a first-fit fashion assuming
+	 * full wavelength conversion and regeneration capabilities. It is equivalent to 
+	 * {@link #wavelengthAssignment_RPP_firstFit(List, DoubleMatrix2D, DoubleMatrix1D, double)}, with the slot occupancy given as a {@link SlotOccupancy} object.</p>
+	 *
+	 * <p>In case a lightpath cannot be allocated, the corresponding sequence of
+	 * wavelengths ({@code seqWavelengths} parameter) will be an empty array.</p>
+	 *
+	 * @param seqFibers Sequence of traversed fibers
+	 * @param slotOccupancy Current slot-fiber occupancy 
+	 * @param maxRegeneratorDistanceInKm Maximum regeneration distance
+	 * @return Sequence of wavelengths traversed by each lightpath, and a 0-1 array indicating whether (1) or not (0) a regenerator/wavelength converter is required at the origin node of the corresponding fiber
+	 */
+	public static Pair<int[], int[]> wavelengthAssignment_RPP_firstFit(List<Link> seqFibers, SlotOccupancy slotOccupancy, double maxRegeneratorDistanceInKm)
+	{
+		final int W = slotOccupancy.getNumSlots();
+		final Pair<int[], int[]> notAllocated = Pair.of(new int[0], new int[0]);
+
+		List<Integer> seqWavelengths = new LinkedList<Integer>();
+		List<Integer> seqRegenerators = new LinkedList<Integer>();
+
+		double control_accumDistance = 0;
+		OpticalSlotBitSet control_occupied_w = new OpticalSlotBitSet ();
+		int control_firstFitValidWavelengthForSubpath = -1;
+		List<Link> control_currentSubpathSeqLinks = new LinkedList<Link>();
+
+		Map<Link, OpticalSlotBitSet> avoidLoopWavelengthClash = new HashMap<Link, OpticalSlotBitSet>();
+
+		for (Link fiber : seqFibers)
+		{
+			double fiberLengthInKm = fiber.getLengthInKm();
+
+			if (fiberLengthInKm > maxRegeneratorDistanceInKm)
+			{
+				throw new WDMException(String.format("Fiber %d is longer (%f km) than the maximum distance without regenerators (%f km)", fiber.getId (), fiberLengthInKm, maxRegeneratorDistanceInKm));
+			}
+
+			/* update the info as if this link was included in the subpath */
+			final double plusLink_accumDistance = control_accumDistance + fiberLengthInKm;
+			final OpticalSlotBitSet plusLink_occupied_w = control_occupied_w.copy();
+			if (avoidLoopWavelengthClash.containsKey(fiber)) plusLink_occupied_w.or(avoidLoopWavelengthClash.get(fiber));
+			plusLink_occupied_w.or(slotOccupancy.getFiberOccupiedSlots(fiber));
+			final int plusLink_firstIdleWavelength = plusLink_occupied_w.nextClearSlot(0);
+			final int plusLink_firstFitValidWavelengthForSubpath = plusLink_firstIdleWavelength < W? plusLink_firstIdleWavelength : -1;
+
+			if (!control_currentSubpathSeqLinks.contains(fiber) && plusLink_accumDistance <= maxRegeneratorDistanceInKm && plusLink_firstFitValidWavelengthForSubpath != -1)
+			{
+				/* we do not have to put a regenerator in the origin node of e: the subpath is valid up to now */
+				control_accumDistance = plusLink_accumDistance;
+				control_occupied_w = plusLink_occupied_w;
+				control_firstFitValidWavelengthForSubpath = plusLink_firstFitValidWavelengthForSubpath;
+				control_currentSubpathSeqLinks.add(fiber);
+				seqRegenerators.add(0);
+				continue;
+			}
+
+			/* Here if we have to put a regenerator in initial node of this link, add a subpath */
+			if (control_firstFitValidWavelengthForSubpath == -1) return notAllocated;
+
+			seqRegenerators.add(1);
+			for (Link aux_fiber : control_currentSubpathSeqLinks)
+			{
+				seqWavelengths.add(control_firstFitValidWavelengthForSubpath);
+				if (!avoidLoopWavelengthClash.containsKey(aux_fiber)) avoidLoopWavelengthClash.put(aux_fiber, new OpticalSlotBitSet ());
+				avoidLoopWavelengthClash.get(aux_fiber).set(control_firstFitValidWavelengthForSubpath);
+			}
+
+			/* new span includes just this link */
+			final OpticalSlotBitSet fiberOccupied_w = slotOccupancy.getFiberOccupiedSlots(fiber);
+			control_accumDistance = fiberLengthInKm;
+			control_currentSubpathSeqLinks = new LinkedList<Link>();
+			control_currentSubpathSeqLinks.add(fiber);
+			control_occupied_w = new OpticalSlotBitSet ();
+			if (avoidLoopWavelengthClash.containsKey(fiber)) control_occupied_w.or(avoidLoopWavelengthClash.get(fiber));
+			control_occupied_w.or(fiberOccupied_w);
+			final int firstIdleWavelength = fiberOccupied_w.nextClearSlot(0);
+			control_firstFitValidWavelengthForSubpath = firstIdleWavelength < W? firstIdleWavelength : -1;
+
+			if (control_firstFitValidWavelengthForSubpath == -1) return notAllocated;
+		}
+
+		/* Add the last subpath */
+		if (control_firstFitValidWavelengthForSubpath == -1) return notAllocated;
+		
+		for (int cont = 0; cont < control_currentSubpathSeqLinks.size(); cont++)
+			seqWavelengths.add(control_firstFitValidWavelengthForSubpath);
+
+		return Pair.of(IntUtils.toArray(seqWavelengths), IntUtils.toArray(seqRegenerators));
+	}
 	
 	/**
 	 * Updates {@code frequencySlot2FiberOccupancy_se} and {@code nodeRegeneratorOccupancy} to consider that a new lightpath is occupying 
@@ -1440,6 +1818,21 @@ public class WDMUtils
 		return out;
 	}
 
+	/**
+	 * <p>Returns the set of frequency slots that are occupied in at least one of the given sequence of fibers.</p>
+	 * 
+	 * @param slotOccupancy Indicates per each fiber its slot occupancy
+	 * @param seqFibers Sequence of traversed fibers
+	 * @return Set of occupied slots in the path
+	 */
+	public static TreeSet<Integer> computePathSlotOccupancy(List<Link> seqFibers, SlotOccupancy slotOccupancy)
+	{
+		final OpticalSlotBitSet occupiedSlots = slotOccupancy.getPathOccupiedSlots(seqFibers);
+		TreeSet<Integer> out = new TreeSet<Integer>();
+		for (Integer s = occupiedSlots.nextSetSlot(0); s != null && s < slotOccupancy.getNumSlots() ; s = occupiedSlots.nextSetSlot(s+1)) out.add(s);
+		return out;
+	}
+
 	
 	/** Returns true if the {@code Route} object is a well formed lightpath, according to the {@code WDMUtils} requirements. This means that 
 	 * the attributes stating the assigned frequency slots, occupied signal regenerators are correct, and lp occupied link 
@@ -8,11 +8,20 @@ package com.net2plan.niw;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
 import com.net2plan.interfaces.networkDesign.Net2PlanException;
@@ -85,6 +94,18 @@ public class OpticalSimulationModule
 		public LpSignalState getCopy () { return new LpSignalState(power_dbm, cd_psPerNm, pmdSquared_ps2, osnrAt12_5GhzRefBw); }
 	}
 	
+	/* The signal states of a lightpath, at each traversed fiber and at the drop transponder */
+	private static class LpPerformanceInfo
+	{
+		private final List<WFiber> seqFibers;
+		private final List<Pair<LpSignalState,LpSignalState>> perFiber_valStartAfterBoosterEndBeforePreampl = new ArrayList<> ();
+		private final List<SortedMap<Integer,Pair<LpSignalState,LpSignalState>>> perFiberPerOla_valInputOutputOla = new ArrayList<> ();
+		private final List<Optional<LpSignalState>> perFiber_valInputBooster = new ArrayList<> ();
+		private final List<Optional<LpSignalState>> perFiber_valOutputPreamplifier = new ArrayList<> ();
+		private LpSignalState valAtDropTransponderEnd;
+		private LpPerformanceInfo (List<WFiber> seqFibers) { this.seqFibers = seqFibers; }
+	}
+	
 	/** speed of light in m/s */
    public final static double constant_c = 299792458; 
    /** Planck constant m^2 kg/sec */
@@ -96,6 +117,7 @@ public class OpticalSimulationModule
 	final private SortedMap<WFiber,SortedMap<WLightpath,SortedMap<Integer , Pair<LpSignalState,LpSignalState>>>> perFiberPerLpPerOla_valInputOutputOla = new TreeMap<> ();
 	final private SortedMap<WFiber,SortedMap<WLightpath,Optional<LpSignalState>>> perFiberPerLp_valInputBooster = new TreeMap<> ();
 	final private SortedMap<WFiber,SortedMap<WLightpath,Optional<LpSignalState>>> perFiberPerLp_valOutputPreamplifier = new TreeMap<> ();
+	final private Map<Long,List<WFiber>> perLpId_seqFibers = new HashMap<> ();
 	
 	public OpticalSimulationModule (WNet wNet) 
 	{
@@ -130,119 +152,245 @@ public class OpticalSimulationModule
 
     public OpticalSimulationModule updateAllPerformanceInfo ()
     {
-    	System.out.println("Update all performance info");
+    	return updateAllPerformanceInfo(1);
+    }
+
+    /** Recomputes the performance information of all the fibers and lightpaths. The signal state of each lightpath does not depend on the 
+     * other lightpaths, so the lightpaths can be evaluated in parallel, each one in its own result object. These are merged afterwards, and 
+     * then the total power per fiber is computed, so the results are the same for any number of threads.
+     * @param numThreads the number of threads to use. If one or less, the computation is sequential in the calling thread
+     * @return this object
+     */
+    public OpticalSimulationModule updateAllPerformanceInfo (int numThreads)
+    {
+   	 perLpPerMetric_valAtDropTransponderEnd.clear();
+   	 perFiberPerLp_valStartAfterBoosterEndBeforePreampl.clear();
+   	 perFiberTotalPower_valStartEndAndAtEachOlaInputOutput.clear();
+   	 perFiberPerLpPerOla_valInputOutputOla.clear();
+   	 perFiberPerLp_valInputBooster.clear();
+   	 perFiberPerLp_valOutputPreamplifier.clear();
+   	 perLpId_seqFibers.clear();
    	 for (WFiber e : wNet.getFibers())
    	 {
    		 perFiberPerLp_valStartAfterBoosterEndBeforePreampl.put(e, new TreeMap<> ());
    		 perFiberPerLpPerOla_valInputOutputOla.put(e, new TreeMap <> ());
    		perFiberPerLp_valInputBooster.put(e , new TreeMap<> ());
    		perFiberPerLp_valOutputPreamplifier.put(e , new TreeMap<> ());
-   		 for (WLightpath lp : e.getTraversingLps())
-   			perFiberPerLpPerOla_valInputOutputOla.get(e).put(lp, new TreeMap<> ());
    	 }
-   	 for (WLightpath lp : wNet.getLightpaths())
+   	 final Map<WNode,IOadmArchitecture> oadms = getOadmArchitectures(wNet.getNodes());
+   	 final List<WLightpath> lps = wNet.getLightpaths();
+   	 final LpPerformanceInfo [] infoPerLp = new LpPerformanceInfo [lps.size()];
+   	 if (numThreads <= 1 || lps.size() <= 1)
+   	 {
+   		 for (int cont = 0; cont < lps.size() ; cont ++)
+   			 infoPerLp [cont] = computeLightpathPerformanceInfo(lps.get(cont), oadms);
+   	 }
+   	 else
    	 {
-   		 final int numOpticalSlots = lp.getOpticalSlotIds().size();
-   		 final double centralFrequency_hz = 1e12 * lp.getCentralFrequencyThz();
-   		 Optional<Pair<LpSignalState,LpSignalState>> previousFiberInfo = Optional.empty();
-   		 final List<WFiber> lpSeqFibers = lp.getSeqFibers();
-   		 for (int contFiber = 0; contFiber < lpSeqFibers.size() ; contFiber ++)
+   		 /* The network is only read from here on. Each worker writes in its own positions */
+   		 final ForkJoinPool pool = new ForkJoinPool(numThreads);
+   		 try
    		 {
-   			 final WFiber fiber = lpSeqFibers.get(contFiber);
-   	   		 final boolean firstFiber = contFiber == 0;
-   			 final Pair<LpSignalState,LpSignalState> infoToAdd = Pair.of(new LpSignalState(), new LpSignalState());
-   			 final SortedMap<Integer , Pair<LpSignalState,LpSignalState>> infoToAddPerOla = new TreeMap<> ();
-   			 perFiberPerLp_valStartAfterBoosterEndBeforePreampl.get(fiber).put(lp, infoToAdd);
-   			 perFiberPerLpPerOla_valInputOutputOla.get(fiber).put(lp, infoToAddPerOla);
-   			
-   			 final IOadmArchitecture oadm_a = fiber.getA().getOpticalSwitchingArchitecture();
-   			 final LpSignalState state_startFiberBeforeBooster;
-   			 final WFiber previousFiber = contFiber == 0? null : lpSeqFibers.get(contFiber-1);
-   			 if (firstFiber)
-   				state_startFiberBeforeBooster = oadm_a.getOutLpStateForAddedLp(new LpSignalState(lp.getAddTransponderInjectionPower_dBm() , 0.0, 0.0, Double.MAX_VALUE), lp.getDirectionlessAddModuleIndexInOrigin(), lp.getSeqFibers().get(0) , numOpticalSlots);
-   			 else
-   			 {
-   				 final LpSignalState beforePreviousFiberEndPreampl = previousFiberInfo.get().getSecond();
-   				 final LpSignalState afterPreviousFiberEndPreampl = previousFiber.getDestinationPreAmplifierInfo().isPresent()? 
-   						getStateAfterOpticalAmplifier (centralFrequency_hz , beforePreviousFiberEndPreampl , previousFiber.getDestinationPreAmplifierInfo().get()) : 
-   							beforePreviousFiberEndPreampl.getCopy();
-				state_startFiberBeforeBooster = oadm_a.getOutLpStateForExpressLp(afterPreviousFiberEndPreampl, previousFiber, fiber , numOpticalSlots);
-   			 }
-   			 final Optional<OpticalAmplifierInfo> boosterAmplifierInfo = fiber.getOriginBoosterAmplifierInfo();
-   			 perFiberPerLp_valInputBooster.get(fiber).put(lp, boosterAmplifierInfo.isPresent()? Optional.of(state_startFiberBeforeBooster) : Optional.empty());
-   			 final LpSignalState state_startFiberAfterBooster = boosterAmplifierInfo.isPresent()? 
-	   						getStateAfterOpticalAmplifier (centralFrequency_hz , state_startFiberBeforeBooster , boosterAmplifierInfo.get()) : 
-	   							state_startFiberBeforeBooster.getCopy();
-	   		infoToAdd.setFirst(state_startFiberAfterBooster);
-			 LpSignalState stateOutputLastOlaOrInitialOadmAfterBooster = state_startFiberAfterBooster;
-			 final List<OpticalAmplifierInfo> olasTraversed = fiber.getOpticalLineAmplifiersInfo();
-			 final int numOlas = olasTraversed.size();
-			 for (int contOla = 0; contOla < numOlas ; contOla ++)
-			 {
-				 final OpticalAmplifierInfo thisOla = olasTraversed.get(contOla);
-				 final double distFromLastOlaOrInitialOadm_km = thisOla.getOlaPositionInKm().get() - (contOla == 0? 0 : olasTraversed.get(contOla-1).getOlaPositionInKm().get());
-				 assert distFromLastOlaOrInitialOadm_km >= 0;
-				 final LpSignalState stateBeforeTheOla = getStateAfterFiberKm (stateOutputLastOlaOrInitialOadmAfterBooster , fiber , distFromLastOlaOrInitialOadm_km);
-				 final LpSignalState stateAfterTheOla = getStateAfterOpticalAmplifier(centralFrequency_hz, stateBeforeTheOla, thisOla);
-				 final Pair<LpSignalState,LpSignalState> infoThisOla = Pair.of(stateBeforeTheOla, stateAfterTheOla);
-				infoToAddPerOla.put(contOla, infoThisOla);
-				stateOutputLastOlaOrInitialOadmAfterBooster = stateAfterTheOla;
-			 }
-			 final double distFromLastOlaOrInitialOadm_km = fiber.getLengthInKm() - (numOlas == 0? 0 : olasTraversed.get(numOlas-1).getOlaPositionInKm().get());
-			 final LpSignalState stateAtTheEndOfFiberBeforePreamplifier = getStateAfterFiberKm (stateOutputLastOlaOrInitialOadmAfterBooster , fiber , distFromLastOlaOrInitialOadm_km);
-   			 infoToAdd.setSecond(stateAtTheEndOfFiberBeforePreamplifier);
-   			 final Optional<OpticalAmplifierInfo> preamlInfo = fiber.getDestinationPreAmplifierInfo();
-   			 final LpSignalState state_afterPreampl = preamlInfo.isPresent()? 
-						getStateAfterOpticalAmplifier (centralFrequency_hz , stateAtTheEndOfFiberBeforePreamplifier , fiber.getDestinationPreAmplifierInfo().get()) : 
-							stateAtTheEndOfFiberBeforePreamplifier.getCopy();
-   			 this.perFiberPerLp_valOutputPreamplifier.get(fiber).put(lp, preamlInfo.isPresent()? Optional.of(state_afterPreampl) : Optional.empty());
-   			 previousFiberInfo = Optional.of(infoToAdd);
+   			 pool.submit(() -> IntStream.range(0, lps.size()).parallel().forEach(cont -> infoPerLp [cont] = computeLightpathPerformanceInfo(lps.get(cont), oadms))).get();
+   		 } catch (InterruptedException e)
+   		 {
+   			 Thread.currentThread().interrupt();
+   			 throw new Net2PlanException("Interrupted while computing the lightpaths performance");
+   		 } catch (ExecutionException e)
+   		 {
+   			 if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+   			 throw new RuntimeException(e.getCause());
+   		 } finally
+   		 {
+   			 pool.shutdown();
    		 }
    	 }
+   	 for (int cont = 0; cont < lps.size() ; cont ++)
+   		 storeLightpathPerformanceInfo(lps.get(cont), infoPerLp [cont]);
    	 
    	 assert perFiberPerLpPerOla_valInputOutputOla.keySet().containsAll(wNet.getFibers());
    	 assert wNet.getFibers().stream().allMatch(e->e.getTraversingLps().equals(perFiberPerLpPerOla_valInputOutputOla.get(e).keySet()));
    	 assert wNet.getFibers().stream().allMatch(e->e.getTraversingLps().stream().allMatch(lp->perFiberPerLpPerOla_valInputOutputOla.get(e).get(lp).size() == e.getNumberOfOpticalLineAmplifiersTraversed()));
    	 
-   	 /* Update the per lp information at add and end */
-   	 for (WLightpath lp : wNet.getLightpaths())
-   	 {
-   		 final double centralFrequency_hz = 1e12 * lp.getCentralFrequencyThz();
-   		 final WFiber lastFiber = lp.getSeqFibers().get(lp.getSeqFibers().size()-1);
-   		 final WNode lastOadm = lastFiber.getB();
-   		 final LpSignalState state_beforePreamplLastFiber = perFiberPerLp_valStartAfterBoosterEndBeforePreampl.get(lastFiber).get(lp).getSecond();
-		 final LpSignalState state_afterPreamplLastFiber = lastFiber.getDestinationPreAmplifierInfo().isPresent()? 
-						getStateAfterOpticalAmplifier (centralFrequency_hz , state_beforePreamplLastFiber , lastFiber.getDestinationPreAmplifierInfo().get()) : 
-							state_beforePreamplLastFiber.getCopy();
-		final LpSignalState state_afterOadm = lastOadm.getOpticalSwitchingArchitecture().getOutLpStateForDroppedLp(state_afterPreamplLastFiber, lastFiber, lp.getDirectionlessDropModuleIndexInDestination());
-   		 perLpPerMetric_valAtDropTransponderEnd.put(lp, state_afterOadm);
-   	 }
-   	 
-   	 
    	 /* Update the total power per fiber */
    	 for (WFiber fiber : wNet.getFibers())
+   		 updateFiberTotalPowerInfo(fiber);
+   	 
+   	 return this;
+    }
+
+    /** Updates the performance information after the given lightpaths were added, removed or rerouted, since the last update. 
+     * Only the changed lightpaths, and the total power in the fibers they traverse (or traversed), are recomputed. The signal state of the other 
+     * lightpaths does not depend on the changed ones, and is not modified. Changes in the fibers, amplifiers or OADMs are not detected: 
+     * updateAllPerformanceInfo should be called then.
+     * @param changedLps the lightpaths added, removed or rerouted
+     * @return this object
+     */
+    public OpticalSimulationModule update (Collection<WLightpath> changedLps)
+    {
+    	final Set<Long> changedLpIds = new HashSet<> ();
+    	final SortedSet<WFiber> affectedFibers = new TreeSet<> ();
+    	boolean someLpRemoved = false;
+    	boolean someFiberRemoved = false;
+    	for (WLightpath lp : changedLps)
+    	{
+    		changedLpIds.add(lp.getId());
+    		if (lp.wasRemoved()) someLpRemoved = true;
+    		final List<WFiber> previousSeqFibers = perLpId_seqFibers.remove(lp.getId());
+    		if (previousSeqFibers == null) continue;
+    		for (WFiber e : previousSeqFibers)
+    			if (e.wasRemoved()) someFiberRemoved = true; else affectedFibers.add(e);
+    	}
+    	
+    	/* Removed elements cannot be searched in the maps, so they are purged by iterating */
+    	if (someFiberRemoved)
+    	{
+    		perFiberPerLp_valStartAfterBoosterEndBeforePreampl.keySet().removeIf(e->e.wasRemoved());
+    		perFiberTotalPower_valStartEndAndAtEachOlaInputOutput.keySet().removeIf(e->e.wasRemoved());
+    		perFiberPerLpPerOla_valInputOutputOla.keySet().removeIf(e->e.wasRemoved());
+    		perFiberPerLp_valInputBooster.keySet().removeIf(e->e.wasRemoved());
+    		perFiberPerLp_valOutputPreamplifier.keySet().removeIf(e->e.wasRemoved());
+    	}
+    	if (someLpRemoved)
+    		perLpPerMetric_valAtDropTransponderEnd.keySet().removeIf(lp->lp.wasRemoved());
+    	for (WFiber e : affectedFibers)
+    	{
+    		final Predicate<WLightpath> isChanged = lp->lp.wasRemoved() || changedLpIds.contains(lp.getId());
+    		perFiberPerLp_valStartAfterBoosterEndBeforePreampl.getOrDefault(e, new TreeMap<> ()).keySet().removeIf(isChanged);
+    		perFiberPerLpPerOla_valInputOutputOla.getOrDefault(e, new TreeMap<> ()).keySet().removeIf(isChanged);
+    		perFiberPerLp_valInputBooster.getOrDefault(e, new TreeMap<> ()).keySet().removeIf(isChanged);
+    		perFiberPerLp_valOutputPreamplifier.getOrDefault(e, new TreeMap<> ()).keySet().removeIf(isChanged);
+    	}
+    	
+    	final Set<WNode> oadmNodes = new HashSet<> ();
+    	for (WLightpath lp : changedLps)
+    		if (!lp.wasRemoved()) oadmNodes.addAll(lp.getSeqNodes());
+    	final Map<WNode,IOadmArchitecture> oadms = getOadmArchitectures(oadmNodes);
+    	for (WLightpath lp : changedLps)
+    	{
+    		if (lp.wasRemoved()) continue;
+    		storeLightpathPerformanceInfo(lp, computeLightpathPerformanceInfo(lp, oadms));
+    		affectedFibers.addAll(perLpId_seqFibers.get(lp.getId()));
+    	}
+    	for (WFiber fiber : affectedFibers)
+    		updateFiberTotalPowerInfo(fiber);
+    	return this;
+    }
+    
+    private static Map<WNode,IOadmArchitecture> getOadmArchitectures (Collection<WNode> nodes)
+    {
+    	final Map<WNode,IOadmArchitecture> res = new HashMap<> ();
+    	for (WNode n : nodes) res.put(n, n.getOpticalSwitchingArchitecture());
+    	return res;
+    }
+
+    private void storeLightpathPerformanceInfo (WLightpath lp , LpPerformanceInfo info)
+    {
+    	perLpId_seqFibers.put(lp.getId(), info.seqFibers);
+    	for (int contFiber = 0; contFiber < info.seqFibers.size() ; contFiber ++)
+    	{
+    		final WFiber fiber = info.seqFibers.get(contFiber);
+    		perFiberPerLp_valStartAfterBoosterEndBeforePreampl.computeIfAbsent(fiber, e->new TreeMap<> ()).put(lp, info.perFiber_valStartAfterBoosterEndBeforePreampl.get(contFiber));
+    		perFiberPerLpPerOla_valInputOutputOla.computeIfAbsent(fiber, e->new TreeMap<> ()).put(lp, info.perFiberPerOla_valInputOutputOla.get(contFiber));
+    		perFiberPerLp_valInputBooster.computeIfAbsent(fiber, e->new TreeMap<> ()).put(lp, info.perFiber_valInputBooster.get(contFiber));
+    		perFiberPerLp_valOutputPreamplifier.computeIfAbsent(fiber, e->new TreeMap<> ()).put(lp, info.perFiber_valOutputPreamplifier.get(contFiber));
+    	}
+    	perLpPerMetric_valAtDropTransponderEnd.put(lp, info.valAtDropTransponderEnd);
+    }
+
+    /* Computes the signal states of the lightpath without modifying this object, so different lightpaths can be computed in parallel. 
+     * The OADM architectures are given already created, since creating them may modify the node attributes */
+    private static LpPerformanceInfo computeLightpathPerformanceInfo (WLightpath lp , Map<WNode,IOadmArchitecture> oadms)
+    {
+   	 final int numOpticalSlots = lp.getOpticalSlotIds().size();
+   	 final double centralFrequency_hz = 1e12 * lp.getCentralFrequencyThz();
+   	 Optional<Pair<LpSignalState,LpSignalState>> previousFiberInfo = Optional.empty();
+   	 final List<WFiber> lpSeqFibers = lp.getSeqFibers();
+   	 final LpPerformanceInfo res = new LpPerformanceInfo(lpSeqFibers);
+   	 for (int contFiber = 0; contFiber < lpSeqFibers.size() ; contFiber ++)
    	 {
-   		 final double powerAtStart_dBm = linear2dB(fiber.getTraversingLps().stream().map(lp->perFiberPerLp_valStartAfterBoosterEndBeforePreampl.get(fiber).get(lp).getFirst().getPower_dbm()).
-   				 mapToDouble (v->dB2linear(v)).sum ());
-   		 final double powerAtEnd_dBm = linear2dB(fiber.getTraversingLps().stream().map(lp->perFiberPerLp_valStartAfterBoosterEndBeforePreampl.get(fiber).get(lp).getSecond().getPower_dbm()).
-   				 mapToDouble (v->dB2linear(v)).sum ());
-   		 
-   		 final List<Double> powerInputOla_dBm = new ArrayList<> ();
-   		 final List<Double> powerOutputOla_dBm = new ArrayList<> ();
-   		 final List<OpticalAmplifierInfo> olas = fiber.getOpticalLineAmplifiersInfo();
-		 for (int contOla = 0; contOla < olas.size() ; contOla ++)
+   		 final WFiber fiber = lpSeqFibers.get(contFiber);
+   		 final boolean firstFiber = contFiber == 0;
+   		 final Pair<LpSignalState,LpSignalState> infoToAdd = Pair.of(new LpSignalState(), new LpSignalState());
+   		 final SortedMap<Integer , Pair<LpSignalState,LpSignalState>> infoToAddPerOla = new TreeMap<> ();
+   		 res.perFiber_valStartAfterBoosterEndBeforePreampl.add(infoToAdd);
+   		 res.perFiberPerOla_valInputOutputOla.add(infoToAddPerOla);
+   		
+   		 final IOadmArchitecture oadm_a = oadms.get(fiber.getA());
+   		 final LpSignalState state_startFiberBeforeBooster;
+   		 final WFiber previousFiber = contFiber == 0? null : lpSeqFibers.get(contFiber-1);
+   		 if (firstFiber)
+   			state_startFiberBeforeBooster = oadm_a.getOutLpStateForAddedLp(new LpSignalState(lp.getAddTransponderInjectionPower_dBm() , 0.0, 0.0, Double.MAX_VALUE), lp.getDirectionlessAddModuleIndexInOrigin(), lpSeqFibers.get(0) , numOpticalSlots);
+   		 else
+   		 {
+   			 final LpSignalState beforePreviousFiberEndPreampl = previousFiberInfo.get().getSecond();
+   			 final LpSignalState afterPreviousFiberEndPreampl = previousFiber.getDestinationPreAmplifierInfo().isPresent()? 
+   					getStateAfterOpticalAmplifier (centralFrequency_hz , beforePreviousFiberEndPreampl , previousFiber.getDestinationPreAmplifierInfo().get()) : 
+   						beforePreviousFiberEndPreampl.getCopy();
+			state_startFiberBeforeBooster = oadm_a.getOutLpStateForExpressLp(afterPreviousFiberEndPreampl, previousFiber, fiber , numOpticalSlots);
+   		 }
+   		 final Optional<OpticalAmplifierInfo> boosterAmplifierInfo = fiber.getOriginBoosterAmplifierInfo();
+   		 res.perFiber_valInputBooster.add(boosterAmplifierInfo.isPresent()? Optional.of(state_startFiberBeforeBooster) : Optional.empty());
+   		 final LpSignalState state_startFiberAfterBooster = boosterAmplifierInfo.isPresent()? 
+	   						getStateAfterOpticalAmplifier (centralFrequency_hz , state_startFiberBeforeBooster , boosterAmplifierInfo.get()) : 
+	   							state_startFiberBeforeBooster.getCopy();
+	   		infoToAdd.setFirst(state_startFiberAfterBooster);
+		 LpSignalState stateOutputLastOlaOrInitialOadmAfterBooster = state_startFiberAfterBooster;
+		 final List<OpticalAmplifierInfo> olasTraversed = fiber.getOpticalLineAmplifiersInfo();
+		 final int numOlas = olasTraversed.size();
+		 for (int contOla = 0; contOla < numOlas ; contOla ++)
 		 {
-			 final double kmFromStartFiber = olas.get(contOla).getOlaPositionInKm().get();
-			 final double sumGainsTraversedAmplifiersBeforeThisOla_db = IntStream.range(0, contOla).mapToDouble(olaIndex -> olas.get(olaIndex).getGainDb()).sum();
-			 final double powerAtInputThisOla_dBm = powerAtStart_dBm - kmFromStartFiber * fiber.getAttenuationCoefficient_dbPerKm() + sumGainsTraversedAmplifiersBeforeThisOla_db;
-			 final double powerAtOutputThisOla_dBm = powerAtInputThisOla_dBm + olas.get(contOla).getGainDb();
-			 powerInputOla_dBm.add(powerAtInputThisOla_dBm);
-			 powerOutputOla_dBm.add(powerAtOutputThisOla_dBm);
+			 final OpticalAmplifierInfo thisOla = olasTraversed.get(contOla);
+			 final double distFromLastOlaOrInitialOadm_km = thisOla.getOlaPositionInKm().get() - (contOla == 0? 0 : olasTraversed.get(contOla-1).getOlaPositionInKm().get());
+			 assert distFromLastOlaOrInitialOadm_km >= 0;
+			 final LpSignalState stateBeforeTheOla = getStateAfterFiberKm (stateOutputLastOlaOrInitialOadmAfterBooster , fiber , distFromLastOlaOrInitialOadm_km);
+			 final LpSignalState stateAfterTheOla = getStateAfterOpticalAmplifier(centralFrequency_hz, stateBeforeTheOla, thisOla);
+			 final Pair<LpSignalState,LpSignalState> infoThisOla = Pair.of(stateBeforeTheOla, stateAfterTheOla);
+			infoToAddPerOla.put(contOla, infoThisOla);
+			stateOutputLastOlaOrInitialOadmAfterBooster = stateAfterTheOla;
 		 }
-   		 perFiberTotalPower_valStartEndAndAtEachOlaInputOutput.put(fiber, Quadruple.of(powerAtStart_dBm, powerAtEnd_dBm , powerInputOla_dBm , powerOutputOla_dBm));
+		 final double distFromLastOlaOrInitialOadm_km = fiber.getLengthInKm() - (numOlas == 0? 0 : olasTraversed.get(numOlas-1).getOlaPositionInKm().get());
+		 final LpSignalState stateAtTheEndOfFiberBeforePreamplifier = getStateAfterFiberKm (stateOutputLastOlaOrInitialOadmAfterBooster , fiber , distFromLastOlaOrInitialOadm_km);
+   		 infoToAdd.setSecond(stateAtTheEndOfFiberBeforePreamplifier);
+   		 final Optional<OpticalAmplifierInfo> preamlInfo = fiber.getDestinationPreAmplifierInfo();
+   		 final LpSignalState state_afterPreampl = preamlInfo.isPresent()? 
+					getStateAfterOpticalAmplifier (centralFrequency_hz , stateAtTheEndOfFiberBeforePreamplifier , fiber.getDestinationPreAmplifierInfo().get()) : 
+						stateAtTheEndOfFiberBeforePreamplifier.getCopy();
+   		 res.perFiber_valOutputPreamplifier.add(preamlInfo.isPresent()? Optional.of(state_afterPreampl) : Optional.empty());
+   		 previousFiberInfo = Optional.of(infoToAdd);
    	 }
    	 
-   	 return this;
+   	 /* Update the per lp information at add and end */
+   	 final WFiber lastFiber = lpSeqFibers.get(lpSeqFibers.size()-1);
+   	 final WNode lastOadm = lastFiber.getB();
+   	 final LpSignalState state_beforePreamplLastFiber = previousFiberInfo.get().getSecond();
+	 final LpSignalState state_afterPreamplLastFiber = lastFiber.getDestinationPreAmplifierInfo().isPresent()? 
+					getStateAfterOpticalAmplifier (centralFrequency_hz , state_beforePreamplLastFiber , lastFiber.getDestinationPreAmplifierInfo().get()) : 
+						state_beforePreamplLastFiber.getCopy();
+	 res.valAtDropTransponderEnd = oadms.get(lastOadm).getOutLpStateForDroppedLp(state_afterPreamplLastFiber, lastFiber, lp.getDirectionlessDropModuleIndexInDestination());
+   	 return res;
+    }
+    
+    private void updateFiberTotalPowerInfo (WFiber fiber)
+    {
+   	 final double powerAtStart_dBm = linear2dB(fiber.getTraversingLps().stream().map(lp->perFiberPerLp_valStartAfterBoosterEndBeforePreampl.get(fiber).get(lp).getFirst().getPower_dbm()).
+   			 mapToDouble (v->dB2linear(v)).sum ());
+   	 final double powerAtEnd_dBm = linear2dB(fiber.getTraversingLps().stream().map(lp->perFiberPerLp_valStartAfterBoosterEndBeforePreampl.get(fiber).get(lp).getSecond().getPower_dbm()).
+   			 mapToDouble (v->dB2linear(v)).sum ());
+   	 
+   	 final List<Double> powerInputOla_dBm = new ArrayList<> ();
+   	 final List<Double> powerOutputOla_dBm = new ArrayList<> ();
+   	 final List<OpticalAmplifierInfo> olas = fiber.getOpticalLineAmplifiersInfo();
+	 for (int contOla = 0; contOla < olas.size() ; contOla ++)
+	 {
+		 final double kmFromStartFiber = olas.get(contOla).getOlaPositionInKm().get();
+		 final double sumGainsTraversedAmplifiersBeforeThisOla_db = IntStream.range(0, contOla).mapToDouble(olaIndex -> olas.get(olaIndex).getGainDb()).sum();
+		 final double powerAtInputThisOla_dBm = powerAtStart_dBm - kmFromStartFiber * fiber.getAttenuationCoefficient_dbPerKm() + sumGainsTraversedAmplifiersBeforeThisOla_db;
+		 final double powerAtOutputThisOla_dBm = powerAtInputThisOla_dBm + olas.get(contOla).getGainDb();
+		 powerInputOla_dBm.add(powerAtInputThisOla_dBm);
+		 powerOutputOla_dBm.add(powerAtOutputThisOla_dBm);
+	 }
+   	 perFiberTotalPower_valStartEndAndAtEachOlaInputOutput.put(fiber, Quadruple.of(powerAtStart_dBm, powerAtEnd_dBm , powerInputOla_dBm , powerOutputOla_dBm));
     }
         
 	public Optional<Double> getMaxtoMinPerPowerDensityRatioAmongTraversingLightpathsAtFiberInput_dB (WFiber fiber)
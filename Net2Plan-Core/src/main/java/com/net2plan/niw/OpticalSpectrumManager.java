@@ -12,8 +12,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -33,6 +31,7 @@ import org.jgrapht.graph.DirectedMultigraph;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.net2plan.interfaces.networkDesign.Net2PlanException;
+import com.net2plan.libraries.OpticalSlotBitSet;
 import com.net2plan.utils.Pair;
 import com.net2plan.utils.Triple;
 
@@ -53,8 +52,15 @@ public class OpticalSpectrumManager
 	private class SlotOccupationManager <T>
 	{
 		final private Map<T,SortedMap<Integer,SortedSet<WLightpath>>> occupation_element_s_ll = new HashMap<> ();
+		final private Map<T,OpticalSlotBitSet> occupation_element_bitset = new HashMap<> (); // same occupied slots as occupation_element_s_ll, as bitsets for the spectrum assignment
 		public SlotOccupationManager() {}
-		public void clear () { occupation_element_s_ll.clear();  }
+		public void clear () { occupation_element_s_ll.clear(); occupation_element_bitset.clear(); }
+		/* The returned bitset must not be modified */
+		OpticalSlotBitSet getOccupiedSlotsBitSet (T element)
+		{
+			final OpticalSlotBitSet res = occupation_element_bitset.get(element);
+			return res == null? new OpticalSlotBitSet () : res;
+		}
 		public Map<T,SortedMap<Integer,SortedSet<WLightpath>>> getFullPerElementOccupationMap () { return Collections.unmodifiableMap(occupation_element_s_ll); }
 		public SortedMap<Integer,SortedSet<WLightpath>> getOccupiedSlotIds (T element) 
 		{ 
@@ -81,8 +87,11 @@ public class OpticalSpectrumManager
 	    	boolean clashesWithPreviousAllocations = false;
     		SortedMap<Integer,SortedSet<WLightpath>> thisElementInfo = this.occupation_element_s_ll.get(element);
     		if (thisElementInfo == null) { thisElementInfo = new TreeMap<> (); this.occupation_element_s_ll.put(element, thisElementInfo); }
+    		OpticalSlotBitSet thisElementBitSet = this.occupation_element_bitset.get(element);
+    		if (thisElementBitSet == null) { thisElementBitSet = new OpticalSlotBitSet (); this.occupation_element_bitset.put(element, thisElementBitSet); }
     		for (int slotId : slotIds)
     		{
+    			thisElementBitSet.set(slotId);
     			SortedSet<WLightpath> currentCollidingLps = thisElementInfo.get(slotId);
     			if (currentCollidingLps == null) { currentCollidingLps = new TreeSet<> (); thisElementInfo.put(slotId, currentCollidingLps); }
     			if (!currentCollidingLps.isEmpty()) clashesWithPreviousAllocations = true;
@@ -106,7 +115,8 @@ public class OpticalSpectrumManager
 	    			if (thisLpAndOthers.isEmpty()) 
 	    			{
 	    				thisFiberInfo.remove(slotId);
-	    				if (thisFiberInfo.isEmpty()) this.occupation_element_s_ll.remove(element);
+	    				this.occupation_element_bitset.get(element).clear(slotId);
+	    				if (thisFiberInfo.isEmpty()) { this.occupation_element_s_ll.remove(element); this.occupation_element_bitset.remove(element); }
 	    			}
 	    		}
 	    	}
@@ -180,16 +190,7 @@ public class OpticalSpectrumManager
     {
     	checkSameWNet(wdmLinks);
         if (wdmLinks.isEmpty()) throw new Net2PlanException ("No WDM links");
-        final Iterator<WFiber> itLink = wdmLinks.iterator();
-        final WFiber firstLink = itLink.next();
-        final SortedSet<Integer> validSlotIds = this.getIdleOpticalSlotIds(firstLink);
-        while (itLink.hasNext())
-            validSlotIds.retainAll(this.getIdleOpticalSlotIds(itLink.next()));
-        if (addNodeDirectionlessBank.isPresent())
-            validSlotIds.removeAll(this.getOccupiedOpticalSlotIdsInDirectionlessAddModule(addNodeDirectionlessBank.get().getFirst() , addNodeDirectionlessBank.get().getSecond()));
-        if (dropNodeDirectionlessBank.isPresent())
-            validSlotIds.removeAll(this.getOccupiedOpticalSlotIdsInDirectionlessDropModule(dropNodeDirectionlessBank.get().getFirst() , dropNodeDirectionlessBank.get().getSecond()));
-        return validSlotIds;
+        return getAvailableSlotsBitSet(wdmLinks, addNodeDirectionlessBank, dropNodeDirectionlessBank, false).toSortedSet();
     }
 
 	/** FA: Returns the set of the optical slots ids that are idle in ALL the fibers provided and also, if given, in the add and drop directionless modules, so they are not occupied by legitimate or waste signals
@@ -202,17 +203,54 @@ public class OpticalSpectrumManager
     {
     	checkSameWNet(wdmLinks);
         if (wdmLinks.isEmpty()) throw new Net2PlanException ("No WDM links");
-        final Iterator<WFiber> itLink = wdmLinks.iterator();
-        final WFiber firstLink = itLink.next();
+        return getAvailableSlotsBitSet(wdmLinks, addNodeDirectionlessBank, dropNodeDirectionlessBank, true).toSortedSet();
+    }
 
-        final SortedSet<Integer> validSlotIds = this.getOpticalSlotIdsEmptyOrWithWaste(firstLink);
-        while (itLink.hasNext())
-            validSlotIds.retainAll(this.getOpticalSlotIdsEmptyOrWithWaste(itLink.next()));
+    /* Slots valid in all the fibers, and not occupied in them nor in the given directionless modules (if onlyLegitimateSignalOccupies, waste signals do not count as occupation) */
+    private OpticalSlotBitSet getAvailableSlotsBitSet (Collection<WFiber> wdmLinks , Optional<Pair<WNode,Integer>> addNodeDirectionlessBank , Optional<Pair<WNode,Integer>> dropNodeDirectionlessBank , boolean onlyLegitimateSignalOccupies) 
+    {
+        OpticalSlotBitSet res = null;
+        for (WFiber e : wdmLinks)
+        {
+        	final OpticalSlotBitSet idleThisFiber = OpticalSlotBitSet.fromRanges(e.getValidOpticalSlotRanges());
+        	idleThisFiber.andNot(legitimateSignal_perFiberOccupation.getOccupiedSlotsBitSet(e));
+        	if (!onlyLegitimateSignalOccupies) idleThisFiber.andNot(wasteSignal_perFiberOccupation.getOccupiedSlotsBitSet(e));
+        	if (res == null) res = idleThisFiber; else res.and(idleThisFiber);
+        }
         if (addNodeDirectionlessBank.isPresent())
-            validSlotIds.removeAll(this.getOccupiedWithLegitimateSignalOpticalSlotIdsInDirectionlessAddModule(addNodeDirectionlessBank.get().getFirst() , addNodeDirectionlessBank.get().getSecond()));
+        {
+        	checkSameWNet(addNodeDirectionlessBank.get().getFirst());
+        	res.andNot(legitimateSignal_directionlessAddOccupation.getOccupiedSlotsBitSet(addNodeDirectionlessBank.get()));
+        	if (!onlyLegitimateSignalOccupies) res.andNot(wasteSignal_directionlessAddOccupation.getOccupiedSlotsBitSet(addNodeDirectionlessBank.get()));
+        }
         if (dropNodeDirectionlessBank.isPresent())
-            validSlotIds.removeAll(this.getOccupiedWithLegitimateSignalOpticalSlotIdsInDirectionlessDropModule(dropNodeDirectionlessBank.get().getFirst() , dropNodeDirectionlessBank.get().getSecond()));
-        return validSlotIds;
+        {
+        	checkSameWNet(dropNodeDirectionlessBank.get().getFirst());
+        	res.andNot(legitimateSignal_directionlessDropOccupation.getOccupiedSlotsBitSet(dropNodeDirectionlessBank.get()));
+        	if (!onlyLegitimateSignalOccupies) res.andNot(wasteSignal_directionlessDropOccupation.getOccupiedSlotsBitSet(dropNodeDirectionlessBank.get()));
+        }
+        return res;
+    }
+
+    /* Slots usable by the given lightpath occupation, with the criteria described in spectrumAssignment_getAllPotentialFirstSlots */
+    private OpticalSlotBitSet getUsableSlotsBitSet (OsmLightpathOccupationInfo lpOccupation , Optional<Integer> minimumInitialSlotId , SortedSet<Integer> forbidenSlotIds)
+    {
+    	checkSameWNet(lpOccupation.getSeqFibersLegitimateSignal());
+    	checkSameWNet(lpOccupation.getFibersWithWasteSignal());
+    	/* Empty slots for legitimate fibers, and add/drop dirless modules  */
+    	final OpticalSlotBitSet res = getAvailableSlotsBitSet(lpOccupation.getSeqFibersLegitimateSignal() , lpOccupation.getDirectionlessAddModule() , lpOccupation.getDirectionlessDropModule() , false);
+    	/* Retain slots without legitimate signal in wasted fibers */
+    	if (!lpOccupation.getFibersWithWasteSignal().isEmpty())
+    		res.and(getAvailableSlotsBitSet(lpOccupation.getFibersWithWasteSignal() , Optional.empty() , Optional.empty() , true));
+    	/* Remove slots with legitimate signal in any of the wasted add/drop dirless ports */
+    	for (Pair<WNode,Integer> module : lpOccupation.getAddDirectionlessModulesWithWasteSignal())
+    		res.andNot(legitimateSignal_directionlessAddOccupation.getOccupiedSlotsBitSet(module));
+    	for (Pair<WNode,Integer> module : lpOccupation.getDropDirectionlessModulesWithWasteSignal())
+    		res.andNot(legitimateSignal_directionlessDropOccupation.getOccupiedSlotsBitSet(module));
+    	/* Remove invalid slots below the mandated threshold, and forbiden slot ids */
+    	if (minimumInitialSlotId.isPresent()) res.clearBelow(minimumInitialSlotId.get());
+    	res.clear(forbidenSlotIds);
+    	return res;
     }
 
     
@@ -577,34 +615,12 @@ public class OpticalSpectrumManager
         /* If a fiber is traversed more than once, there is no possible assignment */
         if (lpOccupation.isWithSelfClashing()) return Optional.empty();
 
-        /* Empty slots for legitimate fibers, and add/drop dirless modules  */
-        SortedSet<Integer> intersectionValidSlots = getAvailableSlotIds(lpOccupation.getSeqFibersLegitimateSignal() , lpOccupation.getDirectionlessAddModule() , lpOccupation.getDirectionlessDropModule());
-        /* Retain slots without legitimate signal in wasted fibers */
-        if (!lpOccupation.getFibersWithWasteSignal().isEmpty())
-        	intersectionValidSlots.retainAll(getAvailableSlotIdsEmptyOrWithWaste(lpOccupation.getFibersWithWasteSignal() , Optional.empty() , Optional.empty()));
-        /* Remove slots with legitimate signal in any of the wasted add dirless ports */
-        for (Pair<WNode,Integer> module : lpOccupation.getAddDirectionlessModulesWithWasteSignal())
-        	intersectionValidSlots.removeAll(this.getOccupiedWithLegitimateSignalOpticalSlotIdsInDirectionlessAddModule(module.getFirst(), module.getSecond()));
-        /* Remove slots with legitimate signal in any of the wasted drop dirless ports */
-        for (Pair<WNode,Integer> module : lpOccupation.getDropDirectionlessModulesWithWasteSignal())
-        	intersectionValidSlots.removeAll(this.getOccupiedWithLegitimateSignalOpticalSlotIdsInDirectionlessDropModule(module.getFirst(), module.getSecond()));
-        /* Remove invalid slots below the mandated threshold */
-        if (minimumInitialSlotId.isPresent())
-        	intersectionValidSlots = intersectionValidSlots.tailSet(minimumInitialSlotId.get());
-        /* Remove forbiden slot ids */
-        intersectionValidSlots.removeAll(forbidenSlotIds);
-        if (intersectionValidSlots.size() < numContiguousSlotsRequired) return Optional.empty();
-
-        final LinkedList<Integer> lastXValidSlots = new LinkedList<> ();
-        for (int slotId : intersectionValidSlots)
-        {
-        	if (lastXValidSlots.size() >= numContiguousSlotsRequired) lastXValidSlots.remove(0);
-        	lastXValidSlots.add(slotId);
-        	if (lastXValidSlots.size() != numContiguousSlotsRequired) continue;
-        	if (lastXValidSlots.getLast() - lastXValidSlots.getFirst() == numContiguousSlotsRequired-1) 
-        		return Optional.of(new TreeSet<>(lastXValidSlots));
-        }
-        return Optional.empty();
+        /* Lowest contiguous range of usable slots */
+        final Integer firstSlot = getUsableSlotsBitSet(lpOccupation, minimumInitialSlotId, forbidenSlotIds).getFirstRangeInitialSlot(numContiguousSlotsRequired);
+        if (firstSlot == null) return Optional.empty();
+        final SortedSet<Integer> res = new TreeSet<> ();
+        for (int s = firstSlot; s < firstSlot + numContiguousSlotsRequired; s++) res.add(s);
+        return Optional.of(res);
     }
 
     
@@ -626,37 +642,7 @@ public class OpticalSpectrumManager
         /* If a fiber is traversed more than once, there is no possible assignment */
         if (lpOccupation.isWithSelfClashing()) return new TreeSet<> ();
 
-        /* Empty slots for legitimate fibers, and add/drop dirless modules  */
-        SortedSet<Integer> intersectionValidSlots = getAvailableSlotIds(lpOccupation.getSeqFibersLegitimateSignal() , lpOccupation.getDirectionlessAddModule() , lpOccupation.getDirectionlessDropModule());
-        /* Retain slots without legitimate signal in wasted fibers */
-        if (!lpOccupation.getFibersWithWasteSignal().isEmpty())
-        	intersectionValidSlots.retainAll(getAvailableSlotIdsEmptyOrWithWaste(lpOccupation.getFibersWithWasteSignal() , Optional.empty() , Optional.empty()));
-        /* Remove slots with legitimate signal in any of the wasted add dirless ports */
-        for (Pair<WNode,Integer> module : lpOccupation.getAddDirectionlessModulesWithWasteSignal())
-        	intersectionValidSlots.removeAll(this.getOccupiedWithLegitimateSignalOpticalSlotIdsInDirectionlessAddModule(module.getFirst(), module.getSecond()));
-        /* Remove slots with legitimate signal in any of the wasted drop dirless ports */
-        for (Pair<WNode,Integer> module : lpOccupation.getDropDirectionlessModulesWithWasteSignal())
-        	intersectionValidSlots.removeAll(this.getOccupiedWithLegitimateSignalOpticalSlotIdsInDirectionlessDropModule(module.getFirst(), module.getSecond()));
-        /* Remove invalid slots below the mandated threshold */
-        if (minimumInitialSlotId.isPresent())
-        	intersectionValidSlots = intersectionValidSlots.tailSet(minimumInitialSlotId.get());
-        /* Remove the forbidden slots if any */
-        intersectionValidSlots.removeAll(forbidenSlotIds);
-        
-        if (intersectionValidSlots.size() < numContiguousSlotsRequired) return new TreeSet<> ();
-
-        final SortedSet<Integer> validFirstSlotsOfContiguousRanges = new TreeSet<> ();
-        
-        final LinkedList<Integer> lastXValidSlots = new LinkedList<> ();
-        for (int slotId : intersectionValidSlots)
-        {
-        	if (lastXValidSlots.size() >= numContiguousSlotsRequired) lastXValidSlots.remove(0);
-        	lastXValidSlots.add(slotId);
-        	if (lastXValidSlots.size() != numContiguousSlotsRequired) continue;
-        	if (lastXValidSlots.getLast() - lastXValidSlots.getFirst() == numContiguousSlotsRequired-1) 
-        		validFirstSlotsOfContiguousRanges.add(lastXValidSlots.getFirst());
-        }
-        return validFirstSlotsOfContiguousRanges;
+        return getUsableSlotsBitSet(lpOccupation, minimumInitialSlotId, forbidenSlotIds).getAllRangesInitialSlots(numContiguousSlotsRequired);
     }
 
     /** Searches for a first-fit assignment for the two given paths, so optical slots can be different for each. 
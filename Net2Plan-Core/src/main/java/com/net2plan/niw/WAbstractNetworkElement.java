@@ -5,16 +5,17 @@
 
 package com.net2plan.niw;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
 
 import com.net2plan.interfaces.networkDesign.Net2PlanException;
 import com.net2plan.interfaces.networkDesign.NetPlan;
 import com.net2plan.interfaces.networkDesign.NetworkElement;
 import com.net2plan.interfaces.networkDesign.NetworkLayer;
+import com.net2plan.internal.AttributeMap;
 import com.net2plan.niw.WNetConstants.WTYPE;
 
 /**
@@ -24,6 +25,21 @@ import com.net2plan.niw.WNetConstants.WTYPE;
 public abstract class WAbstractNetworkElement implements Comparable<WAbstractNetworkElement>
 {
 	public static final String NIWNAMEPREFIX = "$$$";
+	private static final AttributeMap.ParsedColumn<Boolean> PARSEDCOLUMN_BOOLEAN = new AttributeMap.ParsedColumn<> (s -> Boolean.parseBoolean(s));
+	private static final AttributeMap.ParsedColumn<Integer> PARSEDCOLUMN_INTEGER = new AttributeMap.ParsedColumn<> (s -> 
+	{
+		try { return Integer.parseInt(s); } catch (Exception ee) { return null; }
+	});
+	private static final AttributeMap.ParsedColumn<SortedSet<Integer>> PARSEDCOLUMN_SORTEDSETINTEGER = new AttributeMap.ParsedColumn<> (s -> 
+	{
+		final SortedSet<Integer> res = new TreeSet<> ();
+		for (String part : s.split(" ",-1))
+		{
+			if (part.equals("")) continue;
+			try { res.add((int) Double.parseDouble(part)); } catch (Exception ee) { return null; }
+		}
+		return Collections.unmodifiableSortedSet(res);
+	});
 
 	/**
 	 * The Net2Plan object associated to this library object
@@ -80,15 +96,7 @@ public abstract class WAbstractNetworkElement implements Comparable<WAbstractNet
 	 */
 	public Boolean getAttributeAsBooleanOrDefault(String name, Boolean defaultValue)
 	{
-		final String s = associatedNpElement.getAttribute(name);
-		if (s == null) return defaultValue;
-		try
-		{
-			return Boolean.parseBoolean(s);
-		} catch (Exception ee)
-		{
-			return defaultValue;
-		}
+		return associatedNpElement.getAttributeAsParsedValue(name, PARSEDCOLUMN_BOOLEAN, defaultValue);
 	}
 
 
@@ -136,15 +144,7 @@ public abstract class WAbstractNetworkElement implements Comparable<WAbstractNet
 
 	public int getAttributeAsIntegerOrDefault(String name, Integer defaultValue)
 	{
-		final String s = associatedNpElement.getAttribute(name);
-		if (s == null) return defaultValue;
-		try
-		{
-			return Integer.parseInt(s);
-		} catch (Exception ee)
-		{
-			return defaultValue;
-		}
+		return associatedNpElement.getAttributeAsParsedValue(name, PARSEDCOLUMN_INTEGER, defaultValue);
 	}
 
 	public List<Double> getAttributeAsListDoubleOrDefault(String name, List<Double> defaultValue)
@@ -157,9 +157,9 @@ public abstract class WAbstractNetworkElement implements Comparable<WAbstractNet
 	}
 	public SortedSet<Integer> getAttributeAsSortedSetIntegerOrDefault(String name, SortedSet<Integer> defaultValue)
 	{
-		final List<Double> res = associatedNpElement.getAttributeAsDoubleList(name, null);
+		final SortedSet<Integer> res = associatedNpElement.getAttributeAsParsedValue(name, PARSEDCOLUMN_SORTEDSETINTEGER, null);
 		if (res == null) return defaultValue;
-		return res.stream().map(nn -> new Integer(nn.intValue())).collect(Collectors.toCollection(TreeSet::new));
+		return new TreeSet<> (res);
 	}
 
 	Optional<NetworkLayer> getIpNpLayer()
@@ -8,7 +8,6 @@ package com.net2plan.niw;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.SortedSet;
@@ -17,8 +16,10 @@ import java.util.stream.Collectors;
 
 import com.net2plan.interfaces.networkDesign.Link;
 import com.net2plan.interfaces.networkDesign.Net2PlanException;
+import com.net2plan.internal.AttributeMap;
 import com.net2plan.niw.WNetConstants.WTYPE;
 import com.net2plan.utils.Pair;
+import com.net2plan.utils.StringUtils;
 
 /**
  * This class represents a unidirectional WDM fiber between two OADM (Optical Add-Drop Multiplexer) network nodes
@@ -52,6 +53,23 @@ public class WFiber extends WAbstractNetworkElement
 	private static final String ATTNAMESUFFIX_VALIDOPTICALSLOTRANGES = "OpticalSlotRanges";
 	private static final String ATTNAMESUFFIX_ARBITRARYPARAMSTRING = "ArbitraryString";
 	private int numberAmplifiersToTraverse = 0;
+	private static final AttributeMap.ParsedColumn<List<OpticalAmplifierInfo>> PARSEDCOLUMN_OLASINFO = new AttributeMap.ParsedColumn<> (s -> 
+	{
+		final List<String> info = StringUtils.readEscapedString_asStringList(s, Arrays.asList());
+		return Collections.unmodifiableList(info.stream().map(ss->OpticalAmplifierInfo.createFromString(ss).orElse(null)).filter(ss->ss!=null).collect(Collectors.toList()));
+	});
+	private static final AttributeMap.ParsedColumn<OpticalAmplifierInfo> PARSEDCOLUMN_AMPLIFIERINFO = new AttributeMap.ParsedColumn<> (s -> OpticalAmplifierInfo.createFromString(s).orElse(null));
+	private static final AttributeMap.ParsedColumn<int []> PARSEDCOLUMN_SLOTRANGES = new AttributeMap.ParsedColumn<> (s -> 
+	{
+		final List<Integer> auxList = new ArrayList<> ();
+		for (String part : s.split(" ",-1))
+		{
+			if (part.equals("")) continue;
+			try { auxList.add((int) Double.parseDouble(part)); } catch (Exception ee) { return null; }
+		}
+		return auxList.stream().mapToInt(ee -> ee).toArray();
+	});
+	private static final int [] DEFAULT_SLOTRANGES = WNetConstants.WFIBER_DEFAULT_VALIDOPTICALSLOTRANGES_LISTDOUBLE.stream().mapToInt(ee -> ee.intValue()).toArray();
 	
 	
 	private WFiber (Optional<Integer> indexIfDummyFiber)
@@ -219,8 +237,13 @@ public class WFiber extends WAbstractNetworkElement
 	 */
 	public List<OpticalAmplifierInfo> getOpticalLineAmplifiersInfo ()
 	{
-		final List<String> info = getAttributeAsListStringOrDefault(ATTNAMECOMMONPREFIX + ATTNAMESUFFIX_OPTICALLINEAMPLIFIERSINFO, Arrays.asList());
-		return info.stream().map(s->OpticalAmplifierInfo.createFromString(s).orElse(null)).filter(s->s!=null).collect(Collectors.toList());
+		return getOpticalLineAmplifiersInfoNotCopied().stream().map(e->e.getCopy()).collect(Collectors.toList());
+	}
+
+	/* The amplifiers as parsed from the attribute, shared with other calls: they must not be modified */
+	private List<OpticalAmplifierInfo> getOpticalLineAmplifiersInfoNotCopied ()
+	{
+		return getNe().getAttributeAsParsedValue(ATTNAMECOMMONPREFIX + ATTNAMESUFFIX_OPTICALLINEAMPLIFIERSINFO, PARSEDCOLUMN_OLASINFO, Arrays.asList());
 	}
 
 	/**
@@ -229,7 +252,7 @@ public class WFiber extends WAbstractNetworkElement
 	 */
 	public int getNumberOfOpticalLineAmplifiersTraversed()
 	{
-		return getOpticalLineAmplifiersInfo().size();
+		return getOpticalLineAmplifiersInfoNotCopied().size();
 	}
 
 	private List<Double> getList (String attribNameSuffix , double defaultValue)
@@ -272,7 +295,7 @@ public class WFiber extends WAbstractNetworkElement
 
 	public double getAccumulatedChromaticDispersion_psPerNm ()
 	{
-		return this.getLengthInKm() * this.getChromaticDispersionCoeff_psPerNmKm() + this.getOpticalLineAmplifiersInfo().stream().mapToDouble(e->e.getCdCompensationPsPerNm()).sum();
+		return this.getLengthInKm() * this.getChromaticDispersionCoeff_psPerNmKm() + this.getOpticalLineAmplifiersInfoNotCopied().stream().mapToDouble(e->e.getCdCompensationPsPerNm()).sum();
 	}
 	
 	/**
@@ -282,13 +305,12 @@ public class WFiber extends WAbstractNetworkElement
 	public final List<Pair<Integer,Integer>> getValidOpticalSlotRanges()
 	{
 		final List<Pair<Integer,Integer>> res = new ArrayList<> ();
-		final List<Integer> auxList = getAttributeAsListDoubleOrDefault(ATTNAMECOMMONPREFIX + ATTNAMESUFFIX_VALIDOPTICALSLOTRANGES, WNetConstants.WFIBER_DEFAULT_VALIDOPTICALSLOTRANGES_LISTDOUBLE).stream().map(ee -> ee.intValue()).collect(Collectors.toList());
-		final Iterator<Integer> it = auxList.iterator();
-		while (it.hasNext())
+		final int [] auxList = getNe().getAttributeAsParsedValue(ATTNAMECOMMONPREFIX + ATTNAMESUFFIX_VALIDOPTICALSLOTRANGES, PARSEDCOLUMN_SLOTRANGES, DEFAULT_SLOTRANGES);
+		for (int cont = 0; cont < auxList.length ; cont += 2)
 		{
-			final int startRange = it.next();
-			if (!it.hasNext()) throw new Net2PlanException("Invalid optical slot ranges");
-			final int endRange = it.next();
+			final int startRange = auxList [cont];
+			if (cont + 1 >= auxList.length) throw new Net2PlanException("Invalid optical slot ranges");
+			final int endRange = auxList [cont + 1];
 			if (endRange < startRange) throw new Net2PlanException("Invalid optical slot ranges");
 			res.add(Pair.of(startRange, endRange));
 		}
@@ -300,7 +322,7 @@ public class WFiber extends WAbstractNetworkElement
 	 */
 	public double getNetGain_dB ()
 	{
-		return getOpticalLineAmplifiersInfo().stream().mapToDouble(e->e.getGainDb()).sum() - getLengthInKm() * getAttenuationCoefficient_dbPerKm();
+		return getOpticalLineAmplifiersInfoNotCopied().stream().mapToDouble(e->e.getGainDb()).sum() - getLengthInKm() * getAttenuationCoefficient_dbPerKm();
 	}
 
 	/**
@@ -441,7 +463,7 @@ public class WFiber extends WAbstractNetworkElement
 
 	public boolean isOkAllGainsOfLineAmplifiers ()
 	{
-		return getOpticalLineAmplifiersInfo().stream().allMatch(o->o.isOkGainBetweenMargins());
+		return getOpticalLineAmplifiersInfoNotCopied().stream().allMatch(o->o.isOkGainBetweenMargins());
 	}
 
 	
@@ -474,9 +496,8 @@ public class WFiber extends WAbstractNetworkElement
 	public Optional<OpticalAmplifierInfo> getOriginBoosterAmplifierInfo ()
 	{
 		if (!isExistingBoosterAmplifierAtOriginOadm()) return Optional.empty();
-		final String s = getNe().getAttribute(ATTNAMECOMMONPREFIX + ATTNAMESUFFIX_ASIDE_BOOSTERAMPLIFIERINFO);
-		final OpticalAmplifierInfo info = OpticalAmplifierInfo.createFromString(s).orElse(OpticalAmplifierInfo.getDefaultBooster());
-		return Optional.of (info);
+		final OpticalAmplifierInfo info = getNe().getAttributeAsParsedValue(ATTNAMECOMMONPREFIX + ATTNAMESUFFIX_ASIDE_BOOSTERAMPLIFIERINFO, PARSEDCOLUMN_AMPLIFIERINFO, null);
+		return Optional.of (info == null? OpticalAmplifierInfo.getDefaultBooster() : info.getCopy());
 	}
 	/** Sets the information of the booster amplifier at fiber origin.
 	 * @param info see above
@@ -492,9 +513,8 @@ public class WFiber extends WAbstractNetworkElement
 	public Optional<OpticalAmplifierInfo> getDestinationPreAmplifierInfo ()
 	{
 		if (!isExistingPreamplifierAtDestinationOadm()) return Optional.empty();
-		final String s = getNe().getAttribute(ATTNAMECOMMONPREFIX + ATTNAMESUFFIX_BSIDE_PREAMPLIFIERINFO);
-		final OpticalAmplifierInfo info = OpticalAmplifierInfo.createFromString(s).orElse(OpticalAmplifierInfo.getDefaultPreamplifier());
-		return Optional.of (info);
+		final OpticalAmplifierInfo info = getNe().getAttributeAsParsedValue(ATTNAMECOMMONPREFIX + ATTNAMESUFFIX_BSIDE_PREAMPLIFIERINFO, PARSEDCOLUMN_AMPLIFIERINFO, null);
+		return Optional.of (info == null? OpticalAmplifierInfo.getDefaultPreamplifier() : info.getCopy());
 	}
 	/** Sets the information of the preamplifier amplifier at fiber destination.
 	 * @param info see above
@@ -170,7 +170,7 @@ public class WNet extends WAbstractNetworkElement
 	 */
 	public Optional<WLayerWdm> getWdmLayer()
 	{
-		return np.getNetworkLayers().stream().filter(e->e.getName().equals(WNetConstants.wdmLayerName)).map(e->new WLayerWdm(e)).findFirst();
+		return WNetElementViews.get(np).getViews().wdmLayer;
 	}
 
 	/**
@@ -179,7 +179,7 @@ public class WNet extends WAbstractNetworkElement
 	 */
 	public Optional<WLayerIp> getIpLayer()
 	{
-		return np.getNetworkLayers().stream().filter(e->e.getName().equals(WNetConstants.ipLayerName)).map(e->new WLayerIp(e)).findFirst();
+		return WNetElementViews.get(np).getViews().ipLayer;
 	}
 
 	/** Add a SRG, with no associated failing elements, a MTTR of 12 hours, and MTTF of 1 year of 365 days
@@ -192,120 +192,98 @@ public class WNet extends WAbstractNetworkElement
 	}
 
 	/**
-	 * Returns the list of defined shared risk groups, in increasing order according to its id
+	 * Returns the list of defined shared risk groups, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WSharedRiskGroup> getSrgs ()
 	{
-		return np.getSRGs().stream().map(n -> new WSharedRiskGroup(n)).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().srgs;
 	}
 	
 	/** Returns the number of nodes in the design, sa returned by getNodes
 	 * @return see above
 	 */
-	public int getNumberOfNodes () { return (int) np.getNodes().stream().map(n -> new WNode(n)).filter(n -> !n.isVirtualNode()).count (); }
+	public int getNumberOfNodes () { return getNodes().size(); }
 	
 	/**
-	 * Returns the list of network nodes, in increasing order according to its id
+	 * Returns the list of network nodes, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WNode> getNodes()
 	{
-		return np.getNodes().stream().map(n -> new WNode(n)).filter(n -> !n.isVirtualNode()).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().nodes;
 	}
 
 	/**
-	 * Returns the list of fibers, in increasing order according to its id
+	 * Returns the list of fibers, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WFiber> getFibers()
 	{
-		if (!isWithWdmLayer()) return new ArrayList<> ();
-		return np.getLinks(getWdmLayer().get().getNe()).stream().map(n -> new WFiber(n)).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().fibers;
 	}
 
 	/**
-	 * Returns the list of lightpath requests, in increasing order according to its id
+	 * Returns the list of lightpath requests, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WLightpathRequest> getLightpathRequests()
 	{
-		if (!isWithWdmLayer()) return new ArrayList<> ();
-		return np.getDemands(getWdmLayer().get().getNe()).stream().
-				filter(d->{ WTYPE t = getWType(d).orElse(null); return t == null? false : t.isLightpathRequest(); }).
-				map(n -> new WLightpathRequest(n)).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().lightpathRequests;
 	}
 
 	/**
-	 * Returns the list of lightpaths, in increasing order according to its id
+	 * Returns the list of lightpaths, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WLightpath> getLightpaths()
 	{
-		if (!isWithWdmLayer()) return new ArrayList<> ();
-		return np.getRoutes(getWdmLayer().get().getNe()).stream().
-				filter(d->{ WTYPE t = getWType(d).orElse(null); return t == null? false : t.isLightpath(); }).
-				map(n -> new WLightpath(n)).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().lightpaths;
 	}
 
 	/**
-	 * Returns the list of IP links, in increasing order according to its id
+	 * Returns the list of IP links, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WIpLink> getIpLinks()
 	{
-		if (!isWithIpLayer ()) return new ArrayList<> ();
-		return np.getLinks(getIpLayer().get().getNe()).stream().
-				filter(d->{ WTYPE t = getWType(d).orElse(null); return t == null? false : t.isIpLink(); }).
-				map(n -> new WIpLink(n)).filter(e -> !e.isVirtualLink()).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().ipLinks;
 	}
 
 	/**
-	 * Returns the list of service chain requests, in increasing order according to its id
+	 * Returns the list of service chain requests, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WServiceChainRequest> getServiceChainRequests()
 	{
-		if (!isWithIpLayer ()) return new ArrayList<> ();
-		return np.getDemands(getIpLayer().get().getNe()).stream().
-				filter(d->{ WTYPE t = getWType(d).orElse(null); return t == null? false : t.isServiceChainRequest(); }).
-				map(n -> new WServiceChainRequest(n)).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().serviceChainRequests;
 	}
 
 	/**
-	 * Returns the list of IP unicast demands, in increasing order according to its id
+	 * Returns the list of IP unicast demands, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WIpUnicastDemand> getIpUnicastDemands ()
 	{
-		if (!isWithIpLayer ()) return new ArrayList<> ();
-		return np.getDemands(getIpLayer().get().getNe()).stream().
-				filter(d->{ WTYPE t = getWType(d).orElse(null); return t == null? false : t.isIpUnicastDemand(); }).
-				map(n -> new WIpUnicastDemand(n)).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().ipUnicastDemands;
 	}
 
 	/**
-	 * Returns the list of service chains, in increasing order according to its id
+	 * Returns the list of service chains, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WServiceChain> getServiceChains()
 	{
-		if (!isWithIpLayer ()) return new ArrayList<> ();
-		return np.getRoutes(getIpLayer().get().getNe()).stream().
-				filter(d->{ WTYPE t = getWType(d).orElse(null); return t == null? false : t.isServiceChain(); }).
-				map(n -> new WServiceChain(n)).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().serviceChains;
 	}
 
 	/**
-	 * Returns the list of IP source routed connections, in increasing order according to its id
+	 * Returns the list of IP source routed connections, in increasing order according to its id. The list is unmodifiable
 	 * @return see above
 	 */
 	public List<WIpSourceRoutedConnection> getIpSourceRoutedConnections()
 	{
-		if (!isWithIpLayer ()) return new ArrayList<> ();
-		return np.getRoutes(getIpLayer().get().getNe()).stream().
-				filter(d->{ WTYPE t = getWType(d).orElse(null); return t == null? false : t.isIpSourceRoutedConnection(); }).
-				map(n -> new WIpSourceRoutedConnection(n)).collect(Collectors.toCollection(ArrayList::new));
+		return WNetElementViews.get(np).getViews().ipSourceRoutedConnections;
 	}
 
 	/**
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * This program and the accompanying materials
+ * are made available under the terms of the MIT License available at
+ * https://opensource.org/licenses/MIT
+ *******************************************************************************/
+
+package com.net2plan.niw;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.NetworkElement;
+import com.net2plan.interfaces.networkDesign.NetworkLayer;
+import com.net2plan.niw.WNetConstants.WTYPE;
+
+/** The canonical wrapper objects of the elements of a design, and the lists of them returned by the WNet getters. Since WNet objects
+ * are created on the fly, these views are attached to the NetPlan object. The lists are recomputed on the first call after a change in
+ * the structure of the design (see {@link NetPlan#getStructureVersion()}), reusing the wrappers of the elements that still exist,
+ * and are unmodifiable.
+ */
+final class WNetElementViews
+{
+	private final NetPlan np;
+	private volatile Views views;
+
+	private WNetElementViews (NetPlan np)
+	{
+		this.np = np;
+	}
+
+	/** Returns the views attached to the given design, creating them if needed
+	 * @param np see above
+	 * @return see above
+	 */
+	static WNetElementViews get (NetPlan np)
+	{
+		return np.getDerivedView(WNetElementViews.class, WNetElementViews::new);
+	}
+
+	/** Returns the views updated to the current structure of the design
+	 * @return see above
+	 */
+	Views getViews ()
+	{
+		final Views current = views;
+		if (current != null && current.structureVersion == np.getStructureVersion()) return current;
+		synchronized (this)
+		{
+			final long structureVersion = np.getStructureVersion();
+			if (views != null && views.structureVersion == structureVersion) return views;
+			views = new Views (np , structureVersion , views);
+			return views;
+		}
+	}
+
+	static final class Views
+	{
+		private final long structureVersion;
+		private final Map<NetworkElement,WAbstractNetworkElement> wrappers;
+		private Map<NetworkElement,WAbstractNetworkElement> previousWrappers; // only while building, not to keep the older views alive
+		final Optional<WLayerWdm> wdmLayer;
+		final Optional<WLayerIp> ipLayer;
+		final List<WSharedRiskGroup> srgs;
+		final List<WNode> nodes;
+		final List<WFiber> fibers;
+		final List<WLightpathRequest> lightpathRequests;
+		final List<WLightpath> lightpaths;
+		final List<WIpLink> ipLinks;
+		final List<WServiceChainRequest> serviceChainRequests;
+		final List<WIpUnicastDemand> ipUnicastDemands;
+		final List<WServiceChain> serviceChains;
+		final List<WIpSourceRoutedConnection> ipSourceRoutedConnections;
+
+		private Views (NetPlan np , long structureVersion , Views previous)
+		{
+			this.structureVersion = structureVersion;
+			this.wrappers = new HashMap<> ();
+			this.previousWrappers = previous == null? Collections.emptyMap() : previous.wrappers;
+			final WNet net = new WNet (np);
+			final NetworkLayer wdmLayerNe = np.getNetworkLayers().stream().filter(e->e.getName().equals(WNetConstants.wdmLayerName)).findFirst().orElse(null);
+			final NetworkLayer ipLayerNe = np.getNetworkLayers().stream().filter(e->e.getName().equals(WNetConstants.ipLayerName)).findFirst().orElse(null);
+			this.wdmLayer = wdmLayerNe == null? Optional.empty() : Optional.of(getWrapper(wdmLayerNe , WLayerWdm.class , e->new WLayerWdm(e)));
+			this.ipLayer = ipLayerNe == null? Optional.empty() : Optional.of(getWrapper(ipLayerNe , WLayerIp.class , e->new WLayerIp(e)));
+			this.srgs = getList(np.getSRGs() , WSharedRiskGroup.class , e->new WSharedRiskGroup(e) , e->true);
+			this.nodes = getList(np.getNodes() , WNode.class , e->new WNode(e) , e->!new WNode(e).isVirtualNode());
+			if (wdmLayerNe == null)
+			{
+				this.fibers = Collections.emptyList();
+				this.lightpathRequests = Collections.emptyList();
+				this.lightpaths = Collections.emptyList();
+			}
+			else
+			{
+				this.fibers = getList(np.getLinks(wdmLayerNe) , WFiber.class , e->new WFiber(e) , e->true);
+				this.lightpathRequests = getList(np.getDemands(wdmLayerNe) , WLightpathRequest.class , e->new WLightpathRequest(e) , e->isOfType(net , e , WTYPE::isLightpathRequest));
+				this.lightpaths = getList(np.getRoutes(wdmLayerNe) , WLightpath.class , e->new WLightpath(e) , e->isOfType(net , e , WTYPE::isLightpath));
+			}
+			if (ipLayerNe == null)
+			{
+				this.ipLinks = Collections.emptyList();
+				this.serviceChainRequests = Collections.emptyList();
+				this.ipUnicastDemands = Collections.emptyList();
+				this.serviceChains = Collections.emptyList();
+				this.ipSourceRoutedConnections = Collections.emptyList();
+			}
+			else
+			{
+				this.ipLinks = getList(np.getLinks(ipLayerNe) , WIpLink.class , e->new WIpLink(e) , e->isOfType(net , e , WTYPE::isIpLink) && !new WIpLink(e).isVirtualLink());
+				this.serviceChainRequests = getList(np.getDemands(ipLayerNe) , WServiceChainRequest.class , e->new WServiceChainRequest(e) , e->isOfType(net , e , WTYPE::isServiceChainRequest));
+				this.ipUnicastDemands = getList(np.getDemands(ipLayerNe) , WIpUnicastDemand.class , e->new WIpUnicastDemand(e) , e->isOfType(net , e , WTYPE::isIpUnicastDemand));
+				this.serviceChains = getList(np.getRoutes(ipLayerNe) , WServiceChain.class , e->new WServiceChain(e) , e->isOfType(net , e , WTYPE::isServiceChain));
+				this.ipSourceRoutedConnections = getList(np.getRoutes(ipLayerNe) , WIpSourceRoutedConnection.class , e->new WIpSourceRoutedConnection(e) , e->isOfType(net , e , WTYPE::isIpSourceRoutedConnection));
+			}
+			this.previousWrappers = null;
+		}
+
+		private static boolean isOfType (WNet net , NetworkElement e , Predicate<WTYPE> isType)
+		{
+			final WTYPE t = net.getWType(e).orElse(null);
+			return t == null? false : isType.test(t);
+		}
+
+		private <N extends NetworkElement , T extends WAbstractNetworkElement> List<T> getList (List<N> elements , Class<T> type , Function<N,T> creator , Predicate<N> filter)
+		{
+			final List<T> res = new ArrayList<> (elements.size());
+			for (N e : elements)
+				if (filter.test(e)) res.add(getWrapper(e , type , creator));
+			return Collections.unmodifiableList(res);
+		}
+
+		private <N extends NetworkElement , T extends WAbstractNetworkElement> T getWrapper (N e , Class<T> type , Function<N,T> creator)
+		{
+			final WAbstractNetworkElement previous = previousWrappers.get(e);
+			final T res = type.isInstance(previous)? type.cast(previous) : creator.apply(e);
+			wrappers.put(e , res);
+			return res;
+		}
+	}
+}
@@ -482,4 +482,23 @@ public class DemandTest
 		assertEquals(d12.getRoutes().iterator().next().getSeqLinks() , Collections.singletonList(link12));
 	}
 
+	@Test
+	public void testHopByHopRoutingWithAndWithoutCycles() 
+	{
+		scd123.remove();
+		d13.setRoutingType(RoutingType.HOP_BY_HOP_ROUTING);
+		np.setForwardingRules(Arrays.asList(d13,d13,d13), Arrays.asList(link12,link23,link13), Arrays.asList(0.5,1.0,0.5), true);
+		assertEquals(d13.getRoutingCycleType() , RoutingCycleType.LOOPLESS);
+		assertEquals(d13.getCarriedTraffic() , d13.getOfferedTraffic() , 1e-8);
+		assertEquals(d13.getWorstCaseLengthInKm() , link12.getLengthInKm() + link23.getLengthInKm() , 1e-8);
+		assertEquals(link23.getCarriedTraffic() , 0.5 * d13.getOfferedTraffic() , 1e-8);
+
+		final Link link31 = np.addLink(n3,n1,100,100,1,null,lowerLayer);
+		np.setForwardingRules(Arrays.asList(d13,d13), Arrays.asList(link13,link31), Arrays.asList(1.0,0.5), true);
+		assertEquals(d13.getRoutingCycleType() , RoutingCycleType.OPEN_CYCLES);
+		assertEquals(d13.getCarriedTraffic() , d13.getOfferedTraffic() , 1e-8);
+		assertEquals(link13.getCarriedTraffic() , 2 * d13.getOfferedTraffic() , 1e-8);
+		assertEquals(link31.getCarriedTraffic() , d13.getOfferedTraffic() , 1e-8);
+	}
+
 }
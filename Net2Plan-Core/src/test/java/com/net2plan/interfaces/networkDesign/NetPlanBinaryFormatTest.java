@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.interfaces.networkDesign;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.geom.Point2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.libraries.GraphUtils;
+import com.net2plan.utils.Constants.RoutingType;
+
+public class NetPlanBinaryFormatTest
+{
+	private NetPlan np;
+
+	@Before
+	public void setUp()
+	{
+		this.np = new NetPlan ();
+		np.setName("test design");
+		np.addTag("tagNp");
+		np.setAttribute("keyNp" , "valueNp");
+		np.addGlobalPlanningDomain("pd1");
+		np.addPlotNodeLayout("geo");
+		final NetworkLayer lowerLayer = np.getNetworkLayerDefault();
+		final NetworkLayer upperLayer = np.addLayer("upper" , "upper layer" , "Gbps" , "Gbps" , null , null);
+		final int N = 8;
+		for (int n = 0; n < N ; n ++)
+		{
+			final Node node = np.addNode(n , 2*n , "n" + n , null);
+			node.setPopulation(100 * n);
+			node.setXYPositionMap(new Point2D.Double (n , -n) , "geo");
+			if (n % 2 == 0) { node.setSiteName("site" + n); node.addTag("even"); node.setAttribute("key" , "value" + n); }
+		}
+		np.getNode(3).setFailureState(false);
+		for (int n = 0; n < N ; n ++)
+		{
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+1) % N), 100, 10 + n, 200000, null , lowerLayer);
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+3) % N), 100, 20 + n, 200000, null , lowerLayer);
+		}
+		np.getLink(2 , lowerLayer).addTag("tagLink");
+		final Resource cpu = np.addResource("CPU" , "cpu0" , Optional.of(np.getNode(0)) , 10 , "units" , new TreeMap<> () , 0.5 , null);
+		final SortedMap<Resource,Double> baseResources = new TreeMap<> ();
+		baseResources.put(cpu , 1.0);
+		np.addResource("RAM" , "ram0" , Optional.of(np.getNode(0)) , 20 , "GB" , baseResources , 0.1 , null);
+
+		for (Node n1 : np.getNodes())
+			for (Node n2 : np.getNodes())
+			{
+				if (n1 == n2) continue;
+				final Demand d = np.addDemand(n1, n2, 1 + n1.getIndex(), RoutingType.SOURCE_ROUTING, null , lowerLayer);
+				final List<Link> sp = GraphUtils.getShortestPath(np.getNodes(), np.getLinks(lowerLayer), n1, n2, null);
+				final Route r = np.addRoute(d, 1, 1.5, sp, null);
+				if (n1.getIndex() == 1)
+				{
+					final List<List<Link>> paths = GraphUtils.getKLooplessShortestPaths(np.getNodes(), np.getLinks(lowerLayer), n1, n2, null , 2 , -1 , -1 , -1 , -1 , -1 , -1);
+					if (paths.size() > 1) r.addBackupRoute(np.addRoute(d, 0, 0, paths.get(1), null));
+				}
+			}
+		final Demand hbhDemand = np.addDemand(np.getNode(0), np.getNode(1), 3, RoutingType.HOP_BY_HOP_ROUTING, null , lowerLayer);
+		np.setForwardingRule(hbhDemand , np.getNode(0).getOutgoingLinks(lowerLayer).stream().filter(e -> e.getDestinationNode() == np.getNode(1)).findFirst().get() , 1.0);
+
+		final Demand scDemand = np.addDemand(np.getNode(0), np.getNode(1), 2, RoutingType.SOURCE_ROUTING, null , lowerLayer);
+		scDemand.setServiceChainSequenceOfTraversedResourceTypes(Arrays.asList("CPU"));
+		final Link e01 = np.getNode(0).getOutgoingLinks(lowerLayer).stream().filter(e -> e.getDestinationNode() == np.getNode(1)).findFirst().get();
+		np.addServiceChain(scDemand , 2 , Arrays.asList(1.0 , 2.0) , Arrays.asList(cpu , e01) , null);
+
+		final MulticastDemand md = np.addMulticastDemand(np.getNode(0) , new TreeSet<> (Arrays.asList(np.getNode(1) , np.getNode(3))) , 5 , null , lowerLayer);
+		md.setAttribute("keyMd" , "valueMd");
+		final Link e03 = np.getNode(0).getOutgoingLinks(lowerLayer).stream().filter(e -> e.getDestinationNode() == np.getNode(3)).findFirst().get();
+		np.addMulticastTree(md , 5 , 5 , new TreeSet<> (Arrays.asList(e01 , e03)) , null);
+
+		final SharedRiskGroup srg = np.addSRG(1000 , 12 , null);
+		srg.addNode(np.getNode(5));
+		srg.addLink(e01);
+
+		/* the demands from node 2 to node 4 are carried by an upper layer link */
+		for (Demand d : new ArrayList<> (np.getNodePairDemands(np.getNode(2), np.getNode(4), false, lowerLayer)))
+			d.coupleToNewLinkCreated(upperLayer);
+		final Demand upperDemand = np.addDemand(np.getNode(2), np.getNode(4), 0.5, RoutingType.SOURCE_ROUTING, null , upperLayer);
+		np.addRoute(upperDemand , 0.5 , 0.5 , np.getLinks(upperLayer) , null);
+	}
+
+	@Test
+	public void testSameAsXmlFormat() throws IOException
+	{
+		final ByteArrayOutputStream xmlOs = new ByteArrayOutputStream ();
+		np.saveToOutputStream(xmlOs);
+		final NetPlan xmlNp = new NetPlan (new ByteArrayInputStream(xmlOs.toByteArray()));
+
+		final ByteArrayOutputStream binaryOs = new ByteArrayOutputStream ();
+		NetPlanBinaryFormat.saveToOutputStream(np , binaryOs);
+		final NetPlan binaryNp = NetPlanBinaryFormat.loadFromByteBuffer(ByteBuffer.wrap(binaryOs.toByteArray()));
+		assertTrue (xmlNp.isDeepCopy(binaryNp));
+		assertTrue (binaryNp.isDeepCopy(xmlNp));
+		assertTrue (binaryOs.size() < xmlOs.size());
+
+		final File f = File.createTempFile("net2plan" , "." + NetPlanBinaryFormat.FILE_EXTENSION);
+		try
+		{
+			NetPlanBinaryFormat.saveToFile(np , f);
+			assertTrue (NetPlanBinaryFormat.isBinaryFormatFile(f));
+			final NetPlan fileNp = NetPlanBinaryFormat.loadFromFile(f);
+			assertTrue (xmlNp.isDeepCopy(fileNp));
+			assertEquals (np.getNumberOfRoutes() , fileNp.getNumberOfRoutes());
+			assertEquals (np.getNetworkElementNextId() , fileNp.getNetworkElementNextId());
+		} finally { f.delete(); }
+	}
+
+	@Test
+	public void testSaveOverLoadedFile() throws IOException
+	{
+		final File f = File.createTempFile("net2plan" , "." + NetPlanBinaryFormat.FILE_EXTENSION);
+		try
+		{
+			NetPlanBinaryFormat.saveToFile(np , f);
+			final NetPlan fileNp = NetPlanBinaryFormat.loadFromFile(f);
+			fileNp.addNode(0 , 0 , "newNode" , null);
+			NetPlanBinaryFormat.saveToFile(fileNp , f);
+			final NetPlan reloadedNp = NetPlanBinaryFormat.loadFromFile(f);
+			assertEquals (np.getNumberOfNodes() + 1 , reloadedNp.getNumberOfNodes());
+			assertTrue (fileNp.isDeepCopy(reloadedNp));
+			assertTrue (f.delete());
+		} finally { f.delete(); }
+	}
+
+	@Test
+	public void testTruncatedFile()
+	{
+		final ByteArrayOutputStream binaryOs = new ByteArrayOutputStream ();
+		NetPlanBinaryFormat.saveToOutputStream(np , binaryOs);
+		final byte [] bytes = binaryOs.toByteArray();
+		try { NetPlanBinaryFormat.loadFromByteBuffer(ByteBuffer.wrap(Arrays.copyOf(bytes , bytes.length / 2))); fail (); } catch (Net2PlanException e) {}
+		try { NetPlanBinaryFormat.loadFromByteBuffer(ByteBuffer.wrap(new byte [16])); fail (); } catch (Net2PlanException e) {}
+	}
+}
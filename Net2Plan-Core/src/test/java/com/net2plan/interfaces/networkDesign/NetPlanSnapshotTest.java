@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.interfaces.networkDesign;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.libraries.GraphUtils;
+import com.net2plan.utils.Constants.RoutingType;
+
+public class NetPlanSnapshotTest
+{
+	private NetPlan np;
+
+	@Before
+	public void setUp()
+	{
+		this.np = new NetPlan ();
+		final int N = 20;
+		for (int n = 0; n < N ; n ++) np.addNode(n , n , "n" + n , null);
+		for (int n = 0; n < N ; n ++)
+		{
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+1) % N), 100, 10, 200000, null);
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+5) % N), 100, 10, 200000, null);
+		}
+		for (Node n1 : np.getNodes())
+			for (Node n2 : np.getNodes())
+				if (n1 != n2)
+				{
+					final Demand d = np.addDemand(n1, n2, 1, RoutingType.SOURCE_ROUTING, null);
+					np.addRoute(d, 1, 1, GraphUtils.getShortestPath(np.getNodes(), np.getLinks(), n1, n2, null), null);
+				}
+	}
+
+	@Test
+	public void testSnapshotsAreIndependentCopies()
+	{
+		final NetPlanSnapshot snapshot = NetPlanSnapshot.of(np);
+		final NetPlan np1 = snapshot.getNetPlan();
+		assertTrue(np1.isDeepCopy(np));
+		np1.getLink(0).setCapacity(7);
+		np1.getDemand(0).remove();
+		assertTrue(snapshot.getNetPlan().isDeepCopy(np));
+	}
+
+	@Test
+	public void testUnchangedPartsAreShared()
+	{
+		final NetPlanSnapshot snapshot1 = NetPlanSnapshot.of(np);
+		np.getLink(3).setCapacity(7);
+		np.getRoute(100).setCarriedTraffic(0.5, 0.5);
+		final NetPlanSnapshot snapshot2 = NetPlanSnapshot.of(np, snapshot1);
+		assertTrue(snapshot2.getNetPlan().isDeepCopy(np));
+		assertTrue(snapshot2.getSizeInBytesNotSharedWith(snapshot1) < snapshot2.getSizeInBytes() / 10);
+		assertEquals(snapshot2.getSizeInBytes() , snapshot2.getSizeInBytesNotSharedWith(NetPlanSnapshot.of(np)));
+
+		/* a what-if branch from the first snapshot */
+		final NetPlan branch = snapshot1.getNetPlan();
+		branch.getNode(5).setFailureState(false);
+		final NetPlanSnapshot snapshot3 = NetPlanSnapshot.of(branch, snapshot1);
+		assertTrue(snapshot3.getNetPlan().isDeepCopy(branch));
+		assertTrue(snapshot3.getSizeInBytesNotSharedWith(snapshot1) < snapshot3.getSizeInBytes() / 2);
+	}
+}
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.stream.Collectors;
 
@@ -38,11 +39,13 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.net2plan.interfaces.networkDesign.dynamicSrgs.DynamicSrgAllBidiLinksTwoNodes;
 import com.net2plan.internal.UnmodifiablePoint2D;
+import com.net2plan.libraries.GraphUtils;
 import com.net2plan.libraries.TrafficSeries;
 import com.net2plan.utils.Constants.RoutingType;
 import com.net2plan.utils.Pair;
 
 import cern.colt.matrix.tdouble.DoubleFactory2D;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 
 public class NetPlanTest
@@ -370,6 +373,123 @@ public class NetPlanTest
 		assertTrue (np2.isDeepCopy(np1));
 	}
 
+	@Test
+	public void testNetPlanFileCompressed()
+	{
+		File f = new File (TEST_FILE_DIRECTORY, TEST_FILE_NAME + ".gz");
+		this.np.saveToFile(f);
+		assertTrue(f.exists());
+		NetPlan readNp = new NetPlan (f);
+		assertTrue(readNp.isDeepCopy(np));
+		assertTrue(np.isDeepCopy(readNp));
+		f.delete();
+	}
+
+	@Test
+	public void testNetPlanFileManyRoutes()
+	{
+		final NetPlan bigNp = new NetPlan ();
+		final int N = 20;
+		for (int n = 0; n < N ; n ++) bigNp.addNode(n , n , "n" + n , null);
+		for (int n = 0; n < N ; n ++)
+		{
+			bigNp.addLinkBidirectional(bigNp.getNode(n), bigNp.getNode((n+1) % N), 100, 10, 200000, null);
+			bigNp.addLinkBidirectional(bigNp.getNode(n), bigNp.getNode((n+5) % N), 100, 10, 200000, null);
+		}
+		for (Node a : bigNp.getNodes())
+			for (Node b : bigNp.getNodes())
+			{
+				if (a == b) continue;
+				final Demand d = bigNp.addDemand(a, b, 2, RoutingType.SOURCE_ROUTING, null);
+				final List<List<Link>> paths = GraphUtils.getKLooplessShortestPaths(bigNp.getNodes(), bigNp.getLinks(), a, b, null, 2, -1, -1, -1, -1, -1, -1);
+				final Route r = bigNp.addRoute(d, 1, 1, paths.get(0), null);
+				if (paths.size() > 1) r.setSeqLinks(paths.get(1));
+				bigNp.addRoute(d, 0.5, 0.7, paths.get(0), null);
+			}
+		File f = new File (TEST_FILE_DIRECTORY, TEST_FILE_NAME);
+		bigNp.saveToFile(f);
+		NetPlan readNp = new NetPlan (f);
+		readNp.checkCachesConsistency();
+		assertTrue(readNp.isDeepCopy(bigNp));
+		assertTrue(bigNp.isDeepCopy(readNp));
+		for (Link e : bigNp.getLinks())
+			assertEquals(e.getCarriedTraffic() , readNp.getLinkFromId(e.getId()).getCarriedTraffic() , 1e-6);
+		for (Demand d : bigNp.getDemands())
+			assertEquals(d.getCarriedTraffic() , readNp.getDemandFromId(d.getId()).getCarriedTraffic() , 1e-6);
+	}
+
+	@Test
+	public void testBulkChanges()
+	{
+		final NetPlan npBulk = np.copy();
+		final NetPlan npNoBulk = np.copy();
+		npBulk.beginBulkChanges();
+		npBulk.beginBulkChanges();
+		assertTrue (npBulk.isInBulkChanges());
+		for (NetPlan aux : Arrays.asList(npBulk , npNoBulk))
+		{
+			final Demand auxD13 = aux.getDemandFromId(d13.getId());
+			final Link auxLink12 = aux.getLinkFromId(link12.getId());
+			final Link auxLink23 = aux.getLinkFromId(link23.getId());
+			final Link auxLink13 = aux.getLinkFromId(link13.getId());
+			for (int cont = 0; cont < 10 ; cont ++)
+				aux.addRoute(auxD13, cont, cont + 1, cont % 2 == 0? Arrays.asList(auxLink13) : Arrays.asList(auxLink12 , auxLink23), null);
+			aux.getRouteFromId(r123a.getId()).setCarriedTraffic(7, 8);
+			aux.getRouteFromId(r12.getId()).remove();
+			aux.getDemandFromId(d13.getId()).getRoutes().first().setSeqLinks(Arrays.asList(auxLink12 , auxLink23));
+		}
+		npBulk.commitBulkChanges();
+		assertTrue (npBulk.isInBulkChanges());
+		try { npBulk.checkCachesConsistency(); fail (); } catch (Net2PlanException e) {}
+		npBulk.commitBulkChanges();
+		assertTrue (!npBulk.isInBulkChanges());
+		npBulk.checkCachesConsistency();
+		assertTrue (npBulk.isDeepCopy(npNoBulk));
+		for (Link e : npNoBulk.getLinks(npNoBulk.getNetworkLayerFromId(lowerLayer.getId())))
+		{
+			assertEquals (e.getCarriedTraffic() , npBulk.getLinkFromId(e.getId()).getCarriedTraffic() , 0);
+			assertEquals (e.getOccupiedCapacity() , npBulk.getLinkFromId(e.getId()).getOccupiedCapacity() , 0);
+		}
+		try { npBulk.commitBulkChanges(); fail (); } catch (Net2PlanException e) {}
+	}
+
+	@Test
+	public void testModificationStamp()
+	{
+		long stamp = np.getModificationStamp();
+		np.copy(); n1.getXYPositionMap(); link12.getCarriedTraffic();
+		assertEquals (stamp , np.getModificationStamp());
+		n1.setAttribute("key" , "value");
+		assertTrue (np.getModificationStamp() != stamp); stamp = np.getModificationStamp();
+		n1.setName("newName");
+		assertTrue (np.getModificationStamp() != stamp); stamp = np.getModificationStamp();
+		n1.setXYPositionMap(new Point2D.Double(10 , 20));
+		assertTrue (np.getModificationStamp() != stamp); stamp = np.getModificationStamp();
+		link12.setCapacity(123);
+		assertTrue (np.getModificationStamp() != stamp);
+	}
+
+	@Test
+	public void testPeerElementsRangeViews()
+	{
+		final NetPlan np2 = new NetPlan ();
+		for (int n = 0; n < 5 ; n ++) np2.addNode(0 , 0 , "n" + n , null);
+		final NetPlan np3 = np2.copy();
+		final List<Node> peers = np3.getNodes();
+		final SortedSet<Node> view = np3.getPeerElementsInThisNetPlan(new TreeSet<Node> (np2.getNodes()));
+		assertEquals (peers.subList(1 , 3) , new LinkedList<Node> (view.subSet(peers.get(1) , peers.get(3))));
+		assertEquals (peers.subList(0 , 2) , new LinkedList<Node> (view.headSet(peers.get(2))));
+		assertEquals (peers.subList(3 , 5) , new LinkedList<Node> (view.tailSet(peers.get(3))));
+		assertEquals (peers.get(2) , view.tailSet(peers.get(1)).subSet(peers.get(2) , peers.get(4)).first());
+
+		final SortedMap<Node,Integer> originMap = new TreeMap<Node,Integer> ();
+		for (Node n : np2.getNodes()) originMap.put(n , n.getIndex());
+		final SortedMap<Node,Integer> mapView = np3.getPeerElementsInThisNetPlan(originMap);
+		assertEquals (peers.subList(1 , 3) , new LinkedList<Node> (mapView.subMap(peers.get(1) , peers.get(3)).keySet()));
+		assertEquals (Arrays.asList(0 , 1) , new LinkedList<Integer> (mapView.headMap(peers.get(2)).values()));
+		assertEquals (peers.get(4) , mapView.tailMap(peers.get(3)).lastKey());
+	}
+
 	@Test
 	public void testGetIds()
 	{
@@ -629,6 +749,48 @@ public class NetPlanTest
 			assertEquals(cpl.get(Pair.of(d.getIngressNode(),d.getEgressNode())) , Arrays.asList(Arrays.asList(netTriangle.getNodePairLinks(d.getIngressNode() , d.getEgressNode() , false).iterator().next())));
 	}
 
+	@Test
+	public void testComputeUnicastCandidatePathListInParallel()
+	{
+		final NetPlan net = new NetPlan ();
+		final int N = 12;
+		for (int n = 0; n < N ; n ++) net.addNode(n , n , "n" + n , null);
+		for (int n = 0; n < N ; n ++)
+		{
+			net.addLinkBidirectional(net.getNode(n), net.getNode((n+1) % N), 100, 10 + n, 200000, null);
+			net.addLinkBidirectional(net.getNode(n), net.getNode((n+3) % N), 100, 30 + n, 200000, null);
+		}
+		final SortedMap<Pair<Node,Node>,List<List<Link>>> cplSequential = net.computeUnicastCandidatePathList(net.getVectorLinkLengthInKm() , 5, -1, -1, -1, -1, -1, -1 , null);
+		for (int numThreads : Arrays.asList(1 , 2 , 4))
+		{
+			final SortedMap<Pair<Node,Node>,List<List<Link>>> cpl = net.computeUnicastCandidatePathList(net.getVectorLinkLengthInKm() , 5, -1, -1, -1, -1, -1, -1 , null , numThreads);
+			assertEquals(cplSequential , cpl);
+		}
+		assertEquals(cplSequential.size() , N * (N-1));
+	}
+
+	@Test
+	public void testEvaluateFailureStatesWithoutCopy()
+	{
+		final NetPlan npBefore = np.copy();
+		final List<List<SharedRiskGroup>> failureStates = Arrays.asList(Arrays.asList(srgNonDynN1) , Arrays.asList(srgDynN12L0) , Arrays.asList(srgDynN12L0 , srgNonDynN1));
+		final List<DoubleMatrix1D> y_e = np.evaluateFailureStates(failureStates , n -> n.getVectorLinkCarriedTraffic(lowerLayer));
+		for (int fs = 0; fs < failureStates.size() ; fs ++)
+		{
+			final NetPlan npCopy = np.copy();
+			for (SharedRiskGroup srg : failureStates.get(fs)) npCopy.getSRGFromId(srg.getId()).setAsDown();
+			final DoubleMatrix1D y_eCopy = npCopy.getVectorLinkCarriedTraffic(npCopy.getNetworkLayer(lowerLayer.getIndex()));
+			for (int e = 0; e < y_eCopy.size() ; e ++)
+				assertEquals(y_eCopy.get(e) , y_e.get(fs).get(e) , 1e-8);
+		}
+		assertTrue(np.isModifiable());
+		assertTrue(np.isDeepCopy(npBefore));
+
+		try { np.evaluateFailureState(null , Arrays.asList(n1) , n -> n.addNode(0 , 0 , "" , null)); fail (); } catch (UnsupportedOperationException e) {}
+		assertTrue(np.isModifiable());
+		assertTrue(np.isDeepCopy(npBefore));
+	}
+
 	@Test
 	public void testComputeUnicastCandidate11PathList()
 	{
@@ -820,6 +982,36 @@ public class NetPlanTest
 		assertTrue (np2.isDeepCopy(np));
 	}
 
+	@Test
+	public void testCopyAfterRemovalsAndFailures()
+	{
+		/* after the removals, element indexes and identifiers do not follow the same order */
+		d24empty.remove();
+		r12.remove();
+		unattached.remove();
+		final Node n5 = np.addNode(0 , 0 , "node5" , null);
+		final Link link45 = np.addLink(n4,n5,100,100,1,null,lowerLayer);
+		link13.remove();
+		final Route r123c = np.addRoute(d13,1,1.5,path13,null);
+		link23.setFailureState(false);
+		n4.setFailureState(false);
+		final NetPlan np2 = np.copy();
+		np2.checkCachesConsistency();
+		assertTrue (np.isDeepCopy(np2));
+		assertTrue (np2.isDeepCopy(np));
+		assertEquals (r123c.getIndex() , np2.getRouteFromId(r123c.getId()).getIndex());
+		assertEquals (link45.getIndex() , np2.getLinkFromId(link45.getId()).getIndex());
+		assertEquals (np.getRoutesDown().size() , np2.getRoutesDown().size());
+
+		/* the copy does not share any structure with the original design */
+		np2.getLinkFromId(link23.getId()).setFailureState(true);
+		np2.getRouteFromId(r123c.getId()).remove();
+		np2.checkCachesConsistency();
+		assertTrue (!link23.isUp());
+		assertTrue (np.getRoutes().contains(r123c));
+		assertEquals (r123c , link12.getTraversingRoutes().last());
+	}
+
 	@Test
 	public void testGetAttributesCollectionOfQextendsNetworkElementString()
 	{
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class AttributeMapTest
+{
+	@Test
+	public void testParsedValuesFollowAttributeChanges()
+	{
+		final AtomicInteger numParsings = new AtomicInteger ();
+		final AttributeMap.ParsedColumn<Double> column = new AttributeMap.ParsedColumn<> (s -> 
+		{
+			numParsings.incrementAndGet();
+			try { return Double.parseDouble(s); } catch (Exception e) { return null; }
+		});
+		final AttributeMap map = new AttributeMap ();
+		assertNull (map.getParsedValue("a" , column));
+		map.put("a" , "1.5");
+		final Double first = map.getParsedValue("a" , column);
+		assertEquals (1.5 , first , 0);
+		assertSame (first , map.getParsedValue("a" , column));
+		assertEquals (1 , numParsings.get());
+
+		map.put("a" , "2.5");
+		assertEquals (2.5 , map.getParsedValue("a" , column) , 0);
+		map.put("a" , "wrong");
+		assertNull (map.getParsedValue("a" , column));
+		map.remove("a");
+		assertNull (map.getParsedValue("a" , column));
+		map.put("a" , "3.5");
+		assertEquals (3.5 , map.getParsedValue("a" , column) , 0);
+		map.clear();
+		assertNull (map.getParsedValue("a" , column));
+		final TreeMap<String,String> other = new TreeMap<> ();
+		other.put("a" , "4.5");
+		map.putAll(other);
+		assertEquals (4.5 , map.getParsedValue("a" , column) , 0);
+	}
+
+	@Test
+	public void testRandomChangesSameAsParsingEachTime()
+	{
+		final Random rng = new Random (1L);
+		final AttributeMap.ParsedColumn<Integer> intColumn = new AttributeMap.ParsedColumn<> (s -> { try { return Integer.parseInt(s); } catch (Exception e) { return null; } });
+		final AttributeMap.ParsedColumn<Integer> lengthColumn = new AttributeMap.ParsedColumn<> (s -> s.length());
+		final AttributeMap map = new AttributeMap ();
+		for (int it = 0; it < 10000 ; it ++)
+		{
+			final String key = "k" + rng.nextInt(10);
+			switch (rng.nextInt(4))
+			{
+				case 0: map.put(key , "" + rng.nextInt(1000)); break;
+				case 1: map.put(key , rng.nextBoolean()? "x" : "xyz"); break;
+				case 2: map.remove(key); break;
+				case 3: if (rng.nextInt(50) == 0) map.clear(); break;
+				default: throw new RuntimeException ();
+			}
+			for (int k = 0; k < 10 ; k ++)
+			{
+				final String value = map.get("k" + k);
+				Integer expected = null; try { expected = Integer.parseInt(value); } catch (Exception e) { }
+				assertEquals (expected , map.getParsedValue("k" + k , intColumn));
+				assertEquals (value == null? null : value.length() , map.getParsedValue("k" + k , lengthColumn));
+			}
+		}
+	}
+}
@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+public class LongObjectHashMapTest
+{
+	@Test
+	public void testSameAsTreeMap()
+	{
+		final Random rng = new Random (1L);
+		final LongObjectHashMap<String> map = new LongObjectHashMap<> ();
+		final SortedMap<Long,String> reference = new TreeMap<> ();
+		for (int it = 0; it < 20000 ; it ++)
+		{
+			/* consecutive ids (as the element ids), with some random ones */
+			final long key = rng.nextInt(5) == 0? rng.nextLong() : rng.nextInt(3000);
+			final int action = rng.nextInt(3);
+			if (action == 0)
+				assertEquals(reference.remove(key) , map.remove(key));
+			else
+				assertEquals(reference.put(key , "v" + it) , map.put(key , "v" + it));
+			assertEquals(reference.size() , map.size());
+			assertEquals(reference.get(key) , map.get(key));
+		}
+		for (long key = 0; key < 3000 ; key ++)
+			assertEquals(reference.get(key) , map.get(key));
+		assertEquals(reference , map.toSortedMap());
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(reference.firstKey()));
+	}
+}
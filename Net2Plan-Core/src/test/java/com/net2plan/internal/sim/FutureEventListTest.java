@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.internal.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.net2plan.interfaces.simulation.SimEvent;
+
+public class FutureEventListTest
+{
+	@Test
+	public void testCalendarQueueSameOrderAsHeap()
+	{
+		final Random rng = new Random (1L);
+		final FutureEventList heap = new FutureEventList (FutureEventList.Type.BINARY_HEAP);
+		final FutureEventList calendar = new FutureEventList (FutureEventList.Type.CALENDAR_QUEUE);
+		for (int it = 0; it < 200000 ; it ++)
+		{
+			if (rng.nextInt(2) == 0 || !heap.hasMoreEvents())
+			{
+				/* many events at the same time, with different priorities, and holding times of very different scales */
+				final double now = heap.getCurrentSimulationTime();
+				final double time = rng.nextInt(4) == 0? now + rng.nextInt(3) : now + rng.nextDouble() * (rng.nextBoolean()? 10 : 10000);
+				final SimEvent event = new SimEvent (time , SimEvent.DestinationModule.EVENT_PROCESSOR , -1 , rng.nextInt(3) , null);
+				heap.addEvent(event);
+				calendar.addEvent(event);
+			}
+			else
+			{
+				assertEquals (heap.getNextEventSimulationTime() , calendar.getNextEventSimulationTime() , 0);
+				final SimEvent heapEvent = heap.getNextEvent();
+				final SimEvent calendarEvent = calendar.getNextEvent();
+				assertSame (heapEvent , calendarEvent);
+			}
+			assertEquals (heap.getNumberOfPendingEvents() , calendar.getNumberOfPendingEvents());
+		}
+		while (heap.hasMoreEvents())
+			assertSame (heap.getNextEvent() , calendar.getNextEvent());
+		assertEquals (heap.getNumberOfProcessedEvents() , calendar.getNumberOfProcessedEvents());
+	}
+
+	@Test
+	public void testInsertionOrderAndRemoval()
+	{
+		for (FutureEventList.Type type : FutureEventList.Type.values())
+		{
+			final FutureEventList fel = new FutureEventList (type);
+			final List<SimEvent> events = new ArrayList<SimEvent> ();
+			for (int cont = 0; cont < 1000 ; cont ++)
+				events.add(new SimEvent (cont % 10 , SimEvent.DestinationModule.EVENT_PROCESSOR , cont , cont % 2 , null));
+			fel.addEvents(events);
+			for (int cont = 0; cont < 1000 ; cont += 3) fel.remove(events.get(cont));
+			for (int time = 0; time < 10 ; time ++)
+				for (int priority = 1; priority >= 0 ; priority --)
+					for (int cont = 0; cont < 1000 ; cont ++)
+						if (cont % 10 == time && cont % 2 == priority && cont % 3 != 0)
+							assertSame (events.get(cont) , fel.getNextEvent());
+			assertEquals (false , fel.hasMoreEvents());
+		}
+	}
+
+	@Test
+	public void testChangeTypeKeepsPendingEvents()
+	{
+		final FutureEventList fel = new FutureEventList ();
+		final Random rng = new Random (1L);
+		for (int cont = 0; cont < 1000 ; cont ++)
+			fel.addEvent(new SimEvent (rng.nextDouble() , SimEvent.DestinationModule.EVENT_GENERATOR , -1 , null));
+		final SimEvent first = fel.getNextEvent();
+		fel.setType(FutureEventList.Type.CALENDAR_QUEUE);
+		assertEquals (FutureEventList.Type.CALENDAR_QUEUE , fel.getType());
+		assertEquals (999 , fel.getNumberOfPendingEvents());
+		assertEquals (999 , fel.getPendingEvents().size());
+		double previousTime = first.getEventTime();
+		while (fel.hasMoreEvents())
+		{
+			final double time = fel.getNextEvent().getEventTime();
+			assertEquals (true , time >= previousTime);
+			previousTime = time;
+		}
+	}
+
+	@Test
+	public void testChangeTypeKeepsInsertionOrder()
+	{
+		final FutureEventList fel = new FutureEventList ();
+		final List<SimEvent> events = new ArrayList<SimEvent> ();
+		for (int cont = 0; cont < 100 ; cont ++)
+			events.add(new SimEvent (cont % 3 , SimEvent.DestinationModule.EVENT_GENERATOR , cont , null));
+		fel.addEvents(events.subList(0 , 50));
+		fel.setType(FutureEventList.Type.CALENDAR_QUEUE);
+		fel.addEvents(events.subList(50 , 100));
+		fel.setType(FutureEventList.Type.BINARY_HEAP);
+		for (int time = 0; time < 3 ; time ++)
+			for (int cont = 0; cont < 100 ; cont ++)
+				if (cont % 3 == time) assertSame (events.get(cont) , fel.getNextEvent());
+	}
+}
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.internal.sim;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class ReplicationStatisticsTest
+{
+	@Test
+	public void testConfidenceInterval()
+	{
+		final double [] samples = new double [] { 1 , 2 , 3 , 4 , 5 };
+		assertEquals (3 , ReplicationStatistics.getMean(samples) , 0);
+		/* t(4 degrees of freedom, 0.975) = 2.7764, sample standard deviation = 1.5811 */
+		assertEquals (2.7764 * 1.5811 / Math.sqrt(5) , ReplicationStatistics.getConfidenceIntervalHalfWidth(samples , 0.95) , 1e-3);
+		assertEquals (0 , ReplicationStatistics.getConfidenceIntervalHalfWidth(new double [] { 7 , 7 , 7 } , 0.95) , 0);
+		assertTrue (Double.isNaN(ReplicationStatistics.getConfidenceIntervalHalfWidth(new double [] { 7 } , 0.95)));
+	}
+
+	@Test
+	public void testSamplesPerMetric()
+	{
+		final Map<String, Double> r0 = new LinkedHashMap<String, Double> ();
+		r0.put("a" , 1.0); r0.put("b" , 2.0); r0.put("c" , 3.0);
+		final Map<String, Double> r1 = new LinkedHashMap<String, Double> ();
+		r1.put("c" , 30.0); r1.put("a" , 10.0);
+		final List<Map<String, Double>> results = Arrays.asList(r0 , r1);
+
+		final Map<String, double []> samples = ReplicationStatistics.getSamplesPerMetric(results);
+		assertEquals (Arrays.asList("a" , "c") , Arrays.asList(samples.keySet().toArray()));
+		assertArrayEquals (new double [] { 1 , 10 } , samples.get("a") , 0);
+		assertArrayEquals (new double [] { 3 , 30 } , samples.get("c") , 0);
+
+		final String report = ReplicationStatistics.getReport(results , Arrays.asList(new LinkedHashMap<String, String> () , new LinkedHashMap<String, String> ()) , 0.95);
+		assertTrue (report.contains("<td>a</td><td>5.500000</td>"));
+		assertTrue (!report.contains("<td>b</td>"));
+	}
+}
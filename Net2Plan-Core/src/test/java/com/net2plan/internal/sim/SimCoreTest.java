@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.internal.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.net2plan.interfaces.simulation.SimEvent;
+
+public class SimCoreTest
+{
+	@Test
+	public void testHeadlessSameEventsAsRun()
+	{
+		final TestCallback guiCallback = new TestCallback ();
+		guiCallback.core.setTotalSimulationEvents(10000);
+		guiCallback.core.setTotalTransitoryTime(100);
+		guiCallback.start();
+		guiCallback.core.run();
+
+		final TestCallback headlessCallback = new TestCallback ();
+		headlessCallback.core.setTotalSimulationEvents(10000);
+		headlessCallback.core.setTotalTransitoryTime(100);
+		headlessCallback.start();
+		headlessCallback.core.runHeadless();
+
+		assertEquals (SimCore.SimState.STOPPED , headlessCallback.core.getSimulationState());
+		assertTrue (headlessCallback.lastReason instanceof EndSimulationException);
+		assertEquals (10000 , headlessCallback.processedTimes.size());
+		assertEquals (guiCallback.processedTimes , headlessCallback.processedTimes);
+		assertEquals (guiCallback.transitoryTime , headlessCallback.transitoryTime , 0);
+		assertEquals (100 , headlessCallback.transitoryTime , 0);
+	}
+
+	@Test
+	public void testProcessEventsByNumberAndTime()
+	{
+		final TestCallback callback = new TestCallback ();
+		callback.core.setTotalSimulationTime(1000);
+		callback.start();
+
+		assertEquals (50 , callback.core.processEvents(50 , -1));
+		assertEquals (50 , callback.processedTimes.size());
+		assertEquals (SimCore.SimState.RUNNING , callback.core.getSimulationState());
+
+		final long numEvents = callback.core.processEvents(-1 , 500);
+		assertEquals (50 + numEvents , callback.processedTimes.size());
+		assertTrue (callback.processedTimes.get(callback.processedTimes.size() - 1) <= 500);
+		assertTrue (callback.core.getFutureEventList().getNextEventSimulationTime() > 500);
+
+		callback.core.processEvents(-1 , -1);
+		assertEquals (SimCore.SimState.STOPPED , callback.core.getSimulationState());
+		assertTrue (callback.processedTimes.get(callback.processedTimes.size() - 1) < 1000);
+		assertEquals (0 , callback.core.processEvents(-1 , -1));
+	}
+
+	@Test
+	public void testProcessEventsStopsOnError()
+	{
+		final TestCallback callback = new TestCallback ();
+		callback.failAtEvent = 10;
+		callback.start();
+		assertEquals (10 , callback.core.processEvents(100 , -1));
+		assertEquals (SimCore.SimState.STOPPED , callback.core.getSimulationState());
+		assertEquals (IllegalStateException.class , callback.lastReason.getClass());
+	}
+
+	/* Each event schedules the next one, after an exponentially distributed time */
+	private static class TestCallback implements IEventCallback
+	{
+		private final SimCore core = new SimCore (this);
+		private final Random rng = new Random (1L);
+		private final List<Double> processedTimes = new ArrayList<Double> ();
+		private double transitoryTime = -1;
+		private Throwable lastReason;
+		private int failAtEvent = -1;
+
+		private void start()
+		{
+			core.setRefreshTimeInSeconds(Double.MAX_VALUE);
+			scheduleEvent(new SimEvent (0 , SimEvent.DestinationModule.EVENT_GENERATOR , -1 , null));
+			core.setSimulationState(SimCore.SimState.RUNNING);
+		}
+
+		@Override
+		public void endTransitory() { core.finishTransitory(core.getFutureEventList().getCurrentSimulationTime()); }
+
+		@Override
+		public void finishTransitory(double currentSimTime) { transitoryTime = currentSimTime; }
+
+		@Override
+		public void processEvent(SimEvent event)
+		{
+			processedTimes.add(event.getEventTime());
+			if (processedTimes.size() == failAtEvent) throw new IllegalStateException();
+			scheduleEvent(new SimEvent (event.getEventTime() - Math.log(rng.nextDouble()) , SimEvent.DestinationModule.EVENT_GENERATOR , -1 , null));
+		}
+
+		@Override
+		public void scheduleEvent(SimEvent event) { core.getFutureEventList().addEvent(event); }
+
+		@Override
+		public void refresh(boolean forceRefresh) { }
+
+		@Override
+		public void simulationStateChanged(SimCore.SimState simulationState, Throwable reason) { lastReason = reason; }
+	}
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.internal.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.Net2PlanException;
+import com.net2plan.interfaces.networkDesign.Node;
+import com.net2plan.interfaces.simulation.IEventGenerator;
+import com.net2plan.interfaces.simulation.IEventProcessor;
+import com.net2plan.interfaces.simulation.SimEvent;
+import com.net2plan.utils.Constants.RoutingType;
+import com.net2plan.utils.Pair;
+import com.net2plan.utils.Triple;
+
+public class SimKernelTest
+{
+	/* Parameters received by the event generator of each replication, by the value of its random seed */
+	private static final Map<Long, Map<String, String>> generatorParametersPerSeed = new ConcurrentHashMap<Long, Map<String, String>> ();
+
+	private NetPlan np;
+	private Map<String, String> net2planParameters;
+	private Properties simulationParameters;
+
+	@Before
+	public void setUp()
+	{
+		generatorParametersPerSeed.clear();
+		np = new NetPlan ();
+		final Node n1 = np.addNode(0 , 0 , "n1" , null);
+		final Node n2 = np.addNode(0 , 0 , "n2" , null);
+		np.addLink(n1 , n2 , 100 , 1 , 200000 , null);
+		np.addDemand(n1 , n2 , 0 , RoutingType.SOURCE_ROUTING , null);
+		net2planParameters = new HashMap<String, String> ();
+		net2planParameters.put("precisionFactor", "1e-3");
+		simulationParameters = new Properties ();
+		simulationParameters.setProperty("simEvents" , "5");
+	}
+
+	@Test
+	public void testReplications()
+	{
+		final Properties generatorParameters = new Properties ();
+		generatorParameters.setProperty("randomSeed" , "11");
+		final Pair<String, List<String>> res = SimKernel.runReplications(np , new TestEventGenerator () , generatorParameters , new TestEventProcessor () , null , simulationParameters , net2planParameters , 3 , 2 , 0.95);
+
+		/* each seed parameter is offset by the replication index, a seed -1 is kept, and the other parameters are not changed */
+		assertEquals (new HashSet<Long> (Arrays.asList(11L , 12L , 13L)) , generatorParametersPerSeed.keySet());
+		for (int r = 0; r < 3 ; r ++)
+		{
+			final Map<String, String> parameters = generatorParametersPerSeed.get(11L + r);
+			assertEquals (Long.toString(100 + r) , parameters.get("failure_Seed"));
+			assertEquals ("-1" , parameters.get("otherSeed"));
+			assertEquals ("7" , parameters.get("seedCount"));
+		}
+
+		/* the offered traffic of each replication is its seed. The merged mean and confidence interval are the ones of the values in the report of each replication */
+		assertEquals (3 , res.getSecond().size());
+		final double [] samples = new double [3];
+		for (int r = 0; r < 3 ; r ++)
+		{
+			samples [r] = 11 + r;
+			assertTrue (res.getSecond().get(r).contains(String.format("%.3f / %.3f / %.3f" , samples [r] , samples [r] , samples [r])));
+		}
+		final double mean = (samples [0] + samples [1] + samples [2]) / 3;
+		double sumSquares = 0; for (double x : samples) sumSquares += (x - mean) * (x - mean);
+		final double halfWidth = new TDistribution (2).inverseCumulativeProbability(0.975) * Math.sqrt(sumSquares / 2) / Math.sqrt(3);
+		assertTrue (res.getFirst().contains(String.format("average offered traffic</td><td>%.6f</td><td>[%.6f, %.6f] (&plusmn; %.6f)</td>" , mean , mean - halfWidth , mean + halfWidth , halfWidth)));
+
+		/* the demand is not routed: all the traffic is blocked in every replication */
+		assertTrue (res.getFirst().contains(String.format("blocked traffic fraction</td><td>%.6f</td>" , 1.0)));
+	}
+
+	@Test
+	public void testReplicationsWithoutSeed()
+	{
+		try
+		{
+			SimKernel.runReplications(np , new TestEventGeneratorWithoutSeed () , null , new TestEventProcessor () , null , simulationParameters , net2planParameters , 2 , 2 , 0.95);
+			fail ();
+		} catch (Net2PlanException e) {}
+		assertTrue (generatorParametersPerSeed.isEmpty());
+
+		/* a single replication does not need a seed */
+		SimKernel.runReplications(np , new TestEventGeneratorWithoutSeed () , null , new TestEventProcessor () , null , simulationParameters , net2planParameters , 1 , 2 , 0.95);
+	}
+
+	/* Sets the offered traffic of the (not routed) demand to the random seed, and schedules one event per second */
+	public static class TestEventGenerator extends IEventGenerator
+	{
+		@Override
+		public String getDescription() { return null; }
+
+		@Override
+		public List<Triple<String, String, String>> getParameters()
+		{
+			return Arrays.asList(Triple.of("randomSeed" , "1" , "") , Triple.of("failure_Seed" , "100" , "") , Triple.of("otherSeed" , "-1" , "") , Triple.of("seedCount" , "7" , ""));
+		}
+
+		@Override
+		public void initialize(NetPlan initialNetPlan, Map<String, String> algorithmParameters, Map<String, String> simulationParameters, Map<String, String> net2planParameters)
+		{
+			final String seed = algorithmParameters.get("randomSeed");
+			if (seed != null)
+			{
+				generatorParametersPerSeed.put(Long.parseLong(seed) , algorithmParameters);
+				initialNetPlan.getDemand(0).setOfferedTraffic(Long.parseLong(seed));
+			}
+			scheduleEvent(new SimEvent (1 , SimEvent.DestinationModule.EVENT_GENERATOR , -1 , null));
+		}
+
+		@Override
+		public void processEvent(NetPlan currentNetPlan, SimEvent event)
+		{
+			scheduleEvent(new SimEvent (event.getEventTime() + 1 , SimEvent.DestinationModule.EVENT_GENERATOR , -1 , null));
+		}
+	}
+
+	public static class TestEventGeneratorWithoutSeed extends TestEventGenerator
+	{
+		@Override
+		public List<Triple<String, String, String>> getParameters() { return Arrays.asList(Triple.of("seedCount" , "7" , "")); }
+	}
+
+	public static class TestEventProcessor extends IEventProcessor
+	{
+		@Override
+		public String getDescription() { return null; }
+
+		@Override
+		public List<Triple<String, String, String>> getParameters() { return Arrays.asList(); }
+
+		@Override
+		public void initialize(NetPlan initialNetPlan, Map<String, String> algorithmParameters, Map<String, String> simulationParameters, Map<String, String> net2planParameters) { }
+
+		@Override
+		public void processEvent(NetPlan currentNetPlan, SimEvent event) { }
+	}
+}
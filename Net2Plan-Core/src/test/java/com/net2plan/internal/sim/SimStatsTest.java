@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.internal.sim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.interfaces.networkDesign.Demand;
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.Node;
+import com.net2plan.interfaces.networkDesign.Route;
+import com.net2plan.utils.Constants.RoutingType;
+
+public class SimStatsTest
+{
+	private Map<String, String> simulationParameters;
+	private Map<String, String> net2planParameters;
+
+	@Before
+	public void setUp()
+	{
+		simulationParameters = new HashMap<String, String> ();
+		net2planParameters = new HashMap<String, String> ();
+		net2planParameters.put("precisionFactor", "1e-3");
+	}
+
+	@Test
+	public void testTrackedStatisticsEqualFullScan()
+	{
+		final NetPlan np1 = createDesign();
+		final NetPlan np2 = np1.copy();
+		final SimStats tracked = new SimStats (np1 , simulationParameters , net2planParameters , true);
+		final SimStats fullScan = new SimStats (np2 , simulationParameters , net2planParameters , false);
+
+		final Random rng = new Random (1L);
+		double time = 0;
+		for (int it = 0; it < 2000 ; it ++)
+		{
+			final int operation = rng.nextInt(9);
+			final long seed = rng.nextLong();
+			applyRandomChange(np1 , operation , new Random (seed));
+			applyRandomChange(np2 , operation , new Random (seed));
+			if (rng.nextInt(4) != 0) time += rng.nextDouble();
+			tracked.computeNextState(time);
+			fullScan.computeNextState(time);
+			if (it == 500)
+			{
+				tracked.reset(time);
+				fullScan.reset(time);
+			}
+			if (it % 100 == 99) assertEquals (fullScan.getResults(time) , tracked.getResults(time));
+		}
+	}
+
+	@Test
+	public void testAverageLinkCapacity()
+	{
+		final NetPlan np = new NetPlan ();
+		final Node n1 = np.addNode(0 , 0 , "n1" , null);
+		final Node n2 = np.addNode(0 , 0 , "n2" , null);
+		final Link e = np.addLink(n1 , n2 , 10 , 1 , 200000 , null);
+		final SimStats stats = new SimStats (np , simulationParameters , net2planParameters);
+		stats.computeNextState(1);
+		e.setCapacity(30);
+		stats.computeNextState(2);
+		stats.computeNextState(3);
+		/* 10 during two seconds, and 30 during one second */
+		assertTrue (stats.getResults(3).contains("16.667"));
+	}
+
+	@Test
+	public void testNodeDegreesAndMinimumTraffic()
+	{
+		final NetPlan np = new NetPlan ();
+		final Node n1 = np.addNode(0 , 0 , "n1" , null);
+		final Node n2 = np.addNode(0 , 0 , "n2" , null);
+		final Node n3 = np.addNode(0 , 0 , "n3" , null);
+		np.addLink(n1 , n2 , 10 , 1 , 200000 , null);
+		np.addLink(n1 , n3 , 10 , 1 , 200000 , null);
+		final SimStats stats = new SimStats (np , simulationParameters , net2planParameters);
+		stats.computeNextState(1);
+		stats.computeNextState(2);
+		np.addNode(0 , 0 , "n4" , null);
+		stats.computeNextState(2);
+		final String results = stats.getResults(2);
+
+		/* n1 has out-degree 2 and in-degree 0, n2 and n3 out-degree 0 and in-degree 1 */
+		assertTrue (results.contains("2.000 / 2 / 2"));
+		assertTrue (results.contains("1.000 / 1 / 1"));
+		assertFalse (results.contains("2.000 / 0 / 0"));
+		assertFalse (results.contains("0.000 / 1 / 1"));
+
+		/* the minimum ingress traffic of a node with no time (n4) is reported as zero */
+		assertFalse (results.contains(String.format("%.3f", Double.MAX_VALUE)));
+	}
+
+	private static NetPlan createDesign()
+	{
+		final NetPlan np = new NetPlan ();
+		for (int n = 0; n < 6 ; n ++) np.addNode(n , n , "n" + n , null);
+		for (Node a : np.getNodes()) for (Node b : np.getNodes()) if (a != b) np.addLink(a , b , 10 , 100 , 200000 , null);
+		for (int d = 0; d < 10 ; d ++) addRandomDemand(np , new Random (d));
+		return np;
+	}
+
+	private static void addRandomDemand(NetPlan np , Random rng)
+	{
+		final List<Node> nodes = np.getNodes();
+		final Node a = nodes.get(rng.nextInt(nodes.size()));
+		Node b = nodes.get(rng.nextInt(nodes.size()));
+		if (a == b) b = nodes.get((a.getIndex() + 1) % nodes.size());
+		final Demand d = np.addDemand(a , b , rng.nextInt(10) , RoutingType.SOURCE_ROUTING , null);
+		np.addRoute(d , d.getOfferedTraffic() , d.getOfferedTraffic() , Arrays.asList(np.getNodePairLinks(a , b , false).iterator().next()) , null);
+	}
+
+	/* Applies the same change to two copies of a design, if given the same operation and random seed */
+	private static void applyRandomChange(NetPlan np , int operation , Random rng)
+	{
+		final List<Link> links = np.getLinks();
+		final List<Demand> demands = np.getDemands();
+		final List<Node> nodes = np.getNodes();
+		final Link link = links.get(rng.nextInt(links.size()));
+		final Node node = nodes.get(rng.nextInt(nodes.size()));
+		switch (operation)
+		{
+			case 0: np.setLinksAndNodesFailureState(null , Collections.singleton(link) , null , null); break;
+			case 1: np.setLinksAndNodesFailureState(new ArrayList<Link> (np.getLinksDown()) , null , new ArrayList<Node> (np.getNodesDown()) , null); break;
+			case 2: np.setLinksAndNodesFailureState(null , null , null , Collections.singleton(node)); break;
+			case 3: link.setCapacity(rng.nextInt(20)); break;
+			case 4: if (demands.size() < 30) addRandomDemand(np , rng); break;
+			case 5: if (!demands.isEmpty()) demands.get(rng.nextInt(demands.size())).remove(); break;
+			case 6: if (!demands.isEmpty()) demands.get(rng.nextInt(demands.size())).setOfferedTraffic(rng.nextInt(10)); break;
+			case 7:
+				if (demands.isEmpty()) break;
+				final Demand d = demands.get(rng.nextInt(demands.size()));
+				if (!d.getRoutes().isEmpty())
+				{
+					final Route r = d.getRoutes().iterator().next();
+					if (rng.nextBoolean()) r.remove(); else r.setCarriedTraffic(rng.nextInt(10) , rng.nextInt(10));
+				}
+				break;
+			case 8: if (nodes.size() < 10 && rng.nextInt(5) == 0) np.addNode(0 , 0 , "new" , null); break;
+			default: throw new RuntimeException ();
+		}
+	}
+}
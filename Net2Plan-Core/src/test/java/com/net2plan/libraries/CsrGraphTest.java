@@ -0,0 +1,216 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.libraries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.apache.commons.collections15.Transformer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.Node;
+import com.net2plan.libraries.GraphUtils.JUNGUtils;
+import com.net2plan.utils.CollectionUtils;
+import com.net2plan.utils.Constants.CheckRoutingCycleType;
+import com.net2plan.utils.Pair;
+
+import cern.colt.matrix.tdouble.DoubleFactory1D;
+import cern.colt.matrix.tdouble.DoubleFactory2D;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import edu.uci.ics.jung.algorithms.shortestpath.DijkstraDistance;
+import edu.uci.ics.jung.graph.Graph;
+
+public class CsrGraphTest
+{
+	private NetPlan np;
+	private CsrGraph graph;
+	private double [] linkCosts;
+	private SortedMap<Link,Double> linkCostMap;
+
+	@Before
+	public void setUp()
+	{
+		this.np = new NetPlan ();
+		final int N = 10;
+		for (int n = 0; n < N ; n ++) np.addNode(n , n , "n" + n , null);
+		for (int n = 0; n < N ; n ++)
+		{
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+1) % N), 100, 10 + 3*n, 200000, null);
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+4) % N), 100, 41 + 7*n, 200000, null);
+		}
+		this.graph = new CsrGraph (np.getNodes() , np.getLinks());
+		this.linkCosts = np.getVectorLinkLengthInKm().toArray();
+		this.linkCostMap = new TreeMap<> ();
+		for (Link e : np.getLinks()) linkCostMap.put(e, e.getLengthInKm());
+	}
+
+	@Test
+	public void testShortestPath()
+	{
+		for (Node n1 : np.getNodes())
+			for (Node n2 : np.getNodes())
+			{
+				if (n1 == n2) continue;
+				final List<Link> sp = GraphUtils.getShortestPath(graph, linkCosts, n1, n2);
+				final List<Link> spJung = GraphUtils.getShortestPath(np.getNodes(), np.getLinks(), n1, n2, linkCostMap);
+				assertEquals(GraphUtils.convertPath2PathCost(spJung, np.getVectorLinkLengthInKm()) , GraphUtils.convertPath2PathCost(sp, np.getVectorLinkLengthInKm()) , 1e-6);
+				GraphUtils.checkRouteContinuity(sp, CheckRoutingCycleType.NO_REPEAT_NODE);
+				assertEquals(sp.get(0).getOriginNode() , n1);
+				assertEquals(sp.get(sp.size()-1).getDestinationNode() , n2);
+			}
+	}
+
+	@Test
+	public void testKLooplessShortestPaths()
+	{
+		for (Node n1 : np.getNodes())
+			for (Node n2 : np.getNodes())
+			{
+				if (n1 == n2) continue;
+				final List<List<Link>> kspJung = GraphUtils.getKLooplessShortestPaths(np.getNodes(), np.getLinks(), n1, n2, linkCostMap, 6, -1, -1, -1, -1, -1, -1);
+				final List<List<Link>> ksp = GraphUtils.getKLooplessShortestPaths(graph, linkCosts, n1, n2, 6, -1, -1, -1, -1, -1, -1);
+				assertEquals(GraphUtils.convertPathList2PathCost(kspJung, np.getVectorLinkLengthInKm()) , GraphUtils.convertPathList2PathCost(ksp, np.getVectorLinkLengthInKm()));
+				for (List<Link> path : ksp)
+					GraphUtils.checkRouteContinuity(path, CheckRoutingCycleType.NO_REPEAT_NODE);
+				final List<List<Link>> kspConstrained = GraphUtils.getKLooplessShortestPaths(graph, linkCosts, n1, n2, 6, -1, 3, -1, -1, -1, -1);
+				assertTrue(kspConstrained.stream().allMatch(p->p.size() <= 3));
+			}
+	}
+
+	@Test
+	public void testTwoLinkDisjointPaths()
+	{
+		for (Node n1 : np.getNodes())
+			for (Node n2 : np.getNodes())
+			{
+				if (n1 == n2) continue;
+				final List<List<Link>> pathsJung = GraphUtils.getTwoLinkDisjointPaths(np.getNodes(), np.getLinks(), n1, n2, linkCostMap);
+				final List<List<Link>> paths = GraphUtils.getTwoLinkDisjointPaths(graph, linkCosts, n1, n2);
+				assertEquals(2 , paths.size());
+				assertTrue(paths.get(0).stream().noneMatch(e->paths.get(1).contains(e)));
+				final double costJung = GraphUtils.convertPathList2PathCost(pathsJung, np.getVectorLinkLengthInKm()).stream().mapToDouble(c->c).sum();
+				final double cost = GraphUtils.convertPathList2PathCost(paths, np.getVectorLinkLengthInKm()).stream().mapToDouble(c->c).sum();
+				assertEquals(costJung , cost , 1e-6);
+			}
+	}
+
+	@Test
+	public void testECMPRoutingTable()
+	{
+		final double [] weights = new double [np.getNumberOfLinks()];
+		for (Link e : np.getLinks()) weights [e.getIndex()] = 1 + (e.getIndex() % 3);
+		final DoubleMatrix2D f_te = IPUtils.computeECMPRoutingTableMatrix_fte(graph , weights);
+		for (Node t : np.getNodes())
+			for (Node n : np.getNodes())
+			{
+				final double sumOut = n.getOutgoingLinks().stream().mapToDouble(e->f_te.get(t.getIndex(), e.getIndex())).sum();
+				assertEquals(n == t? 0.0 : 1.0 , sumOut , 1e-8);
+			}
+	}
+
+	@Test
+	public void testECMPRoutingTableSameAsAllPairsDijkstra()
+	{
+		/* random topologies with parallel links, and small integer weights, so many shortest paths tie. Some links are not usable */
+		final Random rng = new Random (1L);
+		for (int it = 0; it < 20 ; it ++)
+		{
+			final NetPlan randomNp = new NetPlan ();
+			final int N = 3 + rng.nextInt(10);
+			for (int n = 0; n < N ; n ++) randomNp.addNode(n , n , "n" + n , null);
+			final int E = rng.nextInt(4 * N);
+			for (int e = 0; e < E ; e ++)
+			{
+				final Node a = randomNp.getNode(rng.nextInt(N));
+				final Node b = randomNp.getNode(rng.nextInt(N));
+				if (a != b) randomNp.addLink(a , b , 100 , 1 , 200000 , null);
+			}
+			final DoubleMatrix1D w = DoubleFactory1D.dense.make(randomNp.getNumberOfLinks());
+			for (int e = 0; e < w.size() ; e ++) w.set(e , rng.nextInt(10) == 0? Double.MAX_VALUE : 1 + rng.nextInt(3));
+
+			final DoubleMatrix2D f_te = IPUtils.computeECMPRoutingTableMatrix_fte(randomNp.getNodes() , randomNp.getLinks() , w);
+			final DoubleMatrix2D f_te_allPairs = computeECMPRoutingTableMatrixWithAllPairsDijkstra_fte(randomNp.getNodes() , randomNp.getLinks() , w);
+			for (int t = 0; t < N ; t ++)
+				for (int e = 0; e < w.size() ; e ++)
+					assertEquals(f_te_allPairs.get(t , e) , f_te.get(t , e) , 1e-10);
+		}
+	}
+
+	/* The ECMP routing computed as in previous versions of IPUtils, with all-pairs JUNG DijkstraDistance */
+	private static DoubleMatrix2D computeECMPRoutingTableMatrixWithAllPairsDijkstra_fte (List<Node> nodes, List<Link> links, DoubleMatrix1D linkWeightVector)
+	{
+		final SortedMap<Link,Double> linkWeightMap = CollectionUtils.toMap(links, linkWeightVector);
+		final Transformer<Link, Double> nev = JUNGUtils.getEdgeWeightTransformer(linkWeightMap);
+		final List<Link> linksToConsider = links.stream().filter(e->linkWeightMap.get(e) != Double.MAX_VALUE).collect(Collectors.toList());
+		final Graph<Node, Link> graph = JUNGUtils.getGraphFromLinkMap(nodes, linksToConsider);
+		final DijkstraDistance<Node,Link> shortestDistanceMatrix = new DijkstraDistance<Node,Link> (graph, nev);
+
+		final DoubleMatrix2D f_te = DoubleFactory2D.sparse.make(nodes.size(), links.size());
+
+		final SortedMap<Pair<Node, Node>, Pair<SortedSet<Link>,Double>> linksPerNodeSameMinimumCost = new TreeMap<>();
+		for(Link link : linksToConsider)
+		{
+			final double newLinkCost = linkWeightMap.get(link);
+			final Pair<Node,Node> nodePair_thisLink = Pair.of(link.getOriginNode() , link.getDestinationNode());
+			final Pair<SortedSet<Link>,Double> links_thisNodePair = linksPerNodeSameMinimumCost.get(nodePair_thisLink);
+			if (links_thisNodePair == null)
+			{
+				final SortedSet<Link> setForLinkThisNodePair = new TreeSet<Link>();
+				setForLinkThisNodePair.add(link);
+				linksPerNodeSameMinimumCost.put(nodePair_thisLink, Pair.of(setForLinkThisNodePair , newLinkCost));
+			}
+			else
+			{
+				final double previousLinksCost = links_thisNodePair.getSecond();
+				if (newLinkCost < previousLinksCost) { links_thisNodePair.getFirst().clear(); links_thisNodePair.getFirst().add(link); links_thisNodePair.setSecond(newLinkCost); }
+				else if (newLinkCost == previousLinksCost) { links_thisNodePair.getFirst().add(link); }
+			}
+		}
+
+		for (Node egressNode : nodes)
+		{
+			final int t = egressNode.getIndex();
+			for (Node sourceNode : nodes)
+			{
+				if (sourceNode == egressNode) continue;
+				final Number shortestPathDistance_ij = shortestDistanceMatrix.getDistance(sourceNode, egressNode);
+				if (shortestPathDistance_ij == null) continue;
+				final SortedSet<Link> minCostLinks = new TreeSet<> ();
+				for (Node intermediateNode : graph.getNeighbors(sourceNode))
+				{
+					final Pair<SortedSet<Link>,Double> nodePairLinks = linksPerNodeSameMinimumCost.get(Pair.of(sourceNode, intermediateNode));
+					if (nodePairLinks == null) continue;
+					final Number costFromIntermediateToEnd = shortestDistanceMatrix.getDistance(intermediateNode, egressNode);
+					if (costFromIntermediateToEnd == null) continue;
+					final double costThroghThisIntermediate = nodePairLinks.getSecond() + costFromIntermediateToEnd.doubleValue();
+					if (Math.abs(shortestPathDistance_ij.doubleValue() - costThroghThisIntermediate) < 1E-10)
+						minCostLinks.addAll(nodePairLinks.getFirst());
+				}
+				for (Link link : minCostLinks)
+					f_te.set (t , link.getIndex () , 1.0 / minCostLinks.size());
+			}
+		}
+		return f_te;
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.libraries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.interfaces.networkDesign.Demand;
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.Node;
+import com.net2plan.interfaces.networkDesign.SharedRiskGroup;
+import com.net2plan.utils.Constants.RoutingType;
+import com.net2plan.utils.Pair;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+
+public class FailureStateAnalysisEngineTest
+{
+	private NetPlan np;
+	private List<SortedSet<SharedRiskGroup>> failureStates;
+
+	@Before
+	public void setUp()
+	{
+		this.np = new NetPlan ();
+		final int N = 8;
+		for (int n = 0; n < N ; n ++) np.addNode(n , n , "n" + n , null);
+		for (int n = 0; n < N ; n ++)
+		{
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+1) % N), 100, 10, 200000, null);
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+3) % N), 100, 10, 200000, null);
+		}
+		for (Node n1 : np.getNodes())
+			for (Node n2 : np.getNodes())
+				if (n1 != n2)
+				{
+					final Demand d = np.addDemand(n1, n2, 1 + n1.getIndex(), RoutingType.SOURCE_ROUTING, null);
+					np.addRoute(d, d.getOfferedTraffic(), d.getOfferedTraffic(), GraphUtils.getShortestPath(np.getNodes(), np.getLinks(), n1, n2, null), null);
+				}
+		SRGUtils.configureSRGs(np, 1000, 10, SRGUtils.SharedRiskModel.PER_BIDIRECTIONAL_LINK_BUNDLE, true);
+		this.failureStates = SRGUtils.enumerateFailureStates(np.getSRGs(), true, true);
+	}
+
+	@Test
+	public void testWorstCaseSameAsCopies()
+	{
+		final NetPlan npBefore = np.copy();
+		final Pair<DoubleMatrix1D,DoubleMatrix1D> wcSequential = FailureStateAnalysisEngine.computeWorstCaseBlockedTrafficAndLinkOccupation(np, failureStates, 1);
+		final Pair<DoubleMatrix1D,DoubleMatrix1D> wcParallel = FailureStateAnalysisEngine.computeWorstCaseBlockedTrafficAndLinkOccupation(np, failureStates, 3);
+		assertTrue(np.isDeepCopy(npBefore));
+
+		final double [] wcBlocked = new double [np.getNumberOfDemands()];
+		final double [] wcOccupied = new double [np.getNumberOfLinks()];
+		for (SortedSet<SharedRiskGroup> srgs : failureStates)
+		{
+			final NetPlan npCopy = np.copy();
+			for (SharedRiskGroup srg : srgs) npCopy.getSRGFromId(srg.getId()).setAsDown();
+			for (Demand d : npCopy.getDemands()) wcBlocked [d.getIndex()] = Math.max(wcBlocked [d.getIndex()], d.getBlockedTraffic());
+			for (Link e : npCopy.getLinks()) wcOccupied [e.getIndex()] = Math.max(wcOccupied [e.getIndex()], e.getOccupiedCapacity());
+		}
+		for (int d = 0; d < wcBlocked.length ; d ++)
+		{
+			assertEquals(wcBlocked [d] , wcSequential.getFirst().get(d) , 1e-8);
+			assertEquals(wcBlocked [d] , wcParallel.getFirst().get(d) , 1e-8);
+		}
+		for (int e = 0; e < wcOccupied.length ; e ++)
+		{
+			assertEquals(wcOccupied [e] , wcSequential.getSecond().get(e) , 1e-8);
+			assertEquals(wcOccupied [e] , wcParallel.getSecond().get(e) , 1e-8);
+		}
+	}
+
+	@Test
+	public void testOrderedAggregationWithModifyingEvaluator()
+	{
+		final FailureStateAnalysisEngine.FailureStateEvaluator<Integer> evaluator = (npState , srgs) ->
+		{
+			/* the evaluator modifies its design: remove the links down */
+			final int numRoutesDown = npState.getRoutesDown().size();
+			for (Link e : new ArrayList<> (npState.getLinksDown())) e.remove();
+			return numRoutesDown;
+		};
+		final List<Integer> numRoutesDownSequential = FailureStateAnalysisEngine.evaluateFailureStates(np, failureStates, evaluator, true, 1);
+		final List<Integer> indexes = new ArrayList<> ();
+		final List<Integer> numRoutesDownParallel = new ArrayList<> ();
+		FailureStateAnalysisEngine.evaluateFailureStates(np, failureStates, evaluator, (index , srgs , result) -> { indexes.add(index); numRoutesDownParallel.add(result); assertEquals(failureStates.get(index) , srgs); } , true, 4);
+		assertEquals(numRoutesDownSequential , numRoutesDownParallel);
+		for (int cont = 0; cont < indexes.size() ; cont ++) assertEquals(cont , (int) indexes.get(cont));
+		assertEquals(failureStates.size() , indexes.size());
+		assertEquals(0 , (int) numRoutesDownSequential.get(0));
+		assertTrue(np.getLinksDown().isEmpty());
+		assertEquals(np.getNumberOfLinks() , 32);
+	}
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.libraries;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.Node;
+import com.net2plan.utils.Constants.RoutingType;
+
+import cern.colt.matrix.tdouble.DoubleFactory1D;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+
+public class IncrementalECMPRoutingTest
+{
+	private NetPlan np;
+
+	@Before
+	public void setUp()
+	{
+		this.np = new NetPlan ();
+		final int N = 10;
+		for (int n = 0; n < N ; n ++) np.addNode(n , n , "n" + n , null);
+		for (int n = 0; n < N ; n ++)
+		{
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+1) % N), 100, 10, 200000, null);
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+3) % N), 100, 10, 200000, null);
+		}
+		for (Node n1 : np.getNodes())
+			for (Node n2 : np.getNodes())
+				if (n1 != n2) np.addDemand(n1, n2, 1 + n1.getIndex() + 2*n2.getIndex(), RoutingType.HOP_BY_HOP_ROUTING, null);
+	}
+
+	@Test
+	public void testSingleWeightChanges()
+	{
+		final Random rng = new Random (1L);
+		final DoubleMatrix1D w = DoubleFactory1D.dense.make(np.getNumberOfLinks(), 1.0);
+		final IncrementalECMPRouting ecmp = new IncrementalECMPRouting (np , w);
+		checkSameRouting(ecmp, w);
+		for (int it = 0; it < 200 ; it ++)
+		{
+			final Link e = np.getLink(rng.nextInt(np.getNumberOfLinks()));
+			final double newWeight = 1 + rng.nextInt(4);
+			w.set(e.getIndex(), newWeight);
+			ecmp.setLinkWeight(e, newWeight);
+			assertEquals(newWeight , ecmp.getLinkWeight(e) , 0.0);
+			checkSameRouting(ecmp, w);
+		}
+	}
+
+	@Test
+	public void testUnusableLinks()
+	{
+		final DoubleMatrix1D w = DoubleFactory1D.dense.make(np.getNumberOfLinks(), 2.0);
+		final IncrementalECMPRouting ecmp = new IncrementalECMPRouting (np , w);
+		for (int e = 0; e < np.getNumberOfLinks() ; e += 7) w.set(e, Double.MAX_VALUE);
+		ecmp.setLinkWeights(w);
+		checkSameRouting(ecmp, w);
+		for (int e = 0; e < np.getNumberOfLinks() ; e += 7) w.set(e, 1.0);
+		ecmp.setLinkWeights(w);
+		checkSameRouting(ecmp, w);
+	}
+
+	private void checkSameRouting (IncrementalECMPRouting ecmp , DoubleMatrix1D w)
+	{
+		final DoubleMatrix1D y_e = IPUtils.computeCarriedTrafficFromIGPWeights(np, w).getFourth();
+		final DoubleMatrix1D y_eIncremental = ecmp.getCarriedTrafficPerLink();
+		for (Link e : np.getLinks())
+			assertEquals(y_e.get(e.getIndex()) , y_eIncremental.get(e.getIndex()) , 1e-6);
+		final DoubleMatrix2D f_te = IPUtils.computeECMPRoutingTableMatrix_fte(np.getNodes(), np.getLinks(), w);
+		final DoubleMatrix2D f_teIncremental = ecmp.getRoutingTableMatrix_fte();
+		for (Node t : np.getNodes())
+			for (Link e : np.getLinks())
+				assertEquals(f_te.get(t.getIndex(), e.getIndex()) , f_teIncremental.get(t.getIndex(), e.getIndex()) , 1e-8);
+	}
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.libraries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.Node;
+
+public class KShortestPathCacheTest
+{
+	private NetPlan np;
+	private KShortestPathCache cache;
+	private final KShortestPathCache.PathConstraints lengthConstraints = new KShortestPathCache.PathConstraints (KShortestPathCache.LinkCostType.LENGTH_IN_KM , true , 3 , -1 , -1 , -1 , -1 , -1 , -1);
+	private final KShortestPathCache.PathConstraints hopsConstraints = new KShortestPathCache.PathConstraints (KShortestPathCache.LinkCostType.HOPS , false , 2 , -1 , 4 , -1 , -1 , -1 , -1);
+
+	@Before
+	public void setUp()
+	{
+		this.np = new NetPlan ();
+		final int N = 10;
+		for (int n = 0; n < N ; n ++) np.addNode(n , n , "n" + n , null);
+		for (int n = 0; n < N ; n ++)
+		{
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+1) % N), 100, 10 + 3*n, 200000, null);
+			np.addLinkBidirectional(np.getNode(n), np.getNode((n+4) % N), 100, 41 + 7*n, 200000, null);
+		}
+		this.cache = new KShortestPathCache ();
+	}
+
+	@Test
+	public void testCachedPathsAreReused()
+	{
+		final Node n1 = np.getNode(0);
+		final Node n2 = np.getNode(5);
+		final List<List<Link>> paths = cache.getKLooplessShortestPaths(n1 , n2 , lengthConstraints);
+		assertSame (paths , cache.getKLooplessShortestPaths(n1 , n2 , new KShortestPathCache.PathConstraints (KShortestPathCache.LinkCostType.LENGTH_IN_KM , true , 3 , -1 , -1 , -1 , -1 , -1 , -1)));
+		assertEquals (getFreshPaths(n1 , n2 , lengthConstraints) , paths);
+		cache.getKLooplessShortestPaths(n1 , n2 , hopsConstraints);
+		assertEquals (2 , cache.getNumberOfCachedEntries(np.getNetworkLayerDefault()));
+	}
+
+	@Test
+	public void testSelectiveInvalidation()
+	{
+		final Random rng = new Random (1L);
+		fillCache();
+		final int numEntries = cache.getNumberOfCachedEntries(np.getNetworkLayerDefault());
+
+		/* A failure only invalidates the entries traversing the link */
+		final Link failed = np.getLink(0);
+		np.setLinksAndNodesFailureState(null , Arrays.asList(failed) , null , null);
+		cache.linkChanged(failed);
+		final int numEntriesAfterFailure = cache.getNumberOfCachedEntries(np.getNetworkLayerDefault());
+		assertTrue (numEntriesAfterFailure < numEntries);
+		assertTrue (numEntriesAfterFailure > 0);
+		checkCacheIsUpToDate();
+
+		for (int it = 0; it < 30 ; it ++)
+		{
+			final Link e = np.getLink(rng.nextInt(np.getNumberOfLinks()));
+			switch (rng.nextInt(4))
+			{
+				case 0:
+					np.setLinksAndNodesFailureState(e.isUp()? null : Arrays.asList(e) , e.isUp()? Arrays.asList(e) : null , null , null);
+					cache.linkChanged(e);
+					break;
+				case 1:
+					e.setLengthInKm(1 + rng.nextInt(100));
+					cache.linkChanged(e);
+					break;
+				case 2:
+					if (np.getNumberOfLinks() < 30) break;
+					e.remove();
+					cache.linkRemoved(e);
+					break;
+				case 3:
+					final Node a = np.getNode(rng.nextInt(np.getNumberOfNodes()));
+					final Node b = np.getNode(rng.nextInt(np.getNumberOfNodes()));
+					if (a == b) break;
+					cache.linkAdded(np.addLink(a , b , 100 , 1 + rng.nextInt(100) , 200000 , null));
+					break;
+				default: throw new RuntimeException ();
+			}
+			checkCacheIsUpToDate();
+		}
+
+		final Node removedNode = np.getNode(3);
+		removedNode.remove();
+		cache.nodeRemoved(removedNode);
+		final Node newNode = np.addNode(0 , 0 , "new" , null);
+		cache.nodeAdded(newNode);
+		cache.linkAdded(np.addLink(newNode , np.getNode(0) , 100 , 1 , 200000 , null));
+		checkCacheIsUpToDate();
+	}
+
+	private void fillCache()
+	{
+		for (Node n1 : np.getNodes())
+			for (Node n2 : np.getNodes())
+			{
+				if (n1 == n2) continue;
+				cache.getKLooplessShortestPaths(n1 , n2 , lengthConstraints);
+				cache.getKLooplessShortestPaths(n1 , n2 , hopsConstraints);
+			}
+	}
+
+	private void checkCacheIsUpToDate()
+	{
+		for (Node n1 : np.getNodes())
+			for (Node n2 : np.getNodes())
+			{
+				if (n1 == n2) continue;
+				/* Paths of the same cost may be returned in different order */
+				assertEquals (getPathLengths(getFreshPaths(n1 , n2 , lengthConstraints)) , getPathLengths(cache.getKLooplessShortestPaths(n1 , n2 , lengthConstraints)));
+				assertEquals (getPathNumHops(getFreshPaths(n1 , n2 , hopsConstraints)) , getPathNumHops(cache.getKLooplessShortestPaths(n1 , n2 , hopsConstraints)));
+			}
+	}
+
+	private static List<List<Link>> getFreshPaths(Node n1 , Node n2 , KShortestPathCache.PathConstraints constraints)
+	{
+		return new KShortestPathCache ().getKLooplessShortestPaths(n1 , n2 , constraints);
+	}
+
+	private static List<Double> getPathLengths(List<List<Link>> paths)
+	{
+		final List<Double> res = new ArrayList<Double> ();
+		for (List<Link> path : paths) { double length = 0; for (Link e : path) length += e.getLengthInKm(); res.add(length); }
+		return res;
+	}
+
+	private static List<Integer> getPathNumHops(List<List<Link>> paths)
+	{
+		final List<Integer> res = new ArrayList<Integer> ();
+		for (List<Link> path : paths) res.add(path.size());
+		return res;
+	}
+}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.libraries;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class OpticalSlotBitSetTest
+{
+	@Test
+	public void testSameAsSortedSet()
+	{
+		final Random rng = new Random (1L);
+		final OpticalSlotBitSet bitSet = new OpticalSlotBitSet ();
+		SortedSet<Integer> set = new TreeSet<> ();
+		for (int it = 0; it < 5000 ; it ++)
+		{
+			final int s1 = rng.nextInt(700) - 300;
+			final int s2 = s1 + rng.nextInt(150);
+			switch (rng.nextInt(7))
+			{
+				case 0: bitSet.set(s1); set.add(s1); break;
+				case 1: bitSet.clear(s1); set.remove(s1); break;
+				case 2: bitSet.setRange(s1 , s2); for (int s = s1; s <= s2; s++) set.add(s); break;
+				case 3: if (rng.nextInt(10) == 0) { bitSet.clearBelow(s1); set = new TreeSet<> (set.tailSet(s1)); } break;
+				case 4: case 5:
+					final OpticalSlotBitSet other = new OpticalSlotBitSet ();
+					final SortedSet<Integer> otherSet = new TreeSet<> ();
+					for (int r = 0; r < 3 ; r ++)
+					{
+						final int first = rng.nextInt(700) - 300; final int last = first + rng.nextInt(200);
+						other.setRange(first , last); for (int s = first; s <= last; s++) otherSet.add(s);
+					}
+					if (rng.nextBoolean()) { bitSet.andNot(other); set.removeAll(otherSet); } else { bitSet.and(other); set.retainAll(otherSet); }
+					break;
+				case 6: final OpticalSlotBitSet copy = bitSet.copy(); copy.set(s1); assertEquals (set , bitSet.toSortedSet()); break;
+				default: throw new RuntimeException ();
+			}
+			assertEquals (set , bitSet.toSortedSet());
+			assertEquals (set.size() , bitSet.cardinality());
+			assertEquals (set.isEmpty() , bitSet.isEmpty());
+			assertEquals (set.contains(s1) , bitSet.get(s1));
+			assertEquals (set.tailSet(s1).isEmpty()? null : set.tailSet(s1).first() , bitSet.nextSetSlot(s1));
+			int nextClear = s1; while (set.contains(nextClear)) nextClear ++;
+			assertEquals (nextClear , bitSet.nextClearSlot(s1));
+			final int numSlots = 1 + rng.nextInt(8);
+			final SortedSet<Integer> rangesInitialSlots = getRangesInitialSlots(set , numSlots);
+			assertEquals (rangesInitialSlots , bitSet.getAllRangesInitialSlots(numSlots));
+			assertEquals (rangesInitialSlots.isEmpty()? null : rangesInitialSlots.first() , bitSet.getFirstRangeInitialSlot(numSlots));
+		}
+	}
+
+	@Test
+	public void testClearBelowInFirstWord()
+	{
+		final OpticalSlotBitSet bitSet = new OpticalSlotBitSet ();
+		bitSet.setRange(0 , 319);
+		bitSet.clearBelow(10);
+		assertEquals (Integer.valueOf(10) , bitSet.nextSetSlot(0));
+		assertEquals (Integer.valueOf(10) , bitSet.getFirstRangeInitialSlot(4));
+		assertEquals (310 , bitSet.cardinality());
+	}
+
+	private static SortedSet<Integer> getRangesInitialSlots(SortedSet<Integer> slots , int numContiguousSlots)
+	{
+		final SortedSet<Integer> res = new TreeSet<> ();
+		for (int s : slots)
+		{
+			boolean allIn = true;
+			for (int k = 1; k < numContiguousSlots && allIn; k ++) allIn = slots.contains(s + k);
+			if (allIn) res.add(s);
+		}
+		return res;
+	}
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.libraries;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.interfaces.networkDesign.Link;
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.utils.Pair;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+
+public class WDMUtilsTest
+{
+	private NetPlan np;
+	private final int N = 8;
+
+	@Before
+	public void setUp()
+	{
+		this.np = new NetPlan ();
+		for (int n = 0; n < N ; n ++) np.addNode(n , n , "n" + n , null);
+		for (int n = 0; n < N ; n ++)
+		{
+			final Link e = np.addLink(np.getNode(n), np.getNode((n+1) % N), 0, 100, 200000, null);
+			WDMUtils.setFiberNumFrequencySlots(e, n % 3 == 0? 32 : 40);
+		}
+	}
+
+	@Test
+	public void testSlotOccupancySameResultsAsMatrix()
+	{
+		final Random rng = new Random (1L);
+		final Pair<DoubleMatrix2D,DoubleMatrix1D> matrixOccupancy = WDMUtils.getNetworkSlotAndRegeneratorOcupancy(np, true);
+		final DoubleMatrix2D frequencySlot2FiberOccupancy_se = matrixOccupancy.getFirst();
+		final WDMUtils.SlotOccupancy slotOccupancy = WDMUtils.getNetworkSlotOccupancy(np, true);
+		assertEquals (frequencySlot2FiberOccupancy_se , slotOccupancy.getFrequencySlot2FiberOccupancy());
+
+		final List<WDMUtils.RSA> allocatedRSAs = new ArrayList<WDMUtils.RSA> ();
+		int numAllocated = 0;
+		for (int it = 0; it < 1000 ; it ++)
+		{
+			final List<Link> path_1 = getRandomPath(rng);
+			final List<Link> path_2 = getRandomPath(rng);
+			final int numSlots = 1 + rng.nextInt(4);
+
+			assertEquals (WDMUtils.computePathSlotOccupancy(path_1 , frequencySlot2FiberOccupancy_se) , WDMUtils.computePathSlotOccupancy(path_1 , slotOccupancy));
+			assertEquals (WDMUtils.spectrumAssignment_firstFitTwoRoutes(path_1 , path_2 , frequencySlot2FiberOccupancy_se , numSlots) , WDMUtils.spectrumAssignment_firstFitTwoRoutes(path_1 , path_2 , slotOccupancy , numSlots));
+			final Pair<int[],int[]> rppMatrix = WDMUtils.wavelengthAssignment_RPP_firstFit(path_1 , frequencySlot2FiberOccupancy_se , matrixOccupancy.getSecond() , 250);
+			final Pair<int[],int[]> rppSlotOccupancy = WDMUtils.wavelengthAssignment_RPP_firstFit(path_1 , slotOccupancy , 250);
+			assertArrayEquals (rppMatrix.getFirst() , rppSlotOccupancy.getFirst());
+			assertArrayEquals (rppMatrix.getSecond() , rppSlotOccupancy.getSecond());
+			final WDMUtils.RSA randomRSA = new WDMUtils.RSA (path_2 , rng.nextInt(32 - numSlots) , numSlots);
+			assertEquals (WDMUtils.isAllocatableRSASet(frequencySlot2FiberOccupancy_se , randomRSA) , WDMUtils.isAllocatableRSASet(slotOccupancy , randomRSA));
+
+			final int initialSlot = WDMUtils.spectrumAssignment_firstFit(path_1 , frequencySlot2FiberOccupancy_se , numSlots);
+			assertEquals (initialSlot , WDMUtils.spectrumAssignment_firstFit(path_1 , slotOccupancy , numSlots));
+			if (initialSlot != -1)
+			{
+				final WDMUtils.RSA rsa = new WDMUtils.RSA (path_1 , initialSlot , numSlots);
+				assertTrue (WDMUtils.isAllocatableRSASet(slotOccupancy , rsa));
+				WDMUtils.allocateResources(rsa , frequencySlot2FiberOccupancy_se , null);
+				slotOccupancy.allocateResources(rsa);
+				allocatedRSAs.add(rsa);
+				numAllocated ++;
+			}
+			if (!allocatedRSAs.isEmpty() && rng.nextInt(3) == 0)
+			{
+				final WDMUtils.RSA rsa = allocatedRSAs.remove(rng.nextInt(allocatedRSAs.size()));
+				WDMUtils.releaseResources(rsa , frequencySlot2FiberOccupancy_se , null);
+				slotOccupancy.releaseResources(rsa);
+			}
+			assertEquals (frequencySlot2FiberOccupancy_se , slotOccupancy.getFrequencySlot2FiberOccupancy());
+		}
+		assertTrue (numAllocated > 100);
+	}
+
+	/* A path of consecutive fibers in the ring */
+	private List<Link> getRandomPath(Random rng)
+	{
+		final int firstNode = rng.nextInt(N);
+		final int numHops = 1 + rng.nextInt(5);
+		final List<Link> res = new ArrayList<Link> ();
+		for (int h = 0; h < numHops ; h ++) res.add(np.getLink((firstNode + h) % N));
+		return res;
+	}
+}
@@ -0,0 +1,125 @@
+package com.net2plan.niw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.net2plan.niw.OpticalSimulationModule.LpSignalState;
+import com.net2plan.utils.Pair;
+
+public class OpticalSimulationModuleTest
+{
+	@Test
+	public void testIncrementalUpdateSameAsFullUpdate()
+	{
+		final WNet net = WNet.createEmptyDesign(true , true);
+		final List<WNode> nodes = new ArrayList<> ();
+		for (int n = 0; n < 6 ; n ++) nodes.add(net.addNode(0 , 0 , "n" + n , "type"));
+		final List<WFiber> fibers = new ArrayList<> ();
+		for (int n = 0; n < 5 ; n ++)
+		{
+			final WFiber e = net.addFiber(nodes.get(n) , nodes.get(n+1) , Arrays.asList(Pair.of(0 , 79)) , 150.0 + 20 * n , true).getFirst();
+			e.setOlaTraversedInfo(Arrays.asList(OpticalAmplifierInfo.getDefaultOla(50.0) , OpticalAmplifierInfo.getDefaultOla(110.0)));
+			fibers.add(e);
+		}
+
+		final Random rng = new Random (1L);
+		final OpticalSimulationModule osim = new OpticalSimulationModule (net);
+		int numAllocated = 0;
+		for (int it = 0; it < 200 ; it ++)
+		{
+			final List<WLightpath> changedLps = new ArrayList<> ();
+			final int numChanges = 1 + rng.nextInt(3);
+			for (int c = 0; c < numChanges ; c ++)
+			{
+				if (rng.nextInt(3) == 0 && !net.getLightpaths().isEmpty())
+				{
+					final WLightpath lp = net.getLightpaths().get(rng.nextInt(net.getLightpaths().size()));
+					lp.remove();
+					changedLps.add(lp);
+					continue;
+				}
+				final int firstFiber = rng.nextInt(fibers.size());
+				final List<WFiber> path = fibers.subList(firstFiber , firstFiber + 1 + rng.nextInt(fibers.size() - firstFiber));
+				final OsmLightpathOccupationInfo occupation = new OsmLightpathOccupationInfo (path , Optional.empty() , Optional.empty() , Optional.empty());
+				final Optional<SortedSet<Integer>> slots = OpticalSpectrumManager.createFromRegularLps(net).spectrumAssignment_firstFit(occupation , 1 + rng.nextInt(4) , Optional.empty() , new TreeSet<> ());
+				if (!slots.isPresent()) continue;
+				final WLightpath lp = net.addLightpathRequest(path.get(0).getA() , path.get(path.size()-1).getB() , 10.0 , false).addLightpathUnregenerated(path , slots.get() , false);
+				lp.setAddTransponderInjectionPower_dBm(rng.nextInt(5) - 2.0);
+				changedLps.add(lp);
+				numAllocated ++;
+			}
+			osim.update(changedLps);
+			checkSamePerformanceInfo(new OpticalSimulationModule (net) , osim , net);
+		}
+		assertTrue (numAllocated > 100);
+	}
+
+	@Test
+	public void testParallelUpdateSameAsSequential()
+	{
+		final WNet net = WNet.createEmptyDesign(true , true);
+		final Random rng = new Random (1L);
+		final List<WNode> nodes = new ArrayList<> ();
+		for (int n = 0; n < 20 ; n ++) nodes.add(net.addNode(0 , 0 , "n" + n , "type"));
+		final List<WFiber> fibers = new ArrayList<> ();
+		for (int n = 0; n < nodes.size() ; n ++)
+		{
+			final WFiber e = net.addFiber(nodes.get(n) , nodes.get((n+1) % nodes.size()) , Arrays.asList(Pair.of(0 , 319)) , 100.0 + rng.nextInt(200) , true).getFirst();
+			e.setOlaTraversedInfo(Arrays.asList(OpticalAmplifierInfo.getDefaultOla(40.0) , OpticalAmplifierInfo.getDefaultOla(90.0)));
+			fibers.add(e);
+		}
+		for (int cont = 0; cont < 3000 ; cont ++)
+		{
+			final int firstFiber = rng.nextInt(fibers.size());
+			final List<WFiber> path = new ArrayList<> ();
+			final int numHops = 1 + rng.nextInt(8);
+			for (int h = 0; h < numHops ; h ++) path.add(fibers.get((firstFiber + h) % fibers.size()));
+			final int firstSlot = rng.nextInt(310);
+			final WLightpath lp = net.addLightpathRequest(path.get(0).getA() , path.get(path.size()-1).getB() , 10.0 , false).addLightpathUnregenerated(path , new TreeSet<> (Arrays.asList(firstSlot , firstSlot + 1 , firstSlot + 2)) , false);
+			lp.setAddTransponderInjectionPower_dBm(rng.nextInt(5) - 2.0);
+		}
+
+		final OpticalSimulationModule sequential = new OpticalSimulationModule (net);
+		final OpticalSimulationModule parallel = new OpticalSimulationModule (net).updateAllPerformanceInfo(4);
+		checkSamePerformanceInfo(sequential , parallel , net);
+	}
+
+	private static void checkSamePerformanceInfo(OpticalSimulationModule expected , OpticalSimulationModule actual , WNet net)
+	{
+		for (WLightpath lp : net.getLightpaths())
+		{
+			checkSameState (expected.getOpticalPerformanceAtTransponderReceiverEnd(lp) , actual.getOpticalPerformanceAtTransponderReceiverEnd(lp));
+			for (WFiber e : lp.getSeqFibers())
+			{
+				checkSameState (expected.getOpticalPerformanceOfLightpathAtFiberEndsAfterBoosterBeforePreamplifier(e , lp).getFirst() , actual.getOpticalPerformanceOfLightpathAtFiberEndsAfterBoosterBeforePreamplifier(e , lp).getFirst());
+				checkSameState (expected.getOpticalPerformanceOfLightpathAtFiberEndsAfterBoosterBeforePreamplifier(e , lp).getSecond() , actual.getOpticalPerformanceOfLightpathAtFiberEndsAfterBoosterBeforePreamplifier(e , lp).getSecond());
+				for (int ola = 0; ola < e.getNumberOfOpticalLineAmplifiersTraversed() ; ola ++)
+					checkSameState (expected.getOpticalPerformanceOfLightpathAtLineAmplifierInputAndOutput(lp , e , ola).getSecond() , actual.getOpticalPerformanceOfLightpathAtLineAmplifierInputAndOutput(lp , e , ola).getSecond());
+			}
+		}
+		for (WFiber e : net.getFibers())
+		{
+			assertEquals (expected.getTotalPowerAtFiberEndsAfterBoosterBeforePreamplifier_dBm(e) , actual.getTotalPowerAtFiberEndsAfterBoosterBeforePreamplifier_dBm(e));
+			assertEquals (expected.getTotalPowerAtLineAmplifierInputs_dBm(e) , actual.getTotalPowerAtLineAmplifierInputs_dBm(e));
+			assertEquals (expected.getTotalPowerAtLineAmplifierOutputs_dBm(e) , actual.getTotalPowerAtLineAmplifierOutputs_dBm(e));
+		}
+	}
+
+	private static void checkSameState(LpSignalState expected , LpSignalState actual)
+	{
+		assertEquals (expected.getPower_dbm() , actual.getPower_dbm() , 0.0);
+		assertEquals (expected.getCd_psPerNm() , actual.getCd_psPerNm() , 0.0);
+		assertEquals (expected.getPmdSquared_ps2() , actual.getPmdSquared_ps2() , 0.0);
+		assertEquals (expected.getOsnrAt12_5GhzRefBw() , actual.getOsnrAt12_5GhzRefBw() , 0.0);
+	}
+}
@@ -0,0 +1,94 @@
+package com.net2plan.niw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.net2plan.utils.Pair;
+
+public class OpticalSpectrumManagerTest
+{
+	@Test
+	public void testFirstFitMinimumInitialSlotInFirstWord()
+	{
+		final WNet net = WNet.createEmptyDesign(true , true);
+		final WNode a = net.addNode(0 , 0 , "a" , "type");
+		final WNode b = net.addNode(0 , 0 , "b" , "type");
+		final WFiber fiber = net.addFiber(a , b , Arrays.asList(Pair.of(0 , 319)) , -1 , true).getFirst();
+		final OpticalSpectrumManager osm = OpticalSpectrumManager.createFromRegularLps(net);
+		final OsmLightpathOccupationInfo occupation = new OsmLightpathOccupationInfo (Arrays.asList(fiber) , Optional.empty() , Optional.empty() , Optional.empty());
+		final Optional<SortedSet<Integer>> firstFit = osm.spectrumAssignment_firstFit(occupation , 4 , Optional.of(10) , new TreeSet<> ());
+		assertTrue (firstFit.isPresent());
+		assertEquals (new TreeSet<> (Arrays.asList(10 , 11 , 12 , 13)) , firstFit.get());
+		assertEquals (Integer.valueOf(10) , osm.spectrumAssignment_getAllPotentialFirstSlots(occupation , 4 , Optional.of(10) , new TreeSet<> ()).first());
+	}
+
+	@Test
+	public void testFirstFitDenseCPlusLGrid()
+	{
+		final WNet net = WNet.createEmptyDesign(true , true);
+		final List<WNode> nodes = new ArrayList<> ();
+		for (int n = 0; n < 5 ; n ++) nodes.add(net.addNode(0 , 0 , "n" + n , "type"));
+		/* L-band slots with negative ids, and C-band slots */
+		final List<Pair<Integer,Integer>> validSlotRanges = Arrays.asList(Pair.of(-256 , -1) , Pair.of(0 , 319));
+		final List<WFiber> fibers = new ArrayList<> ();
+		for (int n = 0; n < 4 ; n ++) fibers.add(net.addFiber(nodes.get(n) , nodes.get(n+1) , validSlotRanges , -1 , true).getFirst());
+
+		final Random rng = new Random (1L);
+		int numAllocated = 0;
+		for (int it = 0; it < 400 ; it ++)
+		{
+			final OpticalSpectrumManager osm = OpticalSpectrumManager.createFromRegularLps(net);
+			final int firstFiber = rng.nextInt(fibers.size());
+			final List<WFiber> path = fibers.subList(firstFiber , firstFiber + 1 + rng.nextInt(fibers.size() - firstFiber));
+			final int numSlots = 1 + rng.nextInt(8);
+			final Optional<Integer> minimumInitialSlotId = rng.nextBoolean()? Optional.empty() : Optional.of(rng.nextInt(600) - 300);
+			final SortedSet<Integer> forbiddenSlotIds = new TreeSet<> ();
+			for (int s = 0; s < 20 ; s ++) forbiddenSlotIds.add(rng.nextInt(600) - 300);
+			final OsmLightpathOccupationInfo occupation = new OsmLightpathOccupationInfo (path , Optional.empty() , Optional.empty() , Optional.empty());
+
+			/* Reference computation, from the per-fiber idle slots */
+			SortedSet<Integer> usable = new TreeSet<> (osm.getIdleOpticalSlotIds(path.get(0)));
+			for (WFiber e : path) usable.retainAll(osm.getIdleOpticalSlotIds(e));
+			if (minimumInitialSlotId.isPresent()) usable = new TreeSet<> (usable.tailSet(minimumInitialSlotId.get()));
+			usable.removeAll(forbiddenSlotIds);
+			final SortedSet<Integer> expectedInitialSlots = getRangesInitialSlots(usable , numSlots);
+
+			assertEquals (expectedInitialSlots , osm.spectrumAssignment_getAllPotentialFirstSlots(occupation , numSlots , minimumInitialSlotId , forbiddenSlotIds));
+			final Optional<SortedSet<Integer>> firstFit = osm.spectrumAssignment_firstFit(occupation , numSlots , minimumInitialSlotId , forbiddenSlotIds);
+			assertEquals (!expectedInitialSlots.isEmpty() , firstFit.isPresent());
+			if (!firstFit.isPresent()) continue;
+			assertEquals (numSlots , firstFit.get().size());
+			assertEquals (expectedInitialSlots.first() , firstFit.get().first());
+			assertTrue (usable.containsAll(firstFit.get()));
+
+			net.addLightpathRequest(path.get(0).getA() , path.get(path.size()-1).getB() , 10.0 , false).addLightpathUnregenerated(path , firstFit.get() , false);
+			numAllocated ++;
+			if (rng.nextInt(4) == 0 && !net.getLightpaths().isEmpty())
+				net.getLightpaths().get(rng.nextInt(net.getLightpaths().size())).remove();
+		}
+		assertTrue (numAllocated > 100);
+		assertTrue (OpticalSpectrumManager.createFromRegularLps(net).getOccupiedOpticalSlotIds(fibers.get(0)).first() < 0);
+	}
+
+	private static SortedSet<Integer> getRangesInitialSlots(SortedSet<Integer> slots , int numContiguousSlots)
+	{
+		final SortedSet<Integer> res = new TreeSet<> ();
+		for (int s : slots)
+		{
+			boolean allIn = true;
+			for (int k = 1; k < numContiguousSlots && allIn; k ++) allIn = slots.contains(s + k);
+			if (allIn) res.add(s);
+		}
+		return res;
+	}
+}
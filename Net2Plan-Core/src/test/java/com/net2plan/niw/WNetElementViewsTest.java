@@ -0,0 +1,111 @@
+package com.net2plan.niw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.utils.Pair;
+
+public class WNetElementViewsTest
+{
+	private WNet net;
+	private WNode n1, n2, n3;
+
+	@Before
+	public void setUp()
+	{
+		this.net = WNet.createEmptyDesign(true , true);
+		this.n1 = net.addNode(0 , 0 , "n1" , "type");
+		this.n2 = net.addNode(0 , 0 , "n2" , "type");
+		this.n3 = net.addNode(0 , 0 , "n3" , "type");
+		net.addFiber(n1 , n2 , Arrays.asList(Pair.of(0 , 79)) , 100.0 , true);
+		net.addFiber(n2 , n3 , Arrays.asList(Pair.of(0 , 79)) , 100.0 , true);
+	}
+
+	@Test
+	public void testListsAreReusedWhileUnchanged()
+	{
+		final List<WNode> nodes = net.getNodes();
+		final List<WFiber> fibers = net.getFibers();
+		n1.setName("otherName");
+		fibers.get(0).setLenghtInKm(50.0);
+		assertSame (nodes , net.getNodes());
+		assertSame (fibers , new WNet (net.getNetPlan()).getFibers());
+		assertSame (net.getWdmLayer().get() , net.getWdmLayer().get());
+
+		/* after a change, the lists are recomputed, but the wrappers of the existing elements are kept */
+		final WNode n4 = net.addNode(0 , 0 , "n4" , "type");
+		assertEquals (Arrays.asList(n1 , n2 , n3 , n4) , net.getNodes());
+		for (int cont = 0; cont < nodes.size() ; cont ++) assertSame (nodes.get(cont) , net.getNodes().get(cont));
+		assertEquals (3 , nodes.size());
+		assertEquals (4 , net.getNumberOfNodes());
+	}
+
+	@Test (expected = UnsupportedOperationException.class)
+	public void testListsAreUnmodifiable()
+	{
+		net.getNodes().remove(0);
+	}
+
+	@Test
+	public void testListsFollowChanges()
+	{
+		final WLightpathRequest lpr12 = net.addLightpathRequest(n1 , n2 , 10.0 , false);
+		final WLightpathRequest lpr23 = net.addLightpathRequest(n2 , n3 , 10.0 , false);
+		final WLightpath lp12 = lpr12.addLightpathUnregenerated(Arrays.asList(net.getFibers().get(0)) , new TreeSet<> (Arrays.asList(0 , 1)) , false);
+		final WLightpath lp23 = lpr23.addLightpathUnregenerated(Arrays.asList(net.getFibers().get(2)) , new TreeSet<> (Arrays.asList(0 , 1)) , false);
+		checkSameAsFreshLists();
+		assertEquals (Arrays.asList(lp12 , lp23) , net.getLightpaths());
+
+		final Pair<WIpLink,WIpLink> ipLinks = net.addIpLinkBidirectional(n1 , n2 , 10.0);
+		final WIpUnicastDemand demand = net.addIpUnicastDemand(n1 , n2 , true , true);
+		lpr12.coupleToIpLink(ipLinks.getFirst());
+		checkSameAsFreshLists();
+		assertEquals (Arrays.asList(demand) , net.getIpUnicastDemands());
+
+		lp12.remove();
+		demand.remove();
+		n3.getNe().addTag(WNetConstants.TAGNODE_INDICATIONVIRTUALORIGINNODE);
+		checkSameAsFreshLists();
+		assertEquals (Arrays.asList(n1 , n2) , net.getNodes());
+		assertTrue (net.getIpUnicastDemands().isEmpty());
+		n3.getNe().removeTag(WNetConstants.TAGNODE_INDICATIONVIRTUALORIGINNODE);
+		assertEquals (Arrays.asList(n1 , n2 , n3) , net.getNodes());
+		n3.remove();
+		checkSameAsFreshLists();
+
+		/* a design copied into the same NetPlan object is also seen */
+		final NetPlan copy = net.getNetPlan().copy();
+		copy.addNode(0 , 0 , "new" , null);
+		net.getNetPlan().copyFrom(copy);
+		assertEquals (3 , net.getNumberOfNodes());
+		checkSameAsFreshLists();
+	}
+
+	private void checkSameAsFreshLists()
+	{
+		final NetPlan np = net.getNetPlan();
+		final List<WNode> nodes = new ArrayList<> ();
+		np.getNodes().stream().map(n -> new WNode(n)).filter(n -> !n.isVirtualNode()).forEach(nodes::add);
+		final List<WFiber> fibers = new ArrayList<> ();
+		np.getLinks(net.getWdmLayer().get().getNe()).forEach(e -> fibers.add(new WFiber(e)));
+		final List<WLightpath> lps = new ArrayList<> ();
+		np.getRoutes(net.getWdmLayer().get().getNe()).forEach(e -> lps.add(new WLightpath(e)));
+		final List<WIpLink> ipLinks = new ArrayList<> ();
+		np.getLinks(net.getIpLayer().get().getNe()).stream().map(e -> new WIpLink(e)).filter(e -> !e.isVirtualLink()).forEach(ipLinks::add);
+		assertEquals (nodes , net.getNodes());
+		assertEquals (fibers , net.getFibers());
+		assertEquals (lps , net.getLightpaths());
+		assertEquals (ipLinks , net.getIpLinks());
+		for (WNode n : net.getNodes()) assertTrue (!n.wasRemoved());
+	}
+}
@@ -31,7 +31,7 @@ import com.net2plan.interfaces.networkDesign.Route;
 import com.net2plan.interfaces.networkDesign.SharedRiskGroup;
 import com.net2plan.interfaces.simulation.IEventProcessor;
 import com.net2plan.interfaces.simulation.SimEvent;
-import com.net2plan.libraries.GraphUtils;
+import com.net2plan.libraries.KShortestPathCache;
 import com.net2plan.libraries.SRGUtils;
 import com.net2plan.libraries.WDMUtils;
 import com.net2plan.libraries.WDMUtils.TransponderTypesInfo;
@@ -90,9 +90,10 @@ public class Online_evProc_wdm extends IEventProcessor
 
 	private NetworkLayer wdmLayer;
 	//private Map<Route,Pair<WDMUtils.RSA,WDMUtils.RSA>> wdmRouteOriginalRwa;
-	private Map<Pair<Node,Node>,List<List<Link>>> cplWdm;
+	private KShortestPathCache cplWdm;
+	private KShortestPathCache.PathConstraints cplWdmConstraints;
 	private Map<Pair<Node,Node>,List<Pair<List<Link>,List<Link>>>> cplWdm11;
-	private DoubleMatrix2D wavelengthFiberOccupancy;
+	private WDMUtils.SlotOccupancy wavelengthFiberOccupancy;
 	private TransponderTypesInfo tpInfo;
 	private Map<Route,Integer> transponderTypeOfNewLps;
 
@@ -152,11 +153,12 @@ public class Online_evProc_wdm extends IEventProcessor
 		this.transponderTypeOfNewLps = new HashMap<Route,Integer> ();
 
 		/* Create empty candidate path lists: they will be filled on demand */
-		this.cplWdm = new HashMap<> ();
+		this.cplWdm = new KShortestPathCache ();
+		this.cplWdmConstraints = new KShortestPathCache.PathConstraints (KShortestPathCache.LinkCostType.LENGTH_IN_KM , false , wdmK.getInt() , tpInfo.getMaxOpticalReachKm() , wdmMaxLightpathNumHops.getInt() , -1 , -1 , -1 , -1);
 		this.protectionTypeCode = wdmDefaultAndNewRouteRevoveryType.getString ().equals("1+1-srg-disjoint") ? 0 : wdmDefaultAndNewRouteRevoveryType.getString ().equals("1+1-node-disjoint")? 1 : 2;
 		this.cplWdm11 = isProtectionRecovery? new HashMap<> () : null; 
 		
-		this.wavelengthFiberOccupancy = WDMUtils.getNetworkSlotAndRegeneratorOcupancy(initialNetPlan, true , wdmLayer).getFirst();
+		this.wavelengthFiberOccupancy = WDMUtils.getNetworkSlotOccupancy(initialNetPlan, true , wdmLayer);
 		if (DEBUG) { checkWaveOccupEqualsNp(initialNetPlan); checkClashing (initialNetPlan); } 
 		initialNetPlan.setLinkCapacityUnitsName("Frequency slots" , wdmLayer);
 
@@ -217,14 +219,14 @@ public class Online_evProc_wdm extends IEventProcessor
 						final Demand wdmLayerDemand = addLpEvent.demand == null? currentNetPlan.addDemand(addLpEvent.ingressNode, addLpEvent.egressNode, lineRateThisLp_Gbps , RoutingType.SOURCE_ROUTING , null, wdmLayer) : addLpEvent.demand;
 						wdmLayerDemand.setIntendedRecoveryType(Demand.IntendedRecoveryType.PROTECTION_REVERT);
 						final Route wdmLayerRoute = WDMUtils.addLightpath(wdmLayerDemand, rwa.getFirst(), lineRateThisLp_Gbps);
-						WDMUtils.allocateResources(rwa.getFirst() , wavelengthFiberOccupancy , null);
+						wavelengthFiberOccupancy.allocateResources(rwa.getFirst());
 
 						if (DEBUG) { checkWaveOccupEqualsNp(currentNetPlan); checkClashing (currentNetPlan); } 
 
 						if (rwa.getFirst().seqLinks.equals(rwa.getSecond().seqLinks)) throw new RuntimeException ("Both 1+1 same route");
 						final Route wdmLayerBackupRoute = WDMUtils.addLightpath(wdmLayerDemand, rwa.getSecond(), 0); // it is a backup, has no traffic carried then
 						wdmLayerRoute.addBackupRoute(wdmLayerBackupRoute);
-						WDMUtils.allocateResources(rwa.getSecond() , wavelengthFiberOccupancy , null);
+						wavelengthFiberOccupancy.allocateResources(rwa.getSecond());
 						if (DEBUG) { checkWaveOccupEqualsNp(currentNetPlan); checkClashing (currentNetPlan); } 
 						checkDisjointness(wdmLayerRoute.getSeqLinks() , rwa.getSecond().seqLinks , protectionTypeCode);
 						this.transponderTypeOfNewLps.put(wdmLayerRoute , transponderTypeUsed);
@@ -261,7 +263,7 @@ public class Online_evProc_wdm extends IEventProcessor
 						final Demand wdmLayerDemand = addLpEvent.demand == null? currentNetPlan.addDemand(addLpEvent.ingressNode, addLpEvent.egressNode, lineRateThisLp_Gbps , RoutingType.SOURCE_ROUTING , null, wdmLayer) : addLpEvent.demand;
 						wdmLayerDemand.setIntendedRecoveryType(isRestorationRecovery? Demand.IntendedRecoveryType.RESTORATION : Demand.IntendedRecoveryType.NONE);
 						final Route wdmLayerRoute = WDMUtils.addLightpath(wdmLayerDemand, rwa , lineRateThisLp_Gbps);
-						WDMUtils.allocateResources(rwa , wavelengthFiberOccupancy , null);
+						wavelengthFiberOccupancy.allocateResources(rwa);
 						this.transponderTypeOfNewLps.put(wdmLayerRoute , transponderTypeUsed);
 						this.stat_numCarriedConnections ++;
 						this.stat_trafficCarriedConnections += lineRateThisLp_Gbps;
@@ -274,10 +276,10 @@ public class Online_evProc_wdm extends IEventProcessor
 			{
 				WDMUtils.LightpathRemove lpEvent = (WDMUtils.LightpathRemove) event.getEventObject ();
 				final Route lpToRemove = lpEvent.lp;
-				WDMUtils.releaseResources(new WDMUtils.RSA(lpToRemove , false) , wavelengthFiberOccupancy, null);
+				wavelengthFiberOccupancy.releaseResources(new WDMUtils.RSA(lpToRemove , false));
 				for (Route backupLp : new ArrayList<> (lpToRemove.getBackupRoutes()))
 				{
-					WDMUtils.releaseResources(new WDMUtils.RSA(backupLp , false), wavelengthFiberOccupancy, null);
+					wavelengthFiberOccupancy.releaseResources(new WDMUtils.RSA(backupLp , false));
 					backupLp.remove();
 					this.transponderTypeOfNewLps.remove(backupLp);
 				}
@@ -343,8 +345,8 @@ public class Online_evProc_wdm extends IEventProcessor
 						WDMUtils.RSA rwa = computeValidPathNewRoute (cplNodePair , currentNetPlan , numSlots , maxOpticalReachKm , isSignalRegenerationPossible);
 						if (rwa != null)
 						{ 
-							WDMUtils.releaseResources(new WDMUtils.RSA (r , false) , wavelengthFiberOccupancy, null);
-							WDMUtils.allocateResources(rwa , wavelengthFiberOccupancy , null);
+							wavelengthFiberOccupancy.releaseResources(new WDMUtils.RSA (r , false));
+							wavelengthFiberOccupancy.allocateResources(rwa);
 							r.setSeqLinks(rwa.seqLinks);
 							WDMUtils.setLightpathRSAAttributes(r , rwa , false);
 							
@@ -370,7 +372,7 @@ public class Online_evProc_wdm extends IEventProcessor
 				Demand d = ev.demand;
 				for (Route lpToRemove : new ArrayList<> (d.getRoutes()))
 				{
-					WDMUtils.releaseResources(new WDMUtils.RSA(lpToRemove , false), wavelengthFiberOccupancy, null);
+					wavelengthFiberOccupancy.releaseResources(new WDMUtils.RSA(lpToRemove , false));
 					lpToRemove.remove();
 					transponderTypeOfNewLps.remove(lpToRemove);
 				}
@@ -392,8 +394,8 @@ public class Online_evProc_wdm extends IEventProcessor
 					if ((modifyLpEvent.rsa.getLengthInKm() > tpInfo.getOpticalReachKm(tpType)) && (!tpInfo.isOpticalRegenerationPossible(tpType))) throw new Net2PlanException ("Cannot modify the lightpath RSA in sucha way that the lightpath length exceeds the transponder maximum reach");
 					
 					lpRoute.setCarriedTraffic(modifyLpEvent.carriedTraffic, modifyLpEvent.rsa.getNumSlots());
-					WDMUtils.releaseResources( oldRSA, wavelengthFiberOccupancy , null);
-					WDMUtils.allocateResources(modifyLpEvent.rsa , wavelengthFiberOccupancy , null);
+					wavelengthFiberOccupancy.releaseResources(oldRSA);
+					wavelengthFiberOccupancy.allocateResources(modifyLpEvent.rsa);
 					lpRoute.setSeqLinks(modifyLpEvent.rsa.seqLinks);
 					WDMUtils.setLightpathRSAAttributes(lpRoute , modifyLpEvent.rsa , false);
 				}
@@ -650,9 +652,9 @@ public class Online_evProc_wdm extends IEventProcessor
 	private void checkWaveOccupEqualsNp (NetPlan currentNetPlan)
 	{
 		DoubleMatrix2D freqNow_se = WDMUtils.getNetworkSlotAndRegeneratorOcupancy(currentNetPlan, true , wdmLayer).getFirst();
-		if (!freqNow_se.equals(wavelengthFiberOccupancy))
+		if (!freqNow_se.equals(wavelengthFiberOccupancy.getFrequencySlot2FiberOccupancy()))
 		{
-			System.out.println(freqNow_se.assign(wavelengthFiberOccupancy , DoubleFunctions.minusMult(1.0)));
+			System.out.println(freqNow_se.assign(wavelengthFiberOccupancy.getFrequencySlot2FiberOccupancy() , DoubleFunctions.minusMult(1.0)));
 			throw new RuntimeException ();
 		} 
 
@@ -660,13 +662,8 @@ public class Online_evProc_wdm extends IEventProcessor
 	
 	private List<List<Link>> getAndUpdateCplWdm (Pair<Node,Node> pair , NetPlan np)
 	{
-		List<List<Link>> res = cplWdm.get(pair);
-		if (res != null) return res;
-		final Map<Link,Double> linkCostMap = new HashMap<> (); for (Link e : np.getLinks(wdmLayer)) linkCostMap.put(e, e.getLengthInKm());
-        res = GraphUtils.getKLooplessShortestPaths(np.getNodes(), np.getLinks(wdmLayer), pair.getFirst(), 
-        		pair.getSecond(), linkCostMap, wdmK.getInt(), tpInfo.getMaxOpticalReachKm(), wdmMaxLightpathNumHops.getInt(), -1, -1, -1, -1);
+		final List<List<Link>> res = cplWdm.getKLooplessShortestPaths(pair.getFirst() , pair.getSecond() , cplWdmConstraints , wdmLayer);
         if (res.isEmpty()) throw new Net2PlanException ("There is no path between nodes: " + pair.getFirst() + " -> " + pair.getSecond());
-        cplWdm.put(pair ,  res);
         return res;
 	}
 	private List<Pair<List<Link>,List<Link>>> getAndUpdateCplWdm11 (Pair<Node,Node> pair , NetPlan np)
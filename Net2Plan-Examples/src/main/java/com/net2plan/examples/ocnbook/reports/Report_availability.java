@@ -17,7 +17,6 @@ package com.net2plan.examples.ocnbook.reports;
 import java.io.Closeable;
 import java.io.File;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -25,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -41,6 +41,7 @@ import com.net2plan.interfaces.networkDesign.NetworkLayer;
 import com.net2plan.interfaces.networkDesign.SharedRiskGroup;
 import com.net2plan.interfaces.simulation.IEventProcessor;
 import com.net2plan.interfaces.simulation.SimEvent;
+import com.net2plan.libraries.FailureStateAnalysisEngine;
 import com.net2plan.libraries.SRGUtils;
 import com.net2plan.utils.ClassLoaderUtils;
 import com.net2plan.utils.InputParameter;
@@ -48,8 +49,6 @@ import com.net2plan.utils.Pair;
 import com.net2plan.utils.StringUtils;
 import com.net2plan.utils.Triple;
 
-import cern.colt.list.tdouble.DoubleArrayList;
-import cern.colt.list.tint.IntArrayList;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 
@@ -71,6 +70,7 @@ public class Report_availability implements IReport
 	private InputParameter defaultMTTRInHours = new InputParameter ("defaultMTTRInHours" , (double) 12 , "Default value for Mean Time To Repair (hours)" , 0 , false , Double.MAX_VALUE , true);
 	private InputParameter failureModel = new InputParameter ("failureModel" , "#select# perBidirectionalLinkBundle SRGfromNetPlan perNode perLink perDirectionalLinkBundle" , "Failure model selection: SRGfromNetPlan, perNode, perLink, perDirectionalLinkBundle, perBidirectionalLinkBundle");
 	private InputParameter capacityAnalysys_updateLinkCapacitiesInDesign = new InputParameter ("capacityAnalysys_updateLinkCapacitiesInDesign" , false , "If true, the link capacities are updated with the worst case occupied capacity in the links, removing any previous capacities");
+	private InputParameter numThreads = new InputParameter ("numThreads" , (int) 1 , "Number of threads used to evaluate the failure states in parallel (each one runs its own instance of the algorithm)" , 1 , Integer.MAX_VALUE);
 	
 	private Map<Long , PerDemandInfo> info_d = new HashMap<> ();
 	private Map<Long , PerDemandInfo> info_md = new HashMap<> ();
@@ -78,8 +78,8 @@ public class Report_availability implements IReport
 	
 	private double pi_excess;
 
-	private IEventProcessor algorithm_evProc;
-	private IAlgorithm algorithm_alg;
+	private ThreadLocal<IEventProcessor> algorithm_evProc;
+	private ThreadLocal<IAlgorithm> algorithm_alg;
 	private final static DecimalFormat dfAv = new DecimalFormat("#.#######");
 	private final static DecimalFormat df_6 = new DecimalFormat("#.######");
 	
@@ -156,19 +156,17 @@ public class Report_availability implements IReport
 		this.algorithm_alg = null;
 		this.algorithm_evProc = null;
 		if (evProcDefined)
-			this.algorithm_evProc = ClassLoaderUtils.getInstance(new File(algorithmFile_evProc), algorithmName_evProc, IEventProcessor.class , null);
+			this.algorithm_evProc = ThreadLocal.withInitial(() -> ClassLoaderUtils.getInstance(new File(algorithmFile_evProc), algorithmName_evProc, IEventProcessor.class , null));
 		else
-			this.algorithm_alg = ClassLoaderUtils.getInstance(new File(algorithmFile_alg), algorithmName_alg, IAlgorithm.class , null);
+			this.algorithm_alg = ThreadLocal.withInitial(() -> ClassLoaderUtils.getInstance(new File(algorithmFile_alg), algorithmName_alg, IAlgorithm.class , null));
 
-		for (int failureState = 0 ; failureState < F_s.rows () ; failureState ++) // first failure state (no failure) was already considered
+		/* The failure states are evaluated in parallel, and the statistics updated in the order of the failure states (the first one is the no failure state) */
+		final List<SortedSet<SharedRiskGroup>> failureStates = SRGUtils.enumerateFailureStates(srgs, true, analyzeDoubleFailures.getBoolean());
+		final FailureStateAnalysisEngine.FailureStateEvaluator<NetPlan> evaluator = (auxNetPlan , srgsAuxNetPlan) -> runProvisioningAlgorithm(auxNetPlan , algorithmParameters , reportParameters , net2planParameters);
+		final FailureStateAnalysisEngine.FailureStateAggregator<NetPlan> aggregator = (failureState , srgsThisFs , auxNetPlan) -> 
 		{
-			final IntArrayList srgs_thisState = new IntArrayList (); 
-			F_s.viewRow (failureState).getNonZeros (srgs_thisState , new DoubleArrayList ());
-			final Set<SharedRiskGroup> srgsThisFs_thisNp = ((ArrayList<Integer>) srgs_thisState.toList()).stream().map(i->netPlan.getSRG(i)).collect(Collectors.toSet ());
+			final Set<SharedRiskGroup> srgsThisFs_thisNp = new HashSet<> (srgsThisFs);
 			final double pi_s_thisState = failureState == 0? pi_s0 : pi_s.get (failureState);
-
-			final NetPlan auxNetPlan = testFailureStateAndRunProvisioningAlgorithmAndReturnNpCopy(netPlan , srgsThisFs_thisNp  , algorithmParameters , reportParameters , net2planParameters);
-			
 			for(int indexLayer = 0 ; indexLayer < auxNetPlan.getNumberOfLayers() ; indexLayer ++)
 			{
 				final NetworkLayer layer = auxNetPlan.getNetworkLayer (indexLayer);
@@ -180,7 +178,8 @@ public class Report_availability implements IReport
 		    	for (Link d : auxNetPlan.getLinks(layer))
 		    		info_e.get(d.getId()).update(d, srgsThisFs_thisNp);
 			}
-		}
+		};
+		FailureStateAnalysisEngine.evaluateFailureStates(netPlan, failureStates, evaluator, aggregator, true, numThreads.getInt());
 
 		final String report = printReport(netPlan , reportParameters);
 
@@ -462,18 +461,12 @@ public class Report_availability implements IReport
 		public Set<Set<SharedRiskGroup>> getFailureStates_wcOccupiedCapacity () { return failureStates_wcOccupiedCapacity; }
 	}
 
-	private NetPlan testFailureStateAndRunProvisioningAlgorithmAndReturnNpCopy (NetPlan thisNetPlan , Set<SharedRiskGroup> srgsThisFs_thisNp , Map<String,String> algorithmParameters , Map<String,String> reportParameters , Map<String,String> net2planParameters)
+	private NetPlan runProvisioningAlgorithm (NetPlan auxNetPlan , Map<String,String> algorithmParameters , Map<String,String> reportParameters , Map<String,String> net2planParameters)
 	{
-		final NetPlan auxNetPlan = thisNetPlan.getNetPlan().copy();
-		for (SharedRiskGroup srgThisNp : srgsThisFs_thisNp)
-		{
-			final SharedRiskGroup srgCopy = auxNetPlan.getSRGFromId(srgThisNp.getId());
-			srgCopy.setAsDown();
-		}
-
 		if (this.algorithm_evProc != null)
 		{
-			this.algorithm_evProc.initialize(auxNetPlan , algorithmParameters , reportParameters , net2planParameters);
+			final IEventProcessor algorithm_evProc = this.algorithm_evProc.get();
+			algorithm_evProc.initialize(auxNetPlan , algorithmParameters , reportParameters , net2planParameters);
 
 			try
 			{
@@ -495,10 +488,11 @@ public class Report_availability implements IReport
 		}
 		else if (this.algorithm_alg != null)
 		{
+			final IAlgorithm algorithm_alg = this.algorithm_alg.get();
 
 			try
 			{
-				this.algorithm_alg.executeAlgorithm(auxNetPlan , algorithmParameters , net2planParameters);
+				algorithm_alg.executeAlgorithm(auxNetPlan , algorithmParameters , net2planParameters);
 			}
 			catch (Throwable e)
 			{
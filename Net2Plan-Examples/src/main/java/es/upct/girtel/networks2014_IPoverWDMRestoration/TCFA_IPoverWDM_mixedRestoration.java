@@ -167,24 +167,25 @@ public class TCFA_IPoverWDM_mixedRestoration implements IAlgorithm {
 				
 				/* Compute the worse carried traffic per lightpath in any failure state */
                 for (SharedRiskGroup srg : netPlan.getSRGs()) {
-                    NetPlan netPlan_thisFailure = netPlan.copy();
-                    final NetworkLayer ipLayer_thisFailure = netPlan_thisFailure.getNetworkLayer(ipLayer.getIndex());
-                    final SharedRiskGroup thisNp_srg = netPlan_thisFailure.getSRG(srg.getIndex());
-                    thisNp_srg.setAsDown();
-					
-					/* Update IGP weights according to this failure state */
-                    DoubleMatrix1D lpWeights_thisSRG = lpWeights.copy();
-                    for (Link e : netPlan_thisFailure.getLinksDown(ipLayer_thisFailure))
-                        lpWeights_thisSRG.set(e.getIndex(), Double.MAX_VALUE);
-                    for (Link e : netPlan_thisFailure.getLinksWithZeroCapacity(ipLayer_thisFailure))
-                        lpWeights_thisSRG.set(e.getIndex(), Double.MAX_VALUE);
-						
-					/* Compute the new routing and carried traffic per lightpath */
-                    final Quadruple<DoubleMatrix2D, DoubleMatrix2D, DoubleMatrix1D, DoubleMatrix1D> failInfo = IPUtils.computeCarriedTrafficFromIGPWeights(netPlan_thisFailure, lpWeights_thisSRG, ipLayer_thisFailure);
-                    final DoubleMatrix1D y_e_withoutFailingLinksVector = failInfo.getFourth();
+                    /* The failure state is evaluated in the design itself, and rolled back afterwards */
+                    final Pair<DoubleMatrix1D, DoubleMatrix1D> weightsAndCarriedTraffic = netPlan.evaluateFailureState(srg.getLinksAllLayers(), srg.getNodes(), netPlan_thisFailure ->
+                    {
+					    /* Update IGP weights according to this failure state */
+                        DoubleMatrix1D lpWeights_thisSRG = lpWeights.copy();
+                        for (Link e : netPlan_thisFailure.getLinksDown(ipLayer))
+                            lpWeights_thisSRG.set(e.getIndex(), Double.MAX_VALUE);
+                        for (Link e : netPlan_thisFailure.getLinksWithZeroCapacity(ipLayer))
+                            lpWeights_thisSRG.set(e.getIndex(), Double.MAX_VALUE);
+
+					    /* Compute the new routing and carried traffic per lightpath */
+                        final Quadruple<DoubleMatrix2D, DoubleMatrix2D, DoubleMatrix1D, DoubleMatrix1D> failInfo = IPUtils.computeCarriedTrafficFromIGPWeights(netPlan_thisFailure, lpWeights_thisSRG, ipLayer);
+                        return Pair.of(lpWeights_thisSRG, failInfo.getFourth());
+                    });
+                    final DoubleMatrix1D lpWeights_thisSRG = weightsAndCarriedTraffic.getFirst();
+                    final DoubleMatrix1D y_e_withoutFailingLinksVector = weightsAndCarriedTraffic.getSecond();
 
 					/* Update the worse traffic per lightpath in this routing */
-                    for (Link ipLink : netPlan_thisFailure.getLinks()) {
+                    for (Link ipLink : netPlan.getLinks()) {
                         double y_e_thisLink = y_e_withoutFailingLinksVector.get(ipLink.getIndex());
                         if (y_e_thisLink > 0 && lpWeights_thisSRG.get(ipLink.getIndex()) == Double.MAX_VALUE)
                             throw new Net2PlanException("Bad");
@@ -504,6 +504,46 @@ public class GUINetworkDesign extends IGUIModule
             getWhatIfAnalysisPane().whatIfSomethingModified();
     }
 
+    /**
+     * Sets as current design the one computed by the what-if analysis from a copy of the current design. The layers visualization
+     * order and visibility, and the picked elements, are kept, matching them by their ids.
+     *
+     * @param netPlan the design resulting from the what-if analysis
+     */
+    public void setDesignAfterWhatIfAnalysis(NetPlan netPlan)
+    {
+        if (inOnlineSimulationMode()) return;
+        final Map<NetworkLayer, Integer> layerOrder = new HashMap<>();
+        final Map<NetworkLayer, Boolean> layerVisibility = new HashMap<>();
+        for (Map.Entry<NetworkLayer, Integer> entry : vs.getCanvasLayerOrderIndexMap(true).entrySet())
+        {
+            final NetworkLayer layer = netPlan.getNetworkLayerFromId(entry.getKey().getId());
+            if (layer == null) continue;
+            layerOrder.put(layer, entry.getValue());
+            layerVisibility.put(layer, vs.isLayerVisibleInCanvas(entry.getKey()));
+        }
+        final boolean sameLayers = layerOrder.size() == netPlan.getNumberOfLayers() && layerOrder.size() == currentNetPlan.getNumberOfLayers();
+        final PickStateInfo pick = pickManager.getCurrentPick(currentNetPlan).orElse(null);
+        if (ErrorHandling.isDebugEnabled()) netPlan.checkCachesConsistency();
+
+        /* The elements are moved into the current design object, so the references to it are kept. The references to the previous
+         * elements (e.g. in the table filters) are not valid any more */
+        currentNetPlan.assignFrom(netPlan);
+        this.niwInformationCurrentDesign = Optional.empty();
+        vs.updateTableRowFilter(null, null);
+        if (sameLayers)
+            vs.setCanvasLayerVisibilityAndOrder(currentNetPlan, layerOrder, layerVisibility);
+        else
+            vs.setCanvasLayerVisibilityAndOrder(currentNetPlan, null, null);
+        updateVisualizationAfterChanges();
+        if (pick != null)
+        {
+            pickManager.pickElements(pick);
+            updateVisualizationAfterPick();
+        }
+        addNetPlanChange();
+    }
+
 
     public VisualizationState getVisualizationState()
     {
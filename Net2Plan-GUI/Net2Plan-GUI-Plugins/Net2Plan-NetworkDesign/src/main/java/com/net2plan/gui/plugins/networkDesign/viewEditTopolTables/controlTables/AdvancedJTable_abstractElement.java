@@ -24,7 +24,6 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.swing.ActionMap;
-import javax.swing.DefaultRowSorter;
 import javax.swing.InputMap;
 import javax.swing.JComponent;
 import javax.swing.JMenu;
@@ -34,26 +33,22 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
 import javax.swing.SwingUtilities;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import javax.swing.table.TableColumn;
 import javax.swing.table.TableColumnModel;
 import javax.swing.table.TableModel;
 
-import org.apache.commons.collections15.BidiMap;
-import org.apache.commons.collections15.bidimap.DualHashBidiMap;
-
 import com.net2plan.gui.plugins.GUINetworkDesign;
 import com.net2plan.gui.plugins.GUINetworkDesignConstants.AJTableType;
 import com.net2plan.gui.plugins.networkDesign.io.excel.ExcelWriter;
 import com.net2plan.gui.plugins.networkDesign.utils.CellRenderers;
 import com.net2plan.gui.utils.AdvancedJTable;
-import com.net2plan.gui.utils.ClassAwareTableModel;
 import com.net2plan.gui.utils.ColumnHeaderToolTips;
 import com.net2plan.gui.utils.FixedColumnDecorator;
 import com.net2plan.gui.utils.LastRowAggregatedValue;
-import com.net2plan.gui.utils.TableColumnComparator;
 import com.net2plan.interfaces.networkDesign.Net2PlanException;
 import com.net2plan.interfaces.networkDesign.NetPlan;
 import com.net2plan.interfaces.networkDesign.NetworkElement;
@@ -96,7 +91,7 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
     private final boolean hasAggregationRow;
     private final String tableTitle;
     private final int fixedColumns;
-    private BidiMap<T,Integer> mapElementId2ModelIndexWithThatValue = new DualHashBidiMap<> ();
+    private AjtTableModel<T> tableModel;
     private TableViewController tableController;
 
     
@@ -130,7 +125,7 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
      **/
     public T getElementAtModelRowIndex(int rowModelIndex)
     {
-    	return this.mapElementId2ModelIndexWithThatValue.inverseBidiMap().get(rowModelIndex);
+    	return tableModel == null? null : tableModel.getElementAtRow(rowModelIndex);
     }
 
     /**
@@ -138,8 +133,7 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
      **/
     public Optional<Integer> getRowModelIndexOfElement(Object element)
     {
-    	final Integer res = this.mapElementId2ModelIndexWithThatValue.get(element);
-    	return res == null? Optional.empty() : Optional.of(res);
+    	return tableModel == null? Optional.empty() : tableModel.getRowOfElement(element);
     }
 
     abstract void reactToMouseSingleClickInTable (int rowModelIndexOfClickOrMinus1IfOut , int columnModelIndexOfClickOrMinus1IfOut);
@@ -220,13 +214,29 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
                     return Integer.compare(c1.getColumnIndexOriginallyUserDefined(), c2.getColumnIndexOriginallyUserDefined());
         		}).  
         		collect(Collectors.toCollection(ArrayList::new));
-        final Object[][] dataVector = computeDataVector (visibleTableColumnsInTableModelOrder, false);
-        this.setModel(createTableModel(visibleTableColumnsInTableModelOrder));//this.getModel();
-        final String[] tableHeaders = this.getTableHeaders(visibleTableColumnsInTableModelOrder);
-        if (dataVector.length == 0)
-            this.getModel().setDataVector(new Object[1][tableHeaders.length], tableHeaders);
-        else
-            this.getModel().setDataVector(dataVector, tableHeaders);
+        /* The sorting is kept for the columns still visible. The previous model and sorter stop any background computation */
+        final List<Pair<String,SortOrder>> previousSortOrders = new ArrayList<> ();
+        final List<T> previousElementsInViewOrder = new ArrayList<> ();
+        if (this.getRowSorter() != null)
+        {
+        	for (RowSorter.SortKey key : this.getRowSorter().getSortKeys())
+        		previousSortOrders.add(Pair.of(this.getModel().getColumnName(key.getColumn()), key.getSortOrder()));
+        	/* the new sorter shows the previous order until it is sorted again */
+        	if (!previousSortOrders.isEmpty())
+        		for (int rowView = 0; rowView < this.getRowSorter().getViewRowCount() ; rowView ++)
+        		{
+        			final T element = this.getElementAtModelRowIndex(this.getRowSorter().convertRowIndexToModel(rowView));
+        			if (element != null) previousElementsInViewOrder.add(element);
+        		}
+        }
+        if (this.getRowSorter() instanceof AjtRowSorter) ((AjtRowSorter) this.getRowSorter()).dispose();
+        if (this.tableModel != null) this.tableModel.dispose();
+        this.setRowSorter(null);
+        if (this.decorator != null) this.decorator.getFixedTable().setRowSorter(null);
+
+        /* Cell values are computed when first needed, not here */
+        this.tableModel = createTableModel(visibleTableColumnsInTableModelOrder , getAllAbstractElementsInTable());
+        this.setModel(tableModel);
 
         /* Create initial column model: all in one table. 
          * The fixed/scroll decorator will change this column model */
@@ -276,10 +286,8 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
         this.setRowSelectionAllowed(true);
         this.getTableHeader().setReorderingAllowed(true);
         this.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
-        this.setColumnRowSorting();
-        this.getRowSorter().setSortKeys(this.getRowSorter().getSortKeys());
+        this.setColumnRowSorting(previousSortOrders , previousElementsInViewOrder);
         this.setTips(visibleTableColumnsInTableModelOrder);
-        this.getModel().fireTableDataChanged();
 
         this.getTableScrollPane().getViewport().setViewPosition(currentScrollPosition);
 
@@ -300,7 +308,7 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
             for (int rowViewIndex : validRows)
             {
                 final int viewRowIndex = this.convertRowIndexToModel(rowViewIndex);
-                final T element = this.mapElementId2ModelIndexWithThatValue.inverseBidiMap().get(viewRowIndex);
+                final T element = this.getElementAtModelRowIndex(viewRowIndex);
                 if (element != null) elements.add(element);
             }
         }
@@ -318,12 +326,6 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
 //    
 //    public final AJTableType getAjType () { return ajtType; }
 //    
-    @Override
-    public DefaultTableModel getModel()
-    {
-        return ((DefaultTableModel) super.getModel());
-    }
-
     private void setCellRenders(List<AjtColumnInfo<T>> tableColumns)
     {
         Function<Object,Color> allRowMandatorySpetialBgColorIfNotSelected = null;
@@ -349,15 +351,17 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
         
     }
 
-    private void setColumnRowSorting()
+    private void setColumnRowSorting(List<Pair<String,SortOrder>> previousSortOrders , List<T> previousElementsInViewOrder)
     {
-        this.setAutoCreateRowSorter(true);
-
-        final DefaultRowSorter rowSorter = ((DefaultRowSorter) this.getRowSorter());
-        for (int col = 0; col < this.getModel().getColumnCount(); col++)
-            rowSorter.setComparator(col, new TableColumnComparator(rowSorter));
+        final AjtRowSorter rowSorter = new AjtRowSorter(tableModel , previousElementsInViewOrder);
+        this.setRowSorter(rowSorter);
         if (this.decorator.getFixedTable() != null)
-            this.decorator.getFixedTable().setRowSorter(this.getRowSorter());
+            this.decorator.getFixedTable().setRowSorter(rowSorter);
+        final List<RowSorter.SortKey> sortKeys = new ArrayList<> ();
+        for (Pair<String,SortOrder> previousSortOrder : previousSortOrders)
+        	for (int col = 0; col < tableModel.getColumnCount(); col++)
+        		if (tableModel.getColumnName(col).equals(previousSortOrder.getFirst())) sortKeys.add(new RowSorter.SortKey(col, previousSortOrder.getSecond()));
+        rowSorter.setSortKeys(sortKeys);
     }
 
     private TableColumnModel getFixedLeftTableColumnModel ()
@@ -397,7 +401,7 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
         final String layerName = layer.getName().equals("")? "Layer " + layer.getIndex() : layer.getName();
         final List<AjtColumnInfo<T>> allColumns = getColumnsInfo(false);
         final int columnCount = allColumns.size();
-        final Object[][] dataVector = computeDataVector(allColumns, true);
+        final Object[][] dataVector = computeDataVector(allColumns);
         for (int i = 0; i < dataVector.length; i++) 
         	for (int j = 0; j < dataVector[i].length; j++) 
         		if (dataVector[i][j] instanceof Pair)
@@ -519,10 +523,10 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
         }
     }
 
-    private final DefaultTableModel createTableModel(List<AjtColumnInfo<T>> tableColumns)
+    private final AjtTableModel<T> createTableModel(List<AjtColumnInfo<T>> tableColumns , List<T> tableElements)
     {
         final int C = tableColumns.size();
-        final DefaultTableModel tableModel = new ClassAwareTableModel(new Object[1][C], getTableHeaders(tableColumns))
+        final AjtTableModel<T> tableModel = new AjtTableModel<T>(tableColumns , tableElements , hasAggregationRow)
         {
             @Override
             public boolean isCellEditable(int rowIndex, int columnIndex)
@@ -682,70 +686,42 @@ public abstract class AdvancedJTable_abstractElement<T> extends AdvancedJTable
         return menu;
     }
     
-    private Object[][] computeDataVector (List<AjtColumnInfo<T>> visibleTableColumns, boolean allCollumns)
+    /* Computes all the values of the given columns, e.g. for exporting them. The table view does not use this, cells are computed when needed */
+    private Object[][] computeDataVector (List<AjtColumnInfo<T>> tableColumns)
     {
-    	this.mapElementId2ModelIndexWithThatValue.clear();
-    	
-        final int numColVisible = visibleTableColumns.size();
+        final int numCol = tableColumns.size();
         final List<T> tableElements = getAllAbstractElementsInTable();
         
         /* Create data vector*/
         final int numRowsDataVector = tableElements.size() + (hasAggregationRow? 1 : 0);
-        final Object[][] dataVector = new Object[numRowsDataVector][numColVisible];
+        final Object[][] dataVector = new Object[numRowsDataVector][numCol];
         int rowCount = 0;
-        final Number [] accumIfLastRow = new Number [numColVisible];
-        for (AjtColumnInfo<T> col : visibleTableColumns)
+        final Number [] accumIfLastRow = new Number [numCol];
+        for (AjtColumnInfo<T> col : tableColumns)
             if (col.getLastRowAggregationRowType().isToAggregate())
-            {
-            	if (allCollumns)
-            		accumIfLastRow [col.getColumnIndexOriginallyUserDefined()] = 0.0;
-            	else
-            		accumIfLastRow [col.getColumnIndexInTableModelWhenVissible()] = 0.0;
-            }
+            	accumIfLastRow [col.getColumnIndexOriginallyUserDefined()] = 0.0;
         for (T visibleElement : tableElements)
         {
-            for (AjtColumnInfo<T> col : visibleTableColumns)
+            for (AjtColumnInfo<T> col : tableColumns)
             {
                 final Object val = col.getComputeNewValueAtFunction().apply(visibleElement);
-                if (allCollumns)
-                {
-                	dataVector [rowCount][col.getColumnIndexOriginallyUserDefined()] = val;
-                	if (this.hasAggregationRow && col.getLastRowAggregationRowType().isToAggregate())
-                		accumIfLastRow [col.getColumnIndexOriginallyUserDefined()] = col.getLastRowAggregationRowType().agg(val , accumIfLastRow [col.getColumnIndexOriginallyUserDefined()]).doubleValue();
-            	}
-                else
-                {
-	                dataVector [rowCount][col.getColumnIndexInTableModelWhenVissible()] = val;
-	                if (this.hasAggregationRow && col.getLastRowAggregationRowType().isToAggregate())
-	                    accumIfLastRow [col.getColumnIndexInTableModelWhenVissible()] = col.getLastRowAggregationRowType().agg(val , accumIfLastRow [col.getColumnIndexInTableModelWhenVissible()]).doubleValue();
-                }
+            	dataVector [rowCount][col.getColumnIndexOriginallyUserDefined()] = val;
+            	if (this.hasAggregationRow && col.getLastRowAggregationRowType().isToAggregate())
+            		accumIfLastRow [col.getColumnIndexOriginallyUserDefined()] = col.getLastRowAggregationRowType().agg(val , accumIfLastRow [col.getColumnIndexOriginallyUserDefined()]).doubleValue();
             }
-            assert !this.mapElementId2ModelIndexWithThatValue.containsKey(visibleElement);
-            assert !this.mapElementId2ModelIndexWithThatValue.containsValue(rowCount);
-            this.mapElementId2ModelIndexWithThatValue.put(visibleElement, rowCount);
             rowCount ++;
         }
         if (hasAggregationRow)
         {
-            final LastRowAggregatedValue[] aggregatedData = new LastRowAggregatedValue[numColVisible];
+            final LastRowAggregatedValue[] aggregatedData = new LastRowAggregatedValue[numCol];
             Arrays.fill(aggregatedData, new LastRowAggregatedValue());
-            for (AjtColumnInfo<T> col : visibleTableColumns)
+            for (AjtColumnInfo<T> col : tableColumns)
                 if (col.getLastRowAggregationRowType().isToAggregate())
                 {
-                	if (allCollumns)
-                	{
-                		final Number accumVal = accumIfLastRow[col.getColumnIndexOriginallyUserDefined()];
-                        if (accumVal == null) 
-                            assert false;
-                        aggregatedData [col.getColumnIndexOriginallyUserDefined()] = new LastRowAggregatedValue(accumVal);
-                	}
-                	else
-                	{
-                		final Number accumVal = accumIfLastRow[col.getColumnIndexInTableModelWhenVissible()];
-                        if (accumVal == null) 
-                            assert false;
-                        aggregatedData [col.getColumnIndexInTableModelWhenVissible()] = new LastRowAggregatedValue(accumVal);
-                	}
+            		final Number accumVal = accumIfLastRow[col.getColumnIndexOriginallyUserDefined()];
+                    if (accumVal == null) 
+                        assert false;
+                    aggregatedData [col.getColumnIndexOriginallyUserDefined()] = new LastRowAggregatedValue(accumVal);
                 }
             dataVector [numRowsDataVector -1] = aggregatedData;
         }
@@ -0,0 +1,325 @@
+package com.net2plan.gui.plugins.networkDesign.viewEditTopolTables.controlTables;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.table.TableModel;
+
+import com.net2plan.internal.ErrorHandling;
+import com.net2plan.utils.Pair;
+
+/**
+ * Row sorter of the {@link AdvancedJTable_abstractElement} tables. The values of the sorted columns are converted into primitive key arrays
+ * in the EDT, since the column functions read the design, in slices of cells run in successive events so the GUI keeps responding. Then,
+ * the row indexes are sorted with these keys in a background thread. Meanwhile, the table keeps showing the previous order: also when
+ * the sorter replaces the one of a previous model, since it starts with the view order of the elements in that sorter.
+ * Values are ordered as in {@link com.net2plan.gui.utils.TableColumnComparator}: numbers (also booleans, and pairs whose first element is a number) first,
+ * then the rest by its string representation. The aggregation row, if any, is always the last one.
+ */
+class AjtRowSorter extends RowSorter<TableModel>
+{
+    private static final int MAXSORTKEYS = 3;
+    private static final int NUMCELLSPERKEYEXTRACTIONSLICE = 10000;
+
+    private final AjtTableModel<?> model;
+    private List<SortKey> sortKeys;
+    private int [] viewToModel; // null if not sorted
+    private int [] modelToView;
+    private SwingWorker<int[],Void> sortWorker;
+    private long sortRequestId; // increased in each new sorting, so the slices of a previous one stop
+    private boolean disposed;
+
+    /** Creates the sorter of a model, initially showing its elements in the given order (e.g. the one of the sorter of a previous model),
+     * until it is sorted
+     * @param model the model
+     * @param previousElementsInViewOrder the elements in the previous view order. If empty, the model order is shown
+     */
+    AjtRowSorter (AjtTableModel<?> model , List<?> previousElementsInViewOrder)
+    {
+        this.model = model;
+        this.sortKeys = Collections.emptyList();
+        this.viewToModel = null;
+        this.modelToView = null;
+        if (!previousElementsInViewOrder.isEmpty())
+        {
+            this.viewToModel = getViewToModelInPreviousOrder(previousElementsInViewOrder , model::getRowOfElement , model.getNumberOfElementRows() , model.getRowCount());
+            this.modelToView = new int [viewToModel.length];
+            for (int index = 0; index < viewToModel.length ; index ++) modelToView [viewToModel [index]] = index;
+        }
+        this.sortWorker = null;
+        this.sortRequestId = 0;
+        this.disposed = false;
+    }
+
+    /** Stops any pending sorting. Called when the table stops using this sorter
+     */
+    void dispose ()
+    {
+        this.disposed = true;
+        if (sortWorker != null) sortWorker.cancel(true);
+    }
+
+    @Override
+    public TableModel getModel()
+    {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column)
+    {
+        if (column < 0 || column >= model.getColumnCount()) throw new IndexOutOfBoundsException("Invalid column");
+        final List<SortKey> newKeys = new ArrayList<> ();
+        final boolean wasAscending = !sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column && sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING;
+        newKeys.add(new SortKey(column, wasAscending? SortOrder.DESCENDING : SortOrder.ASCENDING));
+        for (SortKey key : sortKeys)
+            if (key.getColumn() != column && newKeys.size() < MAXSORTKEYS) newKeys.add(key);
+        setSortKeys(newKeys);
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index)
+    {
+        if (index < 0 || index >= getViewRowCount()) throw new IndexOutOfBoundsException("Invalid index");
+        return viewToModel == null? index : viewToModel [index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index)
+    {
+        if (index < 0 || index >= getModelRowCount()) throw new IndexOutOfBoundsException("Invalid index");
+        return modelToView == null? index : modelToView [index];
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys)
+    {
+        final List<SortKey> newKeys = new ArrayList<> ();
+        if (keys != null)
+            for (SortKey key : keys)
+                if (key.getColumn() >= 0 && key.getColumn() < model.getColumnCount() && key.getSortOrder() != SortOrder.UNSORTED) newKeys.add(key);
+        this.sortKeys = Collections.unmodifiableList(newKeys);
+        fireSortOrderChanged();
+        sort ();
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys()
+    {
+        return sortKeys;
+    }
+
+    @Override
+    public int getViewRowCount()
+    {
+        return model.getRowCount();
+    }
+
+    @Override
+    public int getModelRowCount()
+    {
+        return model.getRowCount();
+    }
+
+    @Override
+    public void modelStructureChanged()
+    {
+        sort ();
+    }
+
+    @Override
+    public void allRowsChanged()
+    {
+        sort ();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow)
+    {
+        sort ();
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow)
+    {
+        sort ();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow)
+    {
+        /* as DefaultRowSorter by default, updated rows do not trigger a new sorting */
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column)
+    {
+    }
+
+    private void sort ()
+    {
+        if (sortWorker != null) { sortWorker.cancel(true); sortWorker = null; }
+        final long requestId = ++ sortRequestId;
+        if (disposed) return;
+        if (sortKeys.isEmpty())
+        {
+            if (viewToModel != null) setViewToModel (null);
+            return;
+        }
+        final List<SortKey> keys = sortKeys;
+        final int numElementRows = model.getNumberOfElementRows();
+        final double [][] numericKeys = new double [keys.size()][numElementRows];
+        final String [][] stringKeys = new String [keys.size()][numElementRows]; // null if the key is numeric
+        new Runnable()
+        {
+            private int nextCell = 0; // cells of the sorted columns, column by column
+
+            @Override
+            public void run()
+            {
+                if (requestId != sortRequestId || disposed || model.isDisposed()) return;
+                final long numCells = (long) keys.size() * numElementRows;
+                try
+                {
+                    final long lastCell = Math.min(numCells, (long) nextCell + NUMCELLSPERKEYEXTRACTIONSLICE);
+                    for ( ; nextCell < lastCell ; nextCell ++)
+                    {
+                        final int contKey = nextCell / numElementRows;
+                        final int row = nextCell % numElementRows;
+                        setKey (model.getValueAt(row, keys.get(contKey).getColumn()) , contKey , row , numericKeys , stringKeys);
+                    }
+                } catch (RuntimeException e)
+                {
+                    ErrorHandling.addErrorOrException(e, AjtRowSorter.class);
+                    return;
+                }
+                if (nextCell < numCells) SwingUtilities.invokeLater(this);
+                else startSortWorker (keys , numericKeys , stringKeys);
+            }
+        }.run();
+    }
+
+    private void startSortWorker (List<SortKey> keys , double [][] numericKeys , String [][] stringKeys)
+    {
+        final int numRows = model.getRowCount();
+        final int numElementRows = model.getNumberOfElementRows();
+        final SwingWorker<int[],Void> worker = new SwingWorker<int[],Void> ()
+        {
+            @Override
+            protected int[] doInBackground() { return computeViewToModel (keys , numericKeys , stringKeys , numRows , numElementRows); }
+
+            @Override
+            protected void done()
+            {
+                if (sortWorker != this || isCancelled() || disposed) return;
+                sortWorker = null;
+                try
+                {
+                    setViewToModel(get());
+                } catch (InterruptedException | CancellationException e) { }
+                catch (ExecutionException e) { ErrorHandling.addErrorOrException(e.getCause(), AjtRowSorter.class); }
+            }
+        };
+        this.sortWorker = worker;
+        worker.execute();
+    }
+
+    static void setKey (Object value , int contKey , int row , double [][] numericKeys , String [][] stringKeys)
+    {
+        final Object keyValue = value instanceof Pair && ((Pair<?,?>) value).getFirst() instanceof Number? ((Pair<?,?>) value).getFirst() : value;
+        if (keyValue instanceof Number)
+            numericKeys [contKey][row] = ((Number) keyValue).doubleValue();
+        else if (keyValue instanceof Boolean)
+            numericKeys [contKey][row] = ((Boolean) keyValue)? 1 : 0;
+        else
+            stringKeys [contKey][row] = keyValue == null? "" : keyValue.toString();
+    }
+
+    private void setViewToModel (int [] newViewToModel)
+    {
+        final int [] previousViewToModel = new int [getViewRowCount()];
+        for (int index = 0; index < previousViewToModel.length ; index ++) previousViewToModel [index] = convertRowIndexToModel(index);
+        this.viewToModel = newViewToModel;
+        if (newViewToModel == null)
+            this.modelToView = null;
+        else
+        {
+            this.modelToView = new int [newViewToModel.length];
+            for (int index = 0; index < newViewToModel.length ; index ++) modelToView [newViewToModel [index]] = index;
+        }
+        fireRowSorterChanged(previousViewToModel);
+    }
+
+    /* The elements still in the model in their previous order, then the rest of the rows in model order (the aggregation row, if any, is the last one) */
+    static int [] getViewToModelInPreviousOrder (List<?> previousElementsInViewOrder , Function<Object,Optional<Integer>> rowOfElement , int numElementRows , int numRows)
+    {
+        final int [] res = new int [numRows];
+        final boolean [] alreadyInView = new boolean [numRows];
+        int numInView = 0;
+        for (Object element : previousElementsInViewOrder)
+        {
+            final int row = rowOfElement.apply(element).orElse(-1);
+            if (row < 0 || row >= numElementRows || alreadyInView [row]) continue;
+            alreadyInView [row] = true;
+            res [numInView ++] = row;
+        }
+        for (int row = 0; row < numRows ; row ++)
+            if (!alreadyInView [row]) res [numInView ++] = row;
+        return res;
+    }
+
+    /* Runs in a background thread, only with the keys already extracted */
+    static int [] computeViewToModel (List<SortKey> keys , double [][] numericKeys , String [][] stringKeys , int numRows , int numElementRows)
+    {
+        final int [] res = new int [numRows];
+        for (int row = 0; row < res.length ; row ++) res [row] = row;
+        sortIndexes(res , numElementRows , (row1,row2)->
+        {
+            for (int contKey = 0; contKey < keys.size() ; contKey ++)
+            {
+                final String s1 = stringKeys [contKey][row1];
+                final String s2 = stringKeys [contKey][row2];
+                final int comp;
+                if (s1 == null && s2 == null) comp = Double.compare(numericKeys [contKey][row1], numericKeys [contKey][row2]);
+                else if (s1 == null) comp = -1;
+                else if (s2 == null) comp = 1;
+                else comp = s1.compareTo(s2);
+                if (comp != 0) return keys.get(contKey).getSortOrder() == SortOrder.DESCENDING? -comp : comp;
+            }
+            return 0;
+        });
+        return res;
+    }
+
+    /* Stable merge sort of the first n indexes, using the given comparator */
+    static void sortIndexes (int [] indexes , int n , IntBinaryOperator comparator)
+    {
+        int [] from = indexes;
+        int [] to = new int [n];
+        for (int width = 1; width < n ; width *= 2)
+        {
+            if (Thread.currentThread().isInterrupted()) throw new CancellationException ();
+            for (int left = 0; left < n ; left += 2 * width)
+            {
+                final int middle = Math.min(left + width, n);
+                final int right = Math.min(left + 2 * width, n);
+                int i = left, j = middle, k = left;
+                while (i < middle && j < right) to [k ++] = comparator.applyAsInt(from [j], from [i]) < 0? from [j ++] : from [i ++];
+                while (i < middle) to [k ++] = from [i ++];
+                while (j < right) to [k ++] = from [j ++];
+            }
+            final int [] aux = from; from = to; to = aux;
+        }
+        if (from != indexes) System.arraycopy(from, 0, indexes, 0, n);
+    }
+}
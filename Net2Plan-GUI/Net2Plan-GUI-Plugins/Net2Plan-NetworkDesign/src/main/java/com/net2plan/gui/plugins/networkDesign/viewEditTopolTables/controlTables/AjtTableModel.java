@@ -0,0 +1,215 @@
+package com.net2plan.gui.plugins.networkDesign.viewEditTopolTables.controlTables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+import com.net2plan.gui.utils.LastRowAggregatedValue;
+import com.net2plan.internal.ErrorHandling;
+
+/**
+ * Table model of the {@link AdvancedJTable_abstractElement} tables. The value of a cell is computed (applying the function of its column
+ * to the element of its row) only when the cell is first requested, e.g. when the row is visible and rendered, or the column is sorted.
+ * Computed values are cached in blocks of rows until the model is replaced, what happens in each view update after a change in the design.
+ * The aggregation row (if any) is computed when first requested: at once for small tables, and for large ones in slices of rows run
+ * in successive events of the EDT, showing empty values meanwhile. The column functions read the design, so the model is only used
+ * from the EDT.
+ */
+class AjtTableModel<T> extends AbstractTableModel
+{
+    private static final int BLOCKSIZE = 1 << 10;
+    private static final int MAXROWSAGGREGATEDATONCE = 10000;
+    private static final Object NULLVALUE = new Object ();
+
+    private final List<AjtColumnInfo<T>> columns;
+    private final List<T> elements;
+    private final boolean hasAggregationRow;
+    private final Object [][][] cachedValues; // column, block of rows, row in the block. Null if not computed yet
+    private Map<T,Integer> rowIndexByElement;
+    private LastRowAggregatedValue [] aggregatedRow;
+    private boolean aggregationStarted;
+    private boolean disposed;
+
+    AjtTableModel (List<AjtColumnInfo<T>> columns , List<T> elements , boolean hasAggregationRow)
+    {
+        this.columns = columns;
+        this.elements = elements;
+        this.hasAggregationRow = hasAggregationRow;
+        this.cachedValues = new Object [columns.size()][(elements.size() + BLOCKSIZE - 1) / BLOCKSIZE][];
+        this.rowIndexByElement = null;
+        this.aggregatedRow = null;
+        this.aggregationStarted = false;
+        this.disposed = false;
+    }
+
+    List<AjtColumnInfo<T>> getColumns () { return columns; }
+
+    /** The number of rows associated to elements, that is, not counting the aggregation row or the empty row of an empty table
+     * @return see above
+     */
+    int getNumberOfElementRows () { return elements.size(); }
+
+    T getElementAtRow (int row) { return row >= 0 && row < elements.size()? elements.get(row) : null; }
+
+    synchronized Optional<Integer> getRowOfElement (Object element)
+    {
+        if (rowIndexByElement == null)
+        {
+            rowIndexByElement = new HashMap<> (2 * elements.size());
+            for (int row = 0; row < elements.size() ; row ++) rowIndexByElement.put(elements.get(row), row);
+        }
+        return Optional.ofNullable(rowIndexByElement.get(element));
+    }
+
+    /** Stops any pending computation of the aggregation row. Called when the table stops using this model
+     */
+    void dispose ()
+    {
+        this.disposed = true;
+    }
+
+    boolean isDisposed () { return disposed; }
+
+    @Override
+    public int getRowCount()
+    {
+        if (elements.isEmpty() && !hasAggregationRow) return 1;
+        return elements.size() + (hasAggregationRow? 1 : 0);
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column)
+    {
+        return columns.get(column).getHeader();
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column)
+    {
+        if (getRowCount() == 0) return Object.class;
+        final Object aux = getValueAt(0, column);
+        return aux == null ? Object.class : aux.getClass();
+    }
+
+    @Override
+    public Object getValueAt(int row, int column)
+    {
+        if (hasAggregationRow && row == elements.size()) return getAggregatedRow() [column];
+        if (row >= elements.size()) return null;
+        final Object cached = getCachedValue (row , column);
+        if (cached != null) return cached == NULLVALUE? null : cached;
+        final Object value = columns.get(column).getComputeNewValueAtFunction().apply(elements.get(row));
+        setCachedValue (row , column , value);
+        return value;
+    }
+
+    @Override
+    public void setValueAt(Object value, int row, int column)
+    {
+        if (row >= elements.size()) return;
+        setCachedValue (row , column , value);
+        fireTableCellUpdated(row, column);
+    }
+
+    private Object getCachedValue (int row , int column)
+    {
+        final Object [] block = cachedValues [column][row / BLOCKSIZE];
+        return block == null? null : block [row % BLOCKSIZE];
+    }
+
+    private void setCachedValue (int row , int column , Object value)
+    {
+        Object [] block = cachedValues [column][row / BLOCKSIZE];
+        if (block == null) { block = new Object [BLOCKSIZE]; cachedValues [column][row / BLOCKSIZE] = block; }
+        block [row % BLOCKSIZE] = value == null? NULLVALUE : value;
+    }
+
+    private LastRowAggregatedValue [] getAggregatedRow ()
+    {
+        if (aggregatedRow != null) return aggregatedRow;
+        if (elements.size() <= MAXROWSAGGREGATEDATONCE)
+        {
+            final AggregationComputation computation = new AggregationComputation();
+            computation.computeSlice(Integer.MAX_VALUE);
+            this.aggregatedRow = computation.getResult();
+            return aggregatedRow;
+        }
+        if (!aggregationStarted)
+        {
+            this.aggregationStarted = true;
+            final AggregationComputation computation = new AggregationComputation();
+            SwingUtilities.invokeLater(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    if (disposed) return;
+                    try
+                    {
+                        if (!computation.computeSlice(MAXROWSAGGREGATEDATONCE)) { SwingUtilities.invokeLater(this); return; }
+                        aggregatedRow = computation.getResult();
+                        fireTableRowsUpdated(elements.size(), elements.size());
+                    } catch (RuntimeException e)
+                    {
+                        ErrorHandling.addErrorOrException(e, AjtTableModel.class);
+                    }
+                }
+            });
+        }
+        final LastRowAggregatedValue [] emptyRow = new LastRowAggregatedValue [columns.size()];
+        Arrays.fill(emptyRow, new LastRowAggregatedValue());
+        return emptyRow;
+    }
+
+    /* Aggregated values of the columns to aggregate, accumulated row by row */
+    private class AggregationComputation
+    {
+        private final List<Integer> columnsToAggregate;
+        private final Number [] accum;
+        private int nextCell; // cells of the columns to aggregate, column by column
+
+        private AggregationComputation ()
+        {
+            this.columnsToAggregate = new ArrayList<> ();
+            for (int column = 0; column < columns.size() ; column ++)
+                if (columns.get(column).getLastRowAggregationRowType().isToAggregate()) columnsToAggregate.add(column);
+            this.accum = new Number [columns.size()];
+            for (int column : columnsToAggregate) accum [column] = 0.0;
+            this.nextCell = 0;
+        }
+
+        /* Returns true if all the cells have been aggregated */
+        private boolean computeSlice (int maxNumCells)
+        {
+            final long numCells = (long) columnsToAggregate.size() * elements.size();
+            final long lastCell = Math.min(numCells, (long) nextCell + maxNumCells);
+            for ( ; nextCell < lastCell ; nextCell ++)
+            {
+                final int column = columnsToAggregate.get(nextCell / elements.size());
+                final int row = nextCell % elements.size();
+                accum [column] = columns.get(column).getLastRowAggregationRowType().agg(getValueAt(row, column) , accum [column]).doubleValue();
+            }
+            return nextCell == numCells;
+        }
+
+        private LastRowAggregatedValue [] getResult ()
+        {
+            final LastRowAggregatedValue [] res = new LastRowAggregatedValue [columns.size()];
+            Arrays.fill(res, new LastRowAggregatedValue());
+            for (int column : columnsToAggregate) res [column] = new LastRowAggregatedValue(accum [column]);
+            return res;
+        }
+    }
+}
@@ -12,23 +12,33 @@ package com.net2plan.gui.plugins.networkDesign.visualizationControl;
 
 import com.net2plan.gui.plugins.GUINetworkDesign;
 import com.net2plan.interfaces.networkDesign.NetPlan;
+import com.net2plan.interfaces.networkDesign.NetPlanSnapshot;
 import com.net2plan.interfaces.networkDesign.NetworkLayer;
 import com.net2plan.utils.Triple;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Manages the undo/redo information, tracking the current netPlan and the visualization state
+ * Manages the undo/redo information, tracking the current netPlan and the visualization state. The most recent designs in the timeline are
+ * kept as copies of the design, so recording a change costs one copy and undoing it needs no parsing. Older designs are converted in a
+ * background thread into {@link NetPlanSnapshot} objects that share the unchanged parts with the previous one, so the memory of the timeline
+ * grows with the changes made, not with the design size
  */
 public class UndoRedoManager
 {
+    private static final int NUMSTATESKEPTASCOPIES = 2;
+
     private final GUINetworkDesign callback;
-    private LinkedList<VisualizationSnapshot> timeline;
+    private LinkedList<UndoRedoState> timeline;
     private int timelineCursor;
     private int listMaxSize;
+    private final ExecutorService compactionExecutor;
 
-    private VisualizationSnapshot backupState;
+    private UndoRedoState backupState;
 
     public UndoRedoManager(GUINetworkDesign callback, int listMaxSize)
     {
@@ -36,6 +46,7 @@ public class UndoRedoManager
         this.timelineCursor = -1;
         this.callback = callback;
         this.listMaxSize = listMaxSize;
+        this.compactionExecutor = Executors.newSingleThreadExecutor(r -> { final Thread t = new Thread(r, "Undo history compaction"); t.setDaemon(true); return t; });
     }
 
     public void addNetPlanChange()
@@ -43,17 +54,23 @@ public class UndoRedoManager
         if (this.listMaxSize <= 1) return; // nothing is stored since nothing will be retrieved
         if (callback.inOnlineSimulationMode()) return;
 
-        final VisualizationSnapshot snapshot = callback.getVisualizationState().getSnapshot().copy();
-
         // Removing all changes made after the one at the cursor
         if (timelineCursor != timeline.size() - 1)
         {
             timeline.subList(timelineCursor, timeline.size()).clear();
 
-            // Adding a copy of the current state before it was modified
+            // Adding the state before it was modified
             timeline.add(backupState);
         }
-        timeline.add(snapshot);
+        timeline.add(new UndoRedoState(callback.getVisualizationState().getSnapshot()));
+
+        /* The states before the last ones are compacted in the background, in timeline order, so each one can share with the previous */
+        if (timeline.size() > NUMSTATESKEPTASCOPIES)
+        {
+            final UndoRedoState stateToCompact = timeline.get(timeline.size() - 1 - NUMSTATESKEPTASCOPIES);
+            final UndoRedoState previousState = timeline.size() > NUMSTATESKEPTASCOPIES + 1 ? timeline.get(timeline.size() - 2 - NUMSTATESKEPTASCOPIES) : null;
+            compactionExecutor.execute(() -> stateToCompact.compact(previousState));
+        }
 
         // Remove the older changes so that the list does not bloat.
         while (timeline.size() > listMaxSize)
@@ -78,8 +95,8 @@ public class UndoRedoManager
 
         this.timelineCursor--;
 
-        final VisualizationSnapshot currentState = timeline.get(this.timelineCursor);
-        this.backupState = currentState.copy();
+        final UndoRedoState currentState = timeline.get(this.timelineCursor);
+        this.backupState = currentState;
 
         return currentState.getSnapshotDefinition();
     }
@@ -97,8 +114,8 @@ public class UndoRedoManager
 
         this.timelineCursor++;
 
-        final VisualizationSnapshot currentState = timeline.get(this.timelineCursor);
-        this.backupState = currentState.copy();
+        final UndoRedoState currentState = timeline.get(this.timelineCursor);
+        this.backupState = currentState;
 
         return currentState.getSnapshotDefinition();
     }
@@ -107,4 +124,48 @@ public class UndoRedoManager
     {
         return !(timeline.isEmpty() || this.listMaxSize <= 1 || callback.inOnlineSimulationMode());
     }
+
+    /* The states are immutable: each navigation returns a new NetPlan object, so the timeline is not affected by later changes in it.
+     * The design is kept as a copy that is never modified, until it is compacted into a snapshot */
+    private static class UndoRedoState
+    {
+        private volatile NetPlan designCopy;
+        private volatile NetPlanSnapshot design;
+        private final Map<Integer, Integer> layerOrderPerLayerIndex;
+        private final Map<Integer, Boolean> layerVisibilityPerLayerIndex;
+
+        private UndoRedoState(VisualizationSnapshot snapshot)
+        {
+            this.designCopy = snapshot.getNetPlan().copy();
+            this.design = null;
+            this.layerOrderPerLayerIndex = new HashMap<>();
+            for (Map.Entry<NetworkLayer, Integer> entry : snapshot.getMapCanvasLayerVisualizationOrder().entrySet())
+                layerOrderPerLayerIndex.put(entry.getKey().getIndex(), entry.getValue());
+            this.layerVisibilityPerLayerIndex = new HashMap<>();
+            for (Map.Entry<NetworkLayer, Boolean> entry : snapshot.getMapCanvasLayerVisibility().entrySet())
+                layerVisibilityPerLayerIndex.put(entry.getKey().getIndex(), entry.getValue());
+        }
+
+        /* Runs in the compaction thread */
+        private void compact(UndoRedoState previousState)
+        {
+            final NetPlan copy = designCopy;
+            if (copy == null) return;
+            this.design = NetPlanSnapshot.of(copy, previousState == null ? null : previousState.design);
+            this.designCopy = null;
+        }
+
+        private Triple<NetPlan, Map<NetworkLayer, Integer>, Map<NetworkLayer, Boolean>> getSnapshotDefinition()
+        {
+            final NetPlan copy = designCopy;
+            final NetPlan netPlan = copy != null ? copy.copy() : design.getNetPlan();
+            final Map<NetworkLayer, Integer> layerOrder = new HashMap<>();
+            for (Map.Entry<Integer, Integer> entry : layerOrderPerLayerIndex.entrySet())
+                layerOrder.put(netPlan.getNetworkLayer(entry.getKey()), entry.getValue());
+            final Map<NetworkLayer, Boolean> layerVisibility = new HashMap<>();
+            for (Map.Entry<Integer, Boolean> entry : layerVisibilityPerLayerIndex.entrySet())
+                layerVisibility.put(netPlan.getNetworkLayer(entry.getKey()), entry.getValue());
+            return Triple.unmodifiableOf(netPlan, layerOrder, layerVisibility);
+        }
+    }
 }
@@ -18,6 +18,8 @@ import java.awt.event.ActionListener;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.JCheckBox;
 import javax.swing.JLabel;
@@ -25,6 +27,8 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTextArea;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 import com.net2plan.gui.plugins.GUINetworkDesign;
 import com.net2plan.gui.plugins.networkDesign.visualizationControl.VisualizationState;
@@ -52,17 +56,26 @@ import com.net2plan.utils.Triple;
  */
 public class WhatIfAnalysisPane extends JPanel implements ActionListener
 {
+    private static final int DEBOUNCEDELAYMS = 300;
+
     private final GUINetworkDesign callback;
     private Thread simThread;
     private ParameterValueDescriptionPanel simulationConfigurationPanel;
     private RunnableSelector statelessSimulatorPanel;
     private final JCheckBox checkBox_whatIfActivated , checkBox_useDefaultNiwSimulator;
     private SimKernel simKernel;
+    private final Timer debounceTimer;
+    private SwingWorker<NetPlan,Void> runningAnalysis;
+    private long numModificationsNotified;
 
     public WhatIfAnalysisPane(GUINetworkDesign callback)
     {
         super();
         this.callback = callback;
+        this.debounceTimer = new Timer(DEBOUNCEDELAYMS, e -> startAnalysis());
+        this.debounceTimer.setRepeats(false);
+        this.runningAnalysis = null;
+        this.numModificationsNotified = 0;
 
         File ALGORITHMS_DIRECTORY = new File(IGUIModule.CURRENT_DIR + SystemUtils.getDirectorySeparator() + "workspace");
         ALGORITHMS_DIRECTORY = ALGORITHMS_DIRECTORY.isDirectory() ? ALGORITHMS_DIRECTORY : IGUIModule.CURRENT_DIR;
@@ -110,6 +123,7 @@ public class WhatIfAnalysisPane extends JPanel implements ActionListener
                 + "that is called after any change in the design in the user interface." + NEWLINE
                 + "The simulator will receive the current design, and should update it to reflect how the network " + NEWLINE
                 + "would react e.g. to the current failed elements and traffic demands." + NEWLINE + NEWLINE
+                + "The simulator runs in the background, and its result is shown when finished. Changes made meanwhile restart it." + NEWLINE + NEWLINE
                 + "Note: If the simulation algorithm fails when computing the new network design, the design is unchanged."
         );
         this.setLayout(new BorderLayout());
@@ -128,30 +142,73 @@ public class WhatIfAnalysisPane extends JPanel implements ActionListener
         this.add(aux_Panel, BorderLayout.CENTER);
     }
 
+    /**
+     * Schedules a what-if analysis of the current design. Successive calls within a short time are merged in one analysis, that runs in
+     * a background thread on a copy of the design. Any analysis still running is cancelled, and its result discarded. When an analysis
+     * finishes, the resulting design replaces the current one, unless the current design was modified meanwhile (e.g. moving a node in
+     * the canvas, or editing an attribute): then, the result is discarded and a new analysis is scheduled. If the simulation algorithm
+     * fails, the design is unchanged.
+     */
     public void whatIfSomethingModified() 
     {
-    	final NetPlan originalNpCopy = callback.getDesign().copy();
+    	numModificationsNotified ++;
+    	if (runningAnalysis != null) { runningAnalysis.cancel(true); runningAnalysis = null; }
+    	debounceTimer.restart();
+    }
+
+    private void startAnalysis ()
+    {
+    	if (!callback.getVisualizationState().isWhatIfAnalysisActive() || callback.inOnlineSimulationMode()) return;
+    	final long numModificationsAtStart = numModificationsNotified;
+    	final NetPlan np = callback.getDesign().copy();
+    	final long modificationStampAtStart = callback.getDesign().getModificationStamp(); // to detect changes made in the design during the analysis
+        final Map<String, String> net2planParameters = Configuration.getNet2PlanOptions();
+        final IAlgorithm algorithmInstance;
+        final Map<String, String> algorithmParameters;
     	try
     	{
-	    	final NetPlan np = callback.getDesign();
-	        final Map<String, String> net2planParameters = Configuration.getNet2PlanOptions();
 	    	if (callback.getVisualizationState().isNiwDesignButtonActive() && callback.getVisualizationState().isWhatIfAnalysisUseDefaultNiwSimulatorActive())
 	    	{
-	            final IAlgorithm algorithmInstance = new DefaultStatelessSimulator();
-	            algorithmInstance.executeAlgorithm(np, InputParameter.getDefaultParameters(algorithmInstance.getParameters()), net2planParameters);
+	            algorithmInstance = new DefaultStatelessSimulator();
+	            algorithmParameters = InputParameter.getDefaultParameters(algorithmInstance.getParameters());
 	    	}
 	    	else
 	    	{
 	            final Triple<File, String, Class> aux = statelessSimulatorPanel.getRunnable();
-	            final IAlgorithm algorithmInstance = ClassLoaderUtils.getInstance(aux.getFirst(), aux.getSecond(), IAlgorithm.class , null);
-	            Map<String, String> eventProcessorParameters = statelessSimulatorPanel.getRunnableParameters();
-	            algorithmInstance.executeAlgorithm(np, eventProcessorParameters, net2planParameters);
+	            algorithmInstance = ClassLoaderUtils.getInstance(aux.getFirst(), aux.getSecond(), IAlgorithm.class , null);
+	            algorithmParameters = statelessSimulatorPanel.getRunnableParameters();
 	    	}
         } catch (Throwable ex)
         {
         	ex.printStackTrace();
-        	callback.getDesign().assignFrom(originalNpCopy);
+        	return;
         }
+    	final SwingWorker<NetPlan,Void> analysis = new SwingWorker<NetPlan,Void> ()
+    	{
+    		@Override
+    		protected NetPlan doInBackground()
+    		{
+    			algorithmInstance.executeAlgorithm(np, algorithmParameters, net2planParameters);
+    			return np;
+    		}
+
+    		@Override
+    		protected void done()
+    		{
+    			if (runningAnalysis == this) runningAnalysis = null;
+    			if (isCancelled() || numModificationsAtStart != numModificationsNotified) return;
+    			try
+    			{
+    				final NetPlan result = get();
+    				if (!callback.getVisualizationState().isWhatIfAnalysisActive()) return;
+    				if (callback.getDesign().getModificationStamp() != modificationStampAtStart) { debounceTimer.restart(); return; }
+    				callback.setDesignAfterWhatIfAnalysis(result);
+    			} catch (InterruptedException | CancellationException e) { }
+    			catch (ExecutionException e) { e.getCause().printStackTrace(); }
+    		}
+    	};
+    	this.runningAnalysis = analysis;
+    	analysis.execute();
     }
 
 
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Pablo Pavon Marino and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the 2-clause BSD License
+ * which accompanies this distribution, and is available at
+ * https://opensource.org/licenses/BSD-2-Clause
+ *
+ * Contributors:
+ *     Pablo Pavon Marino and others - initial API and implementation
+ *******************************************************************************/
+package com.net2plan.gui.plugins.networkDesign.viewEditTopolTables.controlTables;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import javax.swing.RowSorter.SortKey;
+import javax.swing.SortOrder;
+
+import org.junit.Test;
+
+import com.net2plan.utils.Pair;
+
+public class AjtRowSorterTest
+{
+    @Test
+    public void testKeysInTableColumnComparatorOrder()
+    {
+        /* numbers, booleans and pairs starting with a number first, then the rest by their string representation (null as empty, a pair as "(c, 0)") */
+        final Object [] values = new Object [] { "b" , 3 , null , Pair.of(2.5 , "x") , true , "a" , Pair.of("c" , 0) , -1.0 };
+        final double [][] numericKeys = new double [1][values.length];
+        final String [][] stringKeys = new String [1][values.length];
+        for (int row = 0; row < values.length ; row ++) AjtRowSorter.setKey(values [row] , 0 , row , numericKeys , stringKeys);
+
+        final int [] ascending = AjtRowSorter.computeViewToModel(Collections.singletonList(new SortKey (0 , SortOrder.ASCENDING)) , numericKeys , stringKeys , values.length , values.length);
+        assertArrayEquals (new int [] { 7 , 4 , 3 , 1 , 2 , 6 , 5 , 0 } , ascending);
+        final int [] descending = AjtRowSorter.computeViewToModel(Collections.singletonList(new SortKey (0 , SortOrder.DESCENDING)) , numericKeys , stringKeys , values.length , values.length);
+        assertArrayEquals (new int [] { 0 , 5 , 6 , 2 , 1 , 3 , 4 , 7 } , descending);
+    }
+
+    @Test
+    public void testSeveralKeysAndAggregationRowLast()
+    {
+        /* five element rows and the aggregation row: sorted by the first key descending, then by the second ascending */
+        final double [][] numericKeys = new double [][] { { 1 , 2 , 1 , 2 , 1 } , { 5 , 4 , 3 , 2 , 1 } };
+        final String [][] stringKeys = new String [2][5];
+        final List<SortKey> keys = Arrays.asList(new SortKey (0 , SortOrder.DESCENDING) , new SortKey (1 , SortOrder.ASCENDING));
+        assertArrayEquals (new int [] { 3 , 1 , 4 , 2 , 0 , 5 } , AjtRowSorter.computeViewToModel(keys , numericKeys , stringKeys , 6 , 5));
+    }
+
+    @Test
+    public void testSortIndexesIsStable()
+    {
+        final Random rng = new Random (1L);
+        for (int n : new int [] { 0 , 1 , 2 , 7 , 100 , 1025 })
+        {
+            final int [] keys = new int [n];
+            for (int i = 0; i < n ; i ++) keys [i] = rng.nextInt(5);
+            final int [] indexes = new int [n + 1];
+            for (int i = 0; i < indexes.length ; i ++) indexes [i] = i;
+            AjtRowSorter.sortIndexes(indexes , n , (i1,i2) -> Integer.compare(keys [i1], keys [i2]));
+
+            /* same as a stable sort by key, the index after the first n is not moved */
+            final Integer [] expected = new Integer [n];
+            for (int i = 0; i < n ; i ++) expected [i] = i;
+            Arrays.sort(expected , (i1,i2) -> Integer.compare(keys [i1], keys [i2]));
+            final int [] expectedIndexes = new int [n + 1];
+            for (int i = 0; i < n ; i ++) expectedIndexes [i] = expected [i];
+            expectedIndexes [n] = n;
+            assertArrayEquals (expectedIndexes , indexes);
+        }
+    }
+
+    @Test
+    public void testViewToModelInPreviousOrder()
+    {
+        /* model rows: a, b, c, d and the aggregation row. Previously shown: c, x (removed), a, d */
+        final List<String> elements = Arrays.asList("a" , "b" , "c" , "d");
+        final List<String> previousElementsInViewOrder = Arrays.asList("c" , "x" , "a" , "d");
+        final int [] viewToModel = AjtRowSorter.getViewToModelInPreviousOrder(previousElementsInViewOrder , e -> elements.contains(e)? Optional.of(elements.indexOf(e)) : Optional.empty() , 4 , 5);
+        assertArrayEquals (new int [] { 2 , 0 , 3 , 1 , 4 } , viewToModel);
+    }
+}
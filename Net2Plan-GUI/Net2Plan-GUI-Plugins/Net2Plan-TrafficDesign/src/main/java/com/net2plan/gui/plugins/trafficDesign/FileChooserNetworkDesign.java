@@ -20,6 +20,7 @@ import com.net2plan.internal.SystemUtils;
 import com.net2plan.internal.plugins.IOFilter;
 import com.net2plan.internal.plugins.PluginSystem;
 import com.net2plan.io.IONet2Plan;
+import com.net2plan.io.IONet2PlanBinary;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileFilter;
@@ -44,6 +45,7 @@ public class FileChooserNetworkDesign extends FileChooserConfirmOverwrite
 
     static {
         PluginSystem.addPlugin(IOFilter.class, IONet2Plan.class);
+        PluginSystem.addPlugin(IOFilter.class, IONet2PlanBinary.class);
     }
 
     /**